@@ -0,0 +1,458 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Precompiled trie over the characters of an alphabet used to split strings into alphabet
+ * characters in a single pass.
+ */
+public final class AlphabetTrie {
+	/**
+	 * The largest char value for which the single char fast path keeps a direct lookup table.
+	 */
+	public static final int MAX_DIRECT_CHAR = Character.MAX_VALUE;
+
+	/**
+	 * The trie over the chars of the alphabet characters.
+	 */
+	private final int[] charEdgeStart, charEdgeUnit, charEdgeChild, charSymbol;
+
+	/**
+	 * The trie over the UTF-8 bytes of the alphabet characters.
+	 */
+	private final int[] byteEdgeStart, byteEdgeUnit, byteEdgeChild, byteSymbol;
+
+	/**
+	 * <code>direct[c]</code> is the index of the alphabet character made up of only the char
+	 * <code>c</code> (or -1 if there isn't one). It's <code>null</code> unless every alphabet character
+	 * is a single char.
+	 */
+	private final int[] direct;
+
+	/**
+	 * Construct an AlphabetTrie object for the given alphabet. Index i of the alphabet is reported for
+	 * <code>alphabet[i]</code>.
+	 * 
+	 * @param alphabet
+	 *            the given alphabet
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If <code>alphabet</code> is <code>null</code> or contains <code>null</code> or the
+	 *             empty string
+	 */
+	public AlphabetTrie(String[] alphabet) throws IllegalArgumentException {
+		if (alphabet == null) {
+			throw new IllegalArgumentException("\n\nGiven alphabet is null.\n");
+		}
+
+		int[][] chars = new int[alphabet.length][], bytes = new int[alphabet.length][];
+		boolean single = true;
+		int maxChar = 0;
+		for (int i = 0; i != alphabet.length; ++i) {
+			String s = alphabet[i];
+			if (s == null || s.isEmpty()) {
+				throw new IllegalArgumentException(
+						"\n\nGiven alphabet contains an empty character at index " + i + ".\n");
+			}
+
+			chars[i] = new int[s.length()];
+			for (int j = 0; j != s.length(); ++j) {
+				maxChar = Math.max(maxChar, chars[i][j] = s.charAt(j));
+			}
+			single = single && s.length() == 1;
+
+			byte[] b = s.getBytes(StandardCharsets.UTF_8);
+			bytes[i] = new int[b.length];
+			for (int j = 0; j != b.length; ++j) {
+				bytes[i][j] = b[j] & 0xFF;
+			}
+		}
+
+		int[][] trie = AlphabetTrie.build(chars);
+		this.charEdgeStart = trie[0];
+		this.charEdgeUnit = trie[1];
+		this.charEdgeChild = trie[2];
+		this.charSymbol = trie[3];
+		trie = AlphabetTrie.build(bytes);
+		this.byteEdgeStart = trie[0];
+		this.byteEdgeUnit = trie[1];
+		this.byteEdgeChild = trie[2];
+		this.byteSymbol = trie[3];
+
+		if (single && maxChar <= AlphabetTrie.MAX_DIRECT_CHAR) {
+			this.direct = new int[maxChar + 1];
+			Arrays.fill(this.direct, -1);
+			for (int i = 0; i != alphabet.length; ++i) {
+				if (this.direct[chars[i][0]] == -1) {
+					this.direct[chars[i][0]] = i;
+				}
+			}
+		} else {
+			this.direct = null;
+		}
+	}
+
+	/**
+	 * Build a trie over the given unit sequences where the edges of every node are sorted by unit.
+	 * 
+	 * @param sequences
+	 *            the given unit sequences
+	 * 
+	 * @return <code>{ edgeStart, edgeUnit, edgeChild, symbol }</code> where the edges of node i are at
+	 *         the indices in <code>[edgeStart[i], edgeStart[i + 1])</code> and <code>symbol[i]</code>
+	 *         is the index of the sequence ending at node i (or -1 if there isn't one).
+	 */
+	private static int[][] build(int[][] sequences) {
+		// Maps (node, unit) to child
+		HashMap<Long, Integer> children = new HashMap<Long, Integer>();
+		int numNodes = 1;
+		int[] end = new int[sequences.length];
+		for (int i = 0; i != sequences.length; ++i) {
+			int node = 0;
+			for (int unit : sequences[i]) {
+				Long key = ((long) node << 32) | unit;
+				Integer child = children.get(key);
+				if (child == null) {
+					children.put(key, child = numNodes++);
+				}
+				node = child;
+			}
+			end[i] = node;
+		}
+
+		int[] symbol = new int[numNodes];
+		Arrays.fill(symbol, -1);
+		for (int i = sequences.length - 1; i >= 0; --i) {
+			// The first of any duplicate sequences wins
+			symbol[end[i]] = i;
+		}
+
+		long[] keys = new long[children.size()];
+		int index = 0;
+		for (Long key : children.keySet()) {
+			keys[index++] = key;
+		}
+		// Sorting by (node, unit) groups the edges of every node in order of their unit
+		Arrays.sort(keys);
+
+		int[] edgeStart = new int[numNodes + 1], edgeUnit = new int[keys.length], edgeChild = new int[keys.length];
+		for (int i = 0; i != keys.length; ++i) {
+			++edgeStart[(int) (keys[i] >>> 32) + 1];
+			edgeUnit[i] = (int) keys[i];
+			edgeChild[i] = children.get(keys[i]);
+		}
+		for (int i = 0; i != numNodes; ++i) {
+			edgeStart[i + 1] += edgeStart[i];
+		}
+
+		int[][] result = { edgeStart, edgeUnit, edgeChild, symbol };
+		return result;
+	}
+
+	/**
+	 * @param edgeStart
+	 *            the edge offsets of the trie
+	 * @param edgeUnit
+	 *            the edge units of the trie
+	 * @param edgeChild
+	 *            the edge children of the trie
+	 * @param node
+	 *            the given node
+	 * @param unit
+	 *            the given unit
+	 * 
+	 * @return The child of <code>node</code> on <code>unit</code> (or -1 if there isn't one).
+	 */
+	private static int child(int[] edgeStart, int[] edgeUnit, int[] edgeChild, int node, int unit) {
+		int low = edgeStart[node], high = edgeStart[node + 1] - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1, midUnit = edgeUnit[mid];
+			if (midUnit < unit) {
+				low = mid + 1;
+			} else if (midUnit > unit) {
+				high = mid - 1;
+			} else {
+				return edgeChild[mid];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Throw an IllegalArgumentException since the given result array is too small.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             Always
+	 */
+	private static void resultFull() throws IllegalArgumentException {
+		throw new IllegalArgumentException("\n\nGiven result array is too small to hold every character.\n");
+	}
+
+	/**
+	 * Split <code>s[from, to)</code> into alphabet characters by repeatedly taking its shortest prefix
+	 * which is an alphabet character and write their indices into <code>result</code>.
+	 * 
+	 * @param s
+	 *            the given string
+	 * @param from
+	 *            the index of the first char
+	 * @param to
+	 *            the index after the last char
+	 * @param result
+	 *            the given result array
+	 * 
+	 * @return The number of alphabet characters written into <code>result</code> or -1 if
+	 *         <code>s[from, to)</code> isn't defined over the alphabet.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If <code>result</code> is too small to hold every alphabet character
+	 * @throws NullPointerException
+	 *             If <code>s == null</code> or <code>result == null</code>
+	 * @throws IndexOutOfBoundsException
+	 *             If <code>[from, to)</code> isn't a range of <code>s</code>
+	 */
+	public int tokenize(CharSequence s, int from, int to, int[] result)
+			throws IllegalArgumentException, NullPointerException, IndexOutOfBoundsException {
+		if (from < 0 || to > s.length() || from > to) {
+			throw new IndexOutOfBoundsException("\n\nGiven range isn't valid.\n");
+		}
+
+		int count = 0;
+		if (this.direct != null) {
+			for (int i = from, c, index; i != to; ++i) {
+				if ((c = s.charAt(i)) >= this.direct.length || (index = this.direct[c]) == -1) {
+					return -1;
+				} else if (count == result.length) {
+					AlphabetTrie.resultFull();
+				}
+				result[count++] = index;
+			}
+			return count;
+		}
+
+		int node = 0;
+		for (int i = from; i != to; ++i) {
+			if ((node = AlphabetTrie.child(this.charEdgeStart, this.charEdgeUnit, this.charEdgeChild, node,
+					s.charAt(i))) == -1) {
+				return -1;
+			} else if (this.charSymbol[node] != -1) {
+				if (count == result.length) {
+					AlphabetTrie.resultFull();
+				}
+				result[count++] = this.charSymbol[node];
+				node = 0;
+			}
+		}
+		// The last chars must make up a whole alphabet character
+		return (node == 0 ? count : -1);
+	}
+
+	/**
+	 * @param s
+	 *            the given string
+	 * @param result
+	 *            the given result array
+	 * 
+	 * @return <code>tokenize(s, 0, s.length(), result)</code>.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If <code>result</code> is too small to hold every alphabet character
+	 * @throws NullPointerException
+	 *             If <code>s == null</code> or <code>result == null</code>
+	 * 
+	 * @see #tokenize(CharSequence, int, int, int[])
+	 */
+	public int tokenize(CharSequence s, int[] result) throws IllegalArgumentException, NullPointerException {
+		return this.tokenize(s, 0, s.length(), result);
+	}
+
+	/**
+	 * @param s
+	 *            the given string
+	 * 
+	 * @return The indices of the alphabet characters that <code>s</code> is split into or
+	 *         <code>null</code> if <code>s</code> isn't defined over the alphabet.
+	 * 
+	 * @throws NullPointerException
+	 *             If <code>s == null</code>
+	 * 
+	 * @see #tokenize(CharSequence, int, int, int[])
+	 */
+	public ArrayList<Integer> tokenize(CharSequence s) throws NullPointerException {
+		// Every alphabet character is at least one char long
+		int[] symbols = new int[s.length()];
+		int length = this.tokenize(s, 0, s.length(), symbols);
+		if (length == -1) {
+			return null;
+		}
+
+		ArrayList<Integer> result = new ArrayList<Integer>(length);
+		for (int i = 0; i != length; ++i) {
+			result.add(symbols[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Split <code>s[from, to)</code> into alphabet characters by repeatedly taking its shortest prefix
+	 * which is an alphabet character and write their indices into <code>result</code>.
+	 * 
+	 * @param s
+	 *            the given char array
+	 * @param from
+	 *            the index of the first char
+	 * @param to
+	 *            the index after the last char
+	 * @param result
+	 *            the given result array
+	 * 
+	 * @return The number of alphabet characters written into <code>result</code> or -1 if
+	 *         <code>s[from, to)</code> isn't defined over the alphabet.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If <code>result</code> is too small to hold every alphabet character
+	 * @throws NullPointerException
+	 *             If <code>s == null</code> or <code>result == null</code>
+	 * @throws IndexOutOfBoundsException
+	 *             If <code>[from, to)</code> isn't a range of <code>s</code>
+	 */
+	public int tokenize(char[] s, int from, int to, int[] result)
+			throws IllegalArgumentException, NullPointerException, IndexOutOfBoundsException {
+		if (from < 0 || to > s.length || from > to) {
+			throw new IndexOutOfBoundsException("\n\nGiven range isn't valid.\n");
+		}
+
+		int count = 0;
+		if (this.direct != null) {
+			for (int i = from, c, index; i != to; ++i) {
+				if ((c = s[i]) >= this.direct.length || (index = this.direct[c]) == -1) {
+					return -1;
+				} else if (count == result.length) {
+					AlphabetTrie.resultFull();
+				}
+				result[count++] = index;
+			}
+			return count;
+		}
+
+		int node = 0;
+		for (int i = from; i != to; ++i) {
+			if ((node = AlphabetTrie.child(this.charEdgeStart, this.charEdgeUnit, this.charEdgeChild, node,
+					s[i])) == -1) {
+				return -1;
+			} else if (this.charSymbol[node] != -1) {
+				if (count == result.length) {
+					AlphabetTrie.resultFull();
+				}
+				result[count++] = this.charSymbol[node];
+				node = 0;
+			}
+		}
+		// The last chars must make up a whole alphabet character
+		return (node == 0 ? count : -1);
+	}
+
+	/**
+	 * Split the UTF-8 encoded string <code>s[from, to)</code> into alphabet characters by repeatedly
+	 * taking its shortest prefix which is (the UTF-8 encoding of) an alphabet character and write
+	 * their indices into <code>result</code>. No chars are decoded.
+	 * 
+	 * @param s
+	 *            the given UTF-8 bytes
+	 * @param from
+	 *            the index of the first byte
+	 * @param to
+	 *            the index after the last byte
+	 * @param result
+	 *            the given result array
+	 * 
+	 * @return The number of alphabet characters written into <code>result</code> or -1 if
+	 *         <code>s[from, to)</code> isn't defined over the alphabet.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If <code>result</code> is too small to hold every alphabet character
+	 * @throws NullPointerException
+	 *             If <code>s == null</code> or <code>result == null</code>
+	 * @throws IndexOutOfBoundsException
+	 *             If <code>[from, to)</code> isn't a range of <code>s</code>
+	 */
+	public int tokenize(byte[] s, int from, int to, int[] result)
+			throws IllegalArgumentException, NullPointerException, IndexOutOfBoundsException {
+		if (from < 0 || to > s.length || from > to) {
+			throw new IndexOutOfBoundsException("\n\nGiven range isn't valid.\n");
+		}
+
+		int count = 0;
+		int node = 0;
+		for (int i = from; i != to; ++i) {
+			if ((node = AlphabetTrie.child(this.byteEdgeStart, this.byteEdgeUnit, this.byteEdgeChild, node,
+					s[i] & 0xFF)) == -1) {
+				return -1;
+			} else if (this.byteSymbol[node] != -1) {
+				if (count == result.length) {
+					AlphabetTrie.resultFull();
+				}
+				result[count++] = this.byteSymbol[node];
+				node = 0;
+			}
+		}
+		// The last chars must make up a whole alphabet character
+		return (node == 0 ? count : -1);
+	}
+
+	/**
+	 * @return Whether every alphabet character is a single char (so that {@link #indexOf(char)} is a
+	 *         table lookup).
+	 */
+	public boolean isSingleChar() {
+		return this.direct != null;
+	}
+
+	/**
+	 * @param c
+	 *            the given char
+	 * 
+	 * @return The index of the alphabet character made up of only the char <code>c</code> (or -1 if there
+	 *         isn't one).
+	 */
+	public int indexOf(char c) {
+		if (this.direct != null) {
+			return (c < this.direct.length ? this.direct[c] : -1);
+		}
+
+		int node = AlphabetTrie.child(this.charEdgeStart, this.charEdgeUnit, this.charEdgeChild, 0, c);
+		return (node == -1 ? -1 : this.charSymbol[node]);
+	}
+
+	/**
+	 * @param s
+	 *            the given bytes
+	 * @param from
+	 *            the index of the first byte
+	 * @param to
+	 *            the index after the last byte
+	 * 
+	 * @return The index of the alphabet character whose UTF-8 bytes are exactly <code>s[from, to)</code>
+	 *         (or -1 if there isn't one).
+	 * 
+	 * @throws NullPointerException
+	 *             If <code>s == null</code>
+	 * @throws IndexOutOfBoundsException
+	 *             If <code>[from, to)</code> isn't a range of <code>s</code>
+	 */
+	public int indexOf(byte[] s, int from, int to) throws NullPointerException, IndexOutOfBoundsException {
+		if (from < 0 || to > s.length || from > to) {
+			throw new IndexOutOfBoundsException("\n\nGiven range isn't valid.\n");
+		}
+
+		int node = 0;
+		for (int i = from; i != to; ++i) {
+			if ((node = AlphabetTrie.child(this.byteEdgeStart, this.byteEdgeUnit, this.byteEdgeChild, node,
+					s[i] & 0xFF)) == -1) {
+				return -1;
+			}
+		}
+		return this.byteSymbol[node];
+	}
+}
@@ -0,0 +1,26 @@
+/**
+ * The bit mixing function shared by the incrementally maintained structural hashes of the machines
+ * (see <code>getStructuralHash</code> of DFA, TMS and TMSS).
+ */
+public final class HashMix {
+	/**
+	 * Don't let anyone instantiate this class.
+	 */
+	private HashMix() {
+	}
+
+	/**
+	 * The finalizer of SplitMix64, which spreads every bit of its input over all of the bits of its
+	 * result so that sums and XORs of mixed values of distinct inputs rarely collide.
+	 * 
+	 * @param x
+	 *            the given value
+	 * 
+	 * @return The mixed value of <code>x</code>.
+	 */
+	public static long mix(long x) {
+		x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+		x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+		return x ^ (x >>> 31);
+	}
+}
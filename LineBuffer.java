@@ -0,0 +1,198 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The UTF-8 bytes of a whole file together with the offsets of its lines so that machine
+ * descriptions can be parsed without allocating per line or per field.
+ */
+public final class LineBuffer {
+	/**
+	 * The largest number of digits parsed by {@link #parseDigits(int, int)}.
+	 */
+	public static final int MAX_DIGITS = 9;
+
+	/**
+	 * The bytes of the file.
+	 */
+	private final byte[] bytes;
+
+	/**
+	 * Line i is made up of the bytes at the indices in <code>[lineStart[i], lineEnd[i])</code>.
+	 */
+	private final int[] lineStart, lineEnd;
+
+	/**
+	 * The number of lines.
+	 */
+	private final int numLines;
+
+	/**
+	 * Construct a LineBuffer object by reading the whole file with the given path through a
+	 * FileChannel. Lines are split the same way as <code>Scanner.nextLine()</code> splits them (on
+	 * <code>"\r\n"</code>, <code>'\n'</code>, <code>'\r'</code>, <code>'\u2028'</code>,
+	 * <code>'\u2029'</code> and <code>'\u0085'</code>).
+	 *
+	 * @param path
+	 *            the given path
+	 *
+	 * @throws IOException
+	 *             If the file can't be read or is too large to be held in an array
+	 * @throws NullPointerException
+	 *             If <code>path == null</code>
+	 */
+	public LineBuffer(Path path) throws IOException, NullPointerException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE - 8) {
+				throw new IOException("\n\nGiven file(" + path + ") is too large.\n");
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+				// Keep reading until the buffer is full or the file has ended
+			}
+			this.bytes = buffer.array();
+		}
+
+		// Upper bound the number of lines by counting the bytes that can end a line
+		int bound = 1;
+		for (int i = 0; i != this.bytes.length; ++i) {
+			byte b = this.bytes[i];
+			bound += (b == '\n' || b == '\r' || b == (byte) 0x85 || b == (byte) 0xE2) ? 1 : 0;
+		}
+		int[] lineStart = new int[bound], lineEnd = new int[bound];
+
+		int numLines = 0, start = 0, i = 0;
+		while (i != this.bytes.length) {
+			byte b = this.bytes[i];
+			int length = 0;
+			if (b == '\n') {
+				length = 1;
+			} else if (b == '\r') {
+				length = (i + 1 != this.bytes.length && this.bytes[i + 1] == '\n') ? 2 : 1;
+			} else if (b == (byte) 0xC2 && i + 1 != this.bytes.length && this.bytes[i + 1] == (byte) 0x85) {
+				length = 2; // '\u0085'
+			} else if (b == (byte) 0xE2 && i + 2 < this.bytes.length && this.bytes[i + 1] == (byte) 0x80
+					&& (this.bytes[i + 2] == (byte) 0xA8 || this.bytes[i + 2] == (byte) 0xA9)) {
+				length = 3; // '\u2028' or '\u2029'
+			}
+
+			if (length == 0) {
+				++i;
+			} else {
+				lineStart[numLines] = start;
+				lineEnd[numLines++] = i;
+				start = i += length;
+			}
+		}
+		if (start != this.bytes.length) {
+			lineStart[numLines] = start;
+			lineEnd[numLines++] = this.bytes.length;
+		}
+
+		this.lineStart = lineStart;
+		this.lineEnd = lineEnd;
+		this.numLines = numLines;
+	}
+
+	/**
+	 * @return <code>this.bytes</code>.
+	 */
+	public byte[] getBytes() {
+		return this.bytes;
+	}
+
+	/**
+	 * @return <code>this.numLines</code>.
+	 */
+	public int getNumLines() {
+		return this.numLines;
+	}
+
+	/**
+	 * @param line
+	 *            the given line index
+	 *
+	 * @return The index of the first byte of the given line.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             If <code>line</code> isn't in the range of <code>[0, this.numLines)</code>
+	 */
+	public int getLineStart(int line) throws ArrayIndexOutOfBoundsException {
+		return this.lineStart[line];
+	}
+
+	/**
+	 * @param line
+	 *            the given line index
+	 *
+	 * @return The index after the last byte of the given line (excluding its line separator).
+	 *
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             If <code>line</code> isn't in the range of <code>[0, this.numLines)</code>
+	 */
+	public int getLineEnd(int line) throws ArrayIndexOutOfBoundsException {
+		return this.lineEnd[line];
+	}
+
+	/**
+	 * @param line
+	 *            the given line index
+	 *
+	 * @return The given line decoded into a String.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             If <code>line</code> isn't in the range of <code>[0, this.numLines)</code>
+	 */
+	public String getLine(int line) throws ArrayIndexOutOfBoundsException {
+		return new String(this.bytes, this.lineStart[line], this.lineEnd[line] - this.lineStart[line],
+				StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param from
+	 *            the index of the first byte
+	 * @param to
+	 *            the index after the last byte
+	 *
+	 * @return The non-negative integer written in <code>bytes[from, to)</code> if it's made up of
+	 *         between 1 and {@link #MAX_DIGITS} decimal digits and -1 otherwise. Any other integer that
+	 *         <code>Integer.parseInt</code> accepts is left to be parsed by it.
+	 */
+	public int parseDigits(int from, int to) {
+		if (from == to || to - from > LineBuffer.MAX_DIGITS) {
+			return -1;
+		}
+
+		int result = 0;
+		for (int i = from; i != to; ++i) {
+			int digit = this.bytes[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			result = result * 10 + digit;
+		}
+		return result;
+	}
+
+	/**
+	 * @param from
+	 *            the index to start searching from
+	 * @param to
+	 *            the index to stop searching at
+	 * @param b
+	 *            the given byte
+	 *
+	 * @return The index of the first occurrence of <code>b</code> in <code>bytes[from, to)</code> (or
+	 *         <code>to</code> if there isn't one).
+	 */
+	public int indexOf(int from, int to, byte b) {
+		while (from != to && this.bytes[from] != b) {
+			++from;
+		}
+		return from;
+	}
+}
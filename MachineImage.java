@@ -0,0 +1,441 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * A versioned binary image of a compiled machine which is loaded by memory-mapping its file.
+ * <p>
+ * An image is made up of a fixed size header followed by a payload. The header holds
+ * {@link #MAGIC}, {@link #VERSION}, the kind of the machine, 4 reserved zero bytes, the length of the
+ * payload and a CRC-32C checksum of the payload. The payload holds, in order, the int scalars, the long scalars, the
+ * strings (UTF-8, <code>null</code> allowed) and the int tables of the machine, each section prefixed
+ * with its number of entries and every entry prefixed with its length. Every value is little-endian
+ * and every table starts at a multiple of 4 bytes so that it can be viewed in place as an
+ * <code>IntBuffer</code>.
+ * <p>
+ * Mapping an image checks its header, its checksum and the bounds of every section, so a corrupted
+ * file is rejected before any of its tables is used.
+ */
+public final class MachineImage {
+	/**
+	 * The first 4 bytes of every image ("YMCI" in little-endian order).
+	 */
+	public static final int MAGIC = 0x49434D59;
+
+	/**
+	 * The version of the format written by {@link #write(Path, int, int[], long[], String[], int[][])}.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The kinds of machines.
+	 */
+	public static final int KIND_DFA = 0, KIND_TMS = 1, KIND_TMSS = 2;
+
+	/**
+	 * The size of the header in bytes.
+	 */
+	public static final int HEADER_SIZE = 32;
+
+	/**
+	 * The length of a <code>null</code> string.
+	 */
+	private static final int NULL_LENGTH = -1;
+
+	/**
+	 * The kind of the machine.
+	 */
+	private final int kind;
+
+	/**
+	 * The scalars of the machine.
+	 */
+	private final int[] ints;
+
+	/**
+	 * The long scalars of the machine.
+	 */
+	private final long[] longs;
+
+	/**
+	 * The strings of the machine.
+	 */
+	private final String[] strings;
+
+	/**
+	 * The tables of the machine as read-only views of the mapped payload.
+	 */
+	private final IntBuffer[] tables;
+
+	/**
+	 * Whether the machine class of <code>this.kind</code> has checked that the tables describe a valid
+	 * machine (so that they can be run on directly).
+	 */
+	private volatile boolean isValidated;
+
+	/**
+	 * Construct a MachineImage object by mapping the image in the file with the given path and checking
+	 * its integrity.
+	 *
+	 * @param path
+	 *            the given path
+	 * @param kind
+	 *            the expected kind of the machine
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the file isn't a valid image of a machine of the given kind
+	 * @throws IOException
+	 *             If the file can't be mapped
+	 * @throws NullPointerException
+	 *             If <code>path == null</code>
+	 */
+	private MachineImage(Path path, int kind) throws IllegalArgumentException, IOException, NullPointerException {
+		ByteBuffer file;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < MachineImage.HEADER_SIZE || size > Integer.MAX_VALUE) {
+				throw MachineImage.corrupted(path, "its size(" + size + ") isn't valid");
+			}
+			// The mapping stays valid after the channel is closed
+			file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		if (file.getInt(0) != MachineImage.MAGIC) {
+			throw MachineImage.corrupted(path, "it doesn't start with the magic number");
+		} else if (file.getInt(4) != MachineImage.VERSION) {
+			throw MachineImage.corrupted(path, "its version(" + file.getInt(4) + ") isn't supported");
+		} else if (file.getInt(8) != kind) {
+			throw MachineImage.corrupted(path, "its kind(" + file.getInt(8) + ") isn't " + kind);
+		} else if (file.getInt(12) != 0) {
+			throw MachineImage.corrupted(path, "its reserved header bytes aren't zero");
+		} else if (file.getLong(16) != file.capacity() - MachineImage.HEADER_SIZE) {
+			throw MachineImage.corrupted(path, "its payload length(" + file.getLong(16) + ") isn't valid");
+		}
+		this.kind = kind;
+
+		ByteBuffer payload = file.position(MachineImage.HEADER_SIZE).slice().order(ByteOrder.LITTLE_ENDIAN);
+		CRC32C checksum = new CRC32C();
+		checksum.update(payload.duplicate());
+		if (checksum.getValue() != file.getLong(24)) {
+			throw MachineImage.corrupted(path, "its checksum doesn't match its contents");
+		}
+
+		try {
+			ByteBuffer in = payload.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			this.ints = new int[MachineImage.count(in, Integer.BYTES)];
+			for (int i = 0; i != this.ints.length; ++i) {
+				this.ints[i] = in.getInt();
+			}
+			this.longs = new long[MachineImage.count(in, Long.BYTES)];
+			for (int i = 0; i != this.longs.length; ++i) {
+				this.longs[i] = in.getLong();
+			}
+			this.strings = new String[MachineImage.count(in, Integer.BYTES)];
+			for (int i = 0; i != this.strings.length; ++i) {
+				int length = in.getInt();
+				if (length != MachineImage.NULL_LENGTH) {
+					byte[] bytes = new byte[MachineImage.check(in, length, 1)];
+					in.get(bytes);
+					this.strings[i] = new String(bytes, StandardCharsets.UTF_8);
+					MachineImage.skipPadding(in);
+				}
+			}
+			this.tables = new IntBuffer[MachineImage.count(in, Integer.BYTES)];
+			for (int i = 0; i != this.tables.length; ++i) {
+				int length = MachineImage.check(in, in.getInt(), Integer.BYTES);
+				this.tables[i] = in.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().limit(length)
+						.asReadOnlyBuffer();
+				in.position(in.position() + length * Integer.BYTES);
+			}
+			if (in.hasRemaining()) {
+				throw MachineImage.corrupted(path, "it has trailing bytes");
+			}
+		} catch (IndexOutOfBoundsException | BufferUnderflowException ex) {
+			throw MachineImage.corrupted(path, "one of its sections is out of bounds");
+		}
+	}
+
+	/**
+	 * Map the image in the file with the given path and check its integrity.
+	 *
+	 * @param path
+	 *            the given path
+	 * @param kind
+	 *            the expected kind of the machine
+	 *
+	 * @return The mapped image.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the file isn't a valid image of a machine of the given kind
+	 * @throws IOException
+	 *             If the file can't be mapped
+	 * @throws NullPointerException
+	 *             If <code>path == null</code>
+	 */
+	public static MachineImage map(Path path, int kind)
+			throws IllegalArgumentException, IOException, NullPointerException {
+		return new MachineImage(path, kind);
+	}
+
+	/**
+	 * @param path
+	 *            the given path
+	 * @param reason
+	 *            the reason
+	 *
+	 * @return An IllegalArgumentException stating that the file with the given path isn't a valid image
+	 *         for the given reason.
+	 */
+	private static IllegalArgumentException corrupted(Path path, String reason) {
+		return new IllegalArgumentException(
+				"\n\nGiven file(" + path + ") isn't a valid machine image since " + reason + ".\n");
+	}
+
+	/**
+	 * @param in
+	 *            the given buffer
+	 * @param size
+	 *            the size of every entry in bytes
+	 *
+	 * @return The number of entries read from <code>in</code> after checking that they fit in it.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If the entries don't fit in <code>in</code>
+	 */
+	private static int count(ByteBuffer in, int size) throws IndexOutOfBoundsException {
+		return MachineImage.check(in, in.getInt(), size);
+	}
+
+	/**
+	 * @param in
+	 *            the given buffer
+	 * @param length
+	 *            the given number of entries
+	 * @param size
+	 *            the size of every entry in bytes
+	 *
+	 * @return <code>length</code> after checking that the entries fit in the rest of <code>in</code>.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If the entries don't fit in <code>in</code>
+	 */
+	private static int check(ByteBuffer in, int length, int size) throws IndexOutOfBoundsException {
+		if (length < 0 || (long) length * size > in.remaining()) {
+			throw new IndexOutOfBoundsException();
+		}
+		return length;
+	}
+
+	/**
+	 * Skip the padding after a string so that the position of the given buffer is a multiple of 4.
+	 *
+	 * @param in
+	 *            the given buffer
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If the padding doesn't fit in <code>in</code>
+	 */
+	private static void skipPadding(ByteBuffer in) throws IndexOutOfBoundsException {
+		int position = MachineImage.align(in.position());
+		in.position(in.position() + MachineImage.check(in, position - in.position(), 1));
+	}
+
+	/**
+	 * @param position
+	 *            the given position
+	 *
+	 * @return The smallest multiple of 4 which isn't less than <code>position</code>.
+	 */
+	private static int align(int position) {
+		return ((position + Integer.BYTES - 1) & -Integer.BYTES);
+	}
+
+	/**
+	 * Write the image of a machine into the file with the given path.
+	 *
+	 * @param path
+	 *            the given path
+	 * @param kind
+	 *            the kind of the machine
+	 * @param ints
+	 *            the scalars of the machine
+	 * @param longs
+	 *            the long scalars of the machine
+	 * @param strings
+	 *            the strings of the machine
+	 * @param tables
+	 *            the tables of the machine
+	 *
+	 * @throws IOException
+	 *             If the file can't be written or the image is too large
+	 * @throws NullPointerException
+	 *             If any of the arguments (other than the elements of <code>strings</code>) is
+	 *             <code>null</code>
+	 */
+	public static void write(Path path, int kind, int[] ints, long[] longs, String[] strings, int[][] tables)
+			throws IOException, NullPointerException {
+		byte[][] bytes = new byte[strings.length][];
+		long size = MachineImage.HEADER_SIZE + 4L * Integer.BYTES + (long) ints.length * Integer.BYTES
+				+ (long) longs.length * Long.BYTES;
+		for (int i = 0; i != strings.length; ++i) {
+			if (strings[i] != null) {
+				bytes[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+				size += MachineImage.align(bytes[i].length);
+			}
+			size += Integer.BYTES;
+		}
+		for (int[] table : tables) {
+			size += Integer.BYTES + (long) table.length * Integer.BYTES;
+		}
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("\n\nGiven machine is too large to be written into an image.\n");
+		}
+
+		ByteBuffer out = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+		out.position(MachineImage.HEADER_SIZE);
+		out.putInt(ints.length);
+		for (int value : ints) {
+			out.putInt(value);
+		}
+		out.putInt(longs.length);
+		for (long value : longs) {
+			out.putLong(value);
+		}
+		out.putInt(strings.length);
+		for (byte[] b : bytes) {
+			out.putInt(b == null ? MachineImage.NULL_LENGTH : b.length);
+			if (b != null) {
+				out.put(b);
+				out.position(MachineImage.align(out.position()));
+			}
+		}
+		out.putInt(tables.length);
+		for (int[] table : tables) {
+			out.putInt(table.length);
+			out.asIntBuffer().put(table);
+			out.position(out.position() + table.length * Integer.BYTES);
+		}
+
+		CRC32C checksum = new CRC32C();
+		checksum.update(out.array(), MachineImage.HEADER_SIZE, out.capacity() - MachineImage.HEADER_SIZE);
+		out.putInt(0, MachineImage.MAGIC).putInt(4, MachineImage.VERSION).putInt(8, kind).putInt(12, 0)
+				.putLong(16, out.capacity() - MachineImage.HEADER_SIZE).putLong(24, checksum.getValue());
+
+		out.clear();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+		}
+	}
+
+	/**
+	 * @return <code>this.kind</code>.
+	 */
+	public int getKind() {
+		return this.kind;
+	}
+
+	/**
+	 * @return The number of scalars.
+	 */
+	public int getNumInts() {
+		return this.ints.length;
+	}
+
+	/**
+	 * @param index
+	 *            the given index
+	 *
+	 * @return The scalar at the given index.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             If <code>index</code> isn't in the range of <code>[0, this.getNumInts())</code>
+	 */
+	public int getInt(int index) throws ArrayIndexOutOfBoundsException {
+		return this.ints[index];
+	}
+
+	/**
+	 * @return The number of long scalars.
+	 */
+	public int getNumLongs() {
+		return this.longs.length;
+	}
+
+	/**
+	 * @param index
+	 *            the given index
+	 *
+	 * @return The long scalar at the given index.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             If <code>index</code> isn't in the range of <code>[0, this.getNumLongs())</code>
+	 */
+	public long getLong(int index) throws ArrayIndexOutOfBoundsException {
+		return this.longs[index];
+	}
+
+	/**
+	 * @return The number of strings.
+	 */
+	public int getNumStrings() {
+		return this.strings.length;
+	}
+
+	/**
+	 * @param index
+	 *            the given index
+	 *
+	 * @return The string at the given index.
+	 *
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             If <code>index</code> isn't in the range of <code>[0, this.getNumStrings())</code>
+	 */
+	public String getString(int index) throws ArrayIndexOutOfBoundsException {
+		return this.strings[index];
+	}
+
+	/**
+	 * @return The number of tables.
+	 */
+	public int getNumTables() {
+		return this.tables.length;
+	}
+
+	/**
+	 * @param index
+	 *            the given index
+	 *
+	 * @return A read-only view of the mapped table at the given index (with its own position).
+	 *
+	 * @throws ArrayIndexOutOfBoundsException
+	 *             If <code>index</code> isn't in the range of <code>[0, this.getNumTables())</code>
+	 */
+	public IntBuffer getTable(int index) throws ArrayIndexOutOfBoundsException {
+		return this.tables[index].duplicate();
+	}
+
+	/**
+	 * @return <code>this.isValidated</code>.
+	 */
+	public boolean isValidated() {
+		return this.isValidated;
+	}
+
+	/**
+	 * Records that the machine class of <code>this.kind</code> has checked that the tables describe a
+	 * valid machine.
+	 */
+	void setValidated() {
+		this.isValidated = true;
+	}
+}
@@ -0,0 +1,479 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A short set of test strings which exercises every target transition of a machine that can be reached
+ * from its start state at least once, together with a report of the coverage.
+ * <p>
+ * The machine is described by the transitions that its runs take on the input characters. A
+ * transition either leads to another state, in which case the run goes on with the next input
+ * character, or ends the part of the run that can be followed (for example a Turing machine leaving its
+ * input-scanning states), in which case it's covered by a string that ends right after it. A state can
+ * also have an end target, which is covered by a string that ends in that state. The strings are built
+ * by a greedy transition tour: from the current state, an uncovered target transition of the state is
+ * taken if there is one, otherwise the run walks along a shortest path to the nearest state that has
+ * one, and a new string is started once there is no such state left in reach. Every string starts at
+ * the start state.
+ */
+public final class TransitionCover implements Iterable<ArrayList<Integer>> {
+	/**
+	 * The input alphabet of the machine.
+	 */
+	private final String[] alphabet;
+
+	/**
+	 * The label of the end targets in the report (e.g. the blank character of a Turing machine).
+	 */
+	private final String endChar;
+
+	/**
+	 * The number of states of the machine.
+	 */
+	private final int numStates;
+
+	/**
+	 * <code>next[state * alphabet.length + c]</code> is the state reached from <code>state</code> on the
+	 * input character with index <code>c</code> (or -1 if the transition ends the part of the run that
+	 * can be followed).
+	 */
+	private final int[] next;
+
+	/**
+	 * <code>target[state * alphabet.length + c]</code> is whether the transition of <code>state</code> on
+	 * the input character with index <code>c</code> should be covered.
+	 */
+	private final boolean[] target;
+
+	/**
+	 * <code>endTarget[state]</code> is whether a string should end in <code>state</code>.
+	 */
+	private final boolean[] endTarget;
+
+	/**
+	 * The input character indices that every string starts with, which aren't read by the machine.
+	 */
+	private final int[] prefix;
+
+	/**
+	 * The strings of the cover.
+	 */
+	private final ArrayList<int[]> strings;
+
+	/**
+	 * <code>covered[cell]</code> and <code>endCovered[state]</code> are whether the strings cover the
+	 * target transition and the end target.
+	 */
+	private final boolean[] covered, endCovered;
+
+	/**
+	 * The number of targets (transitions and end targets), the number of covered targets and the total
+	 * length of the strings.
+	 */
+	private final long numTargets, numCovered, totalLength;
+
+	/**
+	 * Construct a TransitionCover object for the given machine with 0 as the start state.
+	 *
+	 * @param alphabet
+	 *            the given input alphabet
+	 * @param numStates
+	 *            the given number of states
+	 * @param next
+	 *            <code>next[state * alphabet.length + c]</code> is the state reached from
+	 *            <code>state</code> on the input character with index <code>c</code> (or -1 if the
+	 *            transition ends the part of the run that can be followed)
+	 * @param target
+	 *            <code>target[state * alphabet.length + c]</code> is whether the transition of
+	 *            <code>state</code> on the input character with index <code>c</code> should be covered
+	 * @param endTarget
+	 *            <code>endTarget[state]</code> is whether a string should end in <code>state</code> (or
+	 *            <code>null</code> if there are no end targets)
+	 * @param endChar
+	 *            the label of the end targets in the report
+	 * @param prefix
+	 *            the input character indices that every string starts with, which aren't read by the
+	 *            machine (or <code>null</code> if there aren't any)
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the arrays don't describe a machine with <code>numStates</code> states over
+	 *             <code>alphabet</code>
+	 */
+	public TransitionCover(String[] alphabet, int numStates, int[] next, boolean[] target, boolean[] endTarget,
+			String endChar, int[] prefix) throws IllegalArgumentException {
+		if (alphabet == null || numStates < 1 || next == null || target == null) {
+			throw new IllegalArgumentException("\n\nGiven machine isn't valid.\n");
+		}
+		int n = numStates, s = alphabet.length;
+		if (next.length != (long) n * s || target.length != next.length
+				|| (endTarget != null && endTarget.length != n)) {
+			throw new IllegalArgumentException("\n\nGiven transitions don't match the number of states.\n");
+		}
+		for (int cell = 0; cell != next.length; ++cell) {
+			if (next[cell] < -1 || next[cell] >= n) {
+				throw new IllegalArgumentException("\n\nGiven final state(" + next[cell] + ") isn't valid.\n");
+			}
+		}
+		if (prefix != null) {
+			for (int c : prefix) {
+				if (c < 0 || c >= s) {
+					throw new IllegalArgumentException("\n\nGiven prefix character index(" + c + ") isn't valid.\n");
+				}
+			}
+		}
+		this.alphabet = alphabet.clone();
+		this.endChar = endChar;
+		this.numStates = n;
+		this.next = next.clone();
+		this.target = target.clone();
+		this.endTarget = endTarget != null ? endTarget.clone() : new boolean[n];
+		this.prefix = prefix != null ? prefix.clone() : new int[0];
+		this.strings = new ArrayList<int[]>();
+		this.covered = new boolean[next.length];
+		this.endCovered = new boolean[n];
+
+		long numTargets = 0;
+		for (int cell = 0; cell != next.length; ++cell) {
+			numTargets += this.target[cell] ? 1 : 0;
+		}
+		for (int state = 0; state != n; ++state) {
+			numTargets += this.endTarget[state] ? 1 : 0;
+		}
+		this.numTargets = numTargets;
+
+		this.tour();
+
+		long numCovered = 0, totalLength = 0;
+		for (int cell = 0; cell != next.length; ++cell) {
+			numCovered += this.covered[cell] ? 1 : 0;
+		}
+		for (int state = 0; state != n; ++state) {
+			numCovered += this.endCovered[state] ? 1 : 0;
+		}
+		for (int[] string : this.strings) {
+			totalLength += string.length;
+		}
+		this.numCovered = numCovered;
+		this.totalLength = totalLength;
+	}
+
+	/**
+	 * Build the strings of the cover.
+	 */
+	private void tour() {
+		int n = this.numStates, s = this.alphabet.length;
+
+		// Find the states that can be reached from the start state along with a shortest string to each
+		int[] parent = new int[n], queue = new int[n], visited = new int[n];
+		int epoch = 1, head = 0, tail = 0;
+		visited[0] = epoch;
+		parent[0] = -1;
+		queue[tail++] = 0;
+		while (head != tail) {
+			int state = queue[head++];
+			for (int cell = state * s; cell != (state + 1) * s; ++cell) {
+				int t = this.next[cell];
+				if (t != -1 && visited[t] != epoch) {
+					visited[t] = epoch;
+					parent[t] = cell;
+					queue[tail++] = t;
+				}
+			}
+		}
+		boolean[] reachable = new boolean[n];
+		for (int i = 0; i != tail; ++i) {
+			reachable[queue[i]] = true;
+		}
+		int[] access = parent.clone();
+
+		// pending[state] is the number of uncovered target transitions of a reachable state
+		int[] pending = new int[n];
+		long remaining = 0;
+		for (int state = 0; state != n; ++state) {
+			if (reachable[state]) {
+				for (int cell = state * s; cell != (state + 1) * s; ++cell) {
+					pending[state] += this.target[cell] ? 1 : 0;
+				}
+				remaining += pending[state];
+			}
+		}
+
+		// Uncovered target transitions of a state are found by scanning forward from a cursor since
+		// transitions never become uncovered again. Transitions which lead to a state are taken first.
+		int[] moveCursor = new int[n], endCursor = new int[n];
+		int[] string = new int[16];
+		while (remaining != 0) {
+			int state = 0, length = 0;
+			while (true) {
+				if (pending[state] != 0) {
+					int cell = this.findTarget(state, moveCursor, true);
+					if (cell == -1) {
+						cell = this.findTarget(state, endCursor, false);
+					}
+					if (length == string.length) {
+						string = Arrays.copyOf(string, 2 * length);
+					}
+					string[length++] = cell - state * s;
+					this.covered[cell] = true;
+					--pending[state];
+					--remaining;
+					if (this.next[cell] == -1) {
+						state = -1; // The string ends with this transition
+						break;
+					}
+					state = this.next[cell];
+					continue;
+				}
+
+				// Walk along a shortest path to the nearest state with an uncovered target transition
+				++epoch;
+				head = tail = 0;
+				visited[state] = epoch;
+				queue[tail++] = state;
+				int found = -1;
+				while (head != tail && found == -1) {
+					int u = queue[head++];
+					for (int cell = u * s; cell != (u + 1) * s; ++cell) {
+						int t = this.next[cell];
+						if (t != -1 && visited[t] != epoch) {
+							visited[t] = epoch;
+							parent[t] = cell;
+							if (pending[t] != 0) {
+								found = t;
+								break;
+							}
+							queue[tail++] = t;
+						}
+					}
+				}
+				if (found == -1) {
+					break;
+				}
+				int pathLength = 0;
+				for (int t = found; t != state; t = parent[t] / s) {
+					++pathLength;
+				}
+				if (length + pathLength > string.length) {
+					string = Arrays.copyOf(string, Math.max(2 * string.length, length + pathLength));
+				}
+				for (int t = found, i = length + pathLength; t != state; t = parent[t] / s) {
+					int cell = parent[t];
+					string[--i] = cell % s;
+					if (this.target[cell] && !this.covered[cell]) {
+						this.covered[cell] = true;
+						--pending[cell / s];
+						--remaining;
+					}
+				}
+				length += pathLength;
+				state = found;
+			}
+			if (state != -1) {
+				this.endCovered[state] |= this.endTarget[state];
+			}
+			this.addString(string, length);
+		}
+
+		// Every end target that wasn't reached by the end of a string gets its own shortest string
+		for (int state = 0; state != n; ++state) {
+			if (reachable[state] && this.endTarget[state] && !this.endCovered[state]) {
+				int length = 0;
+				for (int t = state; t != 0; t = access[t] / s) {
+					++length;
+				}
+				int[] a = new int[length];
+				for (int t = state, i = length; t != 0; t = access[t] / s) {
+					a[--i] = access[t] % s;
+				}
+				this.endCovered[state] = true;
+				this.addString(a, length);
+			}
+		}
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 * @param cursor
+	 *            the cursors of the states, which are moved past the covered transitions
+	 * @param move
+	 *            whether to look for a transition which leads to a state rather than one which ends the
+	 *            run
+	 *
+	 * @return The first uncovered target transition of <code>state</code> of the given kind (or -1 if
+	 *         there isn't one).
+	 */
+	private int findTarget(int state, int[] cursor, boolean move) {
+		int s = this.alphabet.length;
+		for (int c = cursor[state]; c != s; ++c) {
+			int cell = state * s + c;
+			if (this.target[cell] && !this.covered[cell] && (this.next[cell] != -1) == move) {
+				cursor[state] = c;
+				return cell;
+			}
+		}
+		cursor[state] = s;
+		return -1;
+	}
+
+	/**
+	 * Add the prefix followed by <code>string[0, length)</code> to the strings.
+	 */
+	private void addString(int[] string, int length) {
+		int[] a = new int[this.prefix.length + length];
+		System.arraycopy(this.prefix, 0, a, 0, this.prefix.length);
+		System.arraycopy(string, 0, a, this.prefix.length, length);
+		this.strings.add(a);
+	}
+
+	/**
+	 * @return The number of strings.
+	 */
+	public int getNumStrings() {
+		return this.strings.size();
+	}
+
+	/**
+	 * @return The total length of the strings.
+	 */
+	public long getTotalLength() {
+		return this.totalLength;
+	}
+
+	/**
+	 * @return A copy of the strings (of input character indices).
+	 */
+	public ArrayList<ArrayList<Integer>> getStrings() {
+		ArrayList<ArrayList<Integer>> result = new ArrayList<ArrayList<Integer>>(this.strings.size());
+		for (ArrayList<Integer> string : this) {
+			result.add(string);
+		}
+		return result;
+	}
+
+	/**
+	 * @return An iterator over the strings, which returns a new list for every string.
+	 */
+	@Override
+	public Iterator<ArrayList<Integer>> iterator() {
+		Iterator<int[]> iterator = this.strings.iterator();
+		return new Iterator<ArrayList<Integer>>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public ArrayList<Integer> next() {
+				int[] string = iterator.next();
+				ArrayList<Integer> result = new ArrayList<Integer>(string.length);
+				for (int c : string) {
+					result.add(c);
+				}
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * @return The number of targets (transitions and end targets).
+	 */
+	public long getNumTargets() {
+		return this.numTargets;
+	}
+
+	/**
+	 * @return The number of targets that the strings cover, which is every target that can be reached
+	 *         from the start state.
+	 */
+	public long getNumCovered() {
+		return this.numCovered;
+	}
+
+	/**
+	 * @return The fraction of the targets that the strings cover (1 if there are no targets).
+	 */
+	public double getCoverage() {
+		return this.numTargets != 0 ? (double) this.numCovered / this.numTargets : 1;
+	}
+
+	/**
+	 * @return The targets that the strings don't cover (since they can't be reached from the start
+	 *         state) written as <code>delta(state,char)</code>.
+	 */
+	public String[] getUncovered() {
+		int s = this.alphabet.length;
+		String[] result = new String[(int) (this.numTargets - this.numCovered)];
+		int index = 0;
+		for (int state = 0; state != this.numStates; ++state) {
+			for (int cell = state * s; cell != (state + 1) * s; ++cell) {
+				if (this.target[cell] && !this.covered[cell]) {
+					result[index++] = "delta(" + state + "," + this.alphabet[cell - state * s] + ")";
+				}
+			}
+			if (this.endTarget[state] && !this.endCovered[state]) {
+				result[index++] = "delta(" + state + "," + this.endChar + ")";
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param testStrings
+	 *            the given test strings (of input character indices which start with the prefix)
+	 *
+	 * @return The number of targets that <code>testStrings</code> cover (e.g. to compare the strings of
+	 *         a simulation with the cover).
+	 *
+	 * @throws IllegalArgumentException
+	 *             If a test string isn't valid
+	 */
+	public long getNumCovered(Iterable<ArrayList<Integer>> testStrings) throws IllegalArgumentException {
+		int s = this.alphabet.length;
+		boolean[] covered = new boolean[this.next.length], endCovered = new boolean[this.numStates];
+		long result = 0;
+		for (ArrayList<Integer> testString : testStrings) {
+			if (testString == null) {
+				throw new IllegalArgumentException("\n\nGiven test string is null.\n");
+			}
+			int state = 0;
+			for (int i = this.prefix.length; i < testString.size() && state != -1; ++i) {
+				Integer c = testString.get(i);
+				if (c == null || c < 0 || c >= s) {
+					throw new IllegalArgumentException("\n\nGiven test string(" + testString + ") isn't valid.\n");
+				}
+				int cell = state * s + c;
+				if (this.target[cell] && !covered[cell]) {
+					covered[cell] = true;
+					++result;
+				}
+				state = this.next[cell];
+			}
+			if (state != -1 && this.endTarget[state] && !endCovered[state]) {
+				endCovered[state] = true;
+				++result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return A report of the coverage.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		result.append(this.getNumStrings() + (this.getNumStrings() == 1 ? " string" : " strings"));
+		result.append(" of total length " + this.getTotalLength() + " cover " + this.getNumCovered() + " of ");
+		result.append(this.getNumTargets() + " transitions (" + String.format("%.2f", 100 * this.getCoverage())
+				+ "%).");
+		String[] uncovered = this.getUncovered();
+		if (uncovered.length != 0) {
+			result.append("\nUnreachable transitions:");
+			for (String transition : uncovered) {
+				result.append(" " + transition);
+			}
+		}
+		return result.toString();
+	}
+}
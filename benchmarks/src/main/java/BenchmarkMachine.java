@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.Scanner;
+
+import benchmark.Machine;
+
+/**
+ * The implementation of {@link Machine} which runs a {@link DFA}. It's in the default package (like
+ * DFA) and is only ever created by <code>Machines.load</code>.
+ */
+public final class BenchmarkMachine implements Machine {
+	/**
+	 * The machine.
+	 */
+	private final DFA machine;
+
+	/**
+	 * Construct a BenchmarkMachine object.
+	 *
+	 * @param description
+	 *            the given machine description (in YUFAFF)
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>description</code> isn't valid
+	 */
+	public BenchmarkMachine(String description) throws IllegalArgumentException {
+		this.machine = new DFA(new Scanner(description));
+	}
+
+	@Override
+	public Object parse(String description) {
+		return new DFA(new Scanner(description));
+	}
+
+	@Override
+	public String[] getInputAlphabet() {
+		return this.machine.getInputAlphabet();
+	}
+
+	@Override
+	public boolean accept(int[] testString) {
+		return this.machine.accept(testString);
+	}
+
+	@Override
+	public boolean accept(byte[] testString) {
+		return this.machine.accept(testString, 0);
+	}
+
+	@Override
+	public int tokenize(int[] testString, int from, int to, int[] tokens) {
+		return this.machine.tokenize(testString, from, to, tokens);
+	}
+
+	@Override
+	public int toArray(CharSequence s, int[] a) {
+		return this.machine.toArray(s, a);
+	}
+
+	@Override
+	public String simulate(Iterable<ArrayList<Integer>> testStrings) {
+		return this.machine.simulate(testStrings, false);
+	}
+
+	@Override
+	public void setStrings(int minLength, int maxLength, int maxStringCount) {
+		this.machine.setRangeString(minLength, maxLength, this.machine.getInputAlphabet()[0].repeat(minLength));
+		this.machine.setMaxStringCount(maxStringCount);
+	}
+
+	@Override
+	public String simulate() {
+		return this.machine.simulate(false);
+	}
+
+	@Override
+	public int getActualStringCount() {
+		return this.machine.getActualStringCount();
+	}
+}
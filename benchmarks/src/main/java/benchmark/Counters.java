@@ -0,0 +1,33 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The secondary throughput counters of a benchmark, which JMH reports as rates next to the number of
+ * operations per second (which depends on the number and length of the test strings of an operation).
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Counters {
+	/**
+	 * The number of input characters read (reported as symbols per second).
+	 */
+	public long symbols;
+
+	/**
+	 * The number of test strings run (reported as strings per second).
+	 */
+	public long strings;
+
+	/**
+	 * Set the counters to 0 before every iteration.
+	 */
+	@Setup(Level.Iteration)
+	public void reset() {
+		this.symbols = this.strings = 0;
+	}
+}
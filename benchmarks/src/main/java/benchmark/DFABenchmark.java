@@ -0,0 +1,196 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The benchmarks of parsing, accepting, splitting strings into input characters and simulating that
+ * every machine is run with. Every operation (other than parsing) runs all {@link #NUM_STRINGS} test
+ * strings once, and the {@link Counters} of it report the number of input characters and test strings
+ * per second. Splitting strings into maximal munch tokens is benchmarked separately on generated lexers
+ * (see {@link TokenizeDFABenchmark}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class DFABenchmark {
+	/**
+	 * The number of test strings run by every operation.
+	 */
+	public static final int NUM_STRINGS = 16;
+
+	/**
+	 * The seed of the random test strings.
+	 */
+	public static final long SEED = 50;
+
+	/**
+	 * The description of the machine (in YUFAFF).
+	 */
+	private String description;
+
+	/**
+	 * The machine.
+	 */
+	private Machine machine;
+
+	/**
+	 * The test strings as input character indices, as unsigned bytes (or null if the input alphabet is
+	 * too large) and as concatenations of input characters.
+	 */
+	private int[][] ints;
+	private byte[][] bytes;
+	private String[] texts;
+
+	/**
+	 * The test strings as simulate takes them.
+	 */
+	private ArrayList<ArrayList<Integer>> lists;
+
+	/**
+	 * The array that toArray writes into.
+	 */
+	private int[] buffer;
+
+	/**
+	 * The total length of the test strings.
+	 */
+	private long numSymbols;
+
+	/**
+	 * Load the machine and generate its test strings.
+	 *
+	 * @param description
+	 *            the given machine description (in YUFAFF)
+	 * @param length
+	 *            the given length of every test string
+	 */
+	protected void prepare(String description, int length) {
+		this.description = description;
+		this.machine = Machines.load(description);
+		String[] alphabet = this.machine.getInputAlphabet();
+		this.ints = Machines.testStrings(DFABenchmark.NUM_STRINGS, length, alphabet.length, DFABenchmark.SEED);
+		this.bytes = alphabet.length <= 1 << Byte.SIZE ? new byte[this.ints.length][] : null;
+		this.texts = new String[this.ints.length];
+		this.lists = new ArrayList<ArrayList<Integer>>(this.ints.length);
+		int maxTextLength = 0;
+		for (int k = 0; k != this.ints.length; ++k) {
+			int[] testString = this.ints[k];
+			StringBuilder text = new StringBuilder();
+			ArrayList<Integer> list = new ArrayList<Integer>(length);
+			for (int i = 0; i != length; ++i) {
+				text.append(alphabet[testString[i]]);
+				list.add(testString[i]);
+			}
+			if (this.bytes != null) {
+				this.bytes[k] = new byte[length];
+				for (int i = 0; i != length; ++i) {
+					this.bytes[k][i] = (byte) testString[i];
+				}
+			}
+			this.texts[k] = text.toString();
+			this.lists.add(list);
+			maxTextLength = Math.max(maxTextLength, this.texts[k].length());
+		}
+		this.buffer = new int[maxTextLength];
+		this.numSymbols = (long) DFABenchmark.NUM_STRINGS * length;
+	}
+
+	/**
+	 * Count an operation.
+	 *
+	 * @param counters
+	 *            the given counters
+	 */
+	private void count(Counters counters) {
+		counters.symbols += this.numSymbols;
+		counters.strings += DFABenchmark.NUM_STRINGS;
+	}
+
+	/**
+	 * @return A new machine read from the description with <code>DFA(Scanner)</code>.
+	 */
+	@Benchmark
+	public Object parse() {
+		return this.machine.parse(this.description);
+	}
+
+	/**
+	 * @param counters
+	 *            the given counters
+	 *
+	 * @return The number of test strings (of input character indices) accepted.
+	 */
+	@Benchmark
+	public int acceptInts(Counters counters) {
+		int result = 0;
+		for (int[] testString : this.ints) {
+			result += this.machine.accept(testString) ? 1 : 0;
+		}
+		this.count(counters);
+		return result;
+	}
+
+	/**
+	 * @param counters
+	 *            the given counters
+	 *
+	 * @return The number of test strings (of unsigned byte input character indices) accepted.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             If the input alphabet is too large for bytes (so that JMH reports no result for it
+	 *             rather than the rate of doing nothing)
+	 */
+	@Benchmark
+	public int acceptBytes(Counters counters) throws UnsupportedOperationException {
+		if (this.bytes == null) {
+			throw new UnsupportedOperationException("\n\nGiven machine has too many input characters("
+					+ this.machine.getInputAlphabet().length + ") for bytes.\n");
+		}
+		int result = 0;
+		for (byte[] testString : this.bytes) {
+			result += this.machine.accept(testString) ? 1 : 0;
+		}
+		this.count(counters);
+		return result;
+	}
+
+	/**
+	 * @param counters
+	 *            the given counters
+	 *
+	 * @return The total number of input characters that the test strings are split into.
+	 */
+	@Benchmark
+	public int toArray(Counters counters) {
+		int result = 0;
+		for (String text : this.texts) {
+			result += this.machine.toArray(text, this.buffer);
+		}
+		this.count(counters);
+		return result;
+	}
+
+	/**
+	 * @param counters
+	 *            the given counters
+	 *
+	 * @return The result of simulating the machine on the test strings.
+	 */
+	@Benchmark
+	public String simulate(Counters counters) {
+		String result = this.machine.simulate(this.lists);
+		this.count(counters);
+		return result;
+	}
+}
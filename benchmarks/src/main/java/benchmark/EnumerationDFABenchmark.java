@@ -0,0 +1,97 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The benchmark of simulating generated machines on the strings that they enumerate themselves (the
+ * first <code>maxStringCount</code> strings of length in the range of <code>[minLength,
+ * maxLength]</code> in order), which is what <code>DFA.simulate(boolean)</code> does. The
+ * {@link Counters} of it only report the number of strings per second since the lengths of the strings
+ * depend on the range.
+ *
+ * @see Machines#generate(int, int, Machines.Shape, long)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnumerationDFABenchmark {
+	/**
+	 * The number of states.
+	 */
+	@Param({ "16", "256", "4096" })
+	public int numStates;
+
+	/**
+	 * The input alphabet size.
+	 */
+	@Param({ "2", "16" })
+	public int alphabetSize;
+
+	/**
+	 * The shape of the machine.
+	 */
+	@Param({ "RANDOM", "SINK_HEAVY", "SELF_LOOP_HEAVY" })
+	public Machines.Shape shape;
+
+	/**
+	 * The length of the first string.
+	 */
+	@Param({ "0", "4" })
+	public int minLength;
+
+	/**
+	 * The maximum length of a string.
+	 */
+	@Param({ "8", "16" })
+	public int maxLength;
+
+	/**
+	 * The maximum number of strings.
+	 */
+	@Param({ "1000", "100000" })
+	public int maxStringCount;
+
+	/**
+	 * The machine.
+	 */
+	private Machine machine;
+
+	/**
+	 * Generate the machine and set the strings that it enumerates.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.machine = Machines.load(Machines.generate(this.numStates, this.alphabetSize, this.shape,
+				GeneratedDFABenchmark.MACHINE_SEED));
+		this.machine.setStrings(this.minLength, this.maxLength, this.maxStringCount);
+	}
+
+	/**
+	 * @param counters
+	 *            the given counters
+	 *
+	 * @return The result of simulating the machine on the strings that it enumerates.
+	 */
+	@Benchmark
+	public String simulate(Counters counters) {
+		String result = this.machine.simulate();
+		counters.strings += this.machine.getActualStringCount();
+		return result;
+	}
+}
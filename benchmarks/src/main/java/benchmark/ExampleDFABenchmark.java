@@ -0,0 +1,35 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The benchmarks of {@link DFABenchmark} on the machines in <code>finite-automaton/examples</code>.
+ *
+ * @see Machines#example(String)
+ */
+@State(Scope.Benchmark)
+public class ExampleDFABenchmark extends DFABenchmark {
+	/**
+	 * The name of the example machine.
+	 */
+	@Param({ "Third_Last_Char", "Leutonian_Words" })
+	public String example;
+
+	/**
+	 * The length of every test string.
+	 */
+	@Param({ "16", "1024", "65536" })
+	public int length;
+
+	/**
+	 * Load the machine and generate its test strings.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.prepare(Machines.example(this.example), this.length);
+	}
+}
@@ -0,0 +1,54 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The benchmarks of {@link DFABenchmark} on generated machines of every shape, size and input alphabet
+ * size.
+ *
+ * @see Machines#generate(int, int, Machines.Shape, long)
+ */
+@State(Scope.Benchmark)
+public class GeneratedDFABenchmark extends DFABenchmark {
+	/**
+	 * The seed of the random machines.
+	 */
+	public static final long MACHINE_SEED = 49;
+
+	/**
+	 * The number of states.
+	 */
+	@Param({ "16", "256", "4096" })
+	public int numStates;
+
+	/**
+	 * The input alphabet size.
+	 */
+	@Param({ "2", "16", "256" })
+	public int alphabetSize;
+
+	/**
+	 * The length of every test string.
+	 */
+	@Param({ "16", "1024", "65536" })
+	public int length;
+
+	/**
+	 * The shape of the machine.
+	 */
+	@Param({ "RANDOM", "SINK_HEAVY", "SELF_LOOP_HEAVY" })
+	public Machines.Shape shape;
+
+	/**
+	 * Generate the machine and its test strings.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.prepare(Machines.generate(this.numStates, this.alphabetSize, this.shape,
+				GeneratedDFABenchmark.MACHINE_SEED), this.length);
+	}
+}
@@ -0,0 +1,105 @@
+package benchmark;
+
+import java.util.ArrayList;
+
+/**
+ * The operations of a deterministic finite automaton that are benchmarked.
+ * <p>
+ * The machines are in the default package, which JMH doesn't allow benchmarks to be in and which
+ * classes of a named package can't refer to, so the benchmarks reach them through this interface. It
+ * has a single implementation, so its calls are inlined by the JIT compiler just like direct calls.
+ *
+ * @see Machines#load(String)
+ */
+public interface Machine {
+	/**
+	 * @param description
+	 *            the given machine description (in YUFAFF)
+	 *
+	 * @return A new machine read from <code>description</code> with <code>DFA(Scanner)</code>.
+	 */
+	Object parse(String description);
+
+	/**
+	 * @return The input alphabet of this machine.
+	 */
+	String[] getInputAlphabet();
+
+	/**
+	 * @param testString
+	 *            the given test string (of input character indices)
+	 *
+	 * @return Whether this machine accepts <code>testString</code> (see <code>DFA.accept(int[])</code>).
+	 */
+	boolean accept(int[] testString);
+
+	/**
+	 * @param testString
+	 *            the given test string (of unsigned byte input character indices)
+	 *
+	 * @return Whether this machine accepts <code>testString</code> (see
+	 *         <code>DFA.accept(byte[], int)</code>).
+	 */
+	boolean accept(byte[] testString);
+
+	/**
+	 * @param testString
+	 *            the given test string (of input character indices)
+	 * @param from
+	 *            the index of the first input character
+	 * @param to
+	 *            the index after the last input character
+	 * @param tokens
+	 *            the array that a (tokenId, start, end) triple is written into for every token
+	 *
+	 * @return The number of maximal munch tokens of <code>testString[from, to)</code> written into
+	 *         <code>tokens</code> (see <code>DFA.tokenize(int[], int, int, int[])</code>).
+	 */
+	int tokenize(int[] testString, int from, int to, int[] tokens);
+
+	/**
+	 * @param s
+	 *            the given string (written as a concatenation of input characters)
+	 * @param a
+	 *            the array that the input character indices are written into
+	 *
+	 * @return The number of input characters of <code>s</code> (see
+	 *         <code>DFA.toArray(CharSequence, int[])</code>).
+	 */
+	int toArray(CharSequence s, int[] a);
+
+	/**
+	 * @param testStrings
+	 *            the given test strings
+	 *
+	 * @return The result of simulating this machine on <code>testStrings</code> without printing (see
+	 *         <code>DFA.simulate(Iterable, boolean)</code>).
+	 */
+	String simulate(Iterable<ArrayList<Integer>> testStrings);
+
+	/**
+	 * Set the strings that {@link #simulate()} enumerates (see <code>DFA.setRangeString</code> and
+	 * <code>DFA.setMaxStringCount</code>).
+	 *
+	 * @param minLength
+	 *            the given length of the first string (which is made up of the first input character
+	 *            only)
+	 * @param maxLength
+	 *            the given maximum length of a string
+	 * @param maxStringCount
+	 *            the given maximum number of strings
+	 */
+	void setStrings(int minLength, int maxLength, int maxStringCount);
+
+	/**
+	 * @return The result of simulating this machine on the strings set by
+	 *         {@link #setStrings(int, int, int)} without printing (see <code>DFA.simulate(boolean)</code>).
+	 */
+	String simulate();
+
+	/**
+	 * @return The number of strings run by the last {@link #simulate()} (see
+	 *         <code>DFA.getActualStringCount()</code>).
+	 */
+	int getActualStringCount();
+}
@@ -0,0 +1,280 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Static helpers that load the machines and generate the inputs of the benchmarks.
+ */
+public final class Machines {
+	/**
+	 * The shape of a generated machine.
+	 */
+	public enum Shape {
+		/**
+		 * Every transition goes to a uniformly random state.
+		 */
+		RANDOM,
+
+		/**
+		 * A quarter of the states are sinks and every other transition goes to a sink with probability
+		 * 1/4 (and to a uniformly random state otherwise), so most runs end up in a sink after a few
+		 * input characters.
+		 */
+		SINK_HEAVY,
+
+		/**
+		 * Every transition is a self loop with probability 7/8 (and goes to a uniformly random state
+		 * otherwise), so runs stay in the same state for long stretches of their input.
+		 */
+		SELF_LOOP_HEAVY
+	}
+
+	/**
+	 * The largest number of input characters of a keyword of a lexer.
+	 *
+	 * @see #lexer(int, int, long)
+	 */
+	public static final int MAX_KEYWORD_LENGTH = 8;
+
+	/**
+	 * The name of the default package class which implements {@link Machine}.
+	 */
+	private static final String MACHINE_CLASS = "BenchmarkMachine";
+
+	/**
+	 * Don't let anyone instantiate this class.
+	 */
+	private Machines() {
+	}
+
+	/**
+	 * @param description
+	 *            the given machine description (in YUFAFF)
+	 *
+	 * @return The machine described by <code>description</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>description</code> isn't valid
+	 * @throws IllegalStateException
+	 *             If the machine class can't be loaded
+	 */
+	public static Machine load(String description) throws IllegalArgumentException, IllegalStateException {
+		try {
+			return (Machine) Class.forName(Machines.MACHINE_CLASS).getConstructor(String.class)
+					.newInstance(description);
+		} catch (InvocationTargetException ex) {
+			if (ex.getCause() instanceof IllegalArgumentException) {
+				throw (IllegalArgumentException) ex.getCause();
+			}
+			throw new IllegalStateException(ex.getCause());
+		} catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * @param name
+	 *            the given name of a machine in <code>finite-automaton/examples</code> (without the
+	 *            <code>.txt</code> extension)
+	 *
+	 * @return The description of the example machine called <code>name</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there's no example machine called <code>name</code>
+	 * @throws IllegalStateException
+	 *             If the example machine can't be read
+	 */
+	public static String example(String name) throws IllegalArgumentException, IllegalStateException {
+		try (InputStream in = Machines.class.getResourceAsStream("/examples/" + name + ".txt")) {
+			if (in == null) {
+				throw new IllegalArgumentException("\n\nGiven example machine(" + name + ") doesn't exist.\n");
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * @param alphabetSize
+	 *            the given input alphabet size
+	 *
+	 * @return The input alphabet of a generated machine, whose characters are the base 36 numerals of
+	 *         their indices padded to the same width (so that no character is a prefix of another one).
+	 */
+	public static String[] alphabet(int alphabetSize) {
+		int width = Integer.toString(Math.max(alphabetSize - 1, 0), Character.MAX_RADIX).length();
+		String[] result = new String[alphabetSize];
+		for (int i = 0; i != alphabetSize; ++i) {
+			String numeral = Integer.toString(i, Character.MAX_RADIX);
+			result[i] = "0".repeat(width - numeral.length()) + numeral;
+		}
+		return result;
+	}
+
+	/**
+	 * @param numStates
+	 *            the given number of states
+	 * @param alphabetSize
+	 *            the given input alphabet size
+	 * @param shape
+	 *            the given shape
+	 * @param seed
+	 *            the given seed of the random choices
+	 *
+	 * @return The description (in YUFAFF) of a machine with the given shape whose input alphabet is
+	 *         <code>alphabet(alphabetSize)</code>. The start state is never a sink, and there are both
+	 *         accept and reject states so that the machine is actually run.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>numStates &lt; 2</code> or <code>alphabetSize &lt; 1</code>
+	 */
+	public static String generate(int numStates, int alphabetSize, Shape shape, long seed)
+			throws IllegalArgumentException {
+		if (numStates < 2) {
+			throw new IllegalArgumentException("\n\nGiven number of states(" + numStates + ") is less than 2.\n");
+		} else if (alphabetSize < 1) {
+			throw new IllegalArgumentException("\n\nGiven alphabet size(" + alphabetSize + ") is less than 1.\n");
+		}
+
+		Random random = new Random(seed);
+		String[] alphabet = Machines.alphabet(alphabetSize);
+		int numSinks = shape == Shape.SINK_HEAVY ? Math.max(numStates / 4, 1) : 0;
+		int firstSink = numStates - numSinks;
+
+		// Undefined transitions are self loops, so only the other ones are written
+		StringBuilder transitions = new StringBuilder();
+		int numTransitions = 0;
+		for (int i = 0; i != firstSink; ++i) {
+			for (int j = 0; j != alphabetSize; ++j) {
+				int next;
+				if (shape == Shape.SINK_HEAVY && random.nextInt(4) == 0) {
+					next = firstSink + random.nextInt(numSinks);
+				} else if (shape == Shape.SELF_LOOP_HEAVY && random.nextInt(8) != 0) {
+					next = i;
+				} else {
+					next = random.nextInt(numStates);
+				}
+				if (next != i) {
+					transitions.append(i).append(' ').append(alphabet[j]).append(' ').append(next).append('\n');
+					++numTransitions;
+				}
+			}
+		}
+
+		// The start state rejects and the last state accepts so that there are both
+		StringBuilder accepting = new StringBuilder();
+		int numAccepting = 0;
+		for (int i = 1; i != numStates; ++i) {
+			if (i == numStates - 1 || random.nextBoolean()) {
+				accepting.append(numAccepting++ == 0 ? "" : " ").append(i);
+			}
+		}
+
+		StringBuilder result = new StringBuilder();
+		result.append(numStates).append(' ').append(alphabetSize).append(' ').append(numAccepting).append(' ');
+		result.append(numTransitions).append('\n');
+		result.append(String.join(" ", alphabet)).append('\n');
+		result.append(accepting).append('\n');
+		return result.append(transitions).toString();
+	}
+
+	/**
+	 * @param numKeywords
+	 *            the given number of keywords
+	 * @param alphabetSize
+	 *            the given input alphabet size
+	 * @param seed
+	 *            the given seed of the random choices
+	 *
+	 * @return The description (in YUFAFF) of a lexer whose input alphabet is
+	 *         <code>alphabet(alphabetSize)</code>: a trie of every input character and
+	 *         <code>numKeywords</code> random keywords of 2 to {@link #MAX_KEYWORD_LENGTH} input characters
+	 *         (whose accept states are the ends of the keywords). Every transition which leaves the trie
+	 *         goes to the last state, a rejecting sink, so the maximal munch tokens of any string are
+	 *         keywords and no longer than {@link #MAX_KEYWORD_LENGTH} input characters.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>numKeywords &lt; 0</code> or <code>alphabetSize &lt; 1</code>
+	 */
+	public static String lexer(int numKeywords, int alphabetSize, long seed) throws IllegalArgumentException {
+		if (numKeywords < 0) {
+			throw new IllegalArgumentException("\n\nGiven number of keywords(" + numKeywords + ") is negative.\n");
+		} else if (alphabetSize < 1) {
+			throw new IllegalArgumentException("\n\nGiven alphabet size(" + alphabetSize + ") is less than 1.\n");
+		}
+
+		Random random = new Random(seed);
+		String[] alphabet = Machines.alphabet(alphabetSize);
+		// Maps (node, input character index) to child, where node 0 is the root
+		HashMap<Long, Integer> children = new HashMap<Long, Integer>();
+		BitSet ends = new BitSet();
+		int numStates = 1;
+		for (int k = -alphabetSize; k != numKeywords; ++k) {
+			// The first keywords are the input characters
+			int length = k < 0 ? 1 : 2 + random.nextInt(Machines.MAX_KEYWORD_LENGTH - 1), node = 0;
+			for (int i = 0; i != length; ++i) {
+				long key = (long) node * alphabetSize + (k < 0 ? k + alphabetSize : random.nextInt(alphabetSize));
+				Integer child = children.get(key);
+				if (child == null) {
+					children.put(key, child = numStates++);
+				}
+				node = child;
+			}
+			ends.set(node);
+		}
+
+		// Undefined transitions are self loops, so every transition of the trie is written
+		int sink = numStates++;
+		StringBuilder transitions = new StringBuilder();
+		for (int i = 0; i != sink; ++i) {
+			for (int j = 0; j != alphabetSize; ++j) {
+				Integer child = children.get((long) i * alphabetSize + j);
+				transitions.append(i).append(' ').append(alphabet[j]).append(' ').append(child != null ? child : sink)
+						.append('\n');
+			}
+		}
+
+		StringBuilder accepting = new StringBuilder();
+		for (int i = ends.nextSetBit(0); i != -1; i = ends.nextSetBit(i + 1)) {
+			accepting.append(accepting.length() == 0 ? "" : " ").append(i);
+		}
+
+		StringBuilder result = new StringBuilder();
+		result.append(numStates).append(' ').append(alphabetSize).append(' ').append(ends.cardinality()).append(' ');
+		result.append(sink * alphabetSize).append('\n');
+		result.append(String.join(" ", alphabet)).append('\n');
+		result.append(accepting).append('\n');
+		return result.append(transitions).toString();
+	}
+
+	/**
+	 * @param numStrings
+	 *            the given number of strings
+	 * @param length
+	 *            the given length of every string
+	 * @param alphabetSize
+	 *            the given input alphabet size
+	 * @param seed
+	 *            the given seed of the random choices
+	 *
+	 * @return <code>numStrings</code> strings of <code>length</code> uniformly random input character
+	 *         indices.
+	 */
+	public static int[][] testStrings(int numStrings, int length, int alphabetSize, long seed) {
+		Random random = new Random(seed);
+		int[][] result = new int[numStrings][length];
+		for (int[] testString : result) {
+			for (int i = 0; i != length; ++i) {
+				testString[i] = random.nextInt(alphabetSize);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,45 @@
+package benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the given JMH command line options (all of them by default) with the
+ * GC profiler, so that the allocation rate of every benchmark is reported along with its throughput.
+ * For example, <code>java -jar benchmarks/target/benchmarks.jar GeneratedDFABenchmark.acceptBytes
+ * -p shape=SELF_LOOP_HEAVY</code>.
+ */
+public final class Main {
+	/**
+	 * Don't let anyone instantiate this class.
+	 */
+	private Main() {
+	}
+
+	/**
+	 * @param args
+	 *            the given JMH command line options
+	 *
+	 * @throws CommandLineOptionException
+	 *             If <code>args</code> aren't valid
+	 * @throws IOException
+	 *             If the list of the benchmarks can't be read
+	 * @throws RunnerException
+	 *             If a benchmark fails
+	 */
+	public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+		CommandLineOptions options = new CommandLineOptions(args);
+		if (options.shouldHelp() || options.shouldList() || options.shouldListProfilers()) {
+			// Let JMH handle the options which don't run anything
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+	}
+}
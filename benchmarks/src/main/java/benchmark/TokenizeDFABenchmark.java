@@ -0,0 +1,105 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The benchmark of splitting a single long random test string into the maximal munch tokens of a
+ * generated lexer, {@link #TOKENS_PER_CALL} tokens per call of <code>DFA.tokenize</code>. The
+ * {@link Counters} of it report the number of input characters per second.
+ *
+ * @see Machines#lexer(int, int, long)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenizeDFABenchmark {
+	/**
+	 * The largest number of tokens written by a call of <code>DFA.tokenize</code>.
+	 */
+	public static final int TOKENS_PER_CALL = 1 << 16;
+
+	/**
+	 * The number of ints of every token (see <code>DFA.TOKEN_ENTRY_SIZE</code>).
+	 */
+	private static final int TOKEN_ENTRY_SIZE = 3;
+
+	/**
+	 * The number of keywords of the lexer (on top of its input characters).
+	 */
+	@Param({ "16", "1024" })
+	public int numKeywords;
+
+	/**
+	 * The input alphabet size.
+	 */
+	@Param({ "2", "16" })
+	public int alphabetSize;
+
+	/**
+	 * The length of the test string.
+	 */
+	@Param({ "1048576", "16777216" })
+	public int length;
+
+	/**
+	 * The lexer.
+	 */
+	private Machine machine;
+
+	/**
+	 * The test string (of input character indices).
+	 */
+	private int[] testString;
+
+	/**
+	 * The array that the tokens of a call are written into.
+	 */
+	private int[] tokens;
+
+	/**
+	 * Generate the lexer and its test string.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.machine = Machines.load(Machines.lexer(this.numKeywords, this.alphabetSize,
+				GeneratedDFABenchmark.MACHINE_SEED));
+		this.testString = Machines.testStrings(1, this.length, this.alphabetSize, DFABenchmark.SEED)[0];
+		this.tokens = new int[TokenizeDFABenchmark.TOKENS_PER_CALL * TokenizeDFABenchmark.TOKEN_ENTRY_SIZE];
+	}
+
+	/**
+	 * @param counters
+	 *            the given counters
+	 *
+	 * @return The number of tokens of the test string.
+	 */
+	@Benchmark
+	public int tokenize(Counters counters) {
+		int result = 0, from = 0;
+		while (from != this.length) {
+			int count = this.machine.tokenize(this.testString, from, this.length, this.tokens);
+			result += count;
+			// Every input character is a keyword, so every call writes at least one token
+			from = this.tokens[count * TokenizeDFABenchmark.TOKEN_ENTRY_SIZE - 1];
+		}
+		counters.symbols += this.length;
+		++counters.strings;
+		return result;
+	}
+}
@@ -0,0 +1,115 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a {@link ConformanceSuite} tells apart every machine within its bound on extra states which
+ * doesn't accept the same strings as the reference, and passes every machine which does.
+ */
+class ConformanceSuiteTest {
+	/**
+	 * The number of random reference machines.
+	 */
+	private static final int NUM_REFERENCES = 150;
+
+	/**
+	 * The number of implementations that are checked against every suite.
+	 */
+	private static final int NUM_IMPLEMENTATIONS = 40;
+
+	/**
+	 * Build an implementation with <code>numStates + extraStates</code> states out of the minimal machine
+	 * of a suite. The extra states are copies of random states which some transitions are redirected to
+	 * (which keeps the language) and then a few random transitions or accept flags are changed (which
+	 * may change it, possibly only past an extra state).
+	 *
+	 * @param random
+	 *            the given source of randomness
+	 * @param suite
+	 *            the given suite
+	 *
+	 * @return The implementation.
+	 */
+	private static DFA implementation(Random random, ConformanceSuite suite) {
+		DFA reference = suite.getReference();
+		int n = suite.getNumStates(), k = suite.getExtraStates(), s = reference.getInputAlphabetSize();
+		boolean[] accepting = Arrays.copyOf(reference.getAccepting(), n + k);
+		int[][] nextState = Arrays.copyOf(reference.getNextState(), n + k);
+		int[] original = new int[n + k];
+		for (int i = 0; i != n + k; ++i) {
+			original[i] = i < n ? i : random.nextInt(n);
+			if (i >= n) {
+				accepting[i] = accepting[original[i]];
+				nextState[i] = nextState[original[i]].clone();
+			}
+		}
+		for (int i = 0; i != n + k; ++i) {
+			for (int c = 0; c != s; ++c) {
+				int t = nextState[i][c];
+				for (int copy = n; copy != n + k; ++copy) {
+					if (original[copy] == t && random.nextBoolean()) {
+						nextState[i][c] = copy;
+					}
+				}
+			}
+		}
+		for (int mutations = random.nextInt(3); mutations != 0; --mutations) {
+			int state = random.nextInt(n + k);
+			if (random.nextInt(4) == 0) {
+				accepting[state] = !accepting[state];
+			} else {
+				nextState[state][random.nextInt(s)] = random.nextInt(n + k);
+			}
+		}
+		return new DFA(n + k, reference.getInputAlphabet(), accepting, nextState);
+	}
+
+	@Test
+	void suiteIsCompleteWithinExtraStates() {
+		Random random = new Random(46);
+		int numDetected = 0;
+		for (int r = 0; r != ConformanceSuiteTest.NUM_REFERENCES; ++r) {
+			String[] inputAlphabet = MinimalDFATest.inputAlphabet(1 + random.nextInt(3));
+			DFA reference = MinimalDFATest.randomMachine(random, inputAlphabet, 1 + random.nextInt(7));
+			ConformanceSuite suite = new ConformanceSuite(reference, random.nextInt(3), r % 2 == 0);
+			assertArrayEquals(reference.getFingerprint(), suite.getReference().getFingerprint());
+
+			for (int i = 0; i != ConformanceSuiteTest.NUM_IMPLEMENTATIONS; ++i) {
+				DFA implementation = ConformanceSuiteTest.implementation(random, suite);
+				boolean equivalent = Arrays.equals(reference.getFingerprint(), implementation.getFingerprint());
+				ArrayList<Integer> failure = suite.check(implementation);
+				String message = "reference " + r + ", implementation " + i;
+				assertEquals(equivalent, failure == null, message);
+				if (failure != null) {
+					assertNotEquals(suite.accept(failure), implementation.accept(failure, 0), message);
+					++numDetected;
+				}
+			}
+		}
+		// Otherwise only equivalent implementations would have been checked
+		assertTrue(numDetected != 0);
+	}
+
+	@Test
+	void suiteHasEveryStringOfItsSize() {
+		Random random = new Random(47);
+		for (int r = 0; r != ConformanceSuiteTest.NUM_REFERENCES; ++r) {
+			String[] inputAlphabet = MinimalDFATest.inputAlphabet(1 + random.nextInt(3));
+			DFA reference = MinimalDFATest.randomMachine(random, inputAlphabet, 1 + random.nextInt(7));
+			ConformanceSuite suite = new ConformanceSuite(reference, random.nextInt(3), r % 2 == 0);
+			long size = 0;
+			for (ArrayList<Integer> testString : suite) {
+				assertTrue(reference.isValidTestString(testString));
+				++size;
+			}
+			assertEquals(suite.getSize(), size, "reference " + r);
+		}
+	}
+}
@@ -0,0 +1,172 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential tests of the blocks that {@link MinimalDFA} keeps up to date across edits against the
+ * blocks of a full minimization of the edited machine.
+ */
+class MinimalDFATest {
+	/**
+	 * The number of random machines that are edited.
+	 */
+	private static final int NUM_MACHINES = 300;
+
+	/**
+	 * The number of random edits of every machine.
+	 */
+	private static final int NUM_EDITS = 40;
+
+	/**
+	 * @param random
+	 *            the given source of randomness
+	 * @param inputAlphabet
+	 *            the given input alphabet
+	 * @param numStates
+	 *            the given number of states
+	 *
+	 * @return A random machine whose transitions mostly lead to higher states (so that an edit of a low
+	 *         state has few ancestors and is handled without a full minimization) and which has some
+	 *         undefined transitions.
+	 */
+	static DFA randomMachine(Random random, String[] inputAlphabet, int numStates) {
+		boolean[] accepting = new boolean[numStates];
+		int[][] nextState = new int[numStates][inputAlphabet.length];
+		for (int i = 0; i != numStates; ++i) {
+			accepting[i] = random.nextBoolean();
+			for (int c = 0; c != inputAlphabet.length; ++c) {
+				if (random.nextInt(8) == 0) {
+					nextState[i][c] = -1;
+				} else if (random.nextInt(6) == 0 || i == numStates - 1) {
+					nextState[i][c] = random.nextInt(numStates);
+				} else {
+					nextState[i][c] = i + 1 + random.nextInt(Math.min(numStates - i - 1, 3));
+				}
+			}
+		}
+		return new DFA(numStates, inputAlphabet, accepting, nextState);
+	}
+
+	/**
+	 * @param size
+	 *            the given number of input characters
+	 *
+	 * @return An input alphabet of the given size.
+	 */
+	static String[] inputAlphabet(int size) {
+		String[] inputAlphabet = new String[size];
+		for (int c = 0; c != size; ++c) {
+			inputAlphabet[c] = String.valueOf((char) ('a' + c));
+		}
+		return inputAlphabet;
+	}
+
+	/**
+	 * Minimize the given machine by Moore's algorithm, which splits the partition into accept and reject
+	 * states by the blocks that every transition leads to until no block is split.
+	 *
+	 * @param machine
+	 *            the given machine
+	 *
+	 * @return The block of every state, where two states are in the same block if and only if they
+	 *         accept the same strings.
+	 */
+	static int[] moore(DFA machine) {
+		int n = machine.getNumStates(), s = machine.getInputAlphabetSize();
+		int[][] nextState = machine.getNextState();
+		boolean[] accepting = machine.getAccepting();
+		int[] block = new int[n];
+		int numBlocks = 0;
+		for (int i = 0; i != n; ++i) {
+			block[i] = accepting[i] ? 1 : 0;
+			numBlocks = Math.max(numBlocks, block[i] + 1);
+		}
+		while (true) {
+			// A state's block is made up of its own block and the blocks that its transitions lead to
+			HashMap<ArrayList<Integer>, Integer> ids = new HashMap<ArrayList<Integer>, Integer>();
+			int[] refined = new int[n];
+			for (int i = 0; i != n; ++i) {
+				ArrayList<Integer> key = new ArrayList<Integer>(s + 1);
+				key.add(block[i]);
+				for (int c = 0; c != s; ++c) {
+					key.add(block[nextState[i][c]]);
+				}
+				Integer id = ids.get(key);
+				if (id == null) {
+					ids.put(key, id = ids.size());
+				}
+				refined[i] = id;
+			}
+			// Refining never merges blocks so the partition is stable once their number stays the same
+			if (ids.size() == numBlocks) {
+				return refined;
+			}
+			numBlocks = ids.size();
+			block = refined;
+		}
+	}
+
+	/**
+	 * Check that the blocks of the given MinimalDFA are the ones of a full minimization of its machine.
+	 *
+	 * @param minimal
+	 *            the given MinimalDFA
+	 * @param message
+	 *            the description of the edits that led to <code>minimal</code>
+	 */
+	private static void assertMinimal(MinimalDFA minimal, String message) {
+		DFA machine = minimal.getMachine();
+		int n = machine.getNumStates();
+		int[] expected = MinimalDFATest.moore(machine);
+		int numBlocks = 0;
+		for (int i = 0; i != n; ++i) {
+			numBlocks = Math.max(numBlocks, expected[i] + 1);
+		}
+		assertEquals(numBlocks, minimal.getNumBlocks(), message);
+		assertEquals(numBlocks, new MinimalDFA(machine).getNumBlocks(), message);
+		for (int p = 0; p != n; ++p) {
+			for (int q = p + 1; q != n; ++q) {
+				assertEquals(expected[p] == expected[q], minimal.isEquivalent(p, q),
+						message + ", states " + p + " and " + q);
+			}
+		}
+	}
+
+	@Test
+	void incrementalBlocksMatchFullMinimization() {
+		Random random = new Random(43);
+		long numEdits = 0, numFullMinimizations = 0;
+		for (int m = 0; m != MinimalDFATest.NUM_MACHINES; ++m) {
+			String[] inputAlphabet = MinimalDFATest.inputAlphabet(1 + random.nextInt(3));
+			int n = 1 + random.nextInt(m % 2 == 0 ? 8 : 80);
+			MinimalDFA minimal = new MinimalDFA(MinimalDFATest.randomMachine(random, inputAlphabet, n));
+			MinimalDFATest.assertMinimal(minimal, "machine " + m);
+			long before = minimal.getNumFullMinimizations();
+
+			for (int e = 0; e != MinimalDFATest.NUM_EDITS; ++e) {
+				// Low states have few ancestors so they're edited more often
+				int state = random.nextBoolean() ? random.nextInt(n) : random.nextInt(Math.max(n / 8, 1));
+				String readChar = inputAlphabet[random.nextInt(inputAlphabet.length)];
+				int kind = random.nextInt(4);
+				if (kind < 2) {
+					minimal.putTransition(state, readChar, random.nextInt(n), true);
+				} else if (kind == 2) {
+					minimal.resetTransition(state, readChar);
+				} else {
+					minimal.setAcceptingState(state, random.nextBoolean());
+				}
+				MinimalDFATest.assertMinimal(minimal, "machine " + m + ", edit " + e);
+			}
+			numEdits += MinimalDFATest.NUM_EDITS;
+			numFullMinimizations += minimal.getNumFullMinimizations() - before;
+		}
+		// Otherwise only the full minimization would have been tested
+		assertTrue(numFullMinimizations < numEdits / 2,
+				numFullMinimizations + " of " + numEdits + " edits minimized the whole machine");
+	}
+}
@@ -0,0 +1,119 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential tests of the results that an incremental simulation keeps up to date through its
+ * {@link RunIndex} across edits against the results of simulating the edited machine from scratch.
+ */
+class RunIndexTest {
+	/**
+	 * The number of random machines that are edited.
+	 */
+	private static final int NUM_MACHINES = 400;
+
+	/**
+	 * The number of random edits of every machine.
+	 */
+	private static final int NUM_EDITS = 40;
+
+	/**
+	 * @param random
+	 *            the given source of randomness
+	 * @param inputAlphabetSize
+	 *            the given number of input characters
+	 *
+	 * @return Random test strings (some of them more than once).
+	 */
+	private static ArrayList<ArrayList<Integer>> randomStrings(Random random, int inputAlphabetSize) {
+		ArrayList<ArrayList<Integer>> testStrings = new ArrayList<ArrayList<Integer>>();
+		for (int i = 0; i != 30; ++i) {
+			ArrayList<Integer> testString = new ArrayList<Integer>();
+			for (int length = random.nextInt(6); length != 0; --length) {
+				testString.add(random.nextInt(inputAlphabetSize));
+			}
+			testStrings.add(testString);
+			if (random.nextInt(4) == 0) {
+				testStrings.add(new ArrayList<Integer>(testString));
+			}
+		}
+		return testStrings;
+	}
+
+	/**
+	 * Simulate the given machine on the given test strings (or on the strings of its length range if
+	 * there aren't any).
+	 */
+	private static void simulate(DFA machine, ArrayList<ArrayList<Integer>> testStrings) {
+		if (testStrings != null) {
+			machine.simulate(testStrings, false);
+		} else {
+			machine.simulate(false);
+		}
+	}
+
+	@Test
+	void incrementalResultsMatchFreshSimulation() {
+		Random random = new Random(40);
+		for (int m = 0; m != RunIndexTest.NUM_MACHINES; ++m) {
+			int n = 1 + random.nextInt(m % 2 == 0 ? 6 : 60), s = 1 + random.nextInt(m % 3 == 0 ? 2 : 6);
+			String[] inputAlphabet = new String[s];
+			for (int c = 0; c != s; ++c) {
+				inputAlphabet[c] = String.format("s%02d", c);
+			}
+			// Machines with few defined transitions (or none) are simulated without running them
+			int defined = random.nextInt(100);
+			boolean[] accepting = new boolean[n];
+			int[][] nextState = new int[n][s];
+			for (int i = 0; i != n; ++i) {
+				accepting[i] = random.nextInt(3) == 0;
+				for (int c = 0; c != s; ++c) {
+					nextState[i][c] = random.nextInt(100) < defined ? random.nextInt(n) : -1;
+				}
+			}
+			DFA machine = new DFA(n, inputAlphabet, accepting, nextState);
+			machine.setIncrementalSimulation(true);
+			int minLength = random.nextInt(3), maxLength = minLength + random.nextInt(5);
+			machine.setInitialArray(new ArrayList<Integer>(Collections.nCopies(minLength, 0)));
+			machine.setLengthRange(minLength, maxLength);
+			machine.setMaxStringCount(random.nextInt(2000));
+			ArrayList<ArrayList<Integer>> testStrings = m % 4 == 3 ? RunIndexTest.randomStrings(random, s) : null;
+			RunIndexTest.simulate(machine, testStrings);
+
+			for (int e = 0; e != RunIndexTest.NUM_EDITS; ++e) {
+				int kind = random.nextInt(10), state = random.nextInt(n);
+				if (kind < 5) {
+					machine.putTransition(state, inputAlphabet[random.nextInt(s)], random.nextInt(n), true);
+				} else if (kind < 8) {
+					machine.resetTransition(state, inputAlphabet[random.nextInt(s)]);
+				} else if (kind < 9 || n > 3) {
+					machine.setAcceptingState(state, random.nextBoolean());
+				} else {
+					boolean[] states = new boolean[n];
+					for (int i = 0; i != n; ++i) {
+						states[i] = random.nextBoolean();
+					}
+					machine.setAccepting(states);
+				}
+
+				HashMap<ArrayList<Integer>, String> results = machine.getResults();
+				int acceptCount = machine.getAcceptCount(), rejectCount = machine.getRejectCount();
+				RunIndexTest.simulate(machine, testStrings);
+				String message = "machine " + m + ", edit " + e;
+				assertEquals(machine.getResults(), results, message);
+				assertEquals(machine.getAcceptCount(), acceptCount, message);
+				assertEquals(machine.getRejectCount(), rejectCount, message);
+
+				// Sometimes carry on from the results that were kept up to date instead of the fresh ones
+				if (random.nextBoolean()) {
+					RunIndexTest.simulate(machine, testStrings);
+				}
+			}
+		}
+	}
+}
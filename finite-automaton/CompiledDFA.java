@@ -0,0 +1,458 @@
+/**
+ * An immutable snapshot of a deterministic finite automaton compiled into flat primitive tables.
+ * <p>
+ * Every field is final and no table is written after construction, so a single instance can be
+ * shared by any number of threads without locking, and its <code>accept</code> methods don't
+ * allocate (except when a string has to be split into multiple char input characters). The
+ * transition table is row major and holds each state in a single byte when there are at most
+ * {@link #MAX_BYTE_NUM_STATES} states and in a char otherwise, so the tables of small machines
+ * take up a quarter of the memory of an <code>int</code> table. Renumbering the hot states of a
+ * machine first (see <code>DFA.renumberStatesByProfile</code>) before compiling it keeps the rows
+ * that are used the most next to each other.
+ * <p>
+ * A profiled snapshot (see {@link #profiled()}) shares the tables of the snapshot that it was made from
+ * and records every run of <code>accept</code> in a {@link DFAProfile}, in the stripe of the thread
+ * that runs it. Its runs take a separate loop which takes every step, so the runs of a snapshot which
+ * isn't profiled are unchanged.
+ */
+public final class CompiledDFA {
+	/**
+	 * The largest number of states for which every state is held in a single byte.
+	 */
+	public static final int MAX_BYTE_NUM_STATES = 1 << Byte.SIZE;
+
+	/**
+	 * The largest number of states that can be compiled (every state is held in at most a char).
+	 */
+	public static final int MAX_NUM_STATES = 1 << Character.SIZE;
+
+	/**
+	 * The number of states and the number of input characters.
+	 */
+	private final int numStates, inputAlphabetSize;
+
+	/**
+	 * The input alphabet (in the order of the input character indices).
+	 */
+	private final String[] inputAlphabet;
+
+	/**
+	 * The trie used to split test strings into input characters.
+	 */
+	private final AlphabetTrie inputTrie;
+
+	/**
+	 * The transition table with states held in bytes (or <code>null</code> if there are more than
+	 * {@link #MAX_BYTE_NUM_STATES} states).
+	 */
+	private final byte[] byteNextState;
+
+	/**
+	 * The transition table with states held in chars (or <code>null</code> if
+	 * <code>byteNextState</code> is used).
+	 */
+	private final char[] charNextState;
+
+	/**
+	 * <code>accepting[i]</code> is whether state i is an accept state and <code>sink[i]</code> is
+	 * whether every transition of state i is a self loop (so a run that reaches it ends there).
+	 */
+	private final boolean[] accepting, sink;
+
+	/**
+	 * The profile that every run of <code>accept</code> is recorded in (or <code>null</code> if this
+	 * snapshot isn't profiled).
+	 */
+	private final DFAProfile profile;
+
+	/**
+	 * Construct a CompiledDFA object holding a snapshot of the given machine. Later changes to the
+	 * machine don't affect the snapshot.
+	 *
+	 * @param machine
+	 *            the given machine
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>machine</code> has more than {@link #MAX_NUM_STATES} states
+	 * @throws NullPointerException
+	 *             If <code>machine == null</code>
+	 */
+	public CompiledDFA(DFA machine) throws IllegalArgumentException, NullPointerException {
+		int n = this.numStates = machine.getNumStates();
+		int s = this.inputAlphabetSize = machine.getInputAlphabetSize();
+		if (n > CompiledDFA.MAX_NUM_STATES) {
+			throw new IllegalArgumentException("\n\nGiven machine has more than " + CompiledDFA.MAX_NUM_STATES
+					+ " states so it can't be compiled.\n");
+		}
+		this.inputAlphabet = machine.getInputAlphabet();
+		this.inputTrie = new AlphabetTrie(this.inputAlphabet);
+		this.accepting = machine.getAccepting();
+
+		byte[] byteNextState = null;
+		char[] charNextState = null;
+		if (n <= CompiledDFA.MAX_BYTE_NUM_STATES) {
+			byteNextState = new byte[n * s];
+		} else {
+			charNextState = new char[n * s];
+		}
+		this.sink = new boolean[n];
+		for (int i = 0, cell = 0; i != n; ++i) {
+			int[] row = machine.getNextState(i);
+			boolean sink = true;
+			for (int j = 0; j != s; ++j, ++cell) {
+				if (byteNextState != null) {
+					byteNextState[cell] = (byte) row[j];
+				} else {
+					charNextState[cell] = (char) row[j];
+				}
+				sink = sink && row[j] == i;
+			}
+			this.sink[i] = sink;
+		}
+		this.byteNextState = byteNextState;
+		this.charNextState = charNextState;
+		this.profile = null;
+	}
+
+	/**
+	 * Construct a CompiledDFA object which shares the tables of the given snapshot and records its runs
+	 * in the given profile.
+	 *
+	 * @param machine
+	 *            the given snapshot
+	 * @param profile
+	 *            the given profile
+	 */
+	private CompiledDFA(CompiledDFA machine, DFAProfile profile) {
+		this.numStates = machine.numStates;
+		this.inputAlphabetSize = machine.inputAlphabetSize;
+		this.inputAlphabet = machine.inputAlphabet;
+		this.inputTrie = machine.inputTrie;
+		this.byteNextState = machine.byteNextState;
+		this.charNextState = machine.charNextState;
+		this.accepting = machine.accepting;
+		this.sink = machine.sink;
+		this.profile = profile;
+	}
+
+	/**
+	 * @return A snapshot of the same machine which records the number of visits of every state and the
+	 *         number of uses of every transition by its runs of <code>accept</code> in a new profile (see
+	 *         {@link #getProfile()}). Like this snapshot, it can be shared by any number of threads.
+	 */
+	public CompiledDFA profiled() {
+		return new CompiledDFA(this, new DFAProfile(this.numStates, this.inputAlphabet));
+	}
+
+	/**
+	 * @return <code>this.profile</code> (which is <code>null</code> if this snapshot isn't profiled).
+	 */
+	public DFAProfile getProfile() {
+		return this.profile;
+	}
+
+	/**
+	 * @return <code>this.numStates</code>.
+	 */
+	public int getNumStates() {
+		return this.numStates;
+	}
+
+	/**
+	 * @return <code>this.inputAlphabetSize</code>.
+	 */
+	public int getInputAlphabetSize() {
+		return this.inputAlphabetSize;
+	}
+
+	/**
+	 * @return A copy of <code>this.inputAlphabet</code>.
+	 */
+	public String[] getInputAlphabet() {
+		return this.inputAlphabet.clone();
+	}
+
+	/**
+	 * @return Whether every state is held in a single byte.
+	 */
+	public boolean isByteEncoded() {
+		return (this.byteNextState != null);
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 * @param readCharIndex
+	 *            the given input character index
+	 *
+	 * @return <code>delta(state, readCharIndex)</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> or <code>readCharIndex</code> isn't valid
+	 */
+	public int getNextState(int state, int readCharIndex) throws IllegalArgumentException {
+		this.validateState(state);
+		this.validateInputCharIndex(readCharIndex);
+		return this.next(state, readCharIndex);
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 *
+	 * @return Whether <code>state</code> is an accept state.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't valid
+	 */
+	public boolean isAccepting(int state) throws IllegalArgumentException {
+		this.validateState(state);
+		return this.accepting[state];
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 * @param readCharIndex
+	 *            the given input character index
+	 *
+	 * @return <code>delta(state, readCharIndex)</code> assuming that both arguments are valid.
+	 */
+	private int next(int state, int readCharIndex) {
+		int cell = state * this.inputAlphabetSize + readCharIndex;
+		return (this.byteNextState != null ? this.byteNextState[cell] & 0xFF : this.charNextState[cell]);
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't in the range of <code>[0, numStates)</code>
+	 */
+	private void validateState(int state) throws IllegalArgumentException {
+		if (state < 0 || state >= this.numStates) {
+			throw new IllegalArgumentException(
+					"\n\nGiven state(" + state + ") isn't in the range of [0, " + (this.numStates - 1) + "].\n");
+		}
+	}
+
+	/**
+	 * @param index
+	 *            the given input character index
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>index</code> isn't in the range of <code>[0, inputAlphabetSize)</code>
+	 */
+	private void validateInputCharIndex(int index) throws IllegalArgumentException {
+		if (index < 0 || index >= this.inputAlphabetSize) {
+			throw new IllegalArgumentException("\n\nGiven input character index(" + index
+					+ ") isn't in the range of [0, " + (this.inputAlphabetSize - 1) + "].\n");
+		}
+	}
+
+	/**
+	 * Run this machine on <code>testString[from, to)</code> (of input character indices) starting from
+	 * the given state. A run stops as soon as it reaches a sink (unless this snapshot is profiled).
+	 *
+	 * @param testString
+	 *            the given test string
+	 * @param from
+	 *            the index of the first input character
+	 * @param to
+	 *            the index after the last input character
+	 * @param state
+	 *            the given initial state
+	 *
+	 * @return Whether the run ends in an accept state.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>[from, to)</code> isn't a range of <code>testString</code> or it contains an
+	 *             invalid input character index or <code>state</code> isn't valid
+	 */
+	public boolean accept(int[] testString, int from, int to, int state) throws IllegalArgumentException {
+		if (testString == null || from < 0 || to > testString.length || from > to) {
+			throw new IllegalArgumentException("\n\nGiven test string range isn't valid.\n");
+		}
+		this.validateState(state);
+		DFAProfile profile = this.profile;
+		if (profile != null) {
+			return this.accepting[this.runProfiled(profile.getStripe(), testString, null, from, to, state)];
+		}
+
+		int s = this.inputAlphabetSize, i = from;
+		if (this.byteNextState != null) {
+			byte[] nextState = this.byteNextState;
+			for (int c; i != to && !this.sink[state]; ++i) {
+				if ((c = testString[i]) < 0 || c >= s) {
+					this.validateInputCharIndex(c);
+				}
+				state = nextState[state * s + c] & 0xFF;
+			}
+		} else {
+			char[] nextState = this.charNextState;
+			for (int c; i != to && !this.sink[state]; ++i) {
+				if ((c = testString[i]) < 0 || c >= s) {
+					this.validateInputCharIndex(c);
+				}
+				state = nextState[state * s + c];
+			}
+		}
+		// The rest of a run that stopped at a sink still has to be valid
+		for (; i != to; ++i) {
+			this.validateInputCharIndex(testString[i]);
+		}
+		return this.accepting[state];
+	}
+
+	/**
+	 * @param testString
+	 *            the given test string
+	 *
+	 * @return <code>accept(testString, 0, testString.length, 0)</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>testString</code> is <code>null</code> or contains an invalid input
+	 *             character index
+	 */
+	public boolean accept(int[] testString) throws IllegalArgumentException {
+		if (testString == null) {
+			throw new IllegalArgumentException("\n\nGiven test string is null.\n");
+		}
+		return this.accept(testString, 0, testString.length, 0);
+	}
+
+	/**
+	 * Run this machine on <code>testString[from, to)</code> where every byte is an (unsigned) input
+	 * character index starting from the given state. A run stops as soon as it reaches a sink (unless
+	 * this snapshot is profiled).
+	 *
+	 * @param testString
+	 *            the given test string
+	 * @param from
+	 *            the index of the first input character
+	 * @param to
+	 *            the index after the last input character
+	 * @param state
+	 *            the given initial state
+	 *
+	 * @return Whether the run ends in an accept state.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>[from, to)</code> isn't a range of <code>testString</code> or it contains an
+	 *             invalid input character index or <code>state</code> isn't valid
+	 */
+	public boolean accept(byte[] testString, int from, int to, int state) throws IllegalArgumentException {
+		if (testString == null || from < 0 || to > testString.length || from > to) {
+			throw new IllegalArgumentException("\n\nGiven test string range isn't valid.\n");
+		}
+		this.validateState(state);
+		DFAProfile profile = this.profile;
+		if (profile != null) {
+			return this.accepting[this.runProfiled(profile.getStripe(), null, testString, from, to, state)];
+		}
+
+		int s = this.inputAlphabetSize, i = from;
+		for (int c; i != to && !this.sink[state]; ++i) {
+			if ((c = testString[i] & 0xFF) >= s) {
+				this.validateInputCharIndex(c);
+			}
+			state = this.next(state, c);
+		}
+		// The rest of a run that stopped at a sink still has to be valid
+		for (; i != to; ++i) {
+			this.validateInputCharIndex(testString[i] & 0xFF);
+		}
+		return this.accepting[state];
+	}
+
+	/**
+	 * @param testString
+	 *            the given test string
+	 *
+	 * @return <code>accept(testString, 0, testString.length, 0)</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>testString</code> is <code>null</code> or contains an invalid input
+	 *             character index
+	 */
+	public boolean accept(byte[] testString) throws IllegalArgumentException {
+		if (testString == null) {
+			throw new IllegalArgumentException("\n\nGiven test string is null.\n");
+		}
+		return this.accept(testString, 0, testString.length, 0);
+	}
+
+	/**
+	 * Run this machine on the input characters in <code>[from, to)</code> of either <code>ints</code> or
+	 * <code>bytes</code> (whichever isn't <code>null</code>) assuming that the range and
+	 * <code>state</code> are valid, recording every step in the given stripe. The run takes every step
+	 * (it doesn't stop at sinks), and nothing is recorded if the range contains an invalid input character
+	 * index.
+	 *
+	 * @return The state that the run ends in.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the range contains an invalid input character index
+	 */
+	private int runProfiled(DFAProfile.Stripe stripe, int[] ints, byte[] bytes, int from, int to, int state)
+			throws IllegalArgumentException {
+		for (int i = from; i != to; ++i) {
+			this.validateInputCharIndex(ints != null ? ints[i] : bytes[i] & 0xFF);
+		}
+
+		int s = this.inputAlphabetSize;
+		long[] stateCounts = stripe.stateCounts, transitionCounts = stripe.transitionCounts;
+		++stripe.numRuns;
+		++stateCounts[state];
+		for (int i = from; i != to; ++i) {
+			int c = ints != null ? ints[i] : bytes[i] & 0xFF;
+			++transitionCounts[state * s + c];
+			++stateCounts[state = this.next(state, c)];
+		}
+		return state;
+	}
+
+	/**
+	 * Run this machine on <code>testString</code> (written as a concatenation of input characters)
+	 * starting from the start state. No allocation is made when every input character is a single
+	 * char (and this snapshot isn't profiled).
+	 *
+	 * @param testString
+	 *            the given test string
+	 *
+	 * @return Whether the run ends in an accept state.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>testString</code> is <code>null</code> or isn't defined over the input
+	 *             alphabet
+	 */
+	public boolean accept(CharSequence testString) throws IllegalArgumentException {
+		if (testString == null) {
+			throw new IllegalArgumentException("\n\nGiven test string is null.\n");
+		}
+
+		int state = 0, length = testString.length();
+		if (this.inputTrie.isSingleChar() && this.profile == null) {
+			boolean defined = true;
+			for (int i = 0, index; i != length; ++i) {
+				if ((index = this.inputTrie.indexOf(testString.charAt(i))) == -1) {
+					defined = false;
+					break;
+				}
+				state = this.next(state, index);
+			}
+			if (defined) {
+				return this.accepting[state];
+			}
+		} else {
+			int[] indices = new int[length];
+			int count = this.inputTrie.tokenize(testString, indices);
+			if (count != -1) {
+				return this.accept(indices, 0, count, 0);
+			}
+		}
+		throw new IllegalArgumentException(
+				"\n\nGiven test string(" + testString + ") isn't defined over the input alphabet.\n");
+	}
+}
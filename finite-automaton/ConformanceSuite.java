@@ -0,0 +1,635 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * A conformance test suite of a reference deterministic finite automaton, generated by Chow's W-method
+ * or by the Wp-method.
+ * <p>
+ * The suite is built from the minimal machine of the reference, which has <code>n</code> states, out of
+ * <ul>
+ * <li>a state cover <code>Q</code>, which has a shortest string reaching every state,</li>
+ * <li>a characterization set <code>W</code>, whose strings tell every pair of states apart (it always
+ * has the empty string so that the accept flag of every reached state is checked), and</li>
+ * <li>an identification set <code>W_i</code> within <code>W</code> for every state <code>i</code>, whose
+ * strings tell <code>i</code> apart from every other state.</li>
+ * </ul>
+ * Given a bound of <code>k</code> extra states, the W-method suite is made up of the strings
+ * <code>q u w</code> for every <code>q</code> in <code>Q</code>, every <code>u</code> of length at most
+ * <code>k + 1</code> and every <code>w</code> in <code>W</code>. The Wp-method suite is the same except
+ * that when <code>u</code> has length <code>k + 1</code>, <code>w</code> only ranges over the
+ * identification set of the state reached by <code>q u</code>. Either way, any machine with at most
+ * <code>n + k</code> states which agrees with the reference on every string of the suite accepts the
+ * same strings as the reference. This is a far smaller set of strings than all of the strings up to
+ * the same length.
+ * <p>
+ * The strings are generated one at a time as the suite is iterated over, so the suite can be streamed
+ * straight into a simulation run (see {@link DFA#simulate(Iterable, boolean)}) without being stored.
+ * A Turing machine with the input alphabet of the reference is checked as a black box in the same
+ * way (see {@link #check(TMS)} and {@link #check(TMSS)}).
+ */
+public final class ConformanceSuite implements Iterable<ArrayList<Integer>> {
+	/**
+	 * The minimal machine of the reference.
+	 */
+	private final DFA reference;
+
+	/**
+	 * The number of states of the minimal machine.
+	 */
+	private final int numStates;
+
+	/**
+	 * The size of the input alphabet.
+	 */
+	private final int inputAlphabetSize;
+
+	/**
+	 * The bound on the number of states that an implementation may have on top of
+	 * <code>numStates</code>.
+	 */
+	private final int extraStates;
+
+	/**
+	 * Whether the suite is generated by the Wp-method rather than the W-method.
+	 */
+	private final boolean wp;
+
+	/**
+	 * <code>next[state * inputAlphabetSize + c]</code> is the state reached from <code>state</code> on
+	 * the input character with index <code>c</code> in the minimal machine.
+	 */
+	private final int[] next;
+
+	/**
+	 * <code>access[state]</code> is a shortest string reaching <code>state</code> (the state cover).
+	 */
+	private final int[][] access;
+
+	/**
+	 * The characterization set, whose first string is the empty string.
+	 */
+	private final int[][] words;
+
+	/**
+	 * <code>identification[state]</code> has the indices in <code>words</code> of the identification set
+	 * of <code>state</code> in increasing order.
+	 */
+	private final int[][] identification;
+
+	/**
+	 * The number of strings of the suite (or <code>Long.MAX_VALUE</code> if there are more).
+	 */
+	private final long size;
+
+	/**
+	 * Construct a ConformanceSuite object.
+	 *
+	 * @param reference
+	 *            the given reference machine
+	 * @param extraStates
+	 *            the bound on the number of states that an implementation may have on top of the number
+	 *            of states of the minimal machine of <code>reference</code>
+	 * @param wp
+	 *            whether the suite should be generated by the Wp-method rather than the W-method
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>extraStates &lt; 0</code>
+	 * @throws NullPointerException
+	 *             If <code>reference == null</code>
+	 */
+	public ConformanceSuite(DFA reference, int extraStates, boolean wp)
+			throws IllegalArgumentException, NullPointerException {
+		if (extraStates < 0) {
+			throw new IllegalArgumentException("\n\nGiven number of extra states(" + extraStates + ") is negative.\n");
+		}
+		this.reference = new MinimalDFA(reference).getMinimalMachine();
+		int n = this.numStates = this.reference.getNumStates();
+		int s = this.inputAlphabetSize = this.reference.getInputAlphabetSize();
+		this.extraStates = extraStates;
+		this.wp = wp;
+
+		this.next = new int[n * s];
+		for (int i = 0; i != n; ++i) {
+			System.arraycopy(this.reference.getNextState(i), 0, this.next, i * s, s);
+		}
+
+		// The minimal machine is numbered in breadth first order so every state is first reached from a
+		// state with a smaller number and the strings of the state cover are as short as possible
+		this.access = new int[n][];
+		this.access[0] = new int[0];
+		for (int state = 0; state != n; ++state) {
+			for (int c = 0; c != s; ++c) {
+				int t = this.next[state * s + c];
+				if (this.access[t] == null) {
+					int[] a = Arrays.copyOf(this.access[state], this.access[state].length + 1);
+					a[a.length - 1] = c;
+					this.access[t] = a;
+				}
+			}
+		}
+
+		this.identification = new int[n][];
+		this.words = this.characterize();
+		this.size = this.count();
+	}
+
+	/**
+	 * Build the characterization set and the identification sets.
+	 * <p>
+	 * The states are split into blocks by their results on the strings found so far, starting with the
+	 * empty string. As long as a block has two states <code>p</code> and <code>q</code> which go to
+	 * different blocks on some input character <code>c</code>, some string <code>w</code> that was already
+	 * found tells those blocks apart, so <code>c w</code> tells <code>p</code> and <code>q</code> apart and
+	 * is added. Its result on every state is looked up from the result of <code>w</code> on the state
+	 * reached on <code>c</code>, so adding a string costs time linear in the number of states. Since the
+	 * machine is minimal this ends with every state in a block of its own and at most
+	 * <code>numStates</code> strings. The identification set of a state is made up of the strings which
+	 * split its block.
+	 *
+	 * @return The characterization set.
+	 */
+	private int[][] characterize() {
+		int n = this.numStates, s = this.inputAlphabetSize;
+		ArrayList<int[]> words = new ArrayList<int[]>();
+		// results.get(k).get(state) is whether the string words.get(k) is accepted from state
+		ArrayList<BitSet> results = new ArrayList<BitSet>();
+		int[] block = new int[n], numIds = new int[n];
+		for (int i = 0; i != n; ++i) {
+			this.identification[i] = new int[2];
+		}
+		BitSet accepting = new BitSet(n);
+		boolean[] a = this.reference.getAccepting();
+		for (int i = 0; i != n; ++i) {
+			if (a[i]) {
+				accepting.set(i);
+			}
+		}
+		int numBlocks = this.add(words, results, new int[0], accepting, block, 0, numIds);
+
+		int[] representative = new int[n], p = new int[n], q = new int[n], readChar = new int[n];
+		boolean[] done = new boolean[n];
+		while (numBlocks != n) {
+			// Find at most one pair of states to tell apart in every block, p[k] and q[k] are the states that
+			// they go to on readChar[k]
+			Arrays.fill(representative, 0, numBlocks, -1);
+			Arrays.fill(done, 0, numBlocks, false);
+			int numPairs = 0;
+			for (int state = 0; state != n; ++state) {
+				int b = block[state], r = representative[b];
+				if (r == -1) {
+					representative[b] = state;
+				} else if (!done[b]) {
+					for (int c = 0; c != s; ++c) {
+						if (block[this.next[r * s + c]] != block[this.next[state * s + c]]) {
+							p[numPairs] = this.next[r * s + c];
+							q[numPairs] = this.next[state * s + c];
+							readChar[numPairs++] = c;
+							done[b] = true;
+							break;
+						}
+					}
+				}
+			}
+
+			for (int k = 0; k != numPairs; ++k) {
+				// A string which tells the blocks of p[k] and q[k] apart
+				int w = 0;
+				while (results.get(w).get(p[k]) == results.get(w).get(q[k])) {
+					++w;
+				}
+				int[] word = new int[words.get(w).length + 1];
+				word[0] = readChar[k];
+				System.arraycopy(words.get(w), 0, word, 1, word.length - 1);
+				BitSet result = new BitSet(n), previous = results.get(w);
+				for (int state = 0; state != n; ++state) {
+					if (previous.get(this.next[state * s + readChar[k]])) {
+						result.set(state);
+					}
+				}
+				// An earlier string of this round may have already split the block
+				numBlocks = this.add(words, results, word, result, block, numBlocks, numIds);
+			}
+		}
+
+		for (int i = 0; i != n; ++i) {
+			this.identification[i] = Arrays.copyOf(this.identification[i], numIds[i]);
+		}
+		return words.toArray(new int[words.size()][]);
+	}
+
+	/**
+	 * Split the blocks by the results of <code>word</code> and add it to the characterization set if it
+	 * splits at least one block (or if it's the first string).
+	 *
+	 * @param words
+	 *            the strings found so far
+	 * @param results
+	 *            the results of the strings found so far
+	 * @param word
+	 *            the given string
+	 * @param result
+	 *            the results of <code>word</code>
+	 * @param block
+	 *            the blocks of the states, which are updated
+	 * @param numBlocks
+	 *            the number of blocks
+	 * @param numIds
+	 *            the sizes of the identification sets, which are updated
+	 *
+	 * @return The number of blocks after the split.
+	 */
+	private int add(ArrayList<int[]> words, ArrayList<BitSet> results, int[] word, BitSet result, int[] block,
+			int numBlocks, int[] numIds) {
+		int n = this.numStates;
+		// split[b] is the block of the states of block b which accept word (other than b itself)
+		int[] split = new int[Math.max(numBlocks, 1)], firstResult = new int[Math.max(numBlocks, 1)];
+		Arrays.fill(split, -1);
+		Arrays.fill(firstResult, -1);
+		boolean[] splits = new boolean[Math.max(numBlocks, 1)];
+		int newNumBlocks = Math.max(numBlocks, 1);
+		for (int state = 0; state != n; ++state) {
+			int b = block[state], r = result.get(state) ? 1 : 0;
+			if (firstResult[b] == -1) {
+				firstResult[b] = r;
+			} else if (firstResult[b] != r) {
+				splits[b] = true;
+			}
+		}
+		boolean first = words.isEmpty(), added = false;
+		for (int state = 0; state != n; ++state) {
+			int b = block[state];
+			if (splits[b] || first) {
+				added = true;
+				int index = words.size();
+				if (numIds[state] == this.identification[state].length) {
+					this.identification[state] = Arrays.copyOf(this.identification[state], 2 * numIds[state]);
+				}
+				this.identification[state][numIds[state]++] = index;
+				if (splits[b] && (result.get(state) ? 1 : 0) != firstResult[b]) {
+					if (split[b] == -1) {
+						split[b] = newNumBlocks++;
+					}
+					block[state] = split[b];
+				}
+			}
+		}
+		if (added) {
+			words.add(word);
+			results.add(result);
+		}
+		return newNumBlocks;
+	}
+
+	/**
+	 * @return The number of strings of the suite (or <code>Long.MAX_VALUE</code> if there are more).
+	 */
+	private long count() {
+		int n = this.numStates, s = this.inputAlphabetSize;
+		// middle is the number of strings u of length at most k (or k + 1 for the W-method)
+		long middle = 0, power = 1;
+		int fullLength = this.wp ? this.extraStates : this.extraStates + 1;
+		for (int l = 0; l <= fullLength; ++l) {
+			middle = ConformanceSuite.add(middle, power);
+			power = ConformanceSuite.multiply(power, s);
+		}
+		long result = ConformanceSuite.multiply(ConformanceSuite.multiply(n, middle), this.words.length);
+		if (this.wp) {
+			// reached[t] is the number of strings q u with u of length l that reach t
+			long[] reached = new long[n], nextReached = new long[n];
+			Arrays.fill(reached, 1);
+			for (int l = 0; l != this.extraStates + 1; ++l) {
+				Arrays.fill(nextReached, 0);
+				for (int state = 0; state != n; ++state) {
+					for (int c = 0; c != s; ++c) {
+						int t = this.next[state * s + c];
+						nextReached[t] = ConformanceSuite.add(nextReached[t], reached[state]);
+					}
+				}
+				long[] temp = reached;
+				reached = nextReached;
+				nextReached = temp;
+			}
+			for (int t = 0; t != n; ++t) {
+				result = ConformanceSuite.add(result,
+						ConformanceSuite.multiply(reached[t], this.identification[t].length));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return <code>a + b</code> for nonnegative <code>a</code> and <code>b</code> (or
+	 *         <code>Long.MAX_VALUE</code> if it overflows).
+	 */
+	private static long add(long a, long b) {
+		long result = a + b;
+		return result < 0 ? Long.MAX_VALUE : result;
+	}
+
+	/**
+	 * @return <code>a * b</code> for nonnegative <code>a</code> and <code>b</code> (or
+	 *         <code>Long.MAX_VALUE</code> if it overflows).
+	 */
+	private static long multiply(long a, long b) {
+		return (b != 0 && a > Long.MAX_VALUE / b) ? Long.MAX_VALUE : a * b;
+	}
+
+	/**
+	 * @return A copy of the minimal machine of the reference.
+	 */
+	public DFA getReference() {
+		return new DFA(this.reference);
+	}
+
+	/**
+	 * @return The number of states of the minimal machine of the reference.
+	 */
+	public int getNumStates() {
+		return this.numStates;
+	}
+
+	/**
+	 * @return The bound on the number of states that an implementation may have on top of the number of
+	 *         states of the minimal machine of the reference.
+	 */
+	public int getExtraStates() {
+		return this.extraStates;
+	}
+
+	/**
+	 * @return Whether the suite is generated by the Wp-method rather than the W-method.
+	 */
+	public boolean getWp() {
+		return this.wp;
+	}
+
+	/**
+	 * @return The number of strings of the suite (or <code>Long.MAX_VALUE</code> if there are more).
+	 */
+	public long getSize() {
+		return this.size;
+	}
+
+	/**
+	 * @return A copy of the state cover, where the string at index <code>i</code> reaches state
+	 *         <code>i</code> of the minimal machine.
+	 */
+	public int[][] getStateCover() {
+		return ConformanceSuite.copy(this.access);
+	}
+
+	/**
+	 * @return A copy of the characterization set.
+	 */
+	public int[][] getCharacterizationSet() {
+		return ConformanceSuite.copy(this.words);
+	}
+
+	/**
+	 * @param state
+	 *            the given state of the minimal machine
+	 *
+	 * @return A copy of the identification set of <code>state</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't in the range of <code>[0, numStates)</code>
+	 */
+	public int[][] getIdentificationSet(int state) throws IllegalArgumentException {
+		if (state < 0 || state >= this.numStates) {
+			throw new IllegalArgumentException(
+					"\n\nGiven state(" + state + ") isn't in the range of [0, " + (this.numStates - 1) + "].\n");
+		}
+		int[][] result = new int[this.identification[state].length][];
+		for (int i = 0; i != result.length; ++i) {
+			result[i] = this.words[this.identification[state][i]].clone();
+		}
+		return result;
+	}
+
+	/**
+	 * @return A deep copy of <code>a</code>.
+	 */
+	private static int[][] copy(int[][] a) {
+		int[][] result = new int[a.length][];
+		for (int i = 0; i != a.length; ++i) {
+			result[i] = a[i].clone();
+		}
+		return result;
+	}
+
+	/**
+	 * @param testString
+	 *            the given test string (of input character indices)
+	 *
+	 * @return Whether the reference accepts <code>testString</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>testString</code> isn't valid
+	 */
+	public boolean accept(ArrayList<Integer> testString) throws IllegalArgumentException {
+		return this.reference.accept(testString, 0);
+	}
+
+	/**
+	 * Check an implementation, treated as a black box, against the reference.
+	 *
+	 * @param implementation
+	 *            whether the implementation accepts a given test string (of input character indices of
+	 *            the reference)
+	 *
+	 * @return The first string of the suite on which the implementation and the reference disagree or
+	 *         <code>null</code> if they agree on every string.
+	 *
+	 * @throws NullPointerException
+	 *             If <code>implementation == null</code>
+	 */
+	public ArrayList<Integer> check(Predicate<ArrayList<Integer>> implementation) throws NullPointerException {
+		for (ArrayList<Integer> testString : this) {
+			if (implementation.test(testString) != this.reference.accept(testString, 0)) {
+				return testString;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Check another machine against the reference.
+	 *
+	 * @param implementation
+	 *            the given machine
+	 *
+	 * @return The first string of the suite on which the machines disagree or <code>null</code> if they
+	 *         agree on every string.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the input alphabet of <code>implementation</code> isn't the same as the one of the
+	 *             reference
+	 * @throws NullPointerException
+	 *             If <code>implementation == null</code>
+	 */
+	public ArrayList<Integer> check(DFA implementation) throws IllegalArgumentException, NullPointerException {
+		if (!Arrays.equals(implementation.getInputAlphabet(), this.reference.getInputAlphabet())) {
+			throw new IllegalArgumentException("\n\nGiven machine doesn't have the input alphabet of the reference.\n");
+		}
+		return this.check(testString -> implementation.accept(testString, 0));
+	}
+
+	/**
+	 * Check a Turing machine against the reference. A string on which the machine doesn't halt within
+	 * its max number of steps (or its max process time) counts as rejected.
+	 *
+	 * @param implementation
+	 *            the given machine
+	 *
+	 * @return The first string of the suite on which the machines disagree or <code>null</code> if they
+	 *         agree on every string.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the input alphabet of <code>implementation</code> isn't the same as the one of the
+	 *             reference
+	 * @throws NullPointerException
+	 *             If <code>implementation == null</code>
+	 */
+	public ArrayList<Integer> check(TMS implementation) throws IllegalArgumentException, NullPointerException {
+		if (!Arrays.equals(implementation.getInputAlphabet(), this.reference.getInputAlphabet())) {
+			throw new IllegalArgumentException("\n\nGiven machine doesn't have the input alphabet of the reference.\n");
+		}
+		// Start in the start state with the head on the first input character (right after the left end)
+		return this.check(testString -> implementation.run(testString, 0, 1, false) == 1);
+	}
+
+	/**
+	 * Check a Turing machine (with a two sided tape) against the reference. A string on which the
+	 * machine doesn't halt within its max number of steps (or its max process time) counts as rejected.
+	 * The machine is run the way it's simulated (see {@link TMSS#simulate(Iterable)}) and the way its
+	 * transition cover is made (see {@link TMSS#getTransitionCover()}), that is, in the start state with
+	 * the head on the second cell. So every string of the suite is run with the first input character
+	 * prepended to it, which the machine doesn't read.
+	 *
+	 * @param implementation
+	 *            the given machine
+	 *
+	 * @return The first string of the suite on which the machines disagree or <code>null</code> if they
+	 *         agree on every string.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the input alphabet of <code>implementation</code> isn't the same as the one of the
+	 *             reference
+	 * @throws NullPointerException
+	 *             If <code>implementation == null</code>
+	 */
+	public ArrayList<Integer> check(TMSS implementation) throws IllegalArgumentException, NullPointerException {
+		if (!Arrays.equals(implementation.getInputAlphabet(), this.reference.getInputAlphabet())) {
+			throw new IllegalArgumentException("\n\nGiven machine doesn't have the input alphabet of the reference.\n");
+		}
+		return this.check(testString -> {
+			ArrayList<Integer> tape = new ArrayList<Integer>(testString.size() + 1);
+			tape.add(0);
+			tape.addAll(testString);
+			return implementation.run(tape, 0, 1, false) == 1;
+		});
+	}
+
+	/**
+	 * @return An iterator over the strings of the suite, which are generated as they are needed. Every
+	 *         returned string is a new list.
+	 */
+	@Override
+	public Iterator<ArrayList<Integer>> iterator() {
+		return new Iterator<ArrayList<Integer>>() {
+			/**
+			 * The state (of the state cover) of the next string.
+			 */
+			private int state = 0;
+
+			/**
+			 * The input character indices of the middle part of the next string.
+			 */
+			private int[] middle = new int[0];
+
+			/**
+			 * The state reached by the state cover string and the middle part.
+			 */
+			private int reached = 0;
+
+			/**
+			 * The index (in the current set of strings) of the last part of the next string.
+			 */
+			private int word = 0;
+
+			@Override
+			public boolean hasNext() {
+				return this.state != ConformanceSuite.this.numStates;
+			}
+
+			@Override
+			public ArrayList<Integer> next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				ConformanceSuite suite = ConformanceSuite.this;
+				int[] last = this.isIdentifying() ? suite.words[suite.identification[this.reached][this.word]]
+						: suite.words[this.word];
+				int[] first = suite.access[this.state];
+				ArrayList<Integer> result = new ArrayList<Integer>(first.length + this.middle.length + last.length);
+				for (int c : first) {
+					result.add(c);
+				}
+				for (int c : this.middle) {
+					result.add(c);
+				}
+				for (int c : last) {
+					result.add(c);
+				}
+				this.advance();
+				return result;
+			}
+
+			/**
+			 * @return Whether the last part of the next string ranges over the identification set of the
+			 *         reached state rather than the whole characterization set.
+			 */
+			private boolean isIdentifying() {
+				return ConformanceSuite.this.wp && this.middle.length == ConformanceSuite.this.extraStates + 1;
+			}
+
+			/**
+			 * Move on to the next string.
+			 */
+			private void advance() {
+				ConformanceSuite suite = ConformanceSuite.this;
+				int numWords = this.isIdentifying() ? suite.identification[this.reached].length
+						: suite.words.length;
+				if (++this.word != numWords) {
+					return;
+				}
+				this.word = 0;
+
+				// Increment the middle part like an odometer
+				int s = suite.inputAlphabetSize, i = this.middle.length - 1;
+				while (i != -1 && this.middle[i] == s - 1) {
+					this.middle[i--] = 0;
+				}
+				if (i != -1) {
+					++this.middle[i];
+				} else if (this.middle.length != suite.extraStates + 1 && s != 0) {
+					this.middle = new int[this.middle.length + 1];
+				} else {
+					this.middle = new int[0];
+					++this.state;
+				}
+
+				if (this.state != suite.numStates) {
+					this.reached = this.state;
+					for (int c : this.middle) {
+						this.reached = suite.next[this.reached * s + c];
+					}
+				}
+			}
+		};
+	}
+}
@@ -3,11 +3,22 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Scanner;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
  * Deterministic Finite Automata compiler/simulator.
@@ -30,6 +41,8 @@ public class DFA {
 	// inputIndex maps inputCharacters to indices
 	private HashMap<String, Integer> inputIndex;
 	private String[] inputAlphabet;
+	// inputTrie splits strings into inputCharacters
+	private AlphabetTrie inputTrie;
 
 	public static final String WHITESPACE_REGEX = "(\\s)+";
 	private static final Pattern WHITESPACE_PATTERN = Pattern.compile(DFA.WHITESPACE_REGEX);
@@ -37,17 +50,109 @@ public class DFA {
 	private int numAcceptingStates;
 	// accepting[i] == state i is an accept state
 	private boolean[] accepting;
+	/*
+	 * transitionHash is the XOR of cellHash over every transition that isn't a self loop and
+	 * acceptingHash is the XOR of acceptHash over every accept state. Both are updated along with the
+	 * cell or state that changes so that getStructuralHash (and hashCode) don't have to visit the table.
+	 * alphabetHash is the hash code of the input alphabet.
+	 */
+	private long transitionHash, acceptingHash;
+	private int alphabetHash;
 	// next[i][j] = delta(state i, input char at index j)
 	private int[][] nextState;
 	// Array used to keep track of defined transitions
 	private boolean[][] defined;
+	/*
+	 * When only a small fraction of the transitions is defined they're stored sparsely instead of in
+	 * nextState and defined: the first stateNumDefined[i] entries of sparseChar[i] are the indices of the
+	 * input characters on which state i has a defined transition (in increasing order) and the same
+	 * entries of sparseNext[i] are the corresponding final states. Undefined transitions are the implied
+	 * self loops in both representations.
+	 */
+	private boolean sparse;
+	private int[][] sparseChar, sparseNext;
+	private static final int[] EMPTY_ROW = new int[0];
+	// Transition tables with at most this many cells are always stored densely
+	private static final int MIN_SPARSE_TOTAL = 1 << 12;
+	/*
+	 * The transitions are stored sparsely once less than 1 / SPARSE_RATIO of them are defined and densely
+	 * once more than 1 / DENSE_RATIO of them are defined so that a switch is only made after a number of
+	 * changes proportional to the size of the table
+	 */
+	private static final int SPARSE_RATIO = 32, DENSE_RATIO = 8;
 	private int totalNumTransitions, numDefinedTransitions;
 	private int[] stateNumDefined;
+	/*
+	 * stateNumExits[i] is the number of input characters on which state i doesn't loop back to itself
+	 * so that a state with no exits (a sink) ends every run that reaches it
+	 */
+	private int[] stateNumExits;
 	/*
 	 * run is used to determine whether this instance actually needs to be run on a testString or if the
 	 * result of any run is already known due to the special nature of the given machine description
 	 */
 	private boolean run;
+	/*
+	 * tableChange holds whether nextState or accepting have changed since the tables derived from them
+	 * (such as live) were last computed so that they're only recomputed when needed
+	 */
+	private boolean tableChange = true;
+	// live[i] == an accept state is reachable from state i
+	private boolean[] live;
+	// successor[successorStart[i], successorStart[i + 1]) are the distinct states reachable from state i in one step
+	private int[] successorStart, successor;
+	/*
+	 * exitPattern[i] holds every exit input character index of state i broadcast to all 8 bytes of a
+	 * long (or is null if state i has more than MAX_SCAN_EXITS exits) so that runs of self loops can be
+	 * skipped 8 bytes at a time
+	 */
+	private long[][] exitPattern;
+	public static final int MAX_SCAN_EXITS = 4, MAX_BYTE_INPUT_ALPHABET_SIZE = 256;
+	private static final long LOW_BITS = 0x0101010101010101L, HIGH_BITS = 0x8080808080808080L;
+	private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class,
+			ByteOrder.LITTLE_ENDIAN);
+	// Number of bytes of the fingerprint of the language of a machine (see getFingerprint)
+	public static final int FINGERPRINT_SIZE = 16;
+	// Number of test strings sorted together by acceptAll (which bounds its extra memory)
+	public static final int BATCH_CHUNK_SIZE = 1 << 16;
+	// Bitmap of the verdicts of all the short strings (see buildShortIndex) or null
+	private ShortIndex shortIndex;
+	/*
+	 * Counters of the runs of accept while profiling (see startProfiling) or null otherwise. Every accept
+	 * reads it once and runs a separate profiled loop if it's set, so the unprofiled loops are unchanged.
+	 */
+	private volatile DFAProfile profile;
+
+	// tokenId[i] is the id of the token recognized by ending a maximal munch in accept state i
+	private int[] tokenId;
+	/*
+	 * originalState[i] is the number of state i before the states were renumbered (see renumberStates)
+	 * so that states can still be reported in the numbering of the given description. It's reset to the
+	 * identity whenever the number of states changes.
+	 */
+	private int[] originalState;
+	public static final int TOKEN_ENTRY_SIZE = 3;
+	/*
+	 * failed is an open addressing hash set of (position, state) pairs from which no accept state was
+	 * reached by a previous scan of tokenize, so that no pair is ever scanned twice (Reps' tabulation)
+	 */
+	private static final long EMPTY_KEY = -1;
+	private long[] failed = new long[0];
+	private int failedSize;
+	private int[] trail = new int[0];
+
+	// Number of transition lines parsed by each task of DFA(Path, true)
+	public static final int PARSE_CHUNK_SIZE = 1 << 12;
+	/*
+	 * Layout of a binary image (see MachineImage) of a DFA. The strings are the input alphabet followed
+	 * by the initial string and the comments. IMAGE_NEXT_STATE is the row major transition table,
+	 * IMAGE_ACCEPTING holds 1 for every accept state, IMAGE_DEFINED is a bitmap of the defined cells of
+	 * IMAGE_NEXT_STATE and IMAGE_TOKEN_ID holds the token ids.
+	 */
+	public static final int IMAGE_NUM_STATES = 0, IMAGE_INPUT_ALPHABET_SIZE = 1, IMAGE_MAX_STRING_COUNT = 2,
+			IMAGE_MIN_LENGTH = 3, IMAGE_MAX_LENGTH = 4, IMAGE_INCLUDE_COMMENTS = 5, IMAGE_NUM_INTS = 6;
+	public static final int IMAGE_NEXT_STATE = 0, IMAGE_ACCEPTING = 1, IMAGE_DEFINED = 2, IMAGE_TOKEN_ID = 3,
+			IMAGE_NUM_TABLES = 4;
 
 	public static final String DEFAULT = "default";
 
@@ -65,6 +170,15 @@ public class DFA {
 	 * maxStringCount so that the need for resizing, rehashing, ... is greatly reduced
 	 */
 	private HashMap<ArrayList<Integer>, String> results;
+	/*
+	 * Index of the runs of the strings of the last simulation so that an edit only re-evaluates the
+	 * strings whose runs it affects and updates results, acceptCount and rejectCount in place (or null
+	 * if incrementalSimulation is off or the number of states or input characters has changed since).
+	 * Building it makes simulate several times slower, so it's only built when incrementalSimulation is
+	 * set.
+	 */
+	private RunIndex runIndex;
+	private boolean incrementalSimulation;
 
 	public static final int DEFAULT_MIN_LENGTH = 0, DEFAULT_MAX_LENGTH = 4;
 	private int minLength, maxLength;
@@ -127,33 +241,46 @@ public class DFA {
 			return this.getNumStates();
 		}
 
-		// Save all defined transitions
-		String[] definedTransitions = copyValidTransitions ? this.getDefinedTransitions() : null;
+		// Save the transition arrays
+		int oldNumStates = this.getNumStates();
+		boolean oldSparse = this.sparse;
+		int[][] oldNextState = this.nextState, oldSparseChar = this.sparseChar, oldSparseNext = this.sparseNext;
+		boolean[][] oldDefined = this.defined;
+		int[] oldStateNumDefined = this.stateNumDefined;
 
 		this.numStates = numStates;
 		this.numAcceptingStates = 0;
 		this.accepting = new boolean[numStates];
+		this.acceptingHash = 0;
+		this.tokenId = new int[numStates];
+		this.originalState = new int[numStates];
+		for (int i = 0; i != numStates; ++i) {
+			this.tokenId[i] = this.originalState[i] = i; // Set default value
+		}
 		this.totalNumTransitions = numStates * this.getInputAlphabetSize();
-		this.stateNumDefined = new int[numStates];
 		this.initializeTransitions();
 
-		if (copyValidTransitions) {
-			// Save exception causes for later restoration
-			String oldCause = this.cause, oldStaticCause = DFA.staticCause;
-
-			Object[] tokens = null;
-			for (int i = 0; i != definedTransitions.length; ++i) {
-				tokens = this.validateTransition(definedTransitions[i]);
-				try {
-					this.putTransition((int) tokens[0], (String) tokens[1], (int) tokens[2]);
-				} catch (IllegalArgumentException ex) {
-					// Transition described by tokens, is no longer valid therefore nothing else to do
+		if (copyValidTransitions && (oldNextState != null || oldSparseChar != null)) {
+			// Copy the rows of the remaining states and drop the transitions to removed states
+			int s = this.getInputAlphabetSize();
+			for (int i = 0, n = Math.min(oldNumStates, numStates); i != n; ++i) {
+				if (oldSparse) {
+					int[] oldChars = oldSparseChar[i], oldNext = oldSparseNext[i];
+					for (int k = 0; k != oldStateNumDefined[i]; ++k) {
+						if (oldNext[k] < numStates) {
+							this.define(i, oldChars[k], oldNext[k]);
+						}
+					}
+				} else {
+					int[] oldRow = oldNextState[i];
+					boolean[] oldDefinedRow = oldDefined[i];
+					for (int j = 0; j != s; ++j) {
+						if (oldDefinedRow[j] && oldRow[j] < numStates) {
+							this.define(i, j, oldRow[j]);
+						}
+					}
 				}
 			}
-
-			// Restore saved exception causes
-			this.cause = oldCause;
-			DFA.staticCause = oldStaticCause;
 		}
 
 		this.resetRun();
@@ -301,17 +428,47 @@ public class DFA {
 		}
 
 		this.numAcceptingStates += (this.accepting[state] = accepting) ? 1 : -1;
+		this.acceptingHash ^= DFA.acceptHash(state);
 		this.resetRun();
-		this.strChange = true;
+		this.clearShortIndex();
+		if (this.runIndex != null) {
+			boolean trivial = this.isTrivial();
+			this.countRuns(trivial != this.runIndex.isTrivial() ? this.runIndex.relabel(trivial)
+					: this.runIndex.updateState(state));
+		}
+		this.strChange = this.tableChange = true;
 		return state;
 	}
 
+	// Sets state i to be an accept state if and only if accepting[i] is true
+	public boolean[] setAccepting(boolean[] accepting) throws IllegalArgumentException {
+		if (accepting == null || accepting.length != this.getNumStates()) {
+			this.cause = "Given accepting array isn't valid.";
+			this.illegalArg();
+		}
+
+		int numAcceptingStates = 0;
+		for (int i = 0; i != accepting.length; ++i) {
+			numAcceptingStates += (this.accepting[i] = accepting[i]) ? 1 : 0;
+		}
+		this.numAcceptingStates = numAcceptingStates;
+		this.rehashAccepting();
+		this.resetRun();
+		this.relabelRuns();
+		this.clearShortIndex();
+		this.strChange = this.tableChange = true;
+		return accepting;
+	}
+
 	public boolean[] setAccepting(int numAcceptingStates, int[] acceptingStates) throws IllegalArgumentException {
 		boolean[] accepting = this.validateAccepting(numAcceptingStates, acceptingStates);
 		this.numAcceptingStates = numAcceptingStates;
 		System.arraycopy(accepting, 0, this.accepting, 0, this.accepting.length);
+		this.rehashAccepting();
 		this.resetRun();
-		this.strChange = true;
+		this.relabelRuns();
+		this.clearShortIndex();
+		this.strChange = this.tableChange = true;
 		return accepting;
 	}
 
@@ -366,6 +523,63 @@ public class DFA {
 		return result;
 	}
 
+	public int getTokenId(int state) throws IllegalArgumentException {
+		if (!this.isValidState(state)) {
+			this.cause = "Given state(" + state + ") isn't in the range of " + this.getStateRange() + ".";
+			this.illegalArg();
+		}
+		return this.tokenId[state];
+	}
+
+	public int[] getTokenIds() {
+		int[] result = new int[this.getNumStates()];
+		System.arraycopy(this.tokenId, 0, result, 0, result.length);
+		return result;
+	}
+
+	public int setTokenId(int state, int tokenId) throws IllegalArgumentException {
+		if (!this.isValidState(state)) {
+			this.cause = "Given state(" + state + ") isn't in the range of " + this.getStateRange() + ".";
+			this.illegalArg();
+		} else if (tokenId < 0) {
+			this.cause = "Given token id(" + tokenId + ") is negative.";
+			this.illegalArg();
+		}
+		int oldTokenId = this.tokenId[state];
+		this.tokenId[state] = tokenId;
+		return oldTokenId;
+	}
+
+	public int[] setTokenIds(int[] tokenIds) throws IllegalArgumentException {
+		if (tokenIds == null || tokenIds.length != this.getNumStates()) {
+			this.cause = "Given token ids array isn't valid.";
+			this.illegalArg();
+		}
+		for (int i = 0; i != tokenIds.length; ++i) {
+			if (tokenIds[i] < 0) {
+				this.cause = "Given token id(" + tokenIds[i] + ") of state " + i + " is negative.";
+				this.illegalArg();
+			}
+		}
+		int[] result = this.getTokenIds();
+		System.arraycopy(tokenIds, 0, this.tokenId, 0, tokenIds.length);
+		return result;
+	}
+
+	public int getOriginalState(int state) throws IllegalArgumentException {
+		if (!this.isValidState(state)) {
+			this.cause = "Given state(" + state + ") isn't in the range of " + this.getStateRange() + ".";
+			this.illegalArg();
+		}
+		return this.originalState[state];
+	}
+
+	public int[] getOriginalStates() {
+		int[] result = new int[this.getNumStates()];
+		System.arraycopy(this.originalState, 0, result, 0, result.length);
+		return result;
+	}
+
 	public Object[] setAlphabet(int inputAlphabetSize, String[] inputAlphabet) throws IllegalArgumentException {
 		inputAlphabet = this.validateAlphabet(inputAlphabetSize, inputAlphabet);
 		this.inputAlphabet = new String[this.inputAlphabetSize = inputAlphabetSize];
@@ -375,6 +589,8 @@ public class DFA {
 		for (int i = 0; i != inputAlphabetSize; ++i) {
 			this.inputIndex.put(this.inputAlphabet[i], i);
 		}
+		this.inputTrie = new AlphabetTrie(this.inputAlphabet);
+		this.alphabetHash = Arrays.hashCode(this.inputAlphabet);
 
 		this.totalNumTransitions = this.getNumStates() * inputAlphabetSize;
 		this.initializeTransitions();
@@ -494,28 +710,37 @@ public class DFA {
 
 	public int getNextState(int initialState, String readChar) throws IllegalArgumentException {
 		int readCharIndex = (int) (this.validateTransition(initialState, readChar)[2]);
-		return this.nextState[initialState][readCharIndex];
+		return this.next(initialState, readCharIndex);
+	}
+
+	// Returns a copy of the row of the given state (undefined transitions are the default self loops)
+	public int[] getNextState(int initialState) throws IllegalArgumentException {
+		int[] result = new int[this.getInputAlphabetSize()];
+		this.copyRow(this.validateState(initialState), result, 0);
+		return result;
 	}
 
 	public int[][] getNextState() {
 		int n = this.getNumStates(), s = this.getInputAlphabetSize();
 		int[][] result = new int[n][s];
 		for (int i = 0; i != n; ++i) {
-			System.arraycopy(this.nextState[i], 0, result[i], 0, s);
+			this.copyRow(i, result[i], 0);
 		}
 		return result;
 	}
 
 	public boolean getDefined(int initialState, String readChar) throws IllegalArgumentException {
 		int readCharIndex = (int) (this.validateTransition(initialState, readChar)[2]);
-		return this.defined[initialState][readCharIndex];
+		return this.isDefined(initialState, readCharIndex);
 	}
 
 	public boolean[][] getDefined() {
 		int n = this.getNumStates(), s = this.getInputAlphabetSize();
 		boolean[][] result = new boolean[n][s];
 		for (int i = 0; i != n; ++i) {
-			System.arraycopy(this.defined[i], 0, result[i], 0, s);
+			for (int j = this.nextDefined(i, 0); j != -1; j = this.nextDefined(i, j + 1)) {
+				result[i][j] = true;
+			}
 		}
 		return result;
 	}
@@ -541,10 +766,10 @@ public class DFA {
 	private String getTransition(int initialState, int readCharIndex, boolean format) {
 		if (format) {
 			return ("delta(" + initialState + "," + this.inputAlphabet[readCharIndex] + ") = "
-					+ this.nextState[initialState][readCharIndex]);
+					+ this.next(initialState, readCharIndex));
 		}
 		return (initialState + " " + this.inputAlphabet[readCharIndex] + " "
-				+ this.nextState[initialState][readCharIndex]);
+				+ this.next(initialState, readCharIndex));
 	}
 
 	public String getTransition(int initialState, String readChar, boolean format, boolean print)
@@ -627,7 +852,7 @@ public class DFA {
 	public String getDefinedTransition(int initialState, String readChar, boolean format, boolean print)
 			throws IllegalArgumentException {
 		int readCharIndex = (int) (this.validateTransition(initialState, readChar)[2]);
-		String transition = (this.defined[initialState][readCharIndex]
+		String transition = (this.isDefined(initialState, readCharIndex)
 				? this.getTransition(initialState, readCharIndex, format)
 				: null);
 		System.out.print(print ? (transition + '\n') : "");
@@ -655,24 +880,11 @@ public class DFA {
 	public String[] getDefinedTransitions(int initialState, boolean format, boolean print)
 			throws IllegalArgumentException {
 		this.validateState(initialState);
-		int length = 0, s = this.getInputAlphabetSize();
-		String transition;
-		String[] temp = new String[s];
-		for (int i = 0; i != s; ++i) {
-			transition = null;
-			if (this.defined[initialState][i]) {
-				transition = this.getTransition(initialState, i, format);
-				++length;
-			}
-			temp[i] = transition;
-		}
-
-		String[] result = new String[length];
-		for (int i = 0, index = 0; index != length; ++i) {
-			if ((transition = temp[i]) != null) {
-				result[index++] = transition;
-				System.out.print(print ? (transition + '\n') : "");
-			}
+		String[] result = new String[this.stateNumDefined[initialState]];
+		for (int i = this.nextDefined(initialState, 0), index = 0; i != -1; i = this.nextDefined(initialState,
+				i + 1)) {
+			result[index++] = this.getTransition(initialState, i, format);
+			System.out.print(print ? (result[index - 1] + '\n') : "");
 		}
 		return result;
 	}
@@ -697,11 +909,9 @@ public class DFA {
 		int numDef = this.getNumDefinedTransitions();
 		String[] result = new String[numDef];
 		for (int i = 0, index = 0; i != this.getNumStates() && index != numDef; ++i) {
-			for (int j = 0; j != this.getInputAlphabetSize() && index != numDef; ++j) {
-				if (this.defined[i][j]) {
-					result[index++] = this.getTransition(i, j, format);
-					System.out.print(print ? (result[index - 1] + '\n') : "");
-				}
+			for (int j = this.nextDefined(i, 0); j != -1; j = this.nextDefined(i, j + 1)) {
+				result[index++] = this.getTransition(i, j, format);
+				System.out.print(print ? (result[index - 1] + '\n') : "");
 			}
 		}
 		return result;
@@ -1180,30 +1390,61 @@ public class DFA {
 	}
 
 	public ArrayList<Integer> toArray(String s) {
-		if (s == null) {
-			return null;
+		return s == null ? null : this.inputTrie.tokenize(s);
+	}
+
+	/*
+	 * Split s into input characters in a single pass over a precompiled trie of the input alphabet and
+	 * write their indices into a. Returns the number of input characters or -1 if s isn't defined over
+	 * the input alphabet. a needs at most s.length() entries.
+	 */
+	public int toArray(CharSequence s, int[] a) throws IllegalArgumentException {
+		if (s == null || a == null) {
+			this.cause = "Given string or array is null.";
+			this.illegalArg();
+		}
+		try {
+			return this.inputTrie.tokenize(s, a);
+		} catch (IllegalArgumentException ex) {
+			this.cause = "Given array(of length " + a.length + ") is too small.";
+			this.illegalArg();
+			return -1;
 		}
+	}
 
-		ArrayList<Integer> a = new ArrayList<Integer>(s.length());
-		if (s.isEmpty()) {
-			return a;
+	public int toArray(char[] s, int from, int to, int[] a) throws IllegalArgumentException {
+		if (s == null || a == null) {
+			this.cause = "Given char array or array is null.";
+			this.illegalArg();
+		} else if (from < 0 || to > s.length || from > to) {
+			this.cause = "Given range[" + from + ", " + to + ") of the char array isn't valid.";
+			this.illegalArg();
+		}
+		try {
+			return this.inputTrie.tokenize(s, from, to, a);
+		} catch (IllegalArgumentException ex) {
+			this.cause = "Given array(of length " + a.length + ") is too small.";
+			this.illegalArg();
+			return -1;
 		}
+	}
 
-		String check = s;
-		for (int i = 1, index; i <= check.length(); /* Update inside. */) {
-			if ((index = this.inputCharIndexOf(check.substring(0, i))) == -1) {
-				++i;
-			} else {
-				a.add(index);
-				if (i < check.length()) {
-					check = check.substring(i);
-					i = 1;
-				} else {
-					return a;
-				}
-			}
+	// Same as above but s holds the UTF-8 encoding of the string which is never decoded into chars
+	public int toArray(byte[] s, int from, int to, int[] a) throws IllegalArgumentException {
+		if (s == null || a == null) {
+			this.cause = "Given byte array or array is null.";
+			this.illegalArg();
+		} else if (from < 0 || to > s.length || from > to) {
+			this.cause = "Given range[" + from + ", " + to + ") of the byte array isn't valid.";
+			this.illegalArg();
+		}
+		try {
+			return this.inputTrie.tokenize(s, from, to, a);
+		} catch (IllegalArgumentException ex) {
+			this.cause = "Given array(of length " + a.length + ") is too small.";
+			this.illegalArg();
+			return -1;
 		}
-		return null;
 	}
 
 	public String toString(ArrayList<Integer> testString, boolean format) throws IllegalArgumentException {
@@ -1262,6 +1503,16 @@ public class DFA {
 		return a;
 	}
 
+	// Same as validateTestString(String), but returns the input character indices as an array
+	private int[] validateSymbols(String testString) throws IllegalArgumentException {
+		ArrayList<Integer> a = this.validateTestString(testString);
+		int[] symbols = new int[a.size()];
+		for (int i = 0; i != symbols.length; ++i) {
+			symbols[i] = a.get(i);
+		}
+		return symbols;
+	}
+
 	public String validateTestString(ArrayList<Integer> testString) throws IllegalArgumentException {
 		String s = this.toString(testString);
 		if (s == null) {
@@ -1281,6 +1532,22 @@ public class DFA {
 		return (this.includeComments = includeComments);
 	}
 
+	public boolean getIncrementalSimulation() {
+		return this.incrementalSimulation;
+	}
+
+	/*
+	 * Whether the following simulations index the runs of their strings so that the results, acceptCount
+	 * and rejectCount of the last simulation are kept up to date by every later edit of the transitions
+	 * or accept states (instead of going stale until the next simulation)
+	 */
+	public boolean setIncrementalSimulation(boolean incrementalSimulation) {
+		if (!incrementalSimulation) {
+			this.runIndex = null;
+		}
+		return (this.incrementalSimulation = incrementalSimulation);
+	}
+
 	public String getComments() {
 		if (!this.comChange) {
 			return this.savedCom;
@@ -1426,12 +1693,60 @@ public class DFA {
 		this(DFA.MIN_NUM_STATES, inputAlphabetSize, inputAlphabet);
 	}
 
+	/*
+	 * Creates a deterministic finite automata directly from primitive arrays where nextState[i][j] is
+	 * the final state of the transition from state i on inputAlphabet[j] (or -1 if it isn't defined).
+	 * The columns follow the order of the given input alphabet and are reordered along with it.
+	 */
+	@SuppressWarnings("null")
+	public DFA(int numStates, String[] inputAlphabet, boolean[] accepting, int[][] nextState)
+			throws IllegalArgumentException {
+		this.isConstructing = true;
+		this.setNumStates(numStates);
+		if (inputAlphabet == null) {
+			this.cause = "Given input alphabet is null.";
+			this.illegalArg();
+		}
+		String[] given = inputAlphabet.clone();
+		this.setAlphabet(given.length, inputAlphabet.clone());
+		this.setAccepting(accepting);
+
+		if (nextState != null && !Arrays.equals(given, this.inputAlphabet)) {
+			// Reorder the columns to follow the sorted input alphabet
+			int[] column = new int[given.length];
+			for (int j = 0; j != column.length; ++j) {
+				column[this.inputCharIndexOf(given[j])] = j;
+			}
+			int[][] table = new int[nextState.length][];
+			for (int i = 0; i != table.length; ++i) {
+				if (nextState[i] != null && nextState[i].length == column.length) {
+					table[i] = new int[column.length];
+					for (int j = 0; j != column.length; ++j) {
+						table[i][j] = nextState[i][column[j]];
+					}
+				}
+			}
+			nextState = table;
+		}
+		this.setTransitions(nextState);
+
+		this.setMaxStringCount(DFA.DEFAULT_MAX_STRING_COUNT);
+		this.setRangeString(DFA.DEFAULT_MIN_LENGTH, DFA.DEFAULT_MAX_LENGTH, DFA.DEFAULT_INITIAL_STRING);
+		this.setIncludeComments(DFA.DEFAULT_INCLUDE_COMMENTS);
+		this.offerComments((String) null);
+		this.isConstructing = false;
+		this.cause = DFA.staticCause = null;
+		++DFA.machineCount;
+	}
+
 	// Copy constructor
 	public DFA(DFA other) throws NullPointerException {
 		this(other.getNumStates(), other.getInputAlphabetSize(), other.getInputAlphabet(),
 				other.getNumAcceptingStates(), other.getAcceptingStates(), other.getNumDefinedTransitions(),
 				other.getDefinedTransitions(), other.getMaxStringCount(), other.getMinLength(), other.getMaxLength(),
 				other.getInitialString(), other.getIncludeComments(), other.getComments());
+		this.setTokenIds(other.getTokenIds());
+		this.originalState = other.getOriginalStates();
 	}
 
 	public DFA getCopy() {
@@ -1444,129 +1759,278 @@ public class DFA {
 		return new DFA(this.toString());
 	}
 
-	// Creates a deterministic finite automata by reading it (in YUFAFF) from in
+	/*
+	 * Compiles the current machine into an immutable snapshot which can be shared by any number of
+	 * threads (this instance can't since running it changes its fields)
+	 */
+	public CompiledDFA compile() throws IllegalArgumentException {
+		return new CompiledDFA(this);
+	}
+
+	/*
+	 * Returns a 128 bit fingerprint of the language of the machine. The machine is minimized and the
+	 * states that are reachable from the start state are numbered in breadth first order (so that the
+	 * numbering only depends on the language). The fingerprint is the first FINGERPRINT_SIZE bytes of
+	 * the SHA-256 digest of the input alphabet, the accept states and the transition table of the result,
+	 * so two machines have the same fingerprint if and only if they accept the same strings over the same
+	 * input alphabet (barring a hash collision).
+	 */
 	@SuppressWarnings("null")
-	public DFA(Scanner in) throws IllegalArgumentException {
-		this.isScanning = this.isConstructing = true;
+	public byte[] getFingerprint() throws IllegalArgumentException {
+		DFA minimal = new MinimalDFA(this).getMinimalMachine();
+		MessageDigest digest = null;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			this.cause = "SHA-256 isn't available.";
+			this.illegalArg();
+		}
 
-		if (in == null) {
-			DFA.staticCause = "Given scanner is null.";
+		int n = minimal.getNumStates(), s = minimal.getInputAlphabetSize();
+		ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * (s + 2));
+		buffer.putInt(n).putInt(s);
+		digest.update(buffer.array(), 0, buffer.position());
+		for (String c : minimal.inputAlphabet) {
+			byte[] bytes = c.getBytes(StandardCharsets.UTF_8);
+			buffer.clear();
+			buffer.putInt(bytes.length);
+			digest.update(buffer.array(), 0, buffer.position());
+			digest.update(bytes);
+		}
+		int[] row = new int[s];
+		for (int i = 0; i != n; ++i) {
+			minimal.copyRow(i, row, 0);
+			buffer.clear();
+			buffer.putInt(minimal.accepting[i] ? 1 : 0);
+			for (int j = 0; j != s; ++j) {
+				buffer.putInt(row[j]);
+			}
+			digest.update(buffer.array(), 0, buffer.position());
+		}
+		return Arrays.copyOf(digest.digest(), DFA.FINGERPRINT_SIZE);
+	}
+
+	// Returns the fingerprint (see getFingerprint) as a hexadecimal string
+	public String getFingerprintString() throws IllegalArgumentException {
+		return HexFormat.of().formatHex(this.getFingerprint());
+	}
+
+	// Processes the first line (in YUFAFF) and returns { inputAlphabetSize, numAcceptingStates, numTransitions }
+	private int[] scanFirstLine(String line) throws IllegalArgumentException {
+		++this.lineNumber;
+		String[] s = line.split(DFA.DELIMITER_STRING);
+		if (s.length != DFA.LINE_1_NUM_ENTRIES || DFA.countDelimiters(line) != s.length - 1) {
+			DFA.staticCause = "Given first line(" + line + ") isn't valid.";
 			DFA.illegalArg(DFA.getStaticCause());
 		}
 
+		int numStates = DFA.MIN_NUM_STATES;
 		try {
-			if (!in.hasNextLine()) {
-				DFA.staticCause = "Given machine description didn't have a first line.";
-				DFA.illegalArg(DFA.getStaticCause());
-			}
-			// Process first line
-			String line = in.nextLine();
-			++this.lineNumber;
-			String[] s = line.split(DFA.DELIMITER_STRING);
-			if (s.length != DFA.LINE_1_NUM_ENTRIES || DFA.countDelimiters(line) != s.length - 1) {
-				DFA.staticCause = "Given first line(" + line + ") isn't valid.";
-				DFA.illegalArg(DFA.getStaticCause());
-			}
+			numStates = Integer.parseInt(s[0]);
+		} catch (NumberFormatException ex) {
+			DFA.staticCause = "Given number of states(" + s[0] + ") isn't a valid integer.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
+		try {
+			this.setNumStates(numStates);
+		} catch (IllegalArgumentException ex) {
+			DFA.staticCause = this.getCause();
+			this.illegalArg();
+		}
 
-			int numStates = DFA.MIN_NUM_STATES;
-			try {
-				numStates = Integer.parseInt(s[0]);
-			} catch (NumberFormatException ex) {
-				DFA.staticCause = "Given number of states(" + s[0] + ") isn't a valid integer.";
-				DFA.illegalArg(DFA.getStaticCause());
-			}
-			try {
-				this.setNumStates(numStates);
-			} catch (IllegalArgumentException ex) {
-				DFA.staticCause = this.getCause();
-				this.illegalArg();
-			}
+		int inputAlphabetSize = DFA.MIN_INPUT_ALPHABET_SIZE;
+		try {
+			inputAlphabetSize = Integer.parseInt(s[1]);
+		} catch (NumberFormatException ex) {
+			DFA.staticCause = "Given input alphabet size(" + s[1] + ") isn't a valid integer.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
 
-			int inputAlphabetSize = DFA.MIN_INPUT_ALPHABET_SIZE;
-			try {
-				inputAlphabetSize = Integer.parseInt(s[1]);
-			} catch (NumberFormatException ex) {
-				DFA.staticCause = "Given input alphabet size(" + s[1] + ") isn't a valid integer.";
+		int numAcceptingStates = 0;
+		try {
+			if ((numAcceptingStates = Integer.parseInt(s[2])) < 0) {
+				DFA.staticCause = "Given number of accepting states(" + numAcceptingStates + ") is negative.";
 				DFA.illegalArg(DFA.getStaticCause());
 			}
+		} catch (NumberFormatException ex) {
+			DFA.staticCause = "Given number of accepting states(" + s[2] + ") isn't a valid integer.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
 
-			int numAcceptingStates = 0;
-			try {
-				if ((numAcceptingStates = Integer.parseInt(s[2])) < 0) {
-					DFA.staticCause = "Given number of accepting states(" + numAcceptingStates + ") is negative.";
-					DFA.illegalArg(DFA.getStaticCause());
-				}
-			} catch (NumberFormatException ex) {
-				DFA.staticCause = "Given number of accepting states(" + s[2] + ") isn't a valid integer.";
+		int numTransitions = 0;
+		try {
+			if ((numTransitions = Integer.parseInt(s[3])) < 0) {
+				DFA.staticCause = "Given number of transitions(" + numTransitions + ") is negative.";
 				DFA.illegalArg(DFA.getStaticCause());
 			}
+		} catch (NumberFormatException ex) {
+			DFA.staticCause = "Given number of transitions(" + s[3] + ") isn't a valid integer.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
 
-			int numTransitions = 0;
-			try {
-				if ((numTransitions = Integer.parseInt(s[3])) < 0) {
-					DFA.staticCause = "Given number of transitions(" + numTransitions + ") is negative.";
-					DFA.illegalArg(DFA.getStaticCause());
-				}
-			} catch (NumberFormatException ex) {
-				DFA.staticCause = "Given number of transitions(" + s[3] + ") isn't a valid integer.";
-				DFA.illegalArg(DFA.getStaticCause());
-			}
+		int[] result = { inputAlphabetSize, numAcceptingStates, numTransitions };
+		return result;
+	}
 
-			if (!in.hasNextLine()) {
-				DFA.staticCause = "Given machine description didn't have a second line.";
+	// Processes the second line (in YUFAFF)
+	private void scanSecondLine(String line, int inputAlphabetSize) throws IllegalArgumentException {
+		++this.lineNumber;
+		String[] s = line.split(DFA.DELIMITER_STRING);
+		if (s.length != inputAlphabetSize || DFA.countDelimiters(line) != s.length - 1) {
+			DFA.staticCause = "Given second line(" + line + ") isn't valid.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
+		try {
+			this.setAlphabet(inputAlphabetSize, s);
+		} catch (IllegalArgumentException ex) {
+			DFA.staticCause = this.getCause();
+			this.illegalArg();
+		}
+	}
+
+	// Processes the third line (in YUFAFF)
+	private void scanThirdLine(String line, int numAcceptingStates) throws IllegalArgumentException {
+		++this.lineNumber;
+		int[] accepting = new int[numAcceptingStates];
+		if (numAcceptingStates == 0) {
+			if (!line.isEmpty()) {
+				DFA.staticCause = "Given third line(" + line + ") isn't empty.";
 				DFA.illegalArg(DFA.getStaticCause());
 			}
-			// Process second line
-			line = in.nextLine();
-			++this.lineNumber;
-			s = line.split(DFA.DELIMITER_STRING);
-			if (s.length != inputAlphabetSize || DFA.countDelimiters(line) != s.length - 1) {
-				DFA.staticCause = "Given second line(" + line + ") isn't valid.";
+		} else {
+			String[] s = line.split(DFA.DELIMITER_STRING);
+			if (s.length != numAcceptingStates || DFA.countDelimiters(line) != s.length - 1) {
+				DFA.staticCause = "Given third line(" + line + ") isn't valid.";
 				DFA.illegalArg(DFA.getStaticCause());
 			}
-			try {
-				this.setAlphabet(inputAlphabetSize, s);
-			} catch (IllegalArgumentException ex) {
-				DFA.staticCause = this.getCause();
-				this.illegalArg();
-			}
 
-			if (!in.hasNextLine()) {
-				DFA.staticCause = "Given machine description didn't have a third line.";
-				DFA.illegalArg(DFA.getStaticCause());
+			for (int i = 0; i != numAcceptingStates; ++i) {
+				try {
+					accepting[i] = Integer.parseInt(s[i]);
+				} catch (NumberFormatException ex) {
+					DFA.staticCause = "Given " + (i + 1) + "th accept state index(" + s[i]
+							+ ") isn't a valid integer.";
+					DFA.illegalArg(DFA.getStaticCause());
+				}
 			}
-			// Process third line
-			line = in.nextLine();
+		}
+		try {
+			this.setAccepting(numAcceptingStates, accepting);
+		} catch (IllegalArgumentException ex) {
+			DFA.staticCause = this.getCause();
+			this.illegalArg();
+		}
+	}
+
+	// Processes the command line (in YUFAFF) where line is null if there isn't one
+	private void scanCommandLine(String line) throws IllegalArgumentException {
+		int readMaxStringCount = DFA.DEFAULT_MAX_STRING_COUNT, readMinLength = DFA.DEFAULT_MIN_LENGTH,
+				readMaxLength = DFA.DEFAULT_MAX_LENGTH;
+		String readInitialString = DFA.DEFAULT_INITIAL_STRING;
+		if (line != null) {
 			++this.lineNumber;
-			int[] accepting = new int[numAcceptingStates];
-			if (numAcceptingStates == 0) {
-				if (!line.isEmpty()) {
-					DFA.staticCause = "Given third line(" + line + ") isn't empty.";
-					DFA.illegalArg(DFA.getStaticCause());
-				}
-			} else {
-				s = line.split(DFA.DELIMITER_STRING);
-				if (s.length != numAcceptingStates || DFA.countDelimiters(line) != s.length - 1) {
-					DFA.staticCause = "Given third line(" + line + ") isn't valid.";
+			if (!line.isEmpty()) {
+				String[] s = line.split(DFA.DELIMITER_STRING);
+				if (s.length > DFA.COMMAND_LINE_MAX_NUM_ENTRIES || DFA.countDelimiters(line) != s.length - 1) {
+					DFA.staticCause = "Given command line(" + line + ") isn't valid.";
 					DFA.illegalArg(DFA.getStaticCause());
 				}
 
-				for (int i = 0; i != numAcceptingStates; ++i) {
-					try {
-						accepting[i] = Integer.parseInt(s[i]);
-					} catch (NumberFormatException ex) {
-						DFA.staticCause = "Given " + (i + 1) + "th accept state index(" + s[i]
-								+ ") isn't a valid integer.";
+				try {
+					readMaxStringCount = Integer.parseInt(s[0]);
+				} catch (NumberFormatException ex) {
+					if (!DFA.isDefault(s[0])) {
+						DFA.staticCause = "Given max string count(" + s[0] + ") isn't a valid integer.";
 						DFA.illegalArg(DFA.getStaticCause());
 					}
 				}
+
+				if (readMaxStringCount != 0) {
+					if (s.length == 2) {
+						try {
+							readMaxLength = Integer.parseInt(s[1]);
+						} catch (NumberFormatException ex) {
+							if (!DFA.isDefault(s[1])) {
+								DFA.staticCause = "Given max length(" + s[1] + ") isn't a valid integer.";
+								DFA.illegalArg(DFA.getStaticCause());
+							}
+						}
+					}
+
+					if (s.length >= 3) {
+						int first = DFA.DEFAULT_MIN_LENGTH;
+						int second = DFA.DEFAULT_MAX_LENGTH;
+						try {
+							first = Integer.parseInt(s[1]);
+						} catch (NumberFormatException ex) {
+							if (!DFA.isDefault(s[1])) {
+								DFA.staticCause = "Given first value for the string length bounds(" + s[1]
+										+ ") isn't a valid integer.";
+								DFA.illegalArg(DFA.getStaticCause());
+							}
+						}
+						try {
+							second = Integer.parseInt(s[2]);
+						} catch (NumberFormatException ex) {
+							if (!DFA.isDefault(s[2])) {
+								DFA.staticCause = "Given second value for the string length bounds(" + s[2]
+										+ ") isn't a valid integer.";
+								DFA.illegalArg(DFA.getStaticCause());
+							}
+						}
+
+						readMinLength = Math.min(first, second);
+						readMaxLength = Math.max(first, second);
+						for (int i = 0; i < readMinLength; ++i) {
+							readInitialString += this.inputAlphabet[0];
+						}
+					}
+
+					readInitialString = s.length == 4 ? s[3] : readInitialString;
+				}
 			}
-			try {
-				this.setAccepting(numAcceptingStates, accepting);
-			} catch (IllegalArgumentException ex) {
-				DFA.staticCause = this.getCause();
-				this.illegalArg();
+		}
+		try {
+			this.setMaxStringCount(readMaxStringCount);
+			this.setRangeString(readMinLength, readMaxLength, readInitialString);
+		} catch (IllegalArgumentException ex) {
+			DFA.staticCause = this.getCause();
+			this.illegalArg();
+		}
+	}
+
+	// Creates a deterministic finite automata by reading it (in YUFAFF) from in
+	@SuppressWarnings("null")
+	public DFA(Scanner in) throws IllegalArgumentException {
+		this.isScanning = this.isConstructing = true;
+
+		if (in == null) {
+			DFA.staticCause = "Given scanner is null.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
+
+		try {
+			if (!in.hasNextLine()) {
+				DFA.staticCause = "Given machine description didn't have a first line.";
+				DFA.illegalArg(DFA.getStaticCause());
+			}
+			// Process first line
+			int[] counts = this.scanFirstLine(in.nextLine());
+			int numTransitions = counts[2];
+
+			if (!in.hasNextLine()) {
+				DFA.staticCause = "Given machine description didn't have a second line.";
+				DFA.illegalArg(DFA.getStaticCause());
+			}
+			// Process second line
+			this.scanSecondLine(in.nextLine(), counts[0]);
+
+			if (!in.hasNextLine()) {
+				DFA.staticCause = "Given machine description didn't have a third line.";
+				DFA.illegalArg(DFA.getStaticCause());
 			}
+			// Process third line
+			this.scanThirdLine(in.nextLine(), counts[1]);
 
 			// Process transition lines
 			String[] transitions = new String[numTransitions];
@@ -1584,81 +2048,8 @@ public class DFA {
 				this.illegalArg();
 			}
 
-			int readMaxStringCount = DFA.DEFAULT_MAX_STRING_COUNT, readMinLength = DFA.DEFAULT_MIN_LENGTH,
-					readMaxLength = DFA.DEFAULT_MAX_LENGTH;
-			String readInitialString = DFA.DEFAULT_INITIAL_STRING;
 			// Process command line
-			if (in.hasNextLine()) {
-				line = in.nextLine();
-				++this.lineNumber;
-				if (!line.isEmpty()) {
-					s = line.split(DFA.DELIMITER_STRING);
-					if (s.length > DFA.COMMAND_LINE_MAX_NUM_ENTRIES || DFA.countDelimiters(line) != s.length - 1) {
-						DFA.staticCause = "Given command line(" + line + ") isn't valid.";
-						DFA.illegalArg(DFA.getStaticCause());
-					}
-
-					try {
-						readMaxStringCount = Integer.parseInt(s[0]);
-					} catch (NumberFormatException ex) {
-						if (!DFA.isDefault(s[0])) {
-							DFA.staticCause = "Given max string count(" + s[0] + ") isn't a valid integer.";
-							DFA.illegalArg(DFA.getStaticCause());
-						}
-					}
-
-					if (readMaxStringCount != 0) {
-						if (s.length == 2) {
-							try {
-								readMaxLength = Integer.parseInt(s[1]);
-							} catch (NumberFormatException ex) {
-								if (!DFA.isDefault(s[1])) {
-									DFA.staticCause = "Given max length(" + s[1] + ") isn't a valid integer.";
-									DFA.illegalArg(DFA.getStaticCause());
-								}
-							}
-						}
-
-						if (s.length >= 3) {
-							int first = DFA.DEFAULT_MIN_LENGTH;
-							int second = DFA.DEFAULT_MAX_LENGTH;
-							try {
-								first = Integer.parseInt(s[1]);
-							} catch (NumberFormatException ex) {
-								if (!DFA.isDefault(s[1])) {
-									DFA.staticCause = "Given first value for the string length bounds(" + s[1]
-											+ ") isn't a valid integer.";
-									DFA.illegalArg(DFA.getStaticCause());
-								}
-							}
-							try {
-								second = Integer.parseInt(s[2]);
-							} catch (NumberFormatException ex) {
-								if (!DFA.isDefault(s[2])) {
-									DFA.staticCause = "Given second value for the string length bounds(" + s[2]
-											+ ") isn't a valid integer.";
-									DFA.illegalArg(DFA.getStaticCause());
-								}
-							}
-
-							readMinLength = Math.min(first, second);
-							readMaxLength = Math.max(first, second);
-							for (int i = 0; i < readMinLength; ++i) {
-								readInitialString += this.inputAlphabet[0];
-							}
-						}
-
-						readInitialString = s.length == 4 ? s[3] : readInitialString;
-					}
-				}
-			}
-			try {
-				this.setMaxStringCount(readMaxStringCount);
-				this.setRangeString(readMinLength, readMaxLength, readInitialString);
-			} catch (IllegalArgumentException ex) {
-				DFA.staticCause = this.getCause();
-				this.illegalArg();
-			}
+			this.scanCommandLine(in.hasNextLine() ? in.nextLine() : null);
 
 			// Process comments
 			this.setIncludeComments(DFA.DEFAULT_INCLUDE_COMMENTS);
@@ -1707,6 +2098,234 @@ public class DFA {
 		this(new Scanner(s));
 	}
 
+	// Parses transition lines [from, to) of in starting at line firstLine into { initialState, readCharIndex,
+	// finalState } triples of parsed. Lines which aren't made up of two non-negative integers and an input
+	// character separated by single delimiters are marked with an initial state of -1 so that they are
+	// processed by validateTransition instead to report the exact same error.
+	private static void parseTransitions(LineBuffer in, AlphabetTrie trie, int firstLine, int from, int to,
+			int[] parsed) {
+		byte[] bytes = in.getBytes();
+		for (int i = from; i != to; ++i) {
+			int start = in.getLineStart(firstLine + i), end = in.getLineEnd(firstLine + i);
+			int first = in.indexOf(start, end, (byte) DFA.DELIMITER_CHAR);
+			int second = first == end ? end : in.indexOf(first + 1, end, (byte) DFA.DELIMITER_CHAR);
+			int initialState = -1, readCharIndex = -1, finalState = -1;
+			if (second != end && in.indexOf(second + 1, end, (byte) DFA.DELIMITER_CHAR) == end) {
+				initialState = in.parseDigits(start, first);
+				readCharIndex = trie.indexOf(bytes, first + 1, second);
+				finalState = in.parseDigits(second + 1, end);
+			}
+			parsed[3 * i] = (readCharIndex == -1 || finalState == -1) ? -1 : initialState;
+			parsed[3 * i + 1] = readCharIndex;
+			parsed[3 * i + 2] = finalState;
+		}
+	}
+
+	// Creates a deterministic finite automata by reading it (in YUFAFF) from the file with the given path.
+	// The file is read through a FileChannel and transition lines are parsed straight from its bytes and
+	// written directly into the transition arrays. If parallel is true, then transition lines are parsed
+	// in chunks of DFA.PARSE_CHUNK_SIZE lines in parallel before being put in order.
+	public DFA(Path path, boolean parallel) throws IllegalArgumentException, IOException {
+		this.isScanning = this.isConstructing = true;
+
+		if (path == null) {
+			DFA.staticCause = "Given path is null.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
+
+		LineBuffer in = new LineBuffer(path);
+		try {
+			if (in.getNumLines() < 1) {
+				DFA.staticCause = "Given machine description didn't have a first line.";
+				DFA.illegalArg(DFA.getStaticCause());
+			}
+			// Process first line
+			int[] counts = this.scanFirstLine(in.getLine(0));
+			int numTransitions = counts[2];
+
+			if (in.getNumLines() < 2) {
+				DFA.staticCause = "Given machine description didn't have a second line.";
+				DFA.illegalArg(DFA.getStaticCause());
+			}
+			// Process second line
+			this.scanSecondLine(in.getLine(1), counts[0]);
+
+			if (in.getNumLines() < 3) {
+				DFA.staticCause = "Given machine description didn't have a third line.";
+				DFA.illegalArg(DFA.getStaticCause());
+			}
+			// Process third line
+			this.scanThirdLine(in.getLine(2), counts[1]);
+
+			// Process transition lines
+			if (in.getNumLines() - 3 < numTransitions) {
+				DFA.staticCause = "Given machine description didn't have line " + (in.getNumLines() + 1) + ".";
+				DFA.illegalArg(DFA.getStaticCause());
+			}
+			int[] parsed = new int[3 * numTransitions];
+			if (parallel && numTransitions > DFA.PARSE_CHUNK_SIZE) {
+				int numChunks = (numTransitions - 1) / DFA.PARSE_CHUNK_SIZE + 1;
+				IntStream.range(0, numChunks).parallel()
+						.forEach(chunk -> DFA.parseTransitions(in, this.inputTrie, 3, chunk * DFA.PARSE_CHUNK_SIZE,
+								Math.min(numTransitions, (chunk + 1) * DFA.PARSE_CHUNK_SIZE), parsed));
+			} else {
+				DFA.parseTransitions(in, this.inputTrie, 3, 0, numTransitions, parsed);
+			}
+			for (int i = 0, j = 0; i != numTransitions; ++i, j += 3) {
+				int initialState = parsed[j], readCharIndex = parsed[j + 1], finalState = parsed[j + 2];
+				if (initialState != -1 && initialState < this.getNumStates() && finalState < this.getNumStates()
+						&& !this.isDefined(initialState, readCharIndex)) {
+					++this.lineNumber;
+					this.putTransition(initialState, readCharIndex, finalState);
+				} else {
+					// Fall back on the general path so that the same error is reported
+					String[] transition = { in.getLine(3 + i) };
+					try {
+						this.putTransitions(1, transition);
+					} catch (IllegalArgumentException ex) {
+						DFA.staticCause = this.getCause();
+						this.illegalArg();
+					}
+				}
+			}
+
+			// Process command line
+			int numLines = 3 + numTransitions;
+			this.scanCommandLine(numLines != in.getNumLines() ? in.getLine(numLines++) : null);
+
+			// Process comments
+			this.setIncludeComments(DFA.DEFAULT_INCLUDE_COMMENTS);
+			StringBuilder comments = new StringBuilder();
+			for (int i = numLines; i != in.getNumLines(); ++i) {
+				comments.append(i != numLines ? "\n" : "").append(in.getLine(i));
+				++this.lineNumber;
+			}
+			this.offerComments(comments);
+
+			this.isScanning = this.isConstructing = false;
+			this.cause = DFA.staticCause = null;
+			++DFA.machineCount;
+		} catch (IllegalArgumentException ex) {
+			ex.printStackTrace();
+			throw new IllegalArgumentException(ex.getMessage());
+		}
+	}
+
+	public DFA(Path path) throws IllegalArgumentException, IOException {
+		this(path, false);
+	}
+
+	// Checks that the given binary image describes a valid machine and returns its number of states
+	@SuppressWarnings("null")
+	private static int validateImage(MachineImage image) throws IllegalArgumentException {
+		if (image == null) {
+			DFA.staticCause = "Given machine image is null.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
+
+		int numStates = 0, inputAlphabetSize = 0;
+		if (image.getKind() == MachineImage.KIND_DFA && image.getNumInts() == DFA.IMAGE_NUM_INTS
+				&& image.getNumTables() == DFA.IMAGE_NUM_TABLES) {
+			numStates = image.getInt(DFA.IMAGE_NUM_STATES);
+			inputAlphabetSize = image.getInt(DFA.IMAGE_INPUT_ALPHABET_SIZE);
+		}
+		long numCells = (long) numStates * inputAlphabetSize;
+		if (numStates < DFA.MIN_NUM_STATES || inputAlphabetSize < DFA.MIN_INPUT_ALPHABET_SIZE
+				|| image.getNumStrings() != inputAlphabetSize + 2
+				|| image.getTable(DFA.IMAGE_NEXT_STATE).remaining() != numCells
+				|| image.getTable(DFA.IMAGE_ACCEPTING).remaining() != numStates
+				|| image.getTable(DFA.IMAGE_DEFINED).remaining() != (numCells + Integer.SIZE - 1) / Integer.SIZE
+				|| image.getTable(DFA.IMAGE_TOKEN_ID).remaining() != numStates) {
+			DFA.staticCause = "Given machine image doesn't describe a valid machine.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
+
+		// Every transition must stay within the states so that running on the mapped table is safe
+		IntBuffer nextState = image.getTable(DFA.IMAGE_NEXT_STATE);
+		for (int i = 0; i != numStates; ++i) {
+			for (int j = 0; j != inputAlphabetSize; ++j) {
+				int finalState = nextState.get();
+				if (finalState < 0 || finalState >= numStates) {
+					DFA.staticCause = "Given machine image has a transition from state " + i + " to an invalid state("
+							+ finalState + ").";
+					DFA.illegalArg(DFA.getStaticCause());
+				}
+			}
+		}
+		image.setValidated();
+		return numStates;
+	}
+
+	// Maps the binary image in the file with the given path so that it can be run directly
+	public static MachineImage mapImage(Path path) throws IllegalArgumentException, IOException {
+		MachineImage image = MachineImage.map(path, MachineImage.KIND_DFA);
+		DFA.validateImage(image);
+		return image;
+	}
+
+	// Creates a deterministic finite automata from the given binary image by copying its tables
+	public DFA(MachineImage image) throws IllegalArgumentException {
+		this.isConstructing = true;
+
+		try {
+			int numStates = DFA.validateImage(image);
+			int inputAlphabetSize = image.getInt(DFA.IMAGE_INPUT_ALPHABET_SIZE);
+			this.setNumStates(numStates);
+			String[] inputAlphabet = new String[inputAlphabetSize];
+			for (int i = 0; i != inputAlphabetSize; ++i) {
+				inputAlphabet[i] = image.getString(i);
+			}
+			this.setAlphabet(inputAlphabetSize, inputAlphabet);
+			if (!Arrays.equals(this.inputAlphabet, inputAlphabet)) {
+				// The table columns are only meaningful in sorted order
+				DFA.staticCause = "Given machine image has an input alphabet which isn't sorted.";
+				DFA.illegalArg(DFA.getStaticCause());
+			}
+
+			IntBuffer table = image.getTable(DFA.IMAGE_ACCEPTING);
+			int[] accepting = new int[numStates];
+			int numAcceptingStates = 0;
+			for (int i = 0; i != numStates; ++i) {
+				if (table.get() != 0) {
+					accepting[numAcceptingStates++] = i;
+				}
+			}
+			this.setAccepting(numAcceptingStates, Arrays.copyOf(accepting, numAcceptingStates));
+
+			IntBuffer nextState = image.getTable(DFA.IMAGE_NEXT_STATE), defined = image.getTable(DFA.IMAGE_DEFINED);
+			int[] row = new int[inputAlphabetSize];
+			for (int i = 0, cell = 0; i != numStates; ++i) {
+				nextState.get(row);
+				for (int j = 0; j != inputAlphabetSize; ++j, ++cell) {
+					if ((defined.get(cell >>> 5) & (1 << cell)) != 0) {
+						this.putTransition(i, j, row[j]);
+					} else if (row[j] != i) {
+						DFA.staticCause = "Given machine image has an undefined transition from state " + i
+								+ " which isn't a self loop.";
+						DFA.illegalArg(DFA.getStaticCause());
+					}
+				}
+			}
+
+			table = image.getTable(DFA.IMAGE_TOKEN_ID);
+			int[] tokenIds = new int[numStates];
+			table.get(tokenIds);
+			this.setTokenIds(tokenIds);
+
+			this.setMaxStringCount(image.getInt(DFA.IMAGE_MAX_STRING_COUNT));
+			this.setRangeString(image.getInt(DFA.IMAGE_MIN_LENGTH), image.getInt(DFA.IMAGE_MAX_LENGTH),
+					image.getString(inputAlphabetSize));
+			this.setIncludeComments(image.getInt(DFA.IMAGE_INCLUDE_COMMENTS) != 0);
+			this.offerComments(image.getString(inputAlphabetSize + 1));
+			this.isConstructing = false;
+			this.cause = DFA.staticCause = null;
+			++DFA.machineCount;
+		} catch (IllegalArgumentException ex) {
+			ex.printStackTrace();
+			throw new IllegalArgumentException(ex.getMessage());
+		}
+	}
+
 	@SuppressWarnings("null")
 	public String[] putTransitions(int numTransitions, String[] transitions, boolean[] replace)
 			throws IllegalArgumentException {
@@ -1760,91 +2379,443 @@ public class DFA {
 		return this.putTransitions(numTransitions, transitions, false);
 	}
 
-	public String putTransition(int initialState, String readChar, int finalState, boolean replace)
-			throws IllegalArgumentException {
-		int readCharIndex = (int) (this.validateTransition(initialState, readChar, finalState)[3]);
-		String transition = initialState + " " + readChar + " " + finalState;
-		if (!replace && this.defined[initialState][readCharIndex]) {
-			this.cause = "Given transition";
-			if (this.isScanning) {
-				this.cause += " on line " + this.lineNumber;
-			}
-			this.cause += "(" + transition + ") has the same initial state and input character"
-					+ " as another transition defined before it.";
+	/*
+	 * Puts the transitions from initialStates[i] on the input character with index readCharIndices[i]
+	 * to finalStates[i] for every i in [0, numTransitions). Every transition is validated in one pass
+	 * before any of them is put so that the machine is left unchanged upon failure.
+	 */
+	@SuppressWarnings("null")
+	public int putTransitions(int numTransitions, int[] initialStates, int[] readCharIndices, int[] finalStates,
+			boolean replace) throws IllegalArgumentException {
+		if (numTransitions < 0) {
+			this.cause = "Given number of transitions(" + numTransitions + ") is negative.";
+			this.illegalArg();
+		} else if (initialStates == null || initialStates.length != numTransitions || readCharIndices == null
+				|| readCharIndices.length != numTransitions || finalStates == null
+				|| finalStates.length != numTransitions) {
+			this.cause = "Given transition arrays aren't valid.";
 			this.illegalArg();
 		}
 
-		this.nextState[initialState][readCharIndex] = finalState;
-		if (!this.defined[initialState][readCharIndex]) {
-			this.defined[initialState][readCharIndex] = true;
-			++this.numDefinedTransitions;
-			++this.stateNumDefined[initialState];
-			this.resetRun();
+		int s = this.getInputAlphabetSize();
+		long[] cells = replace ? null : new long[numTransitions];
+		for (int i = 0; i != numTransitions; ++i) {
+			int initialState = initialStates[i], readCharIndex = readCharIndices[i], finalState = finalStates[i];
+			if (!this.isValidState(initialState) || !this.isValidInputCharIndex(readCharIndex)
+					|| !this.isValidState(finalState)) {
+				this.cause = "Given " + (i + 1) + "th transition(" + initialState + ", " + readCharIndex + ", "
+						+ finalState + ") isn't valid since it isn't in the range of " + this.getStateRange() + " x "
+						+ this.getInputCharIndexRange() + " x " + this.getStateRange() + ".";
+				this.illegalArg();
+			} else if (!replace) {
+				if (this.isDefined(initialState, readCharIndex)) {
+					this.cause = "Given " + (i + 1) + "th transition(" + initialState + ", " + readCharIndex + ", "
+							+ finalState + ") has the same initial state and input character"
+							+ " as another transition defined before it.";
+					this.illegalArg();
+				}
+				cells[i] = (long) initialState * s + readCharIndex;
+			}
 		}
-		this.strChange = true;
-		return transition;
-	}
-
-	public String putTransition(int initialState, String readChar, int finalState) throws IllegalArgumentException {
-		return this.putTransition(initialState, readChar, finalState, false);
-	}
-
-	public boolean isValidTransition(String transition) {
-		try {
-			Object[] result = this.validateTransition(transition);
-			return this.isValidTransition((int) result[0], (String) result[1], (int) result[2]);
-		} catch (IllegalArgumentException ex) {
-			return false;
+		if (!replace) {
+			// Two of the given transitions can't share a cell either
+			Arrays.sort(cells);
+			for (int i = 1; i < numTransitions; ++i) {
+				if (cells[i] == cells[i - 1]) {
+					this.cause = "Given transitions have more than one transition with initial state "
+							+ (cells[i] / s) + " and input character index " + (cells[i] % s) + ".";
+					this.illegalArg();
+				}
+			}
 		}
-	}
 
-	public boolean isValidTransition(int initialState, String readChar, int finalState) {
-		try { // If no exception is thrown then the result is necessarily true
-			return (this.validateTransition(initialState, readChar, finalState) != null);
-		} catch (IllegalArgumentException ex) {
-			return false;
+		for (int i = 0; i != numTransitions; ++i) {
+			this.putTransition(initialStates[i], readCharIndices[i], finalStates[i]);
 		}
+		return numTransitions;
 	}
 
-	public boolean isValidDefinedTransition(String transition) throws IllegalArgumentException {
-		Object[] result = this.validateTransition(transition);
-		return this.isValidDefinedTransition((int) result[0], (String) result[1], (int) result[2]);
-	}
-
-	public boolean isValidDefinedTransition(int initialState, String readChar, int finalState)
+	public int putTransitions(int numTransitions, int[] initialStates, int[] readCharIndices, int[] finalStates)
 			throws IllegalArgumentException {
-		int readCharIndex = (int) (this.validateTransition(initialState, readChar, finalState)[3]);
-		return this.defined[initialState][readCharIndex];
+		return this.putTransitions(numTransitions, initialStates, readCharIndices, finalStates, false);
 	}
 
+	/*
+	 * Replaces every transition by the given table where nextState[i][j] is the final state of the
+	 * transition from state i on the input character with index j (or -1 if it isn't defined). The
+	 * table is validated in one pass before any transition is replaced and its rows are copied directly.
+	 */
 	@SuppressWarnings("null")
-	public Object[] validateTransition(String transition) throws IllegalArgumentException {
-		if (transition == null) {
-			this.cause = "Given transition is null.";
+	public int setTransitions(int[][] nextState) throws IllegalArgumentException {
+		int n = this.getNumStates(), s = this.getInputAlphabetSize();
+		if (nextState == null || nextState.length != n) {
+			this.cause = "Given transition table isn't valid.";
 			this.illegalArg();
 		}
-
-		String[] s = transition.split(DFA.DELIMITER_STRING);
-		if (s.length != 3 || DFA.countDelimiters(transition) != s.length - 1) {
-			this.cause = "Given transition(" + transition + ") isn't valid.";
-			if (this.isScanning) {
-				this.cause = "Line " + this.lineNumber + "(" + transition + ") isn't valid.";
+		for (int i = 0; i != n; ++i) {
+			if (nextState[i] == null || nextState[i].length != s) {
+				this.cause = "Given transition table isn't valid since its row " + i + " isn't valid.";
+				this.illegalArg();
+			}
+			for (int j = 0; j != s; ++j) {
+				if (nextState[i][j] < -1 || nextState[i][j] >= n) {
+					this.cause = "Given final state(" + nextState[i][j] + ") of state " + i
+							+ " on input character index " + j + " isn't in the range of " + this.getStateRange()
+							+ " (or -1).";
+					this.illegalArg();
+				}
 			}
-			this.illegalArg();
 		}
 
-		int initialState = 0;
-		try {
-			initialState = Integer.parseInt(s[0]);
-		} catch (NumberFormatException ex) {
-			this.cause = "Given initial state";
-			if (this.isScanning) {
-				this.cause += " on line " + this.lineNumber;
+		int numDefined = 0;
+		for (int i = 0; i != n; ++i) {
+			for (int j = 0; j != s; ++j) {
+				numDefined += nextState[i][j] != -1 ? 1 : 0;
 			}
-			this.cause += "(" + s[0] + ") isn't a valid integer.";
-			this.illegalArg();
 		}
-
+		this.allocateTransitions(this.isSparse(numDefined, false));
+		for (int i = 0; i != n; ++i) {
+			if (this.sparse) {
+				for (int j = 0; j != s; ++j) {
+					if (nextState[i][j] != -1) {
+						this.define(i, j, nextState[i][j]);
+					}
+				}
+				continue;
+			}
+
+			int[] row = this.nextState[i];
+			boolean[] definedRow = this.defined[i];
+			System.arraycopy(nextState[i], 0, row, 0, s);
+			int rowDefined = 0, numExits = 0;
+			for (int j = 0; j != s; ++j) {
+				if (definedRow[j] = row[j] != -1) {
+					++rowDefined;
+				} else {
+					row[j] = i; // Set default value
+				}
+				if (row[j] != i) {
+					++numExits;
+					this.transitionHash ^= this.cellHash(i, j, row[j]);
+				}
+			}
+			this.stateNumDefined[i] = rowDefined;
+			this.stateNumExits[i] = numExits;
+			this.numDefinedTransitions += rowDefined;
+		}
+		this.resetRun();
+		this.strChange = this.tableChange = true;
+		return this.numDefinedTransitions;
+	}
+
+	/*
+	 * Renumber the states so that state order[k] becomes state k and return the new number of every
+	 * state. The start state has to stay first (order[0] == 0) so what is accepted doesn't change. The
+	 * transitions, the accept states and the token ids move with their states and originalState keeps
+	 * the mapping back to the numbering before any renumbering.
+	 */
+	@SuppressWarnings("null")
+	public int[] renumberStates(int[] order) throws IllegalArgumentException {
+		int n = this.getNumStates();
+		if (order == null || order.length != n) {
+			this.cause = "Given state order isn't valid.";
+			this.illegalArg();
+		} else if (order[0] != 0) {
+			this.cause = "Given state order doesn't keep the start state(0) first.";
+			this.illegalArg();
+		}
+		int[] newState = new int[n];
+		Arrays.fill(newState, -1);
+		for (int k = 0; k != n; ++k) {
+			if (!this.isValidState(order[k])) {
+				this.cause = "Given state(" + order[k] + ") at index " + k
+						+ " of the state order isn't in the range of " + this.getStateRange() + ".";
+				this.illegalArg();
+			} else if (newState[order[k]] != -1) {
+				this.cause = "Given state(" + order[k] + ") appears more than once in the state order.";
+				this.illegalArg();
+			}
+			newState[order[k]] = k;
+		}
+
+		// Collect the defined transitions in the new numbering before the table is reallocated
+		int numDefined = this.getNumDefinedTransitions();
+		int[] rowStart = new int[n + 1], chars = new int[numDefined], finals = new int[numDefined];
+		boolean[] accepting = new boolean[n];
+		int[] tokenId = new int[n], originalState = new int[n];
+		for (int k = 0, count = 0; k != n; ++k) {
+			int state = order[k];
+			for (int j = this.nextDefined(state, 0); j != -1; j = this.nextDefined(state, j + 1)) {
+				chars[count] = j;
+				finals[count++] = newState[this.next(state, j)];
+			}
+			rowStart[k + 1] = count;
+			accepting[k] = this.accepting[state];
+			tokenId[k] = this.tokenId[state];
+			originalState[k] = this.originalState[state];
+		}
+
+		this.accepting = accepting;
+		this.rehashAccepting();
+		this.tokenId = tokenId;
+		this.originalState = originalState;
+		this.allocateTransitions(this.sparse);
+		for (int k = 0; k != n; ++k) {
+			for (int c = rowStart[k]; c != rowStart[k + 1]; ++c) {
+				this.define(k, chars[c], finals[c]);
+			}
+		}
+		if (this.profile != null) {
+			this.profile = this.profile.renumber(order);
+		}
+		this.resetRun();
+		this.strChange = this.tableChange = true;
+		return newState;
+	}
+
+	// Return the states in breadth first order from the start state followed by the unreachable ones
+	private int[] breadthFirstOrder() {
+		int n = this.getNumStates();
+		int[] order = new int[n];
+		boolean[] seen = new boolean[n];
+		seen[0] = true;
+		int head = 0, tail = 1;
+		while (head != tail) {
+			int state = order[head++];
+			for (int j = this.nextDefined(state, 0), next; j != -1; j = this.nextDefined(state, j + 1)) {
+				if (!seen[next = this.next(state, j)]) {
+					seen[next] = true;
+					order[tail++] = next;
+				}
+			}
+		}
+		for (int i = 0; i != n; ++i) {
+			if (!seen[i]) {
+				order[tail++] = i;
+			}
+		}
+		return order;
+	}
+
+	/*
+	 * Renumber the states in breadth first order from the start state so that states which follow each
+	 * other in a run are close together in the transition table.
+	 */
+	public int[] renumberStatesBreadthFirst() {
+		return this.renumberStates(this.breadthFirstOrder());
+	}
+
+	/*
+	 * Renumber the states by how often they're visited by a run on the given sample (of input character
+	 * indices) from the start state so that the hot states get the smallest numbers (which also lets them
+	 * fit in narrow encodings). Ties are broken by breadth first order.
+	 */
+	@SuppressWarnings("null")
+	public int[] renumberStatesByProfile(int[] sample) throws IllegalArgumentException {
+		if (sample == null) {
+			this.cause = "Given sample is null.";
+			this.illegalArg();
+		}
+		for (int i = 0; i != sample.length; ++i) {
+			this.validateInputCharIndex(sample[i]);
+		}
+
+		long[] visits = new long[this.getNumStates()];
+		for (int i = 0, state = 0; i != sample.length; ++i) {
+			++visits[state = this.next(state, sample[i])];
+		}
+		return this.renumberStatesByVisits(visits);
+	}
+
+	/*
+	 * Same as renumberStatesByProfile(int[]) but the states are ordered by their number of visits in the
+	 * current profile (see startProfiling), i.e. by the runs that were actually profiled
+	 */
+	public int[] renumberStatesByProfile() throws IllegalArgumentException {
+		DFAProfile profile = this.profile;
+		if (profile == null) {
+			this.cause = "Machine isn't being profiled.";
+			this.illegalArg();
+		}
+		return this.renumberStatesByVisits(profile.getStateCounts());
+	}
+
+	// Renumber the states by decreasing number of visits and then by breadth first rank
+	private int[] renumberStatesByVisits(long[] visits) {
+		int n = this.getNumStates();
+		int[] bfs = this.breadthFirstOrder();
+		Integer[] ranks = new Integer[n - 1];
+		for (int rank = 1; rank != n; ++rank) {
+			ranks[rank - 1] = rank;
+		}
+		// Sorting objects is stable so ties stay in breadth first order (and the start state stays first)
+		Arrays.sort(ranks, (a, b) -> Long.compare(visits[bfs[b]], visits[bfs[a]]));
+		int[] order = new int[n];
+		for (int k = 1; k != n; ++k) {
+			order[k] = bfs[ranks[k - 1]];
+		}
+		return this.renumberStates(order);
+	}
+
+	/*
+	 * Start recording the number of visits of every state and the number of uses of every transition by
+	 * the runs of accept (and so of simulate) in a new profile which is returned. Every thread counts in
+	 * its own stripe of the profile. A profiled run takes every step (it doesn't stop at sinks or skip
+	 * self loops and acceptAll doesn't share prefixes) so that the counts describe the whole input.
+	 */
+	public DFAProfile startProfiling() {
+		return this.profile = new DFAProfile(this.getNumStates(), this.inputAlphabet);
+	}
+
+	// Stop profiling and return the last profile (or null if machine wasn't being profiled)
+	public DFAProfile stopProfiling() {
+		DFAProfile result = this.profile;
+		this.profile = null;
+		return result;
+	}
+
+	public boolean isProfiling() {
+		return this.profile != null;
+	}
+
+	// Returns the current profile (or null if machine isn't being profiled)
+	public DFAProfile getProfile() {
+		return this.profile;
+	}
+
+	// Run on testString from state recording every step in stripe and return the final state
+	private int runProfiled(DFAProfile.Stripe stripe, ArrayList<Integer> testString, int state) {
+		int s = this.getInputAlphabetSize();
+		long[] stateCounts = stripe.stateCounts, transitionCounts = stripe.transitionCounts;
+		++stripe.numRuns;
+		++stateCounts[state];
+		for (int i = 0; i != testString.size(); ++i) {
+			int c = testString.get(i);
+			++transitionCounts[state * s + c];
+			++stateCounts[state = this.next(state, c)];
+		}
+		return state;
+	}
+
+	private int runProfiled(DFAProfile.Stripe stripe, int[] testString, int state) {
+		int s = this.getInputAlphabetSize();
+		long[] stateCounts = stripe.stateCounts, transitionCounts = stripe.transitionCounts;
+		++stripe.numRuns;
+		++stateCounts[state];
+		for (int i = 0; i != testString.length; ++i) {
+			int c = testString[i];
+			++transitionCounts[state * s + c];
+			++stateCounts[state = this.next(state, c)];
+		}
+		return state;
+	}
+
+	private int runProfiled(DFAProfile.Stripe stripe, byte[] testString, int from, int to, int state) {
+		int s = this.getInputAlphabetSize();
+		long[] stateCounts = stripe.stateCounts, transitionCounts = stripe.transitionCounts;
+		++stripe.numRuns;
+		++stateCounts[state];
+		for (int i = from; i != to; ++i) {
+			int c = testString[i] & 0xFF;
+			++transitionCounts[state * s + c];
+			++stateCounts[state = this.next(state, c)];
+		}
+		return state;
+	}
+
+	public String putTransition(int initialState, String readChar, int finalState, boolean replace)
+			throws IllegalArgumentException {
+		int readCharIndex = (int) (this.validateTransition(initialState, readChar, finalState)[3]);
+		String transition = initialState + " " + readChar + " " + finalState;
+		if (!replace && this.isDefined(initialState, readCharIndex)) {
+			this.cause = "Given transition";
+			if (this.isScanning) {
+				this.cause += " on line " + this.lineNumber;
+			}
+			this.cause += "(" + transition + ") has the same initial state and input character"
+					+ " as another transition defined before it.";
+			this.illegalArg();
+		}
+
+		this.putTransition(initialState, readCharIndex, finalState);
+		return transition;
+	}
+
+	// Assumes the given transition is valid
+	private void putTransition(int initialState, int readCharIndex, int finalState) {
+		int oldFinalState = this.next(initialState, readCharIndex);
+		if (this.define(initialState, readCharIndex, finalState)) {
+			this.resetRun();
+		}
+		if (oldFinalState != finalState) {
+			this.clearShortIndex();
+			if (this.runIndex != null) {
+				this.countRuns(this.runIndex.updateTransition(initialState, readCharIndex));
+			}
+		}
+		this.strChange = this.tableChange = true;
+	}
+
+	public String putTransition(int initialState, String readChar, int finalState) throws IllegalArgumentException {
+		return this.putTransition(initialState, readChar, finalState, false);
+	}
+
+	public boolean isValidTransition(String transition) {
+		try {
+			Object[] result = this.validateTransition(transition);
+			return this.isValidTransition((int) result[0], (String) result[1], (int) result[2]);
+		} catch (IllegalArgumentException ex) {
+			return false;
+		}
+	}
+
+	public boolean isValidTransition(int initialState, String readChar, int finalState) {
+		try { // If no exception is thrown then the result is necessarily true
+			return (this.validateTransition(initialState, readChar, finalState) != null);
+		} catch (IllegalArgumentException ex) {
+			return false;
+		}
+	}
+
+	public boolean isValidDefinedTransition(String transition) throws IllegalArgumentException {
+		Object[] result = this.validateTransition(transition);
+		return this.isValidDefinedTransition((int) result[0], (String) result[1], (int) result[2]);
+	}
+
+	public boolean isValidDefinedTransition(int initialState, String readChar, int finalState)
+			throws IllegalArgumentException {
+		int readCharIndex = (int) (this.validateTransition(initialState, readChar, finalState)[3]);
+		return this.isDefined(initialState, readCharIndex);
+	}
+
+	@SuppressWarnings("null")
+	public Object[] validateTransition(String transition) throws IllegalArgumentException {
+		if (transition == null) {
+			this.cause = "Given transition is null.";
+			this.illegalArg();
+		}
+
+		String[] s = transition.split(DFA.DELIMITER_STRING);
+		if (s.length != 3 || DFA.countDelimiters(transition) != s.length - 1) {
+			this.cause = "Given transition(" + transition + ") isn't valid.";
+			if (this.isScanning) {
+				this.cause = "Line " + this.lineNumber + "(" + transition + ") isn't valid.";
+			}
+			this.illegalArg();
+		}
+
+		int initialState = 0;
+		try {
+			initialState = Integer.parseInt(s[0]);
+		} catch (NumberFormatException ex) {
+			this.cause = "Given initial state";
+			if (this.isScanning) {
+				this.cause += " on line " + this.lineNumber;
+			}
+			this.cause += "(" + s[0] + ") isn't a valid integer.";
+			this.illegalArg();
+		}
+
 		int finalState = 0;
 		try {
 			finalState = Integer.parseInt(s[2]);
@@ -1868,308 +2839,1438 @@ public class DFA {
 		return result;
 	}
 
-	public Object[] validateTransition(int initialState, String readChar) throws IllegalArgumentException {
-		Object[] result = { this.validateState(initialState), readChar, this.validateInputChar(readChar) };
-		return result;
+	public Object[] validateTransition(int initialState, String readChar) throws IllegalArgumentException {
+		Object[] result = { this.validateState(initialState), readChar, this.validateInputChar(readChar) };
+		return result;
+	}
+
+	private String resetTransition(int initialState, int readCharIndex) {
+		String transition = this.getTransition(initialState, readCharIndex, false);
+		int oldFinalState = this.next(initialState, readCharIndex);
+		// Set default value
+		if (this.undefine(initialState, readCharIndex)) {
+			this.resetRun();
+			this.strChange = true;
+		}
+		if (oldFinalState != initialState) {
+			this.clearShortIndex();
+			if (this.runIndex != null) {
+				this.countRuns(this.runIndex.updateTransition(initialState, readCharIndex));
+			}
+		}
+		this.tableChange = true;
+		return transition;
+	}
+
+	public String resetTransition(int initialState, String readChar) throws IllegalArgumentException {
+		int readCharIndex = (int) (this.validateTransition(initialState, readChar)[2]);
+		return this.resetTransition(initialState, readCharIndex);
+	}
+
+	public String[] resetTransitions(int initialState) throws IllegalArgumentException {
+		this.validateState(initialState);
+		String[] result = new String[this.getInputAlphabetSize()];
+		for (int i = 0; i != result.length; ++i) {
+			result[i] = this.resetTransition(initialState, i);
+		}
+		return result;
+	}
+
+	public String[] resetTransitions() {
+		String[] result = new String[this.getTotalNumTransitions()];
+		for (int i = 0, index = 0; i != this.getNumStates(); ++i) {
+			for (int j = 0; j != this.getInputAlphabetSize(); ++j) {
+				result[index++] = this.getTransition(i, j, false);
+			}
+		}
+		if (this.getNumDefinedTransitions() != 0) {
+			this.allocateTransitions(this.isSparse(0, this.sparse));
+			this.resetRun();
+			this.strChange = true;
+		}
+		this.tableChange = true;
+		return result;
+	}
+
+	public String resetDefinedTransition(int initialState, String readChar) throws IllegalArgumentException {
+		int readCharIndex = (int) (this.validateTransition(initialState, readChar)[2]);
+		String transition = null;
+		if (this.isDefined(initialState, readCharIndex)) {
+			transition = this.resetTransition(initialState, readCharIndex);
+		}
+		return transition;
+	}
+
+	public String[] resetDefinedTransitions(int initialState) throws IllegalArgumentException {
+		this.validateState(initialState);
+		String[] result = new String[this.stateNumDefined[initialState]];
+		for (int i = this.nextDefined(initialState, 0), index = 0; i != -1; i = this.nextDefined(initialState,
+				i + 1)) {
+			result[index++] = this.resetTransition(initialState, i);
+		}
+		return result;
+	}
+
+	public String[] resetDefinedTransitions() {
+		String[] result = new String[this.getNumDefinedTransitions()];
+		for (int i = 0, index = 0; i != this.getNumStates() && this.getNumDefinedTransitions() != 0; ++i) {
+			for (int j = this.nextDefined(i, 0); j != -1; j = this.nextDefined(i, j + 1)) {
+				result[index++] = this.resetTransition(i, j);
+			}
+		}
+		return result;
+	}
+
+	private void initializeTransitions() {
+		this.allocateTransitions(this.isSparse(0, false));
+		this.strChange = this.tableChange = true;
+		if (this.profile != null) {
+			// The number of states or input characters changed so the counts start over
+			this.profile = new DFAProfile(this.getNumStates(), this.inputAlphabet);
+		}
+	}
+
+	// Allocate the transitions in the given representation with every transition undefined
+	private void allocateTransitions(boolean sparse) {
+		// The runs of the last simulation and the short input index would have to be recomputed from scratch
+		this.runIndex = null;
+		this.clearShortIndex();
+		int n = this.getNumStates(), s = this.getInputAlphabetSize();
+		this.stateNumDefined = new int[n];
+		this.stateNumExits = new int[n];
+		this.numDefinedTransitions = 0;
+		this.transitionHash = 0;
+		if (this.sparse = sparse) {
+			this.nextState = null;
+			this.defined = null;
+			this.sparseChar = new int[n][];
+			this.sparseNext = new int[n][];
+			Arrays.fill(this.sparseChar, DFA.EMPTY_ROW);
+			Arrays.fill(this.sparseNext, DFA.EMPTY_ROW);
+		} else {
+			this.sparseChar = this.sparseNext = null;
+			this.nextState = new int[n][s];
+			this.defined = new boolean[n][s];
+			for (int i = 0; i != n; ++i) {
+				for (int j = 0; j != s; ++j) {
+					this.nextState[i][j] = i; // Set default value
+				}
+			}
+		}
+	}
+
+	// Return whether the transitions should be stored sparsely given the number of defined ones
+	private boolean isSparse(int numDefined, boolean sparse) {
+		long total = this.getTotalNumTransitions();
+		if (total <= DFA.MIN_SPARSE_TOTAL) {
+			return false;
+		}
+		return (sparse ? numDefined * (long) DFA.DENSE_RATIO <= total
+				: numDefined * (long) DFA.SPARSE_RATIO < total);
+	}
+
+	// Convert the transitions to the representation that suits their current density
+	private void updateRepresentation() {
+		if (this.isSparse(this.getNumDefinedTransitions(), this.sparse) == this.sparse) {
+			return;
+		}
+
+		int n = this.getNumStates(), s = this.getInputAlphabetSize();
+		if (this.sparse) {
+			this.nextState = new int[n][s];
+			this.defined = new boolean[n][s];
+			for (int i = 0; i != n; ++i) {
+				int[] row = this.nextState[i], chars = this.sparseChar[i], next = this.sparseNext[i];
+				Arrays.fill(row, i); // Set default value
+				for (int k = 0; k != this.stateNumDefined[i]; ++k) {
+					row[chars[k]] = next[k];
+					this.defined[i][chars[k]] = true;
+				}
+			}
+			this.sparseChar = this.sparseNext = null;
+		} else {
+			this.sparseChar = new int[n][];
+			this.sparseNext = new int[n][];
+			for (int i = 0; i != n; ++i) {
+				int length = this.stateNumDefined[i];
+				int[] chars = this.sparseChar[i] = (length != 0 ? new int[length] : DFA.EMPTY_ROW);
+				int[] next = this.sparseNext[i] = (length != 0 ? new int[length] : DFA.EMPTY_ROW);
+				for (int j = 0, k = 0; k != length; ++j) {
+					if (this.defined[i][j]) {
+						chars[k] = j;
+						next[k++] = this.nextState[i][j];
+					}
+				}
+			}
+			this.nextState = null;
+			this.defined = null;
+		}
+		this.sparse = !this.sparse;
+	}
+
+	// Return the index of readCharIndex in the sparse row of state (or -(insertion point) - 1)
+	private int sparseIndex(int state, int readCharIndex) {
+		return Arrays.binarySearch(this.sparseChar[state], 0, this.stateNumDefined[state], readCharIndex);
+	}
+
+	// Return delta(state, readCharIndex)
+	private int next(int state, int readCharIndex) {
+		if (!this.sparse) {
+			return this.nextState[state][readCharIndex];
+		}
+		int k = this.sparseIndex(state, readCharIndex);
+		return (k >= 0 ? this.sparseNext[state][k] : state);
+	}
+
+	private boolean isDefined(int state, int readCharIndex) {
+		return (this.sparse ? this.sparseIndex(state, readCharIndex) >= 0 : this.defined[state][readCharIndex]);
+	}
+
+	// Return the smallest input character index >= from on which state has a defined transition (or -1)
+	private int nextDefined(int state, int from) {
+		if (this.sparse) {
+			int k = this.sparseIndex(state, from);
+			k = (k >= 0 ? k : -k - 1);
+			return (k != this.stateNumDefined[state] ? this.sparseChar[state][k] : -1);
+		}
+		boolean[] row = this.defined[state];
+		for (int j = from; j != row.length; ++j) {
+			if (row[j]) {
+				return j;
+			}
+		}
+		return -1;
+	}
+
+	// Copy the row of state (with the default self loops) to result starting at the given offset
+	private void copyRow(int state, int[] result, int offset) {
+		if (!this.sparse) {
+			System.arraycopy(this.nextState[state], 0, result, offset, this.getInputAlphabetSize());
+			return;
+		}
+		Arrays.fill(result, offset, offset + this.getInputAlphabetSize(), state);
+		int[] chars = this.sparseChar[state], next = this.sparseNext[state];
+		for (int k = 0; k != this.stateNumDefined[state]; ++k) {
+			result[offset + chars[k]] = next[k];
+		}
+	}
+
+	/*
+	 * Set delta(state, readCharIndex) = finalState (as a defined transition) and keep the counts up to
+	 * date. Return whether the transition was previously undefined.
+	 */
+	private boolean define(int state, int readCharIndex, int finalState) {
+		int oldFinalState = this.next(state, readCharIndex);
+		this.stateNumExits[state] += (finalState != state ? 1 : 0) - (oldFinalState != state ? 1 : 0);
+		this.transitionHash ^= this.cellHash(state, readCharIndex, oldFinalState)
+				^ this.cellHash(state, readCharIndex, finalState);
+		if (this.sparse) {
+			int k = this.sparseIndex(state, readCharIndex);
+			if (k >= 0) {
+				this.sparseNext[state][k] = finalState;
+				return false;
+			}
+			k = -k - 1;
+			int length = this.stateNumDefined[state];
+			int[] chars = this.sparseChar[state], next = this.sparseNext[state];
+			if (length == chars.length) {
+				int capacity = Math.min(Math.max(length << 1, 2), this.getInputAlphabetSize());
+				chars = this.sparseChar[state] = Arrays.copyOf(chars, capacity);
+				next = this.sparseNext[state] = Arrays.copyOf(next, capacity);
+			}
+			System.arraycopy(chars, k, chars, k + 1, length - k);
+			System.arraycopy(next, k, next, k + 1, length - k);
+			chars[k] = readCharIndex;
+			next[k] = finalState;
+		} else {
+			this.nextState[state][readCharIndex] = finalState;
+			if (this.defined[state][readCharIndex]) {
+				return false;
+			}
+			this.defined[state][readCharIndex] = true;
+		}
+		++this.stateNumDefined[state];
+		++this.numDefinedTransitions;
+		this.updateRepresentation();
+		return true;
+	}
+
+	/*
+	 * Reset delta(state, readCharIndex) to its default value (an undefined self loop) and keep the counts
+	 * up to date. Return whether the transition was previously defined.
+	 */
+	private boolean undefine(int state, int readCharIndex) {
+		if (this.sparse) {
+			int k = this.sparseIndex(state, readCharIndex);
+			if (k < 0) {
+				return false;
+			}
+			int[] chars = this.sparseChar[state], next = this.sparseNext[state];
+			if (next[k] != state) {
+				--this.stateNumExits[state];
+				this.transitionHash ^= this.cellHash(state, readCharIndex, next[k]);
+			}
+			int length = --this.stateNumDefined[state];
+			System.arraycopy(chars, k + 1, chars, k, length - k);
+			System.arraycopy(next, k + 1, next, k, length - k);
+			if (length <= chars.length >>> 2) {
+				// Shrink the row so that its memory stays proportional to its number of defined transitions
+				this.sparseChar[state] = (length != 0 ? Arrays.copyOf(chars, chars.length >>> 1) : DFA.EMPTY_ROW);
+				this.sparseNext[state] = (length != 0 ? Arrays.copyOf(next, next.length >>> 1) : DFA.EMPTY_ROW);
+			}
+		} else {
+			if (!this.defined[state][readCharIndex]) {
+				return false;
+			}
+			if (this.nextState[state][readCharIndex] != state) {
+				--this.stateNumExits[state];
+				this.transitionHash ^= this.cellHash(state, readCharIndex, this.nextState[state][readCharIndex]);
+			}
+			this.nextState[state][readCharIndex] = state;
+			this.defined[state][readCharIndex] = false;
+			--this.stateNumDefined[state];
+		}
+		--this.numDefinedTransitions;
+		this.updateRepresentation();
+		return true;
+	}
+
+	// Hash of delta(state, readCharIndex) = finalState (0 for the default self loop)
+	private long cellHash(int state, int readCharIndex, int finalState) {
+		if (finalState == state) {
+			return 0;
+		}
+		long cell = (long) state * this.getInputAlphabetSize() + readCharIndex;
+		return HashMix.mix(HashMix.mix(cell) + finalState);
+	}
+
+	// Hash of state being an accept state
+	private static long acceptHash(int state) {
+		return HashMix.mix(~(long) state);
+	}
+
+	private void rehashAccepting() {
+		this.acceptingHash = 0;
+		for (int i = 0; i != this.getNumStates(); ++i) {
+			if (this.accepting[i]) {
+				this.acceptingHash ^= DFA.acceptHash(i);
+			}
+		}
+	}
+
+	@SuppressWarnings("null")
+	public static int countDelimiters(String s) throws IllegalArgumentException {
+		if (s == null) {
+			DFA.staticCause = "Given string is null.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
+
+		int count = 0;
+		for (int i = 0; i != s.length(); ++i) {
+			count += s.charAt(i) == DFA.DELIMITER_CHAR ? 1 : 0;
+		}
+		return count;
+	}
+
+	public static String lower(String s) {
+		if (s == null) {
+			return null;
+		}
+
+		String lower = s.toLowerCase();
+		if (s.length() <= 1) {
+			return lower;
+		} else if (s.substring(1).equals(lower.substring(1))) {
+			return lower; // Matches [A-Z][a-z]*
+		} else if (s.equals(s.toUpperCase())) {
+			return lower; // Matches [A-Z]+
+		}
+
+		return null;
+	}
+
+	public static boolean isValidBoolean(String s) {
+		try { // If no exception is thrown then the result is necessarily true
+			return (DFA.parseBoolean(s) || true);
+		} catch (IllegalArgumentException ex) {
+			return false;
+		}
+	}
+
+	public static boolean parseBoolean(String s) throws IllegalArgumentException {
+		if (s == null) {
+			DFA.staticCause = "Given string is null.";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
+
+		String check = DFA.lower(s);
+		if (check != null) {
+			if (check.equals(DFA.TRUE_1) || check.equals(DFA.TRUE_2)) {
+				return true;
+			} else if (check.equals(DFA.FALSE_1) || check.equals(DFA.FALSE_2)) {
+				return false;
+			}
+		}
+
+		DFA.staticCause = "Given string(" + s + ") doesn't represent valid a boolean.";
+		DFA.illegalArg(DFA.getStaticCause());
+		return false;
+	}
+
+	public String simulate(boolean print) {
+		this.isSimulating = true;
+
+		ArrayList<Integer> testString = this.getInitialArray();
+		String message, value = "";
+
+		if (print) {
+			this.printMachine();
+			if (this.getMaxStringCount() == 0) {
+				System.out.println("\nTesting no strings!");
+			} else {
+				if (this.getMaxStringCount() == 1) {
+					System.out.print("\nStarting to test ");
+				} else {
+					System.out.println(
+							"\nStarting to test strings of length in the range of " + this.getLengthRange() + ".");
+					System.out.print(
+							"Testing the first " + DFA.comma(this.getMaxStringCount()) + " strings starting from ");
+				}
+				message = this.toString(testString, true).toLowerCase();
+				System.out.println(message + "." + (this.getMaxStringCount() != 1 ? '\n' : ""));
+			}
+		}
+
+		this.acceptCount = this.rejectCount = 0;
+		// Maps testString to accept:stepCount
+		this.results = new HashMap<ArrayList<Integer>, String>(this.getMaxStringCount());
+		this.startRunIndex();
+
+		long beforeTime = System.nanoTime(), elapsedTime;
+		int count = 0;
+		while (testString.size() <= this.getMaxLength() && ++count <= this.getMaxStringCount()) {
+			value = this.simulate(testString, print);
+			this.incrementTestString(testString);
+		}
+		elapsedTime = DFA.nano2Milli(System.nanoTime() - beforeTime);
+		this.time = DFA.formatTime(elapsedTime);
+
+		this.actualStringCount = Math.min(this.getMaxStringCount(), count);
+
+		if (print) {
+			this.printSimulationInfo();
+		}
+
+		this.isSimulating = false;
+		if (this.getActualStringCount() == 0) {
+			return null;
+		} else if (this.getActualStringCount() == 1) {
+			return value;
+		}
+		return (this.getAcceptCount() + ":" + this.getRejectCount());
+	}
+
+	public String simulate() {
+		return this.simulate(true);
+	}
+
+	// Test testString as part of a simulation, record its result and return it as accept:stepCount
+	private String simulate(ArrayList<Integer> testString, boolean print) {
+		String message, value;
+		// testString may be changed in place afterwards (e.g. for the next iteration) so results needs its own copy
+		ArrayList<Integer> key = new ArrayList<Integer>(testString);
+		if (this.getRun()) {
+			boolean accept = this.accept(testString);
+			value = accept + ":" + testString.size();
+			this.results.put(key, value);
+
+			if (print) {
+				message = this.toString(testString, true) + " was ";
+				message += accept ? "accepted in " : "rejected in ";
+				System.out.println(
+						message + DFA.comma(testString.size()) + (testString.size() == 1 ? " step." : " steps."));
+			}
+		} else if (this.getNumAcceptingStates() == 0) {
+			this.incrementCount(false);
+			value = "false:0";
+			this.results.put(key, value);
+
+			if (print) {
+				message = this.toString(testString, true);
+				System.out.println(message + " was rejected in 0 steps!");
+			}
+		} else if (this.getNumAcceptingStates() == this.getNumStates()) {
+			this.incrementCount(true);
+			value = "true:0";
+			this.results.put(key, value);
+
+			if (print) {
+				message = this.toString(testString, true);
+				System.out.println(message + " was accepted in 0 steps!");
+			}
+		} else { // this.getNumDefinedTransitions() == 0
+			boolean accept = this.accepting[0];
+			this.incrementCount(accept);
+			value = accept + ":" + testString.size();
+			this.results.put(key, value);
+
+			if (print) {
+				message = this.toString(testString, true) + " was ";
+				message += accept ? "accepted" : "rejected";
+				System.out.println(message + " in 0 steps!");
+			}
+		}
+
+		if (this.runIndex != null) {
+			this.runIndex.add(key);
+		}
+		return value;
+	}
+
+	/*
+	 * Simulate the machine on the given test strings instead of the ones in the length range (e.g. the
+	 * strings of a ConformanceSuite). The strings are streamed into the results one at a time and every
+	 * one of them is counted regardless of maxStringCount.
+	 */
+	public String simulate(Iterable<ArrayList<Integer>> testStrings, boolean print) throws IllegalArgumentException {
+		if (testStrings == null) {
+			this.cause = "Given test strings are null.";
+			this.illegalArg();
+		}
+		this.isSimulating = true;
+
+		if (print) {
+			this.printMachine();
+			System.out.println("\nStarting to test the given strings.\n");
+		}
+
+		boolean count = this.count;
+		this.count = true;
+		this.acceptCount = this.rejectCount = 0;
+		this.results = new HashMap<ArrayList<Integer>, String>(this.getMaxStringCount());
+		this.startRunIndex();
+
+		long beforeTime = System.nanoTime(), elapsedTime;
+		String value = "";
+		int actualStringCount = 0;
+		for (ArrayList<Integer> testString : testStrings) {
+			if (!this.isValidTestString(testString)) {
+				this.isSimulating = false;
+				this.count = count;
+				this.cause = "Given test string(" + testString + ") isn't defined over the given input alphabet.";
+				this.illegalArg();
+			}
+			value = this.simulate(testString, print);
+			++actualStringCount;
+		}
+		elapsedTime = DFA.nano2Milli(System.nanoTime() - beforeTime);
+		this.time = DFA.formatTime(elapsedTime);
+
+		this.actualStringCount = actualStringCount;
+
+		if (print) {
+			this.printSimulationInfo();
+		}
+
+		this.count = count;
+		this.isSimulating = false;
+		if (this.getActualStringCount() == 0) {
+			return null;
+		} else if (this.getActualStringCount() == 1) {
+			return value;
+		}
+		return (this.getAcceptCount() + ":" + this.getRejectCount());
+	}
+
+	public String simulate(Iterable<ArrayList<Integer>> testStrings) throws IllegalArgumentException {
+		return this.simulate(testStrings, true);
+	}
+
+	/*
+	 * Returns a short set of test strings which takes every defined transition that can be reached from
+	 * the start state at least once (e.g. to be passed to simulate instead of every string in the length
+	 * range) along with a report of the coverage
+	 */
+	public TransitionCover getTransitionCover() {
+		int n = this.getNumStates(), s = this.getInputAlphabetSize();
+		int[] next = new int[n * s];
+		boolean[] target = new boolean[n * s];
+		for (int i = 0; i != n; ++i) {
+			this.copyRow(i, next, i * s);
+			for (int j = 0; j != s; ++j) {
+				target[i * s + j] = this.isDefined(i, j);
+			}
+		}
+		return new TransitionCover(this.getInputAlphabet(), n, next, target, null, null, null);
+	}
+
+	private boolean accept(ArrayList<Integer> testString) {
+		int initialState = 0;
+		boolean accept = this.accept(testString, initialState);
+		return this.incrementCount(accept);
+	}
+
+	// Start a new index of the runs of the simulation that is about to add its strings to results (if
+	// incrementalSimulation is set)
+	private void startRunIndex() {
+		this.runIndex = !this.incrementalSimulation ? null
+				: new RunIndex(this.getNumStates(), this.getInputAlphabetSize(), this::next,
+						state -> this.accepting[state], this.results, this.count, this.isTrivial());
+	}
+
+	// Whether every state is an accept state or none is (so every string is decided in 0 steps)
+	private boolean isTrivial() {
+		return (this.getNumAcceptingStates() == 0 || this.getNumAcceptingStates() == this.getNumStates());
+	}
+
+	// Re-evaluate every string of the last simulation after any number of states have changed at once
+	private void relabelRuns() {
+		if (this.runIndex != null) {
+			this.countRuns(this.runIndex.relabel(this.isTrivial()));
+		}
+	}
+
+	// Apply the given change in the number of accepted strings of the last simulation
+	private void countRuns(int delta) {
+		this.acceptCount += delta;
+		this.rejectCount -= delta;
+	}
+
+	private boolean incrementCount(boolean accept) {
+		if (this.count) {
+			if (accept) {
+				++this.acceptCount;
+			} else {
+				++this.rejectCount;
+			}
+		}
+		return accept;
+	}
+
+	// Checks whether machine accepts the string described by testString
+	public boolean accept(ArrayList<Integer> testString, int state) throws IllegalArgumentException {
+		if (!this.isSimulating) {
+			this.validateState(state);
+			this.validateTestString(testString);
+		}
+
+		DFAProfile profile = this.profile;
+		if (profile != null) {
+			return this.accepting[this.runProfiled(profile.getStripe(), testString, state)];
+		}
+		// Stop as soon as a sink is reached since every remaining step loops back to it
+		if (this.stateNumExits[state] != 0) {
+			for (int i = 0, next; i != testString.size(); ++i) {
+				if ((next = this.next(state, testString.get(i))) != state
+						&& this.stateNumExits[state = next] == 0) {
+					break;
+				}
+			}
+		}
+		return this.accepting[state];
+	}
+
+	/*
+	 * Checks whether machine accepts the string described by testString[from, to) where every byte is
+	 * an (unsigned) input character index. Runs of self loops of states with at most MAX_SCAN_EXITS
+	 * exits are skipped 8 bytes at a time by searching for the next exit byte within a long (SWAR) and
+	 * the run stops as soon as a sink is reached. The number of steps is still to - from.
+	 */
+	public boolean accept(byte[] testString, int from, int to, int state) throws IllegalArgumentException {
+		this.validateState(state);
+		if (testString == null || from < 0 || to > testString.length || from > to) {
+			this.cause = "Given test string range isn't valid.";
+			this.illegalArg();
+		} else if (this.getInputAlphabetSize() > DFA.MAX_BYTE_INPUT_ALPHABET_SIZE) {
+			this.cause = "Given input alphabet size(" + this.getInputAlphabetSize()
+					+ ") is too large for input characters to be described by bytes.";
+			this.illegalArg();
+		}
+		int s = this.getInputAlphabetSize();
+		if (s != DFA.MAX_BYTE_INPUT_ALPHABET_SIZE) {
+			for (int i = from; i != to; ++i) {
+				if ((testString[i] & 0xFF) >= s) {
+					this.validateInputCharIndex(testString[i] & 0xFF);
+				}
+			}
+		}
+
+		DFAProfile profile = this.profile;
+		if (profile != null) {
+			return this.accepting[this.runProfiled(profile.getStripe(), testString, from, to, state)];
+		}
+		this.analyzeTransitions();
+		int pos = from, last = to - Long.BYTES;
+		while (pos != to && this.stateNumExits[state] != 0) {
+			long[] pattern = this.exitPattern[state];
+			if (pattern != null) {
+				// Skip to the next exit of state
+				while (pos <= last) {
+					long word = (long) DFA.LONG_VIEW.get(testString, pos), found = 0;
+					for (int i = 0; i != pattern.length; ++i) {
+						long x = word ^ pattern[i];
+						found |= (x - DFA.LOW_BITS) & ~x & DFA.HIGH_BITS;
+					}
+					if (found != 0) {
+						pos += Long.numberOfTrailingZeros(found) >>> 3;
+						break;
+					}
+					pos += Long.BYTES;
+				}
+				if (pos == to) {
+					break;
+				}
+			}
+			state = this.next(state, testString[pos++] & 0xFF);
+		}
+		return this.accepting[state];
+	}
+
+	public boolean accept(byte[] testString, int state) throws IllegalArgumentException {
+		if (testString == null) {
+			this.cause = "Given test string is null.";
+			this.illegalArg();
+		}
+		return this.accept(testString, 0, testString.length, state);
+	}
+
+	/*
+	 * Checks whether machine accepts each of testStrings (every one an array of input character indices)
+	 * and returns the verdicts in the order of testStrings. Every chunk of at most BATCH_CHUNK_SIZE
+	 * strings is sorted and each string then continues from the state reached by the longest prefix that
+	 * it shares with the string before it, so that the machine takes one step per distinct prefix (edge
+	 * of the prefix trie) of the chunk instead of one per character.
+	 */
+	@SuppressWarnings("null")
+	public boolean[] acceptAll(int[][] testStrings, int state) throws IllegalArgumentException {
+		this.validateState(state);
+		if (testStrings == null) {
+			this.cause = "Given test strings array is null.";
+			this.illegalArg();
+		}
+		for (int i = 0; i != testStrings.length; ++i) {
+			if (testStrings[i] == null) {
+				this.cause = "Given test string at index " + i + " is null.";
+				this.illegalArg();
+			}
+			for (int j = 0; j != testStrings[i].length; ++j) {
+				this.validateInputCharIndex(testStrings[i][j]);
+			}
+		}
+
+		boolean[] result = new boolean[testStrings.length];
+		DFAProfile profile = this.profile;
+		if (profile != null) {
+			DFAProfile.Stripe stripe = profile.getStripe();
+			for (int i = 0; i != testStrings.length; ++i) {
+				result[i] = this.accepting[this.runProfiled(stripe, testStrings[i], state)];
+			}
+			return result;
+		}
+		for (int from = 0; from != testStrings.length;) {
+			int to = Math.min(from + DFA.BATCH_CHUNK_SIZE, testStrings.length);
+			this.acceptChunk(testStrings, from, to, state, result, from);
+			from = to;
+		}
+		return result;
+	}
+
+	public boolean[] acceptAll(int[][] testStrings) throws IllegalArgumentException {
+		return this.acceptAll(testStrings, 0);
+	}
+
+	// Same as acceptAll(int[][]) but every test string is written as a concatenation of input characters
+	@SuppressWarnings("null")
+	public boolean[] acceptAll(String[] testStrings) throws IllegalArgumentException {
+		if (testStrings == null) {
+			this.cause = "Given test strings array is null.";
+			this.illegalArg();
+		}
+
+		boolean[] result = new boolean[testStrings.length];
+		// Only one chunk is translated to input character indices at a time
+		int[][] chunk = new int[Math.min(DFA.BATCH_CHUNK_SIZE, testStrings.length)][];
+		for (int from = 0; from != testStrings.length;) {
+			int to = Math.min(from + DFA.BATCH_CHUNK_SIZE, testStrings.length);
+			for (int i = from; i != to; ++i) {
+				chunk[i - from] = this.validateSymbols(testStrings[i]);
+			}
+			DFAProfile profile = this.profile;
+			if (profile != null) {
+				DFAProfile.Stripe stripe = profile.getStripe();
+				for (int i = from; i != to; ++i) {
+					result[i] = this.accepting[this.runProfiled(stripe, chunk[i - from], 0)];
+				}
+			} else {
+				this.acceptChunk(chunk, 0, to - from, 0, result, from);
+			}
+			from = to;
+		}
+		return result;
+	}
+
+	// Store whether machine accepts testStrings[i] (starting from state) in result[offset + i - from]
+	private void acceptChunk(int[][] testStrings, int from, int to, int state, boolean[] result, int offset) {
+		Integer[] order = new Integer[to - from];
+		int maxLength = 0;
+		for (int i = from; i != to; ++i) {
+			order[i - from] = i;
+			maxLength = Math.max(maxLength, testStrings[i].length);
+		}
+		Arrays.sort(order, (a, b) -> Arrays.compare(testStrings[a], testStrings[b]));
+
+		/*
+		 * path[k] is the state reached by the first k characters of the previous string for every k up to
+		 * pathLength (the run of the previous string stopped there if path[pathLength] is a sink)
+		 */
+		int[] path = new int[maxLength + 1], previous = DFA.EMPTY_ROW;
+		path[0] = state;
+		int pathLength = 0;
+		for (int i = 0; i != order.length; ++i) {
+			int[] testString = testStrings[order[i]];
+			int k = 0, limit = Math.min(pathLength, testString.length);
+			while (k != limit && testString[k] == previous[k]) {
+				++k;
+			}
+			int current = path[k];
+			if (this.stateNumExits[current] != 0) {
+				for (int next; k != testString.length; path[++k] = current = next) {
+					if ((next = this.next(current, testString[k])) != current && this.stateNumExits[next] == 0) {
+						path[++k] = current = next;
+						break;
+					}
+				}
+			}
+			result[offset + order[i] - from] = this.accepting[current];
+			previous = testString;
+			pathLength = k;
+		}
+	}
+
+	/*
+	 * Build the short input index (see ShortIndex) which holds whether machine accepts each string of
+	 * length at most maxLength in one bit. Nothing is built (and false is returned) if the index would
+	 * take more than maxBytes to build. The index is dropped by every change to the transitions or the
+	 * accept states.
+	 */
+	public boolean buildShortIndex(int maxLength, long maxBytes) throws IllegalArgumentException {
+		if (maxLength < 0) {
+			this.cause = "Given max length(" + maxLength + ") is negative.";
+			this.illegalArg();
+		} else if (maxBytes < 0) {
+			this.cause = "Given max number of bytes(" + maxBytes + ") is negative.";
+			this.illegalArg();
+		}
+		this.clearShortIndex();
+		this.shortIndex = ShortIndex.build(this.getInputAlphabetSize(), maxLength, maxBytes, this::copyRow,
+				state -> this.accepting[state]);
+		return (this.shortIndex != null);
+	}
+
+	// Returns the max length of the strings in the short input index (or -1 if there's no index)
+	public int getShortIndexLength() {
+		return (this.shortIndex != null ? this.shortIndex.getMaxLength() : -1);
+	}
+
+	public void clearShortIndex() {
+		this.shortIndex = null;
+	}
+
+	/*
+	 * Checks whether machine accepts the string described by testString (starting from the start state)
+	 * by testing its bit in the short input index if it's short enough and by running on the transition
+	 * table otherwise
+	 */
+	@SuppressWarnings("null")
+	public boolean accept(int[] testString) throws IllegalArgumentException {
+		if (testString == null) {
+			this.cause = "Given test string is null.";
+			this.illegalArg();
+		}
+		for (int i = 0; i != testString.length; ++i) {
+			this.validateInputCharIndex(testString[i]);
+		}
+
+		DFAProfile profile = this.profile;
+		if (profile != null) {
+			return this.accepting[this.runProfiled(profile.getStripe(), testString, 0)];
+		}
+		ShortIndex shortIndex = this.shortIndex;
+		if (shortIndex != null && testString.length <= shortIndex.getMaxLength()) {
+			return shortIndex.accept(testString);
+		}
+
+		int state = 0;
+		if (this.stateNumExits[state] != 0) {
+			for (int i = 0, next; i != testString.length; ++i) {
+				if ((next = this.next(state, testString[i])) != state && this.stateNumExits[state = next] == 0) {
+					break;
+				}
+			}
+		}
+		return this.accepting[state];
+	}
+
+	/*
+	 * Checks whether the machine of the given image accepts the string described by testString by
+	 * running directly on its mapped transition table. An image which didn't come from mapImage is
+	 * validated (once) first since a transition out of the states would run off the table
+	 */
+	@SuppressWarnings("null")
+	public static boolean accept(MachineImage image, int[] testString, int state) throws IllegalArgumentException {
+		if (image == null || image.getKind() != MachineImage.KIND_DFA) {
+			DFA.staticCause = "Given machine image isn't valid.";
+			DFA.illegalArg(DFA.getStaticCause());
+		} else if (testString == null) {
+			DFA.staticCause = "Given test string is null.";
+			DFA.illegalArg(DFA.getStaticCause());
+		} else if (!image.isValidated()) {
+			DFA.validateImage(image);
+		}
+		int numStates = image.getInt(DFA.IMAGE_NUM_STATES), s = image.getInt(DFA.IMAGE_INPUT_ALPHABET_SIZE);
+		if (state < 0 || state >= numStates) {
+			DFA.staticCause = "Given state(" + state + ") isn't in the range of [0, " + (numStates - 1) + "].";
+			DFA.illegalArg(DFA.getStaticCause());
+		}
+
+		IntBuffer nextState = image.getTable(DFA.IMAGE_NEXT_STATE);
+		for (int i = 0; i != testString.length; ++i) {
+			int c = testString[i];
+			if (c < 0 || c >= s) {
+				DFA.staticCause = "Given input character index(" + c + ") isn't in the range of [0, " + (s - 1) + "].";
+				DFA.illegalArg(DFA.getStaticCause());
+			}
+			state = nextState.get(state * s + c);
+		}
+		return (image.getTable(DFA.IMAGE_ACCEPTING).get(state) != 0);
+	}
+
+	public static boolean accept(MachineImage image, int[] testString) throws IllegalArgumentException {
+		return DFA.accept(image, testString, 0);
+	}
+
+	/*
+	 * Checks whether machine accepts the string described by the straight-line program (grammar
+	 * compressed string) given by left and right, without decompressing it. Rule i derives the input
+	 * character with index left[i] if right[i] == -1 and the concatenation of the strings derived by
+	 * rules left[i] and right[i] (both of which must be less than i) otherwise. The last rule derives
+	 * the whole string. The state to state function of every rule is computed bottom up and each one
+	 * is dropped as soon as no later rule uses it so that the cost is O(numRules * numStates) no matter
+	 * how long the derived string is.
+	 */
+	public boolean acceptGrammar(int numRules, int[] left, int[] right, int state) throws IllegalArgumentException {
+		this.validateState(state);
+		int[] lastUse = this.validateGrammar(numRules, left, right);
+
+		int n = this.getNumStates();
+		int[][] function = new int[numRules][];
+		// column[j] is the function of the input character with index j
+		int[][] column = new int[this.getInputAlphabetSize()][];
+		for (int i = 0; i != numRules; ++i) {
+			if (right[i] == -1) {
+				int readCharIndex = left[i];
+				if (column[readCharIndex] == null) {
+					column[readCharIndex] = new int[n];
+					for (int j = 0; j != n; ++j) {
+						column[readCharIndex][j] = this.next(j, readCharIndex);
+					}
+				}
+				function[i] = column[readCharIndex];
+			} else {
+				function[i] = DFA.compose(function[left[i]], function[right[i]]);
+				// Drop the functions which are no longer needed
+				if (lastUse[left[i]] == i) {
+					function[left[i]] = null;
+				}
+				if (lastUse[right[i]] == i) {
+					function[right[i]] = null;
+				}
+			}
+		}
+		return this.accepting[function[numRules - 1][state]];
+	}
+
+	public boolean acceptGrammar(int numRules, int[] left, int[] right) throws IllegalArgumentException {
+		return this.acceptGrammar(numRules, left, right, 0);
+	}
+
+	// Returns the index of the last rule which uses each rule (or -1 if no rule uses it)
+	@SuppressWarnings("null")
+	private int[] validateGrammar(int numRules, int[] left, int[] right) throws IllegalArgumentException {
+		if (numRules <= 0) {
+			this.cause = "Given number of rules(" + numRules + ") isn't positive.";
+			this.illegalArg();
+		} else if (left == null || left.length != numRules || right == null || right.length != numRules) {
+			this.cause = "Given grammar arrays aren't valid.";
+			this.illegalArg();
+		}
+
+		int[] lastUse = new int[numRules];
+		Arrays.fill(lastUse, -1);
+		for (int i = 0; i != numRules; ++i) {
+			if (right[i] == -1) {
+				if (!this.isValidInputCharIndex(left[i])) {
+					this.cause = "Given rule " + i + " derives an input character index(" + left[i]
+							+ ") which isn't in the range of " + this.getInputCharIndexRange() + ".";
+					this.illegalArg();
+				}
+			} else if (left[i] < 0 || left[i] >= i || right[i] < 0 || right[i] >= i) {
+				this.cause = "Given rule " + i + "(" + left[i] + " " + right[i]
+						+ ") doesn't only use rules defined before it.";
+				this.illegalArg();
+			} else {
+				lastUse[left[i]] = lastUse[right[i]] = i;
+			}
+		}
+		return lastUse;
+	}
+
+	/*
+	 * Checks whether machine accepts the string made up of words[0] repeated repeats[0] times followed
+	 * by words[1] repeated repeats[1] times and so on (a run length encoded string). The function of
+	 * every word is computed once and then raised to its repeat count by repeated squaring so that the
+	 * cost is O(numStates * (|words[i]| + log(repeats[i]))) per block instead of the expanded length.
+	 */
+	@SuppressWarnings("null")
+	public boolean acceptPowers(int numBlocks, int[][] words, long[] repeats, int state)
+			throws IllegalArgumentException {
+		this.validateState(state);
+		if (numBlocks < 0) {
+			this.cause = "Given number of blocks(" + numBlocks + ") is negative.";
+			this.illegalArg();
+		} else if (words == null || words.length != numBlocks || repeats == null || repeats.length != numBlocks) {
+			this.cause = "Given blocks arrays aren't valid.";
+			this.illegalArg();
+		}
+		for (int i = 0; i != numBlocks; ++i) {
+			if (words[i] == null) {
+				this.cause = "Given words array isn't valid since it contains null at index " + i + ".";
+				this.illegalArg();
+			} else if (repeats[i] < 0) {
+				this.cause = "Given repeat count(" + repeats[i] + ") of block " + i + " is negative.";
+				this.illegalArg();
+			}
+			for (int j = 0; j != words[i].length; ++j) {
+				this.validateInputCharIndex(words[i][j]);
+			}
+		}
+
+		for (int i = 0; i != numBlocks; ++i) {
+			long repeat = repeats[i];
+			if (repeat == 0 || words[i].length == 0) {
+				continue;
+			} else if (repeat == 1) {
+				for (int j = 0; j != words[i].length; ++j) {
+					state = this.next(state, words[i][j]);
+				}
+				continue;
+			}
+
+			int[] function = this.wordFunction(words[i]);
+			while (true) {
+				if ((repeat & 1) != 0) {
+					state = function[state];
+				}
+				if ((repeat >>>= 1) == 0) {
+					break;
+				}
+				function = DFA.compose(function, function);
+			}
+		}
+		return this.accepting[state];
 	}
 
-	private String resetTransition(int initialState, int readCharIndex) {
-		String transition = this.getTransition(initialState, readCharIndex, false);
-		// Set default value
-		this.nextState[initialState][readCharIndex] = initialState;
-		return transition;
+	public boolean acceptPowers(int numBlocks, int[][] words, long[] repeats) throws IllegalArgumentException {
+		return this.acceptPowers(numBlocks, words, repeats, 0);
 	}
 
-	private void finalizeReset(int initialState, int readCharIndex) {
-		this.defined[initialState][readCharIndex] = false;
-		--this.numDefinedTransitions;
-		--this.stateNumDefined[initialState];
-		this.resetRun();
-		this.strChange = true;
+	// Checks whether machine accepts the string made up of word repeated repeat times
+	public boolean acceptPower(int[] word, long repeat, int state) throws IllegalArgumentException {
+		int[][] words = { word };
+		long[] repeats = { repeat };
+		return this.acceptPowers(1, words, repeats, state);
 	}
 
-	public String resetTransition(int initialState, String readChar) throws IllegalArgumentException {
-		int readCharIndex = (int) (this.validateTransition(initialState, readChar)[2]);
-		String transition = this.resetTransition(initialState, readCharIndex);
-		if (this.defined[initialState][readCharIndex]) {
-			this.finalizeReset(initialState, readCharIndex);
-		}
-		return transition;
+	public boolean acceptPower(int[] word, long repeat) throws IllegalArgumentException {
+		return this.acceptPower(word, repeat, 0);
 	}
 
-	public String[] resetTransitions(int initialState) throws IllegalArgumentException {
-		this.validateState(initialState);
-		String[] result = new String[this.getInputAlphabetSize()];
-		for (int i = 0; i != result.length; ++i) {
-			result[i] = this.resetTransition(initialState, i);
-			if (this.defined[initialState][i]) {
-				this.finalizeReset(initialState, i);
-			}
-		}
-		return result;
+	public boolean acceptPower(String word, long repeat) throws IllegalArgumentException {
+		int[] symbols = this.validateSymbols(word);
+		return this.acceptPower(symbols, repeat, 0);
 	}
 
-	public String[] resetTransitions() {
-		String[] result = new String[this.getTotalNumTransitions()];
-		for (int i = 0, index = 0; i != this.getNumStates(); ++i) {
-			this.stateNumDefined[i] = 0;
-			for (int j = 0; j != this.getInputAlphabetSize(); ++j) {
-				result[index++] = this.resetTransition(i, j);
-				this.defined[i][j] = false;
+	// Returns the function which maps every state to the state reached from it by reading word
+	private int[] wordFunction(int[] word) {
+		int n = this.getNumStates();
+		int[] result = new int[n];
+		for (int i = 0, state; i != n; ++i) {
+			state = i;
+			for (int j = 0; j != word.length; ++j) {
+				state = this.next(state, word[j]);
 			}
-		}
-		if (this.getNumDefinedTransitions() != 0) {
-			this.numDefinedTransitions = 0;
-			this.resetRun();
-			this.strChange = true;
+			result[i] = state;
 		}
 		return result;
 	}
 
-	public String resetDefinedTransition(int initialState, String readChar) throws IllegalArgumentException {
-		int readCharIndex = (int) (this.validateTransition(initialState, readChar)[2]);
-		String transition = null;
-		if (this.defined[initialState][readCharIndex]) {
-			transition = this.resetTransition(initialState, readCharIndex);
-			this.finalizeReset(initialState, readCharIndex);
-		}
-		return transition;
-	}
+	/*
+	 * Returns the least number of edits (insertions, deletions and substitutions of single input
+	 * characters) which turn testString into a string accepted from state, or -1 if that number is
+	 * greater than maxEdits. The machine is run in product with a Levenshtein automaton by tracking,
+	 * for every e in [0, maxEdits], the set of live states reachable with at most e edits as a bit set
+	 * so that the cost is linear in the length of testString for a fixed maxEdits. If decide is true
+	 * then the run also stops as soon as an accept state is reached with few enough edits left to
+	 * delete the rest of testString, in which case the result is only known to be at most maxEdits.
+	 */
+	private int editDistance(int[] testString, int maxEdits, int state, boolean decide) {
+		this.analyzeTransitions();
+		int words = (this.getNumStates() + 63) >>> 6;
+		long[][] current = new long[maxEdits + 1][words], next = new long[maxEdits + 1][words], temp;
 
-	public String[] resetDefinedTransitions(int initialState) throws IllegalArgumentException {
-		this.validateState(initialState);
-		int length = 0, s = this.getInputAlphabetSize();
-		String transition;
-		String[] temp = new String[s];
-		for (int i = 0; i != s && this.stateNumDefined[initialState] != 0; ++i) {
-			transition = null;
-			if (this.defined[initialState][i]) {
-				transition = this.resetTransition(initialState, i);
-				this.finalizeReset(initialState, i);
-				++length;
-			}
-			temp[i] = transition;
+		// Reading nothing, e edits reach every live state within e steps of state
+		if (this.live[state]) {
+			current[0][state >>> 6] |= 1L << state;
+		}
+		for (int e = 1; e <= maxEdits; ++e) {
+			System.arraycopy(current[e - 1], 0, current[e], 0, words);
+			this.orSuccessors(current[e - 1], current[e]);
 		}
 
-		String[] result = new String[length];
-		for (int i = 0, index = 0; index != length; ++i) {
-			if ((transition = temp[i]) != null) {
-				result[index++] = transition;
+		for (int pos = 0; pos != testString.length; ++pos) {
+			int readCharIndex = testString[pos];
+			if (decide && this.acceptsWithin(current, maxEdits - (testString.length - pos))) {
+				return maxEdits;
 			}
-		}
-		return result;
-	}
 
-	public String[] resetDefinedTransitions() {
-		String[] result = new String[this.getNumDefinedTransitions()];
-		for (int i = 0, index = 0; i != this.getNumStates() && this.getNumDefinedTransitions() != 0; ++i) {
-			for (int j = 0; j != this.getInputAlphabetSize() && this.getNumDefinedTransitions() != 0; ++j) {
-				if (this.defined[i][j]) {
-					result[index++] = this.resetTransition(i, j);
-					this.finalizeReset(i, j);
+			boolean empty = true;
+			for (int e = 0; e <= maxEdits; ++e) {
+				long[] set = current[e], result = next[e];
+				Arrays.fill(result, 0);
+				// Match readChar
+				for (int i = 0; i != words; ++i) {
+					for (long word = set[i]; word != 0; word &= word - 1) {
+						int nextState = this.next((i << 6) + Long.numberOfTrailingZeros(word), readCharIndex);
+						if (this.live[nextState]) {
+							result[nextState >>> 6] |= 1L << nextState;
+						}
+					}
 				}
+				if (e != 0) {
+					// Delete readChar
+					long[] previous = current[e - 1], previousNext = next[e - 1];
+					for (int i = 0; i != words; ++i) {
+						result[i] |= previous[i] | previousNext[i];
+					}
+					// Substitute readChar and insert after it
+					this.orSuccessors(previous, result);
+					this.orSuccessors(previousNext, result);
+				}
+				for (int i = 0; empty && i != words; ++i) {
+					empty = result[i] == 0;
+				}
+			}
+			if (empty) {
+				// Every track is dead
+				return -1;
 			}
+			temp = current;
+			current = next;
+			next = temp;
 		}
-		return result;
-	}
 
-	private void initializeTransitions() {
-		int n = this.getNumStates(), s = this.getInputAlphabetSize();
-		this.nextState = new int[n][s];
-		this.defined = new boolean[n][s];
-		this.numDefinedTransitions = 0;
-		for (int i = 0; i != n; ++i) {
-			for (int j = 0; j != s; ++j) {
-				this.nextState[i][j] = i; // Set default value
+		for (int e = 0; e <= maxEdits; ++e) {
+			if (this.acceptsWithin(current, e)) {
+				return e;
 			}
 		}
-		this.strChange = true;
+		return -1;
 	}
 
-	@SuppressWarnings("null")
-	public static int countDelimiters(String s) throws IllegalArgumentException {
-		if (s == null) {
-			DFA.staticCause = "Given string is null.";
-			DFA.illegalArg(DFA.getStaticCause());
-		}
+	public int editDistance(int[] testString, int maxEdits, int state) throws IllegalArgumentException {
+		this.validateEditInput(testString, maxEdits, state);
+		return this.editDistance(testString, maxEdits, state, false);
+	}
 
-		int count = 0;
-		for (int i = 0; i != s.length(); ++i) {
-			count += s.charAt(i) == DFA.DELIMITER_CHAR ? 1 : 0;
-		}
-		return count;
+	public int editDistance(int[] testString, int maxEdits) throws IllegalArgumentException {
+		return this.editDistance(testString, maxEdits, 0);
 	}
 
-	public static String lower(String s) {
-		if (s == null) {
-			return null;
-		}
+	// Checks whether machine accepts a string within maxEdits edits of testString
+	public boolean acceptWithin(int[] testString, int maxEdits, int state) throws IllegalArgumentException {
+		this.validateEditInput(testString, maxEdits, state);
+		return (this.editDistance(testString, maxEdits, state, true) != -1);
+	}
 
-		String lower = s.toLowerCase();
-		if (s.length() <= 1) {
-			return lower;
-		} else if (s.substring(1).equals(lower.substring(1))) {
-			return lower; // Matches [A-Z][a-z]*
-		} else if (s.equals(s.toUpperCase())) {
-			return lower; // Matches [A-Z]+
-		}
+	public boolean acceptWithin(int[] testString, int maxEdits) throws IllegalArgumentException {
+		return this.acceptWithin(testString, maxEdits, 0);
+	}
 
-		return null;
+	public boolean acceptWithin(String testString, int maxEdits) throws IllegalArgumentException {
+		int[] symbols = this.validateSymbols(testString);
+		return this.acceptWithin(symbols, maxEdits, 0);
 	}
 
-	public static boolean isValidBoolean(String s) {
-		try { // If no exception is thrown then the result is necessarily true
-			return (DFA.parseBoolean(s) || true);
-		} catch (IllegalArgumentException ex) {
-			return false;
+	@SuppressWarnings("null")
+	private void validateEditInput(int[] testString, int maxEdits, int state) throws IllegalArgumentException {
+		this.validateState(state);
+		if (testString == null) {
+			this.cause = "Given test string is null.";
+			this.illegalArg();
+		} else if (maxEdits < 0) {
+			this.cause = "Given max number of edits(" + maxEdits + ") is negative.";
+			this.illegalArg();
+		}
+		for (int i = 0; i != testString.length; ++i) {
+			this.validateInputCharIndex(testString[i]);
 		}
 	}
 
-	public static boolean parseBoolean(String s) throws IllegalArgumentException {
-		if (s == null) {
-			DFA.staticCause = "Given string is null.";
-			DFA.illegalArg(DFA.getStaticCause());
+	// Add the successors of every state in set to result
+	private void orSuccessors(long[] set, long[] result) {
+		for (int i = 0; i != set.length; ++i) {
+			for (long word = set[i]; word != 0; word &= word - 1) {
+				int state = (i << 6) + Long.numberOfTrailingZeros(word);
+				for (int j = this.successorStart[state], next; j != this.successorStart[state + 1]; ++j) {
+					if (this.live[next = this.successor[j]]) {
+						result[next >>> 6] |= 1L << next;
+					}
+				}
+			}
 		}
+	}
 
-		String check = DFA.lower(s);
-		if (check != null) {
-			if (check.equals(DFA.TRUE_1) || check.equals(DFA.TRUE_2)) {
-				return true;
-			} else if (check.equals(DFA.FALSE_1) || check.equals(DFA.FALSE_2)) {
-				return false;
+	// Checks whether an accept state is in sets[e] for some e in [0, maxEdits]
+	private boolean acceptsWithin(long[][] sets, int maxEdits) {
+		if (maxEdits < 0) {
+			return false;
+		}
+		// sets[e] is a subset of sets[maxEdits] for every e <= maxEdits
+		long[] set = sets[maxEdits];
+		for (int i = 0; i != set.length; ++i) {
+			for (long word = set[i]; word != 0; word &= word - 1) {
+				if (this.accepting[(i << 6) + Long.numberOfTrailingZeros(word)]) {
+					return true;
+				}
 			}
 		}
-
-		DFA.staticCause = "Given string(" + s + ") doesn't represent valid a boolean.";
-		DFA.illegalArg(DFA.getStaticCause());
 		return false;
 	}
 
-	public String simulate(boolean print) {
-		this.isSimulating = true;
+	// Returns the function which applies first and then second
+	private static int[] compose(int[] first, int[] second) {
+		int[] result = new int[first.length];
+		for (int i = 0; i != result.length; ++i) {
+			result[i] = second[first[i]];
+		}
+		return result;
+	}
 
-		ArrayList<Integer> testString = this.getInitialArray();
-		String message, value = "";
+	// Recompute the tables derived from nextState and accepting if they have changed
+	private void analyzeTransitions() {
+		if (!this.tableChange) {
+			return;
+		}
 
-		if (print) {
-			this.printMachine();
-			if (this.getMaxStringCount() == 0) {
-				System.out.println("\nTesting no strings!");
-			} else {
-				if (this.getMaxStringCount() == 1) {
-					System.out.print("\nStarting to test ");
-				} else {
-					System.out.println(
-							"\nStarting to test strings of length in the range of " + this.getLengthRange() + ".");
-					System.out.print(
-							"Testing the first " + DFA.comma(this.getMaxStringCount()) + " strings starting from ");
+		/*
+		 * Compute live by a reverse breadth first search from the accept states. Only the exits are
+		 * visited (self loops don't change which states are live) so that the work and memory are
+		 * proportional to the number of defined transitions rather than the size of the table.
+		 */
+		int n = this.getNumStates(), s = this.getInputAlphabetSize(), numExits = 0;
+		for (int i = 0; i != n; ++i) {
+			numExits += this.stateNumExits[i];
+		}
+		int[] reverseStart = new int[n + 1], reverse = new int[numExits];
+		for (int i = 0; i != n; ++i) {
+			for (int j = this.nextDefined(i, 0), next; j != -1; j = this.nextDefined(i, j + 1)) {
+				if ((next = this.next(i, j)) != i) {
+					++reverseStart[next + 1];
 				}
-				message = this.toString(testString, true).toLowerCase();
-				System.out.println(message + "." + (this.getMaxStringCount() != 1 ? '\n' : ""));
 			}
 		}
-
-		this.acceptCount = this.rejectCount = 0;
-		// Maps testString to accept:stepCount
-		this.results = new HashMap<ArrayList<Integer>, String>(this.getMaxStringCount());
-
-		long beforeTime = System.nanoTime(), elapsedTime;
-		int count = 0;
-		while (testString.size() <= this.getMaxLength() && ++count <= this.getMaxStringCount()) {
-			if (this.getRun()) {
-				boolean accept = this.accept(testString);
-				value = accept + ":" + testString.size();
-				this.results.put(testString, value);
-
-				if (print) {
-					message = this.toString(testString, true) + " was ";
-					message += accept ? "accepted in " : "rejected in ";
-					System.out.println(
-							message + DFA.comma(testString.size()) + (testString.size() == 1 ? " step." : " steps."));
-				}
-			} else if (this.getNumAcceptingStates() == 0) {
-				this.incrementCount(false);
-				value = "false:0";
-				this.results.put(testString, value);
-
-				if (print) {
-					message = this.toString(testString, true);
-					System.out.println(message + " was rejected in 0 steps!");
+		for (int i = 0; i != n; ++i) {
+			reverseStart[i + 1] += reverseStart[i];
+		}
+		int[] position = new int[n];
+		System.arraycopy(reverseStart, 0, position, 0, n);
+		for (int i = 0; i != n; ++i) {
+			for (int j = this.nextDefined(i, 0), next; j != -1; j = this.nextDefined(i, j + 1)) {
+				if ((next = this.next(i, j)) != i) {
+					reverse[position[next]++] = i;
 				}
-			} else if (this.getNumAcceptingStates() == this.getNumStates()) {
-				this.incrementCount(true);
-				value = "true:0";
-				this.results.put(testString, value);
-
-				if (print) {
-					message = this.toString(testString, true);
-					System.out.println(message + " was accepted in 0 steps!");
+			}
+		}
+
+		this.successorStart = new int[n + 1];
+		int[] successor = new int[n + numExits], mark = new int[n];
+		Arrays.fill(mark, -1);
+		for (int i = 0, count = 0; i != n; ++i) {
+			if (this.stateNumExits[i] != s) {
+				mark[i] = i;
+				successor[count++] = i;
+			}
+			for (int j = this.nextDefined(i, 0), next; j != -1; j = this.nextDefined(i, j + 1)) {
+				if (mark[next = this.next(i, j)] != i) {
+					mark[next] = i;
+					successor[count++] = next;
 				}
-			} else { // this.getNumDefinedTransitions() == 0
-				boolean accept = this.accepting[0];
-				this.incrementCount(accept);
-				value = accept + ":" + testString.size();
-				this.results.put(testString, value);
-
-				if (print) {
-					message = this.toString(testString, true) + " was ";
-					message += accept ? "accepted" : "rejected";
-					System.out.println(message + " in 0 steps!");
+			}
+			this.successorStart[i + 1] = count;
+		}
+		this.successor = Arrays.copyOf(successor, this.successorStart[n]);
+
+		this.exitPattern = new long[n][];
+		if (s <= DFA.MAX_BYTE_INPUT_ALPHABET_SIZE) {
+			for (int i = 0; i != n; ++i) {
+				if (this.stateNumExits[i] != 0 && this.stateNumExits[i] <= DFA.MAX_SCAN_EXITS) {
+					long[] pattern = this.exitPattern[i] = new long[this.stateNumExits[i]];
+					for (int j = this.nextDefined(i, 0), index = 0; j != -1; j = this.nextDefined(i, j + 1)) {
+						if (this.next(i, j) != i) {
+							pattern[index++] = j * DFA.LOW_BITS;
+						}
+					}
 				}
 			}
+		}
 
-			this.incrementTestString(testString);
+		this.live = new boolean[n];
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		for (int i = 0; i != n; ++i) {
+			if (this.live[i] = this.accepting[i]) {
+				queue[tail++] = i;
+			}
+		}
+		while (head != tail) {
+			int state = queue[head++];
+			for (int i = reverseStart[state]; i != reverseStart[state + 1]; ++i) {
+				if (!this.live[reverse[i]]) {
+					this.live[reverse[i]] = true;
+					queue[tail++] = reverse[i];
+				}
+			}
 		}
-		elapsedTime = DFA.nano2Milli(System.nanoTime() - beforeTime);
-		this.time = DFA.formatTime(elapsedTime);
 
-		this.actualStringCount = Math.min(this.getMaxStringCount(), count);
+		this.tableChange = false;
+	}
 
-		if (print) {
-			this.printSimulationInfo();
+	/*
+	 * Split testString[from, to) into maximal munch tokens starting from state 0 and write a (tokenId,
+	 * start, end) triple for every token into tokens. Returns the number of tokens written which stops
+	 * short when tokens is full or when no token matches at the end of the last written token (or from
+	 * if none was written). Each scan remembers the last accepting position and stops as soon as it
+	 * reaches a dead state or a (position, state) pair which is already known to fail, so that the
+	 * entire input is tokenized in time linear in its length.
+	 */
+	public int tokenize(int[] testString, int from, int to, int[] tokens) throws IllegalArgumentException {
+		if (testString == null || from < 0 || to > testString.length || from > to) {
+			this.cause = "Given test string range isn't valid.";
+			this.illegalArg();
+		} else if (tokens == null) {
+			this.cause = "Given tokens array is null.";
+			this.illegalArg();
+		}
+		for (int i = from; i != to; ++i) {
+			this.validateInputCharIndex(testString[i]);
 		}
 
-		this.isSimulating = false;
-		if (this.getActualStringCount() == 0) {
-			return null;
-		} else if (this.getActualStringCount() == 1) {
-			return value;
+		this.analyzeTransitions();
+		if (this.trail.length < to - from + 1) {
+			this.trail = new int[to - from + 1];
 		}
-		return (this.getAcceptCount() + ":" + this.getRejectCount());
+		if (this.failedSize != 0) {
+			Arrays.fill(this.failed, DFA.EMPTY_KEY);
+			this.failedSize = 0;
+		}
+
+		int count = 0, maxCount = tokens.length / DFA.TOKEN_ENTRY_SIZE, n = this.getNumStates();
+		for (int start = from; start != to && count != maxCount; ++count) {
+			int state = 0, lastAccept = -1, pos = start;
+			// trail[i] is the state reached after reading testString[start, start + i)
+			this.trail[0] = state;
+			while (pos != to && this.live[state] && !this.isFailed(pos, state, n)) {
+				state = this.next(state, testString[pos++]);
+				this.trail[pos - start] = state;
+				if (this.accepting[state]) {
+					lastAccept = pos;
+				}
+			}
+
+			// Every pair scanned after lastAccept is known to fail from now on
+			for (int i = lastAccept == -1 ? start : lastAccept + 1; i <= pos; ++i) {
+				this.markFailed(i, this.trail[i - start], n);
+			}
+
+			if (lastAccept == -1) {
+				break;
+			}
+			int index = count * DFA.TOKEN_ENTRY_SIZE;
+			tokens[index] = this.tokenId[this.trail[lastAccept - start]];
+			tokens[index + 1] = start;
+			tokens[index + 2] = start = lastAccept;
+		}
+		return count;
 	}
 
-	public String simulate() {
-		return this.simulate(true);
+	public int tokenize(int[] testString, int[] tokens) throws IllegalArgumentException {
+		if (testString == null) {
+			this.cause = "Given test string is null.";
+			this.illegalArg();
+		}
+		return this.tokenize(testString, 0, testString.length, tokens);
 	}
 
-	private boolean accept(ArrayList<Integer> testString) {
-		int initialState = 0;
-		boolean accept = this.accept(testString, initialState);
-		return this.incrementCount(accept);
+	public int tokenize(String testString, int[] tokens) throws IllegalArgumentException {
+		int[] symbols = this.validateSymbols(testString);
+		return this.tokenize(symbols, 0, symbols.length, tokens);
 	}
 
-	private boolean incrementCount(boolean accept) {
-		if (this.count) {
-			if (accept) {
-				++this.acceptCount;
-			} else {
-				++this.rejectCount;
+	private boolean isFailed(int pos, int state, int n) {
+		if (this.failedSize == 0) {
+			return false;
+		}
+		long key = (long) pos * n + state;
+		int mask = this.failed.length - 1;
+		for (int i = DFA.hashKey(key) & mask; this.failed[i] != DFA.EMPTY_KEY; i = (i + 1) & mask) {
+			if (this.failed[i] == key) {
+				return true;
 			}
 		}
-		return accept;
+		return false;
 	}
 
-	// Checks whether machine accepts the string described by testString
-	public boolean accept(ArrayList<Integer> testString, int state) throws IllegalArgumentException {
-		if (!this.isSimulating) {
-			this.validateState(state);
-			this.validateTestString(testString);
+	private void markFailed(int pos, int state, int n) {
+		// Keep the load factor at most 1/2
+		if ((this.failedSize + 1) << 1 > this.failed.length) {
+			long[] old = this.failed;
+			this.failed = new long[Math.max(16, old.length << 1)];
+			Arrays.fill(this.failed, DFA.EMPTY_KEY);
+			this.failedSize = 0;
+			for (int i = 0; i != old.length; ++i) {
+				if (old[i] != DFA.EMPTY_KEY) {
+					this.insertFailed(old[i]);
+				}
+			}
 		}
+		this.insertFailed((long) pos * n + state);
+	}
 
-		for (int i = 0; i != testString.size(); ++i) {
-			state = this.nextState[state][testString.get(i)];
+	private void insertFailed(long key) {
+		int mask = this.failed.length - 1, i = DFA.hashKey(key) & mask;
+		while (this.failed[i] != DFA.EMPTY_KEY) {
+			if (this.failed[i] == key) {
+				return;
+			}
+			i = (i + 1) & mask;
 		}
-		return this.accepting[state];
+		this.failed[i] = key;
+		++this.failedSize;
+	}
+
+	private static int hashKey(long key) {
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
 	}
 
 	public ArrayList<Integer> incrementTestString(ArrayList<Integer> testString) throws IllegalArgumentException {
@@ -2387,15 +4488,19 @@ public class DFA {
 			return false;
 		}
 
-		for (int i = 0; i != this.getNumAcceptingStates(); ++i) {
+		for (int i = 0; i != this.getNumStates(); ++i) {
 			if (this.accepting[i] != other.accepting[i]) {
 				return false;
 			}
 		}
 
+		// Two states with the same number of exits have the same row if the exits of one are exits of the other
 		for (int i = 0; i != this.getNumStates(); ++i) {
-			for (int j = 0; j != this.getInputAlphabetSize(); ++j) {
-				if (this.nextState[i][j] != other.nextState[i][j]) {
+			if (this.stateNumExits[i] != other.stateNumExits[i]) {
+				return false;
+			}
+			for (int j = this.nextDefined(i, 0), next; j != -1; j = this.nextDefined(i, j + 1)) {
+				if ((next = this.next(i, j)) != i && next != other.next(i, j)) {
 					return false;
 				}
 			}
@@ -2404,21 +4509,19 @@ public class DFA {
 		return true;
 	}
 
+	/*
+	 * Returns a 64 bit hash of the structure that equals compares (the number of states, the input
+	 * alphabet, the accept states and every transition that isn't a self loop) in constant time
+	 */
+	public long getStructuralHash() {
+		long result = HashMix.mix(((long) this.getNumStates() << 32 | this.getInputAlphabetSize()) ^ this.alphabetHash);
+		return HashMix.mix(result ^ this.acceptingHash) ^ this.transitionHash;
+	}
+
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.hashCode(this.accepting);
-		result = prime * result + this.getTotalNumTransitions();
-		result = prime * result + Arrays.deepHashCode(this.defined);
-		result = prime * result + Arrays.hashCode(this.inputAlphabet);
-		result = prime * result + this.getInputAlphabetSize();
-		result = prime * result + this.inputIndex.hashCode();
-		result = prime * result + this.getNumAcceptingStates();
-		result = prime * result + Arrays.deepHashCode(this.nextState);
-		result = prime * result + this.getNumDefinedTransitions();
-		result = prime * result + this.getNumStates();
-		return result;
+		long hash = this.getStructuralHash();
+		return (int) (hash ^ (hash >>> 32));
 	}
 
 	@Override
@@ -2561,6 +4664,38 @@ public class DFA {
 		return this.saveToFile(DFA.DEFAULT_FILE_NAME, false);
 	}
 
+	// Saves the current machine into a binary image (see MachineImage) which is loaded without parsing
+	public void saveToImage(Path path) throws IOException {
+		int numStates = this.getNumStates(), inputAlphabetSize = this.getInputAlphabetSize();
+		int[] ints = new int[DFA.IMAGE_NUM_INTS];
+		ints[DFA.IMAGE_NUM_STATES] = numStates;
+		ints[DFA.IMAGE_INPUT_ALPHABET_SIZE] = inputAlphabetSize;
+		ints[DFA.IMAGE_MAX_STRING_COUNT] = this.getMaxStringCount();
+		ints[DFA.IMAGE_MIN_LENGTH] = this.getMinLength();
+		ints[DFA.IMAGE_MAX_LENGTH] = this.getMaxLength();
+		ints[DFA.IMAGE_INCLUDE_COMMENTS] = this.getIncludeComments() ? 1 : 0;
+
+		String[] strings = Arrays.copyOf(this.inputAlphabet, inputAlphabetSize + 2);
+		strings[inputAlphabetSize] = this.getInitialString();
+		strings[inputAlphabetSize + 1] = this.getComments();
+
+		int[][] tables = new int[DFA.IMAGE_NUM_TABLES][];
+		int[] nextState = tables[DFA.IMAGE_NEXT_STATE] = new int[numStates * inputAlphabetSize];
+		int[] defined = tables[DFA.IMAGE_DEFINED] = new int[(nextState.length + Integer.SIZE - 1) / Integer.SIZE];
+		int[] accepting = tables[DFA.IMAGE_ACCEPTING] = new int[numStates];
+		for (int i = 0, cell = 0; i != numStates; ++i) {
+			this.copyRow(i, nextState, cell);
+			for (int j = this.nextDefined(i, 0); j != -1; j = this.nextDefined(i, j + 1)) {
+				defined[(cell + j) >>> 5] |= 1 << (cell + j);
+			}
+			cell += inputAlphabetSize;
+			accepting[i] = this.accepting[i] ? 1 : 0;
+		}
+		tables[DFA.IMAGE_TOKEN_ID] = this.getTokenIds();
+
+		MachineImage.write(path, MachineImage.KIND_DFA, ints, new long[0], strings, tables);
+	}
+
 	@SuppressWarnings("null")
 	public static DFA main(DFA m, String[] args, boolean stdin) throws IllegalArgumentException {
 		DFA machine = m;
@@ -0,0 +1,384 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The number of times that every state of a deterministic finite automaton was visited and that every
+ * transition of it was taken by the runs of the machine while it was being profiled (see
+ * <code>DFA.startProfiling</code> and <code>CompiledDFA.profiled</code>).
+ * <p>
+ * Every thread records its runs in its own stripe of counter arrays, so threads which run the same
+ * machine at once (e.g. a profiled CompiledDFA shared by several threads) never write to the same
+ * counters and the only cost of a step is two array increments. The counts of all of the stripes are
+ * summed whenever they're read, so they're exact once the runs which recorded them have finished (and
+ * approximate while runs are still in flight). A state is visited once at the start of every run and
+ * once every time that a transition to it is taken, and every step of a run is recorded (including the
+ * ones that a run which isn't profiled skips, e.g. the ones after a sink is reached).
+ */
+public final class DFAProfile {
+	/**
+	 * The counters of a single thread.
+	 */
+	static final class Stripe {
+		/**
+		 * The number of visits of every state.
+		 */
+		final long[] stateCounts;
+
+		/**
+		 * The number of times that every transition was taken (row major by state).
+		 */
+		final long[] transitionCounts;
+
+		/**
+		 * The number of runs.
+		 */
+		long numRuns;
+
+		/**
+		 * Construct a Stripe object with every counter set to 0.
+		 *
+		 * @param numStates
+		 *            the number of states
+		 * @param inputAlphabetSize
+		 *            the number of input characters
+		 */
+		private Stripe(int numStates, int inputAlphabetSize) {
+			this.stateCounts = new long[numStates];
+			this.transitionCounts = new long[numStates * inputAlphabetSize];
+		}
+	}
+
+	/**
+	 * The number of states and the number of input characters.
+	 */
+	private final int numStates, inputAlphabetSize;
+
+	/**
+	 * The input alphabet (in the order of the input character indices).
+	 */
+	private final String[] inputAlphabet;
+
+	/**
+	 * The stripes of all of the threads that have recorded a run (only accessed while holding its lock).
+	 */
+	private final ArrayList<Stripe> stripes;
+
+	/**
+	 * The stripe of every thread (created on its first run).
+	 */
+	private final ThreadLocal<Stripe> stripe;
+
+	/**
+	 * Construct a DFAProfile object with every count set to 0.
+	 *
+	 * @param numStates
+	 *            the number of states
+	 * @param inputAlphabet
+	 *            the input alphabet
+	 */
+	DFAProfile(int numStates, String[] inputAlphabet) {
+		this.numStates = numStates;
+		this.inputAlphabetSize = inputAlphabet.length;
+		this.inputAlphabet = inputAlphabet.clone();
+		this.stripes = new ArrayList<Stripe>();
+		this.stripe = ThreadLocal.withInitial(() -> {
+			Stripe result = new Stripe(this.numStates, this.inputAlphabetSize);
+			synchronized (this.stripes) {
+				this.stripes.add(result);
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * @return The stripe of the calling thread.
+	 */
+	Stripe getStripe() {
+		return this.stripe.get();
+	}
+
+	/**
+	 * Construct a DFAProfile object holding the counts of this profile with the states renumbered so that
+	 * state <code>order[k]</code> becomes state <code>k</code>.
+	 *
+	 * @param order
+	 *            the given (valid) state order
+	 *
+	 * @return The renumbered profile.
+	 */
+	DFAProfile renumber(int[] order) {
+		DFAProfile result = new DFAProfile(this.numStates, this.inputAlphabet);
+		long[] stateCounts = this.getStateCounts(), transitionCounts = this.sumTransitionCounts();
+		Stripe stripe = result.getStripe();
+		int s = this.inputAlphabetSize;
+		for (int k = 0; k != order.length; ++k) {
+			stripe.stateCounts[k] = stateCounts[order[k]];
+			System.arraycopy(transitionCounts, order[k] * s, stripe.transitionCounts, k * s, s);
+		}
+		stripe.numRuns = this.getNumRuns();
+		return result;
+	}
+
+	/**
+	 * @return The number of states.
+	 */
+	public int getNumStates() {
+		return this.numStates;
+	}
+
+	/**
+	 * @return The number of input characters.
+	 */
+	public int getInputAlphabetSize() {
+		return this.inputAlphabetSize;
+	}
+
+	/**
+	 * @return The input alphabet.
+	 */
+	public String[] getInputAlphabet() {
+		return this.inputAlphabet.clone();
+	}
+
+	/**
+	 * @return A snapshot of the stripes.
+	 */
+	private Stripe[] snapshot() {
+		synchronized (this.stripes) {
+			return this.stripes.toArray(new Stripe[this.stripes.size()]);
+		}
+	}
+
+	/**
+	 * @return The number of runs.
+	 */
+	public long getNumRuns() {
+		long result = 0;
+		for (Stripe stripe : this.snapshot()) {
+			result += stripe.numRuns;
+		}
+		return result;
+	}
+
+	/**
+	 * @return The number of steps (transitions taken) of all of the runs.
+	 */
+	public long getNumSteps() {
+		long result = 0;
+		for (long count : this.sumTransitionCounts()) {
+			result += count;
+		}
+		return result;
+	}
+
+	/**
+	 * @return The number of visits of every state.
+	 */
+	public long[] getStateCounts() {
+		long[] result = new long[this.numStates];
+		for (Stripe stripe : this.snapshot()) {
+			for (int i = 0; i != result.length; ++i) {
+				result[i] += stripe.stateCounts[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The number of times that every transition was taken (row major by state).
+	 */
+	private long[] sumTransitionCounts() {
+		long[] result = new long[this.numStates * this.inputAlphabetSize];
+		for (Stripe stripe : this.snapshot()) {
+			for (int i = 0; i != result.length; ++i) {
+				result[i] += stripe.transitionCounts[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The number of times that every transition was taken where
+	 *         <code>getTransitionCounts()[i][j]</code> is the count of <code>delta(i, j)</code>.
+	 */
+	public long[][] getTransitionCounts() {
+		long[] counts = this.sumTransitionCounts();
+		long[][] result = new long[this.numStates][];
+		for (int i = 0; i != result.length; ++i) {
+			result[i] = Arrays.copyOfRange(counts, i * this.inputAlphabetSize, (i + 1) * this.inputAlphabetSize);
+		}
+		return result;
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 *
+	 * @return The number of visits of <code>state</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't valid
+	 */
+	public long getStateCount(int state) throws IllegalArgumentException {
+		this.validateState(state);
+		long result = 0;
+		for (Stripe stripe : this.snapshot()) {
+			result += stripe.stateCounts[state];
+		}
+		return result;
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 * @param readCharIndex
+	 *            the given input character index
+	 *
+	 * @return The number of times that <code>delta(state, readCharIndex)</code> was taken.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> or <code>readCharIndex</code> isn't valid
+	 */
+	public long getTransitionCount(int state, int readCharIndex) throws IllegalArgumentException {
+		this.validateState(state);
+		if (readCharIndex < 0 || readCharIndex >= this.inputAlphabetSize) {
+			throw new IllegalArgumentException("\n\nGiven input character index(" + readCharIndex + ") isn't valid.\n");
+		}
+		long result = 0;
+		for (Stripe stripe : this.snapshot()) {
+			result += stripe.transitionCounts[state * this.inputAlphabetSize + readCharIndex];
+		}
+		return result;
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't valid
+	 */
+	private void validateState(int state) throws IllegalArgumentException {
+		if (state < 0 || state >= this.numStates) {
+			throw new IllegalArgumentException("\n\nGiven state(" + state + ") isn't valid.\n");
+		}
+	}
+
+	/**
+	 * @param counts
+	 *            the given counts
+	 *
+	 * @return The indices of <code>counts</code> in decreasing order of their count where ties are broken
+	 *         by increasing index.
+	 */
+	private static int[] sortByCount(long[] counts) {
+		Integer[] order = new Integer[counts.length];
+		for (int i = 0; i != order.length; ++i) {
+			order[i] = i;
+		}
+		// Sorting objects is stable so ties stay in increasing order
+		Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+		int[] result = new int[order.length];
+		for (int i = 0; i != result.length; ++i) {
+			result[i] = order[i];
+		}
+		return result;
+	}
+
+	/**
+	 * @return The states in decreasing order of their number of visits where ties are broken by
+	 *         increasing state.
+	 */
+	public int[] getStatesByCount() {
+		return DFAProfile.sortByCount(this.getStateCounts());
+	}
+
+	/**
+	 * @return The transitions in decreasing order of the number of times that they were taken where ties
+	 *         are broken by increasing state and then by increasing input character index. Every transition
+	 *         is described by <code>state * getInputAlphabetSize() + readCharIndex</code>.
+	 */
+	public int[] getTransitionsByCount() {
+		return DFAProfile.sortByCount(this.sumTransitionCounts());
+	}
+
+	/**
+	 * Set every count to 0. Runs which are in flight while the counts are being reset may still record
+	 * some of their steps.
+	 */
+	public void reset() {
+		for (Stripe stripe : this.snapshot()) {
+			Arrays.fill(stripe.stateCounts, 0);
+			Arrays.fill(stripe.transitionCounts, 0);
+			stripe.numRuns = 0;
+		}
+	}
+
+	/**
+	 * @param count
+	 *            the given count
+	 * @param total
+	 *            the given total
+	 *
+	 * @return <code>count</code> as a percentage of <code>total</code>.
+	 */
+	private static String percentage(long count, long total) {
+		return String.format("%.2f%%", total == 0 ? 0.0 : 100.0 * count / total);
+	}
+
+	/**
+	 * @param limit
+	 *            the largest number of states and of transitions to list
+	 *
+	 * @return A report listing the states that were visited and the transitions that were taken (at most
+	 *         <code>limit</code> of each) in decreasing order of their counts along with their share of
+	 *         all of the visits and steps.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>limit &lt; 0</code>
+	 */
+	public String toString(int limit) throws IllegalArgumentException {
+		if (limit < 0) {
+			throw new IllegalArgumentException("\n\nGiven limit(" + limit + ") is negative.\n");
+		}
+
+		long[] stateCounts = this.getStateCounts(), transitionCounts = this.sumTransitionCounts();
+		long numVisits = 0, numSteps = 0;
+		for (long count : stateCounts) {
+			numVisits += count;
+		}
+		for (long count : transitionCounts) {
+			numSteps += count;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("Runs: ").append(this.getNumRuns()).append("\nSteps: ").append(numSteps);
+		sb.append("\n\nStates by visits:\n");
+		int[] states = DFAProfile.sortByCount(stateCounts);
+		for (int k = 0; k != states.length && k != limit && stateCounts[states[k]] != 0; ++k) {
+			int i = states[k];
+			sb.append(i).append('\t').append(stateCounts[i]).append('\t');
+			sb.append(DFAProfile.percentage(stateCounts[i], numVisits)).append('\n');
+		}
+		sb.append("\nTransitions by uses:\n");
+		int[] transitions = DFAProfile.sortByCount(transitionCounts);
+		for (int k = 0; k != transitions.length && k != limit && transitionCounts[transitions[k]] != 0; ++k) {
+			int t = transitions[k];
+			sb.append("delta(").append(t / this.inputAlphabetSize).append(',');
+			sb.append(this.inputAlphabet[t % this.inputAlphabetSize]).append(")\t").append(transitionCounts[t]);
+			sb.append('\t').append(DFAProfile.percentage(transitionCounts[t], numSteps)).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return A report listing every state that was visited and every transition that was taken in
+	 *         decreasing order of their counts.
+	 *
+	 * @see #toString(int)
+	 */
+	@Override
+	public String toString() {
+		return this.toString(Integer.MAX_VALUE);
+	}
+}
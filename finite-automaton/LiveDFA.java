@@ -0,0 +1,218 @@
+/**
+ * A deterministic finite automaton which can be edited while other threads are matching against it.
+ * <p>
+ * Edits are staged on a private copy of the machine and only become visible once
+ * {@link #publish()} compiles the copy into a new immutable {@link CompiledDFA} and makes it
+ * current with a single volatile write. A match reads the current version once and runs entirely on
+ * it, so matches which are in flight during a publish finish on the old version while later ones
+ * use the new version. Readers never lock. Writers are serialized with each other and an old version
+ * is reclaimed by the garbage collector once no match holds it anymore.
+ */
+public final class LiveDFA {
+	/**
+	 * An immutable published version of the machine.
+	 */
+	private static final class Version {
+		/**
+		 * The compiled machine.
+		 */
+		private final CompiledDFA machine;
+
+		/**
+		 * The number of this version (the first version is 0).
+		 */
+		private final long number;
+
+		/**
+		 * Construct a Version object.
+		 *
+		 * @param machine
+		 *            the compiled machine
+		 * @param number
+		 *            the number of the version
+		 */
+		private Version(CompiledDFA machine, long number) {
+			this.machine = machine;
+			this.number = number;
+		}
+	}
+
+	/**
+	 * The machine that edits are staged on (only accessed while holding the lock of this instance).
+	 */
+	private final DFA staged;
+
+	/**
+	 * Whether there are staged edits which haven't been published yet.
+	 */
+	private boolean changed;
+
+	/**
+	 * The current version.
+	 */
+	private volatile Version current;
+
+	/**
+	 * Construct a LiveDFA object whose first version is a copy of the given machine.
+	 *
+	 * @param machine
+	 *            the given machine
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>machine</code> can't be compiled
+	 * @throws NullPointerException
+	 *             If <code>machine == null</code>
+	 */
+	public LiveDFA(DFA machine) throws IllegalArgumentException, NullPointerException {
+		this.staged = new DFA(machine);
+		this.current = new Version(this.staged.compile(), 0);
+	}
+
+	/**
+	 * @return The machine of the current version. Holding on to it lets a caller run several matches
+	 *         against the same version.
+	 */
+	public CompiledDFA getMachine() {
+		return this.current.machine;
+	}
+
+	/**
+	 * @return The number of the current version.
+	 */
+	public long getVersion() {
+		return this.current.number;
+	}
+
+	/**
+	 * @return Whether there are staged edits which haven't been published yet.
+	 */
+	public synchronized boolean hasStagedEdits() {
+		return this.changed;
+	}
+
+	/**
+	 * Stage <code>delta(initialState, readChar) = finalState</code>.
+	 *
+	 * @param initialState
+	 *            the given initial state
+	 * @param readChar
+	 *            the given input character
+	 * @param finalState
+	 *            the given final state
+	 * @param replace
+	 *            whether an already defined transition may be replaced
+	 *
+	 * @return The staged transition.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the transition isn't valid (in which case nothing is staged)
+	 *
+	 * @see DFA#putTransition(int, String, int, boolean)
+	 */
+	public synchronized String putTransition(int initialState, String readChar, int finalState, boolean replace)
+			throws IllegalArgumentException {
+		String result = this.staged.putTransition(initialState, readChar, finalState, replace);
+		this.changed = true;
+		return result;
+	}
+
+	/**
+	 * Stage resetting <code>delta(initialState, readChar)</code> to its default value.
+	 *
+	 * @param initialState
+	 *            the given initial state
+	 * @param readChar
+	 *            the given input character
+	 *
+	 * @return The transition before it was reset.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the transition isn't valid (in which case nothing is staged)
+	 *
+	 * @see DFA#resetTransition(int, String)
+	 */
+	public synchronized String resetTransition(int initialState, String readChar) throws IllegalArgumentException {
+		String result = this.staged.resetTransition(initialState, readChar);
+		this.changed = true;
+		return result;
+	}
+
+	/**
+	 * Stage making <code>state</code> an accept state or a reject state.
+	 *
+	 * @param state
+	 *            the given state
+	 * @param accepting
+	 *            whether <code>state</code> should be an accept state
+	 *
+	 * @return <code>state</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't valid (in which case nothing is staged)
+	 *
+	 * @see DFA#setAcceptingState(int, boolean)
+	 */
+	public synchronized int setAcceptingState(int state, boolean accepting) throws IllegalArgumentException {
+		int result = this.staged.setAcceptingState(state, accepting);
+		this.changed = true;
+		return result;
+	}
+
+	/**
+	 * Publish the staged edits as a new version (if there are any).
+	 *
+	 * @return The number of the current version after publishing.
+	 */
+	public synchronized long publish() {
+		if (this.changed) {
+			this.current = new Version(this.staged.compile(), this.current.number + 1);
+			this.changed = false;
+		}
+		return this.current.number;
+	}
+
+	/**
+	 * @param testString
+	 *            the given test string (of input character indices)
+	 *
+	 * @return Whether the current version accepts <code>testString</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>testString</code> isn't valid
+	 *
+	 * @see CompiledDFA#accept(int[])
+	 */
+	public boolean accept(int[] testString) throws IllegalArgumentException {
+		return this.current.machine.accept(testString);
+	}
+
+	/**
+	 * @param testString
+	 *            the given test string (of unsigned byte input character indices)
+	 *
+	 * @return Whether the current version accepts <code>testString</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>testString</code> isn't valid
+	 *
+	 * @see CompiledDFA#accept(byte[])
+	 */
+	public boolean accept(byte[] testString) throws IllegalArgumentException {
+		return this.current.machine.accept(testString);
+	}
+
+	/**
+	 * @param testString
+	 *            the given test string (written as a concatenation of input characters)
+	 *
+	 * @return Whether the current version accepts <code>testString</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>testString</code> isn't valid
+	 *
+	 * @see CompiledDFA#accept(CharSequence)
+	 */
+	public boolean accept(CharSequence testString) throws IllegalArgumentException {
+		return this.current.machine.accept(testString);
+	}
+}
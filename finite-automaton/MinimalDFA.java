@@ -0,0 +1,942 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A deterministic finite automaton together with its partition into blocks of equivalent states (states
+ * which accept the same strings), which is kept up to date as the machine is edited.
+ * <p>
+ * An edit of a state only changes the languages of the states that can reach it (its ancestors), so the
+ * blocks of every other state stay as they are. After an edit, only the ancestors are split into
+ * classes, by running Hopcroft's algorithm on them with every block that they lead to fixed. Each
+ * class is then merged into the existing block with the same transitions, or becomes a new block.
+ * Classes which only lead to other unplaced classes are matched against the existing blocks by
+ * checking for a bisimulation, and the ones that match no block are split once more among themselves.
+ * The whole machine is minimized from scratch instead when the ancestors make up more than
+ * <code>1 / </code>{@link #FULL_FRACTION} of the states, or when that matching would cost more than a
+ * full minimization.
+ */
+public final class MinimalDFA {
+	/**
+	 * The whole machine is minimized from scratch once more than <code>1 / FULL_FRACTION</code> of the
+	 * states are affected by an edit.
+	 */
+	public static final int FULL_FRACTION = 4;
+
+	/**
+	 * The transitions and the accept flag of a block in terms of blocks, which identify it since no two
+	 * blocks of a minimal partition have the same signature.
+	 */
+	private static final class Signature {
+		/**
+		 * Whether the states of the block are accept states.
+		 */
+		private final boolean accepting;
+
+		/**
+		 * <code>next[c]</code> is the block reached from the block on the input character with index
+		 * <code>c</code>.
+		 */
+		private final int[] next;
+
+		/**
+		 * The cached hash code.
+		 */
+		private final int hash;
+
+		/**
+		 * Construct a Signature object.
+		 *
+		 * @param accepting
+		 *            whether the states of the block are accept states
+		 * @param next
+		 *            the blocks reached from the block
+		 */
+		private Signature(boolean accepting, int[] next) {
+			this.accepting = accepting;
+			this.next = next;
+			this.hash = 31 * Arrays.hashCode(next) + (accepting ? 1 : 0);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof Signature)) {
+				return false;
+			}
+			Signature other = (Signature) obj;
+			return this.hash == other.hash && this.accepting == other.accepting
+					&& Arrays.equals(this.next, other.next);
+		}
+	}
+
+	/**
+	 * The machine that is edited.
+	 */
+	private final DFA machine;
+
+	/**
+	 * The number of states and the number of input characters.
+	 */
+	private final int numStates, inputAlphabetSize;
+
+	/**
+	 * The row major transition table (undefined transitions are the default self loops).
+	 */
+	private final int[] next;
+
+	/**
+	 * <code>accepting[i]</code> is whether state i is an accept state.
+	 */
+	private final boolean[] accepting;
+
+	/**
+	 * <code>predecessor[t][0, numPredecessors[t])</code> are the cells (<code>state * inputAlphabetSize
+	 * + c</code>) of the transitions to state t and <code>predecessorIndex[cell]</code> is the position of
+	 * cell in the list of its final state.
+	 */
+	private final int[][] predecessor;
+	private final int[] numPredecessors, predecessorIndex;
+
+	/**
+	 * <code>block[i]</code> is the block of state i. Blocks are numbered in the range of
+	 * <code>[0, numStates)</code>, but not necessarily contiguously.
+	 */
+	private final int[] block;
+
+	/**
+	 * <code>blockSize[b]</code> is the number of states in block b (0 if b isn't in use) and
+	 * <code>freeBlock[0, numFreeBlocks)</code> are the block numbers that aren't in use.
+	 */
+	private final int[] blockSize, freeBlock;
+	private int numFreeBlocks;
+
+	/**
+	 * <code>blockSignature[b]</code> is the signature of block b and <code>signatureBlock</code> maps
+	 * every signature back to its block.
+	 */
+	private final Signature[] blockSignature;
+	private final HashMap<Signature, Integer> signatureBlock = new HashMap<Signature, Integer>();
+
+	/**
+	 * <code>visited[i] == epoch</code> if and only if state i was reached by the current search.
+	 */
+	private final int[] visited;
+	private int epoch;
+
+	/**
+	 * The work left before matching classes by bisimulation costs more than a full minimization.
+	 */
+	private long work;
+
+	/**
+	 * The number of times that the whole machine was minimized from scratch.
+	 */
+	private long numFullMinimizations;
+
+	/**
+	 * Construct a MinimalDFA object from a copy of the given machine.
+	 *
+	 * @param machine
+	 *            the given machine
+	 *
+	 * @throws NullPointerException
+	 *             If <code>machine == null</code>
+	 */
+	public MinimalDFA(DFA machine) throws NullPointerException {
+		this.machine = new DFA(machine);
+		int n = this.numStates = machine.getNumStates(), s = this.inputAlphabetSize = machine.getInputAlphabetSize();
+		this.next = new int[n * s];
+		this.accepting = this.machine.getAccepting();
+		this.predecessor = new int[n][];
+		this.numPredecessors = new int[n];
+		this.predecessorIndex = new int[n * s];
+		for (int i = 0; i != n; ++i) {
+			System.arraycopy(this.machine.getNextState(i), 0, this.next, i * s, s);
+			for (int cell = i * s; cell != (i + 1) * s; ++cell) {
+				++this.numPredecessors[this.next[cell]];
+			}
+		}
+		for (int t = 0; t != n; ++t) {
+			this.predecessor[t] = new int[Math.max(this.numPredecessors[t], 1)];
+			this.numPredecessors[t] = 0;
+		}
+		for (int cell = 0; cell != n * s; ++cell) {
+			this.addPredecessor(this.next[cell], cell);
+		}
+
+		this.block = new int[n];
+		this.blockSize = new int[n];
+		this.freeBlock = new int[n];
+		this.blockSignature = new Signature[n];
+		this.visited = new int[n];
+		this.minimize();
+	}
+
+	/**
+	 * @return A copy of the edited machine.
+	 */
+	public DFA getMachine() {
+		return new DFA(this.machine);
+	}
+
+	/**
+	 * @return The number of blocks of equivalent states.
+	 */
+	public int getNumBlocks() {
+		return this.numStates - this.numFreeBlocks;
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 *
+	 * @return The block of <code>state</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't valid
+	 */
+	public int getBlock(int state) throws IllegalArgumentException {
+		this.validateState(state);
+		return this.block[state];
+	}
+
+	/**
+	 * @return A copy of the blocks of all the states.
+	 */
+	public int[] getBlocks() {
+		return this.block.clone();
+	}
+
+	/**
+	 * @param p
+	 *            the first given state
+	 * @param q
+	 *            the second given state
+	 *
+	 * @return Whether <code>p</code> and <code>q</code> accept the same strings.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>p</code> or <code>q</code> isn't valid
+	 */
+	public boolean isEquivalent(int p, int q) throws IllegalArgumentException {
+		return this.getBlock(p) == this.getBlock(q);
+	}
+
+	/**
+	 * @return The number of times that the whole machine was minimized from scratch (including once
+	 *         by the constructor).
+	 */
+	public long getNumFullMinimizations() {
+		return this.numFullMinimizations;
+	}
+
+	/**
+	 * Build the minimal machine, whose states are the blocks that are reachable from the start state
+	 * numbered in breadth first order (so the start state is still 0). Transitions which loop back to
+	 * their block are left undefined.
+	 *
+	 * @return The minimal machine.
+	 */
+	public DFA getMinimalMachine() {
+		int s = this.inputAlphabetSize;
+		int[] number = new int[this.numStates], queue = new int[this.getNumBlocks()];
+		Arrays.fill(number, -1);
+		int head = 0, tail = 0;
+		number[this.block[0]] = tail;
+		queue[tail++] = 0;
+		while (head != tail) {
+			int state = queue[head++];
+			for (int cell = state * s; cell != (state + 1) * s; ++cell) {
+				int t = this.next[cell];
+				if (number[this.block[t]] == -1) {
+					number[this.block[t]] = tail;
+					queue[tail++] = t;
+				}
+			}
+		}
+
+		boolean[] accepting = new boolean[tail];
+		int[][] nextState = new int[tail][s];
+		for (int k = 0; k != tail; ++k) {
+			int state = queue[k];
+			accepting[k] = this.accepting[state];
+			for (int c = 0; c != s; ++c) {
+				int t = number[this.block[this.next[state * s + c]]];
+				nextState[k][c] = (t != k ? t : -1);
+			}
+		}
+		return new DFA(tail, this.machine.getInputAlphabet(), accepting, nextState);
+	}
+
+	/**
+	 * Set <code>delta(initialState, readChar) = finalState</code> and update the blocks.
+	 *
+	 * @param initialState
+	 *            the given initial state
+	 * @param readChar
+	 *            the given input character
+	 * @param finalState
+	 *            the given final state
+	 * @param replace
+	 *            whether an already defined transition may be replaced
+	 *
+	 * @return The new transition.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the transition isn't valid
+	 *
+	 * @see DFA#putTransition(int, String, int, boolean)
+	 */
+	public String putTransition(int initialState, String readChar, int finalState, boolean replace)
+			throws IllegalArgumentException {
+		String result = this.machine.putTransition(initialState, readChar, finalState, replace);
+		this.updateRow(initialState);
+		return result;
+	}
+
+	/**
+	 * Reset <code>delta(initialState, readChar)</code> to its default value and update the blocks.
+	 *
+	 * @param initialState
+	 *            the given initial state
+	 * @param readChar
+	 *            the given input character
+	 *
+	 * @return The transition before it was reset.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the transition isn't valid
+	 *
+	 * @see DFA#resetTransition(int, String)
+	 */
+	public String resetTransition(int initialState, String readChar) throws IllegalArgumentException {
+		String result = this.machine.resetTransition(initialState, readChar);
+		this.updateRow(initialState);
+		return result;
+	}
+
+	/**
+	 * Make <code>state</code> an accept state or a reject state and update the blocks.
+	 *
+	 * @param state
+	 *            the given state
+	 * @param accepting
+	 *            whether <code>state</code> should be an accept state
+	 *
+	 * @return <code>state</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't valid
+	 *
+	 * @see DFA#setAcceptingState(int, boolean)
+	 */
+	public int setAcceptingState(int state, boolean accepting) throws IllegalArgumentException {
+		this.machine.setAcceptingState(state, accepting);
+		if (this.accepting[state] != accepting) {
+			this.accepting[state] = accepting;
+			this.update(state);
+		}
+		return state;
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't in the range of <code>[0, numStates)</code>
+	 */
+	private void validateState(int state) throws IllegalArgumentException {
+		if (state < 0 || state >= this.numStates) {
+			throw new IllegalArgumentException(
+					"\n\nGiven state(" + state + ") isn't in the range of [0, " + (this.numStates - 1) + "].\n");
+		}
+	}
+
+	/**
+	 * Append <code>cell</code> to the list of the transitions to <code>t</code>.
+	 *
+	 * @param t
+	 *            the given final state
+	 * @param cell
+	 *            the given transition cell
+	 */
+	private void addPredecessor(int t, int cell) {
+		if (this.numPredecessors[t] == this.predecessor[t].length) {
+			this.predecessor[t] = Arrays.copyOf(this.predecessor[t], this.numPredecessors[t] << 1);
+		}
+		this.predecessorIndex[cell] = this.numPredecessors[t];
+		this.predecessor[t][this.numPredecessors[t]++] = cell;
+	}
+
+	/**
+	 * Remove <code>cell</code> from the list of the transitions to <code>t</code> (by moving the last
+	 * one into its place).
+	 *
+	 * @param t
+	 *            the given final state
+	 * @param cell
+	 *            the given transition cell
+	 */
+	private void removePredecessor(int t, int cell) {
+		int index = this.predecessorIndex[cell], last = this.predecessor[t][--this.numPredecessors[t]];
+		this.predecessor[t][index] = last;
+		this.predecessorIndex[last] = index;
+	}
+
+	/**
+	 * Copy the row of <code>state</code> from the edited machine and update the blocks if it changed.
+	 *
+	 * @param state
+	 *            the given state
+	 */
+	private void updateRow(int state) {
+		int[] row = this.machine.getNextState(state);
+		boolean changed = false;
+		for (int c = 0, cell = state * this.inputAlphabetSize; c != row.length; ++c, ++cell) {
+			if (row[c] != this.next[cell]) {
+				this.removePredecessor(this.next[cell], cell);
+				this.addPredecessor(this.next[cell] = row[c], cell);
+				changed = true;
+			}
+		}
+		if (changed) {
+			this.update(state);
+		}
+	}
+
+	/**
+	 * Minimize the whole machine from scratch.
+	 */
+	private void minimize() {
+		int n = this.numStates;
+		for (int i = 0; i != n; ++i) {
+			this.block[i] = this.accepting[i] ? 0 : 1;
+		}
+		int numBlocks = MinimalDFA.refine(n, this.inputAlphabetSize, this.next, this.block, 2);
+
+		this.signatureBlock.clear();
+		Arrays.fill(this.blockSize, 0);
+		Arrays.fill(this.blockSignature, null);
+		for (int i = 0; i != n; ++i) {
+			if (this.blockSize[this.block[i]]++ == 0) {
+				this.blockSignature[this.block[i]] = this.signature(i);
+				this.signatureBlock.put(this.blockSignature[this.block[i]], this.block[i]);
+			}
+		}
+		this.numFreeBlocks = 0;
+		for (int b = n - 1; b >= numBlocks; --b) {
+			this.freeBlock[this.numFreeBlocks++] = b;
+		}
+		++this.numFullMinimizations;
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 *
+	 * @return The signature of the block of <code>state</code> computed from the blocks of its
+	 *         successors.
+	 */
+	private Signature signature(int state) {
+		int s = this.inputAlphabetSize;
+		int[] next = new int[s];
+		for (int c = 0; c != s; ++c) {
+			next[c] = this.block[this.next[state * s + c]];
+		}
+		return new Signature(this.accepting[state], next);
+	}
+
+	/**
+	 * Update the blocks after the row or the accept flag of <code>state</code> has changed.
+	 *
+	 * @param state
+	 *            the given state
+	 */
+	private void update(int state) {
+		int n = this.numStates, s = this.inputAlphabetSize;
+
+		// Collect the ancestors of state (local[i] is the position of ancestor i in ancestor)
+		int[] ancestor = new int[n], local = new int[n];
+		int numAncestors = 0;
+		++this.epoch;
+		this.visited[state] = this.epoch;
+		local[state] = numAncestors;
+		ancestor[numAncestors++] = state;
+		for (int head = 0; head != numAncestors; ++head) {
+			int t = ancestor[head];
+			for (int k = 0; k != this.numPredecessors[t]; ++k) {
+				int p = this.predecessor[t][k] / s;
+				if (this.visited[p] != this.epoch) {
+					this.visited[p] = this.epoch;
+					local[p] = numAncestors;
+					ancestor[numAncestors++] = p;
+				}
+			}
+			if (numAncestors > n / MinimalDFA.FULL_FRACTION) {
+				this.minimize();
+				return;
+			}
+		}
+
+		/*
+		 * Split the ancestors into classes. The blocks that they lead to become extra nodes without
+		 * transitions, each one in its own initial block, so that they can only split the ancestors.
+		 */
+		int[] fixedNode = new int[n];
+		Arrays.fill(fixedNode, -1);
+		ArrayList<Integer> fixed = new ArrayList<Integer>();
+		int[] localNext = new int[numAncestors * s];
+		for (int a = 0; a != numAncestors; ++a) {
+			for (int c = 0; c != s; ++c) {
+				int t = this.next[ancestor[a] * s + c];
+				if (this.visited[t] == this.epoch) {
+					localNext[a * s + c] = local[t];
+				} else {
+					if (fixedNode[this.block[t]] == -1) {
+						fixedNode[this.block[t]] = fixed.size();
+						fixed.add(this.block[t]);
+					}
+					localNext[a * s + c] = -2 - fixedNode[this.block[t]];
+				}
+			}
+		}
+		int numNodes = numAncestors + fixed.size();
+		int[] nodeNext = new int[numNodes * s], nodeBlock = new int[numNodes];
+		Arrays.fill(nodeNext, -1);
+		for (int cell = 0; cell != localNext.length; ++cell) {
+			int t = localNext[cell];
+			nodeNext[cell] = (t >= 0 ? t : numAncestors - 2 - t);
+		}
+		for (int a = 0; a != numAncestors; ++a) {
+			nodeBlock[a] = fixed.size() + (this.accepting[ancestor[a]] ? 0 : 1);
+		}
+		for (int f = 0; f != fixed.size(); ++f) {
+			nodeBlock[numAncestors + f] = f;
+		}
+		MinimalDFA.refine(numNodes, s, nodeNext, nodeBlock, fixed.size() + 2);
+
+		// Renumber the classes of the ancestors from 0 and pick a representative of each one
+		int[] classOf = new int[numAncestors], classNumber = new int[numNodes], representative = new int[numAncestors];
+		Arrays.fill(classNumber, -1);
+		int numClasses = 0;
+		for (int a = 0; a != numAncestors; ++a) {
+			if (classNumber[nodeBlock[a]] == -1) {
+				classNumber[nodeBlock[a]] = numClasses;
+				representative[numClasses++] = a;
+			}
+			classOf[a] = classNumber[nodeBlock[a]];
+		}
+
+		// Take the ancestors out of their blocks (the blocks left with other states keep their signatures)
+		for (int a = 0; a != numAncestors; ++a) {
+			int b = this.block[ancestor[a]];
+			if (--this.blockSize[b] == 0) {
+				this.signatureBlock.remove(this.blockSignature[b]);
+				this.blockSignature[b] = null;
+				this.freeBlock[this.numFreeBlocks++] = b;
+			}
+		}
+
+		/*
+		 * Place every class whose successors are all placed by looking up its signature (it's a new block
+		 * if there's no block with the same signature). target[k] is the block of class k (or -1 if it
+		 * isn't placed yet).
+		 */
+		int[] target = new int[numClasses], numUnplaced = new int[numClasses], numDependents = new int[numClasses];
+		Arrays.fill(target, -1);
+		for (int k = 0; k != numClasses; ++k) {
+			int a = representative[k];
+			for (int c = 0; c != s; ++c) {
+				int t = localNext[a * s + c];
+				if (t >= 0) {
+					++numUnplaced[k];
+					++numDependents[classOf[t]];
+				}
+			}
+		}
+		int[][] dependent = new int[numClasses][];
+		for (int k = 0; k != numClasses; ++k) {
+			dependent[k] = new int[numDependents[k]];
+			numDependents[k] = 0;
+		}
+		for (int k = 0; k != numClasses; ++k) {
+			int a = representative[k];
+			for (int c = 0; c != s; ++c) {
+				int t = localNext[a * s + c];
+				if (t >= 0) {
+					dependent[classOf[t]][numDependents[classOf[t]]++] = k;
+				}
+			}
+		}
+
+		// placed[0, numPlaced) are the placed classes whose dependents haven't been told yet
+		int[] placed = new int[numClasses], assumed = new int[numClasses];
+		int numPlaced = 0;
+		for (int k = 0; k != numClasses; ++k) {
+			if (numUnplaced[k] == 0) {
+				target[k] = this.lookUp(k, representative, ancestor, localNext, fixed, classOf, target);
+				placed[numPlaced++] = k;
+			}
+		}
+		Arrays.fill(assumed, -1);
+		this.work = (long) n * s;
+		for (boolean progress = true; progress;) {
+			progress = false;
+			for (int k = 0; k != numClasses; ++k) {
+				while (numPlaced != 0) {
+					int x = placed[--numPlaced];
+					for (int d = 0; d != numDependents[x]; ++d) {
+						int y = dependent[x][d];
+						if (--numUnplaced[y] == 0 && target[y] == -1) {
+							target[y] = this.lookUp(y, representative, ancestor, localNext, fixed, classOf, target);
+							placed[numPlaced++] = y;
+						}
+					}
+				}
+				if (target[k] != -1) {
+					continue;
+				}
+
+				// Class k leads to unplaced classes, so it can only be matched to a block by a bisimulation
+				for (int b : this.signatureBlock.values()) {
+					if (this.isBisimilar(k, b, assumed, representative, ancestor, localNext, fixed, classOf, target)) {
+						// Every class that was assumed along the way takes the block that it was matched with
+						for (int y = 0; y != numClasses; ++y) {
+							if (assumed[y] != -1) {
+								target[y] = assumed[y];
+								assumed[y] = -1;
+								placed[numPlaced++] = y;
+							}
+						}
+						progress = true;
+						break;
+					} else if (this.work < 0) {
+						// Matching would cost more than a full minimization
+						this.minimize();
+						return;
+					}
+				}
+			}
+		}
+
+		/*
+		 * The classes that are left aren't equivalent to any block, but they may still be equivalent to
+		 * each other (the ancestors were split while the blocks that they lead to were kept apart from
+		 * them). So they're split again with every block that they lead to fixed, and each resulting
+		 * group becomes a new block.
+		 */
+		int[] leftover = new int[numClasses], leftoverIndex = new int[numClasses];
+		int numLeftovers = 0;
+		for (int k = 0; k != numClasses; ++k) {
+			if (target[k] == -1) {
+				leftoverIndex[k] = numLeftovers;
+				leftover[numLeftovers++] = k;
+			}
+		}
+		if (numLeftovers != 0) {
+			int[] blockNode = new int[n];
+			Arrays.fill(blockNode, -1);
+			int numBlockNodes = 0;
+			int[] leftoverNext = new int[numLeftovers * s];
+			for (int i = 0; i != numLeftovers; ++i) {
+				int a = representative[leftover[i]];
+				for (int c = 0; c != s; ++c) {
+					int t = localNext[a * s + c], b = (t >= 0 ? target[classOf[t]] : fixed.get(-2 - t));
+					if (t >= 0 && b == -1) {
+						leftoverNext[i * s + c] = leftoverIndex[classOf[t]];
+					} else {
+						if (blockNode[b] == -1) {
+							blockNode[b] = numBlockNodes++;
+						}
+						leftoverNext[i * s + c] = -1 - blockNode[b];
+					}
+				}
+			}
+			numNodes = numLeftovers + numBlockNodes;
+			nodeNext = new int[numNodes * s];
+			nodeBlock = new int[numNodes];
+			Arrays.fill(nodeNext, -1);
+			for (int cell = 0; cell != leftoverNext.length; ++cell) {
+				int t = leftoverNext[cell];
+				nodeNext[cell] = (t >= 0 ? t : numLeftovers - 1 - t);
+			}
+			for (int i = 0; i != numLeftovers; ++i) {
+				nodeBlock[i] = numBlockNodes + (this.accepting[ancestor[representative[leftover[i]]]] ? 0 : 1);
+			}
+			for (int f = 0; f != numBlockNodes; ++f) {
+				nodeBlock[numLeftovers + f] = f;
+			}
+			int numGroups = MinimalDFA.refine(numNodes, s, nodeNext, nodeBlock, numBlockNodes + 2);
+			int[] groupBlock = new int[numGroups];
+			Arrays.fill(groupBlock, -1);
+			for (int i = 0; i != numLeftovers; ++i) {
+				if (groupBlock[nodeBlock[i]] == -1) {
+					groupBlock[nodeBlock[i]] = this.freeBlock[--this.numFreeBlocks];
+				}
+				target[leftover[i]] = groupBlock[nodeBlock[i]];
+			}
+			for (int i = 0; i != numLeftovers; ++i) {
+				int b = target[leftover[i]];
+				if (this.blockSignature[b] == null) {
+					int a = representative[leftover[i]];
+					int[] next = new int[s];
+					for (int c = 0; c != s; ++c) {
+						int t = localNext[a * s + c];
+						next[c] = (t >= 0 ? target[classOf[t]] : fixed.get(-2 - t));
+					}
+					this.blockSignature[b] = new Signature(this.accepting[ancestor[a]], next);
+					this.signatureBlock.put(this.blockSignature[b], b);
+				}
+			}
+		}
+
+		// Move the ancestors into their blocks
+		for (int a = 0; a != numAncestors; ++a) {
+			++this.blockSize[this.block[ancestor[a]] = target[classOf[a]]];
+		}
+	}
+
+	/**
+	 * Find the block of class k whose successors are all placed. It's the existing block with the same
+	 * signature or a new block (which is recorded right away) if there isn't one.
+	 *
+	 * @return The block of class k.
+	 */
+	private int lookUp(int k, int[] representative, int[] ancestor, int[] localNext, ArrayList<Integer> fixed,
+			int[] classOf, int[] target) {
+		int s = this.inputAlphabetSize, a = representative[k];
+		int[] next = new int[s];
+		for (int c = 0; c != s; ++c) {
+			int t = localNext[a * s + c];
+			next[c] = (t >= 0 ? target[classOf[t]] : fixed.get(-2 - t));
+		}
+		Signature signature = new Signature(this.accepting[ancestor[a]], next);
+		Integer b = this.signatureBlock.get(signature);
+		if (b == null) {
+			this.blockSignature[b = this.freeBlock[--this.numFreeBlocks]] = signature;
+			this.signatureBlock.put(signature, b);
+		}
+		return b;
+	}
+
+	/**
+	 * Check whether class k accepts the same strings as block b, assuming that every class
+	 * that is reached along the way accepts the same strings as the block reached along with it (which
+	 * is sound since equivalence is the largest bisimulation). The assumptions are left in
+	 * <code>assumed</code> if the check succeeds and are cleared otherwise. Every class that is visited
+	 * takes <code>inputAlphabetSize</code> off of <code>work</code>.
+	 *
+	 * @return Whether class k is equivalent to block b.
+	 */
+	private boolean isBisimilar(int k, int b, int[] assumed, int[] representative, int[] ancestor, int[] localNext,
+			ArrayList<Integer> fixed, int[] classOf, int[] target) {
+		int s = this.inputAlphabetSize;
+		ArrayList<Integer> assumedClasses = new ArrayList<Integer>();
+		int[] stack = { k, b };
+		int size = 2;
+		boolean result = true;
+		while (size != 0 && result) {
+			int d = stack[--size], y = stack[--size];
+			if (target[y] != -1) {
+				result = target[y] == d;
+				continue;
+			} else if (assumed[y] != -1) {
+				result = assumed[y] == d;
+				continue;
+			}
+
+			Signature signature = this.blockSignature[d];
+			int a = representative[y];
+			this.work -= s;
+			if (signature == null || signature.accepting != this.accepting[ancestor[a]]) {
+				result = false;
+				continue;
+			}
+			assumed[y] = d;
+			assumedClasses.add(y);
+			for (int c = 0; c != s && result; ++c) {
+				int t = localNext[a * s + c];
+				if (t < 0) {
+					result = fixed.get(-2 - t) == signature.next[c];
+				} else {
+					if (size + 2 > stack.length) {
+						stack = Arrays.copyOf(stack, stack.length << 1);
+					}
+					stack[size++] = classOf[t];
+					stack[size++] = signature.next[c];
+				}
+			}
+		}
+		if (!result) {
+			for (int y : assumedClasses) {
+				assumed[y] = -1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Refine the given partition of the nodes of a graph into the coarsest partition in which all the
+	 * nodes of a block have transitions on the same input characters to the same blocks (Hopcroft's
+	 * algorithm), which takes <code>O(numNodes * s * log(numNodes))</code> time. Missing transitions go
+	 * to an extra sink node in a block of its own, since skipping a splitter is only sound when every
+	 * node has a transition on every input character.
+	 *
+	 * @param numNodes
+	 *            the given number of nodes
+	 * @param s
+	 *            the given number of input characters
+	 * @param next
+	 *            <code>next[v * s + c]</code> is the node reached from node v on the input character with
+	 *            index c (or -1 if node v has no transition on it)
+	 * @param block
+	 *            the given initial block of each node in the range of <code>[0, numBlocks)</code>, which
+	 *            is replaced by its final block (numbered from 0 in the order of the first node of each
+	 *            block)
+	 * @param numBlocks
+	 *            the given number of initial blocks (some of which may be empty)
+	 *
+	 * @return The number of final blocks.
+	 */
+	private static int refine(int numNodes, int s, int[] next, int[] block, int numBlocks) {
+		int sink = numNodes++;
+		next = Arrays.copyOf(next, numNodes * s);
+		for (int cell = 0; cell != numNodes * s; ++cell) {
+			if (cell >= sink * s || next[cell] == -1) {
+				next[cell] = sink;
+			}
+		}
+		int[] given = block;
+		block = Arrays.copyOf(block, numNodes);
+		block[sink] = numBlocks++;
+
+		// predecessor[predecessorStart[t * s + c], predecessorStart[t * s + c + 1]) are the nodes reaching t on c
+		int[] predecessorStart = new int[numNodes * s + 1];
+		for (int cell = 0; cell != numNodes * s; ++cell) {
+			++predecessorStart[next[cell] * s + cell % s + 1];
+		}
+		for (int cell = 0; cell != numNodes * s; ++cell) {
+			predecessorStart[cell + 1] += predecessorStart[cell];
+		}
+		int[] predecessor = new int[predecessorStart[numNodes * s]], fill = predecessorStart.clone();
+		for (int cell = 0; cell != numNodes * s; ++cell) {
+			predecessor[fill[next[cell] * s + cell % s]++] = cell / s;
+		}
+
+		/*
+		 * The nodes of block b are element[start[b], end[b]) and location[v] is the position of node v in
+		 * element. The first marked[b] nodes of block b are the ones marked by the current splitter.
+		 */
+		int[] element = new int[numNodes], location = new int[numNodes];
+		int[] start = new int[numNodes + numBlocks], end = new int[numNodes + numBlocks];
+		int[] marked = new int[numNodes + numBlocks];
+		for (int v = 0; v != numNodes; ++v) {
+			++end[block[v]];
+		}
+		for (int b = 0, position = 0; b != numBlocks; ++b) {
+			start[b] = position;
+			position += end[b];
+			end[b] = start[b];
+		}
+		for (int v = 0; v != numNodes; ++v) {
+			location[v] = end[block[v]]++;
+			element[location[v]] = v;
+		}
+
+		// The splitters (block * s + c) which are waiting to be used and whether each one is waiting
+		int[] waiting = new int[16];
+		int numWaiting = 0, largest = 0;
+		boolean[] isWaiting = new boolean[(numNodes + numBlocks) * s];
+		for (int b = 1; b != numBlocks; ++b) {
+			if (end[b] - start[b] > end[largest] - start[largest]) {
+				largest = b;
+			}
+		}
+		// Every initial block but the largest one is a splitter on every input character
+		for (int b = 0; b != numBlocks; ++b) {
+			if (b != largest && end[b] != start[b]) {
+				for (int c = 0; c != s; ++c) {
+					if (numWaiting == waiting.length) {
+						waiting = Arrays.copyOf(waiting, numWaiting << 1);
+					}
+					isWaiting[b * s + c] = true;
+					waiting[numWaiting++] = b * s + c;
+				}
+			}
+		}
+
+		int[] splitter = new int[numNodes], touched = new int[numNodes + numBlocks];
+		while (numWaiting != 0) {
+			int pair = waiting[--numWaiting], b = pair / s, c = pair % s;
+			isWaiting[pair] = false;
+
+			// Copy the splitter first since marking moves nodes within their blocks
+			int size = end[b] - start[b], numTouched = 0;
+			System.arraycopy(element, start[b], splitter, 0, size);
+			for (int i = 0; i != size; ++i) {
+				int t = splitter[i];
+				for (int k = predecessorStart[t * s + c]; k != predecessorStart[t * s + c + 1]; ++k) {
+					int v = predecessor[k], d = block[v], position = start[d] + marked[d];
+					if (location[v] >= position) {
+						// Swap v into the marked prefix of its block
+						int w = element[position];
+						element[position] = v;
+						element[location[v]] = w;
+						location[w] = location[v];
+						location[v] = position;
+						if (marked[d]++ == 0) {
+							touched[numTouched++] = d;
+						}
+					}
+				}
+			}
+
+			for (int i = 0; i != numTouched; ++i) {
+				int d = touched[i], split = start[d] + marked[d];
+				marked[d] = 0;
+				if (split == end[d]) {
+					continue;
+				}
+
+				// The marked nodes become the new block
+				int e = numBlocks++;
+				start[e] = start[d];
+				end[e] = split;
+				start[d] = split;
+				for (int position = start[e]; position != end[e]; ++position) {
+					block[element[position]] = e;
+				}
+				boolean smaller = end[e] - start[e] <= end[d] - start[d];
+				for (int a = 0; a != s; ++a) {
+					int add = (isWaiting[d * s + a] || smaller ? e : d) * s + a;
+					if (!isWaiting[add]) {
+						if (numWaiting == waiting.length) {
+							waiting = Arrays.copyOf(waiting, numWaiting << 1);
+						}
+						isWaiting[add] = true;
+						waiting[numWaiting++] = add;
+					}
+				}
+			}
+		}
+
+		int[] number = new int[numBlocks];
+		Arrays.fill(number, -1);
+		int result = 0;
+		for (int v = 0; v != sink; ++v) {
+			if (number[block[v]] == -1) {
+				number[block[v]] = result++;
+			}
+			given[v] = number[block[v]];
+		}
+		return result;
+	}
+}
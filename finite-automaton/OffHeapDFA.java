@@ -0,0 +1,530 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+
+/**
+ * A read only deterministic finite automaton whose transition table and accept states are kept
+ * outside of the Java heap, either in direct memory or in a memory mapped binary image of a DFA
+ * (see {@link DFA#saveToImage(Path)}). Apart from the input alphabet (and a reference to every block
+ * of the tables), the heap usage of an instance is independent of the size of its machine so that very
+ * large machines don't add to the work of the garbage collector.
+ * <p>
+ * The transition table is row major (the final state of the transition from state i on the input
+ * character with index j is at index <code>i * inputAlphabetSize + j</code>) and the accept states
+ * are held as 1 (accept) or 0 (reject) per state. Undefined transitions are stored as the self loops
+ * that they stand for. Since a buffer can hold at most 2 GB, the tables are split into blocks of the
+ * same power of 2 number of states (the largest one whose rows fit in {@link #MAX_BLOCK_SIZE} bytes),
+ * so the block of a state and its index in the block are found by a shift and a mask.
+ * <p>
+ * An instance can be run by any number of threads at once. Every run reads the tables exactly once,
+ * so a run that races with {@link #close()} either fails with an IllegalStateException or finishes on
+ * the tables that it read (which stay reachable until it's done). For the same reason, closing doesn't
+ * free any memory itself: it only makes every later run fail and drops the references of this instance
+ * to its buffers, which (like any other direct or mapped buffer in this version of Java) are given back
+ * to the operating system once the garbage collector finds them unreachable.
+ */
+public final class OffHeapDFA implements AutoCloseable {
+	/**
+	 * The tables of an open instance.
+	 */
+	private static final class Tables {
+		/**
+		 * <code>nextState[b]</code> and <code>accepting[b]</code> hold the rows and the accept states of
+		 * block b (the states in <code>[b &lt;&lt; blockShift, (b + 1) &lt;&lt; blockShift)</code>).
+		 */
+		private final IntBuffer[] nextState, accepting;
+
+		/**
+		 * The mapped image that holds the tables (or <code>null</code> if they're in direct memory).
+		 */
+		private final MachineImage image;
+
+		/**
+		 * Construct a Tables object.
+		 *
+		 * @param nextState
+		 *            the rows of every block
+		 * @param accepting
+		 *            the accept states of every block
+		 * @param image
+		 *            the mapped image that holds the tables (or <code>null</code>)
+		 */
+		private Tables(IntBuffer[] nextState, IntBuffer[] accepting, MachineImage image) {
+			this.nextState = nextState;
+			this.accepting = accepting;
+			this.image = image;
+		}
+	}
+
+	/**
+	 * The largest number of bytes of the rows and the accept states of a block.
+	 */
+	public static final int MAX_BLOCK_SIZE = 1 << 30;
+
+	/**
+	 * The largest length of an array that every virtual machine can allocate.
+	 */
+	private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+	/**
+	 * The number of states and the number of input characters.
+	 */
+	private final int numStates, inputAlphabetSize;
+
+	/**
+	 * Every block has <code>1 &lt;&lt; blockShift</code> states (except for the last one, which may have
+	 * fewer) and <code>blockMask</code> is the mask of the index of a state in its block.
+	 */
+	private final int blockShift, blockMask;
+
+	/**
+	 * The number of accept states.
+	 */
+	private final int numAcceptingStates;
+
+	/**
+	 * The input alphabet (in the order of the input character indices).
+	 */
+	private final String[] inputAlphabet;
+
+	/**
+	 * The trie used to split test strings into input characters.
+	 */
+	private final AlphabetTrie inputTrie;
+
+	/**
+	 * The tables (or <code>null</code> once this instance is closed).
+	 */
+	private volatile Tables tables;
+
+	/**
+	 * Construct an OffHeapDFA object by copying the transitions and the accept states of the given
+	 * machine into direct memory one row at a time, with a separate direct buffer for every block.
+	 *
+	 * @param machine
+	 *            the given machine
+	 *
+	 * @throws IllegalArgumentException
+	 *             If a row of <code>machine</code> is too large to be held in a block
+	 * @throws NullPointerException
+	 *             If <code>machine == null</code>
+	 */
+	public OffHeapDFA(DFA machine) throws IllegalArgumentException, NullPointerException {
+		int n = this.numStates = machine.getNumStates();
+		int s = this.inputAlphabetSize = machine.getInputAlphabetSize();
+		this.inputAlphabet = machine.getInputAlphabet();
+		this.inputTrie = new AlphabetTrie(this.inputAlphabet);
+		this.blockMask = (1 << (this.blockShift = OffHeapDFA.blockShift(s))) - 1;
+
+		boolean[] accepting = machine.getAccepting();
+		int numBlocks = this.getNumBlocks();
+		IntBuffer[] nextStateBlocks = new IntBuffer[numBlocks], acceptingBlocks = new IntBuffer[numBlocks];
+		for (int b = 0; b != numBlocks; ++b) {
+			int first = b << this.blockShift, size = Math.min(n - first, 1 << this.blockShift);
+			IntBuffer block = ByteBuffer.allocateDirect(size * (s + 1) * Integer.BYTES).order(ByteOrder.nativeOrder())
+					.asIntBuffer();
+			for (int i = first; i != first + size; ++i) {
+				block.put(machine.getNextState(i));
+			}
+			for (int i = first; i != first + size; ++i) {
+				block.put(accepting[i] ? 1 : 0);
+			}
+			nextStateBlocks[b] = block.slice(0, size * s);
+			acceptingBlocks[b] = block.slice(size * s, size);
+		}
+		this.numAcceptingStates = machine.getNumAcceptingStates();
+		this.tables = new Tables(nextStateBlocks, acceptingBlocks, null);
+	}
+
+	/**
+	 * Construct an OffHeapDFA object which runs directly on the tables of the given image.
+	 *
+	 * @param image
+	 *            the given image
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>image</code> isn't a valid image of a DFA
+	 */
+	private OffHeapDFA(MachineImage image) throws IllegalArgumentException {
+		this.numStates = image.getInt(DFA.IMAGE_NUM_STATES);
+		this.inputAlphabetSize = image.getInt(DFA.IMAGE_INPUT_ALPHABET_SIZE);
+		this.inputAlphabet = new String[this.inputAlphabetSize];
+		for (int i = 0; i != this.inputAlphabetSize; ++i) {
+			this.inputAlphabet[i] = image.getString(i);
+		}
+		this.inputTrie = new AlphabetTrie(this.inputAlphabet);
+		this.blockMask = (1 << (this.blockShift = OffHeapDFA.blockShift(this.inputAlphabetSize))) - 1;
+
+		// The image is a single mapping, so its tables are split into views of their blocks
+		IntBuffer nextState = image.getTable(DFA.IMAGE_NEXT_STATE), accepting = image.getTable(DFA.IMAGE_ACCEPTING);
+		int s = this.inputAlphabetSize, numBlocks = this.getNumBlocks();
+		IntBuffer[] nextStateBlocks = new IntBuffer[numBlocks], acceptingBlocks = new IntBuffer[numBlocks];
+		for (int b = 0; b != numBlocks; ++b) {
+			int first = b << this.blockShift, size = Math.min(this.numStates - first, 1 << this.blockShift);
+			nextStateBlocks[b] = nextState.slice(first * s, size * s);
+			acceptingBlocks[b] = accepting.slice(first, size);
+		}
+		this.tables = new Tables(nextStateBlocks, acceptingBlocks, image);
+
+		int numAcceptingStates = 0;
+		for (int i = 0; i != this.numStates; ++i) {
+			numAcceptingStates += accepting.get(i) != 0 ? 1 : 0;
+		}
+		this.numAcceptingStates = numAcceptingStates;
+	}
+
+	/**
+	 * @param inputAlphabetSize
+	 *            the given number of input characters
+	 *
+	 * @return The log2 of the largest power of 2 number of states whose rows (of
+	 *         <code>inputAlphabetSize</code> ints) and accept states fit in {@link #MAX_BLOCK_SIZE} bytes.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If a single row doesn't fit
+	 */
+	private static int blockShift(int inputAlphabetSize) throws IllegalArgumentException {
+		long rowSize = (inputAlphabetSize + 1L) * Integer.BYTES;
+		if (rowSize > OffHeapDFA.MAX_BLOCK_SIZE) {
+			throw new IllegalArgumentException("\n\nGiven machine has too many input characters("
+					+ inputAlphabetSize + ") to be held in direct memory.\n");
+		}
+		return (Long.SIZE - 1 - Long.numberOfLeadingZeros(OffHeapDFA.MAX_BLOCK_SIZE / rowSize));
+	}
+
+	/**
+	 * @return The number of blocks that the states are split into.
+	 */
+	private int getNumBlocks() {
+		return (int) ((this.numStates + (long) this.blockMask) >>> this.blockShift);
+	}
+
+	/**
+	 * @param path
+	 *            the given path
+	 *
+	 * @return An OffHeapDFA object which runs directly on the memory mapped binary image in the file
+	 *         with the given path.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the file doesn't hold a valid image of a DFA
+	 * @throws IOException
+	 *             If the file can't be read
+	 *
+	 * @see DFA#mapImage(Path)
+	 */
+	public static OffHeapDFA map(Path path) throws IllegalArgumentException, IOException {
+		return new OffHeapDFA(DFA.mapImage(path));
+	}
+
+	/**
+	 * @return <code>this.numStates</code>.
+	 */
+	public int getNumStates() {
+		return this.numStates;
+	}
+
+	/**
+	 * @return <code>this.inputAlphabetSize</code>.
+	 */
+	public int getInputAlphabetSize() {
+		return this.inputAlphabetSize;
+	}
+
+	/**
+	 * @return <code>this.numAcceptingStates</code>.
+	 */
+	public int getNumAcceptingStates() {
+		return this.numAcceptingStates;
+	}
+
+	/**
+	 * @return A copy of <code>this.inputAlphabet</code>.
+	 */
+	public String[] getInputAlphabet() {
+		return this.inputAlphabet.clone();
+	}
+
+	/**
+	 * @return Whether the tables of this instance are in a memory mapped image (rather than in direct
+	 *         memory).
+	 */
+	public boolean isMapped() {
+		Tables tables = this.tables;
+		return (tables != null && tables.image != null);
+	}
+
+	/**
+	 * @return Whether this instance has been closed.
+	 */
+	public boolean isClosed() {
+		return (this.tables == null);
+	}
+
+	/**
+	 * @return The tables of this instance (read once by every run).
+	 *
+	 * @throws IllegalStateException
+	 *             If this instance has been closed
+	 */
+	private Tables getTables() throws IllegalStateException {
+		Tables tables = this.tables;
+		if (tables == null) {
+			throw new IllegalStateException("\n\nThis machine has been closed.\n");
+		}
+		return tables;
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 * @param readCharIndex
+	 *            the given input character index
+	 *
+	 * @return <code>delta(state, readCharIndex)</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> or <code>readCharIndex</code> isn't valid
+	 * @throws IllegalStateException
+	 *             If this instance has been closed
+	 */
+	public int getNextState(int state, int readCharIndex) throws IllegalArgumentException, IllegalStateException {
+		Tables tables = this.getTables();
+		this.validateState(state);
+		this.validateInputCharIndex(readCharIndex);
+		return tables.nextState[state >>> this.blockShift].get((state & this.blockMask) * this.inputAlphabetSize
+				+ readCharIndex);
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 *
+	 * @return Whether <code>state</code> is an accept state.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't valid
+	 * @throws IllegalStateException
+	 *             If this instance has been closed
+	 */
+	public boolean isAccepting(int state) throws IllegalArgumentException, IllegalStateException {
+		Tables tables = this.getTables();
+		this.validateState(state);
+		return (tables.accepting[state >>> this.blockShift].get(state & this.blockMask) != 0);
+	}
+
+	/**
+	 * @param state
+	 *            the given state
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>state</code> isn't in the range of <code>[0, numStates)</code>
+	 */
+	private void validateState(int state) throws IllegalArgumentException {
+		if (state < 0 || state >= this.numStates) {
+			throw new IllegalArgumentException(
+					"\n\nGiven state(" + state + ") isn't in the range of [0, " + (this.numStates - 1) + "].\n");
+		}
+	}
+
+	/**
+	 * @param index
+	 *            the given input character index
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>index</code> isn't in the range of <code>[0, inputAlphabetSize)</code>
+	 */
+	private void validateInputCharIndex(int index) throws IllegalArgumentException {
+		if (index < 0 || index >= this.inputAlphabetSize) {
+			throw new IllegalArgumentException("\n\nGiven input character index(" + index
+					+ ") isn't in the range of [0, " + (this.inputAlphabetSize - 1) + "].\n");
+		}
+	}
+
+	/**
+	 * Run this machine on <code>testString[from, to)</code> (of input character indices) starting from
+	 * the given state.
+	 *
+	 * @param testString
+	 *            the given test string
+	 * @param from
+	 *            the index of the first input character
+	 * @param to
+	 *            the index after the last input character
+	 * @param state
+	 *            the given initial state
+	 *
+	 * @return Whether the run ends in an accept state.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>[from, to)</code> isn't a range of <code>testString</code> or it contains an
+	 *             invalid input character index or <code>state</code> isn't valid
+	 * @throws IllegalStateException
+	 *             If this instance has been closed
+	 */
+	public boolean accept(int[] testString, int from, int to, int state)
+			throws IllegalArgumentException, IllegalStateException {
+		Tables tables = this.getTables();
+		if (testString == null || from < 0 || to > testString.length || from > to) {
+			throw new IllegalArgumentException("\n\nGiven test string range isn't valid.\n");
+		}
+		this.validateState(state);
+
+		IntBuffer[] nextState = tables.nextState;
+		int s = this.inputAlphabetSize, shift = this.blockShift, mask = this.blockMask;
+		for (int i = from; i != to; ++i) {
+			int c = testString[i];
+			if (c < 0 || c >= s) {
+				this.validateInputCharIndex(c);
+			}
+			state = nextState[state >>> shift].get((state & mask) * s + c);
+		}
+		return (tables.accepting[state >>> shift].get(state & mask) != 0);
+	}
+
+	/**
+	 * @param testString
+	 *            the given test string
+	 *
+	 * @return <code>accept(testString, 0, testString.length, 0)</code>.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>testString</code> is <code>null</code> or contains an invalid input
+	 *             character index
+	 * @throws IllegalStateException
+	 *             If this instance has been closed
+	 */
+	public boolean accept(int[] testString) throws IllegalArgumentException, IllegalStateException {
+		if (testString == null) {
+			throw new IllegalArgumentException("\n\nGiven test string is null.\n");
+		}
+		return this.accept(testString, 0, testString.length, 0);
+	}
+
+	/**
+	 * @param testString
+	 *            the given test string
+	 *
+	 * @return Whether this machine accepts <code>testString</code> (written as a concatenation of input
+	 *         characters).
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>testString</code> is <code>null</code> or isn't defined over the input
+	 *             alphabet
+	 * @throws IllegalStateException
+	 *             If this instance has been closed
+	 */
+	public boolean accept(String testString) throws IllegalArgumentException, IllegalStateException {
+		if (testString == null) {
+			throw new IllegalArgumentException("\n\nGiven test string is null.\n");
+		}
+		int[] indices = new int[testString.length()];
+		int length = this.inputTrie.tokenize(testString, indices);
+		if (length == -1) {
+			throw new IllegalArgumentException(
+					"\n\nGiven test string(" + testString + ") isn't defined over the input alphabet.\n");
+		}
+		return this.accept(indices, 0, length, 0);
+	}
+
+	/**
+	 * Run this machine on the first <code>maxStringCount</code> strings (in length-lexicographic order
+	 * over the input character indices) of length in the range of
+	 * <code>[minLength, maxLength]</code>. Consecutive strings share the states of their common prefix
+	 * so that every string only costs the steps after the position at which it differs from the
+	 * previous one.
+	 *
+	 * @param minLength
+	 *            the given minimum length
+	 * @param maxLength
+	 *            the given maximum length
+	 * @param maxStringCount
+	 *            the given maximum number of strings
+	 *
+	 * @return <code>null</code> if no string was run, <code>accept:stepCount</code> if exactly one
+	 *         string was run and <code>acceptCount:rejectCount</code> otherwise (the same as
+	 *         <code>DFA.simulate</code>).
+	 *
+	 * @throws IllegalArgumentException
+	 *             If <code>minLength</code>, <code>maxLength</code> or <code>maxStringCount</code>
+	 *             isn't valid or the longest string to run is too long to be held in an array
+	 * @throws IllegalStateException
+	 *             If this instance has been closed
+	 */
+	public String simulate(int minLength, int maxLength, int maxStringCount)
+			throws IllegalArgumentException, IllegalStateException {
+		Tables tables = this.getTables();
+		if (minLength < 0 || maxLength < minLength) {
+			throw new IllegalArgumentException(
+					"\n\nGiven length range([" + minLength + ", " + maxLength + "]) isn't valid.\n");
+		} else if (maxStringCount < 0) {
+			throw new IllegalArgumentException(
+					"\n\nGiven max string count(" + maxStringCount + ") is negative.\n");
+		} else if (maxStringCount == 0) {
+			return null;
+		}
+
+		int s = this.inputAlphabetSize;
+		/*
+		 * There are s^k strings of every length k, so unless there's a single input character the first
+		 * string which is longer than minLength + log2(maxStringCount) is never reached
+		 */
+		long longest = s == 1 ? (long) minLength + maxStringCount - 1
+				: (long) minLength + (Integer.SIZE - 1 - Integer.numberOfLeadingZeros(Math.max(maxStringCount, 1)));
+		longest = Math.max(Math.min(maxLength, longest), 0);
+		if (longest >= OffHeapDFA.MAX_ARRAY_LENGTH) {
+			throw new IllegalArgumentException(
+					"\n\nGiven length range([" + minLength + ", " + maxLength + "]) and max string count("
+							+ maxStringCount + ") have strings which are too long to be run.\n");
+		}
+
+		IntBuffer[] nextState = tables.nextState, accepting = tables.accepting;
+		int shift = this.blockShift, mask = this.blockMask;
+		// testString[i] is the input character at index i and state[i] is the state before reading it
+		int[] testString = new int[(int) longest], state = new int[(int) longest + 1];
+		int length = minLength, valid = 0, count = 0, acceptCount = 0;
+		boolean accept = false;
+		while (length <= maxLength && count != maxStringCount) {
+			// Only recompute the states after the first position that has changed
+			for (int i = valid; i != length; ++i) {
+				state[i + 1] = nextState[state[i] >>> shift].get((state[i] & mask) * s + testString[i]);
+			}
+			accept = accepting[state[length] >>> shift].get(state[length] & mask) != 0;
+			acceptCount += accept ? 1 : 0;
+			++count;
+
+			// Move on to the next string
+			int i = length - 1;
+			while (i != -1 && testString[i] == s - 1) {
+				testString[i--] = 0;
+			}
+			if (i == -1) {
+				valid = 0;
+				++length;
+			} else {
+				++testString[i];
+				valid = i;
+			}
+		}
+
+		if (count == 0) {
+			return null;
+		} else if (count == 1) {
+			// No steps are needed if every state accepts or every state rejects
+			boolean trivial = this.numAcceptingStates == 0 || this.numAcceptingStates == this.numStates;
+			return (accept + ":" + (trivial ? 0 : minLength));
+		}
+		return (acceptCount + ":" + (count - acceptCount));
+	}
+
+	/**
+	 * Make every later run of this instance fail and drop its references to its tables. This doesn't free
+	 * the memory of the tables (see the class description).
+	 */
+	@Override
+	public void close() {
+		this.tables = null;
+	}
+}
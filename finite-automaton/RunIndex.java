@@ -0,0 +1,524 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+
+/**
+ * A prefix trie of the strings of the last simulation of a deterministic finite automaton together with
+ * the state that the machine is in after every prefix, so that an edit of the machine only re-evaluates
+ * the strings whose runs it affects and updates their results in place.
+ * <p>
+ * Node 0 is the empty prefix and every other node extends the prefix of its parent by a single input
+ * character. Every transition has a doubly linked list of the nodes whose last step is that transition,
+ * and every state has a doubly linked list of the nodes of simulated strings whose runs end in it, so
+ * an edit of a transition only visits the subtrees of the prefixes which take it and an edit of whether
+ * a state accepts only visits the strings which end in it. The heads of the lists of the transitions are
+ * held in an open addressing hash table of primitive ints (only the transitions which are taken have an
+ * entry) and the heads of the lists of the states in a plain array.
+ * <p>
+ * The result of a simulated string is <code>accept:stepCount</code>, where the step count is 0 while
+ * the machine is trivial (every state accepts or none does) and the length of the string otherwise, so
+ * the index is kept (and its runs are kept up to date) whether the machine is trivial or not.
+ */
+final class RunIndex {
+	/**
+	 * The initial number of nodes and of transition list heads that there is room for.
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The marker of an empty slot of the hash table of the transition list heads (and of the end of a
+	 * list).
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * The number of input characters.
+	 */
+	private final int inputAlphabetSize;
+
+	/**
+	 * The transition function and the accept states of the machine, which are read when a run is
+	 * re-evaluated.
+	 */
+	private final IntBinaryOperator next;
+	private final IntPredicate accepting;
+
+	/**
+	 * The results of the last simulation, which are updated in place.
+	 */
+	private final HashMap<ArrayList<Integer>, String> results;
+
+	/**
+	 * Whether the last simulation counted its accepted and rejected strings (so whether an edit changes
+	 * the counts).
+	 */
+	private final boolean count;
+
+	/**
+	 * Whether every state of the machine accepts or none does (so every result is a run of 0 steps).
+	 */
+	private boolean trivial;
+
+	/**
+	 * The number of nodes and the length of the path of the last added string.
+	 */
+	private int numNodes, pathLength;
+
+	/**
+	 * <code>state[i]</code> is the state reached after reading the prefix of node i, which extends the
+	 * prefix of <code>parent[i]</code> by the input character with index <code>readChar[i]</code>. The
+	 * children of a node are linked through <code>firstChild</code> and <code>nextSibling</code>.
+	 */
+	private int[] state, readChar, parent, firstChild, nextSibling;
+
+	/**
+	 * The links of the list of the transition that is the last step of every node.
+	 */
+	private int[] prevInCell, nextInCell;
+
+	/**
+	 * The links of the list of the state that the run of every simulated string ends in.
+	 */
+	private int[] prevInState, nextInState;
+
+	/**
+	 * <code>multiplicity[i]</code> is the number of times that the string of node i was simulated (0 if
+	 * it's only a prefix of simulated strings) and <code>accept[i]</code> is whether its result is
+	 * accepted.
+	 */
+	private int[] multiplicity;
+	private boolean[] accept;
+
+	/**
+	 * <code>key[i]</code> is the simulated string of node i as it's held in the results (or
+	 * <code>null</code>).
+	 */
+	private Object[] key;
+
+	/**
+	 * The nodes of the path of the last added string.
+	 */
+	private int[] path;
+
+	/**
+	 * The head of the list of every state.
+	 */
+	private final int[] stateHead;
+
+	/**
+	 * The hash table of the heads of the lists of the transitions, where <code>cellKey[k]</code> is a
+	 * transition (<code>state * inputAlphabetSize + readCharIndex</code>) or {@link #NONE} and
+	 * <code>cellHead[k]</code> is the head of its list.
+	 */
+	private int[] cellKey, cellHead;
+
+	/**
+	 * The number of transitions with an entry in the hash table.
+	 */
+	private int numCells;
+
+	/**
+	 * The stack of the nodes left to re-evaluate (reused by every edit).
+	 */
+	private int[] stack;
+
+	/**
+	 * Construct a RunIndex object holding only the empty prefix (node 0), which is in the start state.
+	 *
+	 * @param numStates
+	 *            the number of states
+	 * @param inputAlphabetSize
+	 *            the number of input characters
+	 * @param next
+	 *            the transition function of the machine
+	 * @param accepting
+	 *            whether a state of the machine is an accept state
+	 * @param results
+	 *            the results of the simulation that the strings are added from
+	 * @param count
+	 *            whether the simulation counts its accepted and rejected strings
+	 * @param trivial
+	 *            whether every state of the machine accepts or none does
+	 */
+	RunIndex(int numStates, int inputAlphabetSize, IntBinaryOperator next, IntPredicate accepting,
+			HashMap<ArrayList<Integer>, String> results, boolean count, boolean trivial) {
+		this.inputAlphabetSize = inputAlphabetSize;
+		this.next = next;
+		this.accepting = accepting;
+		this.results = results;
+		this.count = count;
+		this.trivial = trivial;
+
+		int capacity = RunIndex.INITIAL_CAPACITY;
+		this.state = new int[capacity];
+		this.readChar = new int[capacity];
+		this.parent = new int[capacity];
+		this.firstChild = new int[capacity];
+		this.nextSibling = new int[capacity];
+		this.prevInCell = new int[capacity];
+		this.nextInCell = new int[capacity];
+		this.prevInState = new int[capacity];
+		this.nextInState = new int[capacity];
+		this.multiplicity = new int[capacity];
+		this.accept = new boolean[capacity];
+		this.key = new Object[capacity];
+		this.path = new int[capacity];
+		this.stack = new int[capacity];
+		this.stateHead = new int[numStates];
+		Arrays.fill(this.stateHead, RunIndex.NONE);
+		this.cellKey = new int[capacity];
+		this.cellHead = new int[capacity];
+		Arrays.fill(this.cellKey, RunIndex.NONE);
+
+		this.firstChild[0] = this.parent[0] = RunIndex.NONE;
+		this.numNodes = 1;
+	}
+
+	/**
+	 * @return <code>this.trivial</code>.
+	 */
+	boolean isTrivial() {
+		return this.trivial;
+	}
+
+	/**
+	 * @param cell
+	 *            the given transition
+	 *
+	 * @return The slot of the hash table which holds <code>cell</code> (or the empty slot where it would
+	 *         be put).
+	 */
+	private int cellSlot(int cell) {
+		int mask = this.cellKey.length - 1, slot = (int) HashMix.mix(cell) & mask;
+		while (this.cellKey[slot] != RunIndex.NONE && this.cellKey[slot] != cell) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * @param cell
+	 *            the given transition
+	 *
+	 * @return The head of the list of <code>cell</code> (or {@link #NONE} if it's empty).
+	 */
+	private int getCellHead(int cell) {
+		int slot = this.cellSlot(cell);
+		return (this.cellKey[slot] == cell ? this.cellHead[slot] : RunIndex.NONE);
+	}
+
+	/**
+	 * Set the head of the list of the given transition. Entries are never removed since a transition
+	 * whose list becomes empty is usually taken again by a later edit.
+	 *
+	 * @param cell
+	 *            the given transition
+	 * @param head
+	 *            the given head
+	 */
+	private void setCellHead(int cell, int head) {
+		int slot = this.cellSlot(cell);
+		if (this.cellKey[slot] == cell) {
+			this.cellHead[slot] = head;
+			return;
+		} else if (head == RunIndex.NONE) {
+			return;
+		}
+
+		this.cellKey[slot] = cell;
+		this.cellHead[slot] = head;
+		// Keep the table at most half full so that probe sequences stay short
+		if (++this.numCells << 1 > this.cellKey.length) {
+			int[] oldKey = this.cellKey, oldHead = this.cellHead;
+			this.cellKey = new int[oldKey.length << 1];
+			this.cellHead = new int[oldKey.length << 1];
+			Arrays.fill(this.cellKey, RunIndex.NONE);
+			for (int k = 0; k != oldKey.length; ++k) {
+				if (oldKey[k] != RunIndex.NONE) {
+					int newSlot = this.cellSlot(oldKey[k]);
+					this.cellKey[newSlot] = oldKey[k];
+					this.cellHead[newSlot] = oldHead[k];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Link the given node into the list of the transition of the given state on its input character.
+	 *
+	 * @param node
+	 *            the given node
+	 * @param from
+	 *            the given state (the state of the parent of <code>node</code>)
+	 */
+	private void linkCell(int node, int from) {
+		int cell = from * this.inputAlphabetSize + this.readChar[node], head = this.getCellHead(cell);
+		this.prevInCell[node] = RunIndex.NONE;
+		this.nextInCell[node] = head;
+		if (head != RunIndex.NONE) {
+			this.prevInCell[head] = node;
+		}
+		this.setCellHead(cell, node);
+	}
+
+	/**
+	 * Unlink the given node from the list that it was linked into from the given state.
+	 *
+	 * @param node
+	 *            the given node
+	 * @param from
+	 *            the given state
+	 */
+	private void unlinkCell(int node, int from) {
+		int prev = this.prevInCell[node], next = this.nextInCell[node];
+		if (prev != RunIndex.NONE) {
+			this.nextInCell[prev] = next;
+		} else {
+			this.setCellHead(from * this.inputAlphabetSize + this.readChar[node], next);
+		}
+		if (next != RunIndex.NONE) {
+			this.prevInCell[next] = prev;
+		}
+	}
+
+	/**
+	 * Link the given node of a simulated string into the list of its state.
+	 *
+	 * @param node
+	 *            the given node
+	 */
+	private void linkState(int node) {
+		int head = this.stateHead[this.state[node]];
+		this.prevInState[node] = RunIndex.NONE;
+		this.nextInState[node] = head;
+		if (head != RunIndex.NONE) {
+			this.prevInState[head] = node;
+		}
+		this.stateHead[this.state[node]] = node;
+	}
+
+	/**
+	 * Unlink the given node of a simulated string from the list of its state.
+	 *
+	 * @param node
+	 *            the given node
+	 */
+	private void unlinkState(int node) {
+		int prev = this.prevInState[node], next = this.nextInState[node];
+		if (prev != RunIndex.NONE) {
+			this.nextInState[prev] = next;
+		} else {
+			this.stateHead[this.state[node]] = next;
+		}
+		if (next != RunIndex.NONE) {
+			this.prevInState[next] = prev;
+		}
+	}
+
+	/**
+	 * @param parent
+	 *            the given node
+	 * @param readCharIndex
+	 *            the given input character index
+	 *
+	 * @return The child of <code>parent</code> on <code>readCharIndex</code> (which is created if it
+	 *         doesn't exist yet).
+	 */
+	private int child(int parent, int readCharIndex) {
+		// Children are created in increasing order of their characters so the newest one is checked first
+		int child = this.firstChild[parent];
+		if (child != RunIndex.NONE && this.readChar[child] > readCharIndex) {
+			while (child != RunIndex.NONE && this.readChar[child] != readCharIndex) {
+				child = this.nextSibling[child];
+			}
+		}
+		if (child != RunIndex.NONE && this.readChar[child] == readCharIndex) {
+			return child;
+		}
+
+		if (this.numNodes == this.state.length) {
+			int capacity = this.numNodes << 1;
+			this.state = Arrays.copyOf(this.state, capacity);
+			this.readChar = Arrays.copyOf(this.readChar, capacity);
+			this.parent = Arrays.copyOf(this.parent, capacity);
+			this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+			this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+			this.prevInCell = Arrays.copyOf(this.prevInCell, capacity);
+			this.nextInCell = Arrays.copyOf(this.nextInCell, capacity);
+			this.prevInState = Arrays.copyOf(this.prevInState, capacity);
+			this.nextInState = Arrays.copyOf(this.nextInState, capacity);
+			this.multiplicity = Arrays.copyOf(this.multiplicity, capacity);
+			this.accept = Arrays.copyOf(this.accept, capacity);
+			this.key = Arrays.copyOf(this.key, capacity);
+		}
+		child = this.numNodes++;
+		this.readChar[child] = readCharIndex;
+		this.parent[child] = parent;
+		this.firstChild[child] = RunIndex.NONE;
+		this.nextSibling[child] = this.firstChild[parent];
+		this.firstChild[parent] = child;
+		this.state[child] = this.next.applyAsInt(this.state[parent], readCharIndex);
+		this.linkCell(child, this.state[parent]);
+		return child;
+	}
+
+	/**
+	 * Add the run of the given simulated string, whose result has already been put into the results.
+	 * Consecutive strings share the nodes of their common prefix, so the strings of a simulation in
+	 * increasing order only create a node for every distinct prefix once.
+	 *
+	 * @param testString
+	 *            the given simulated string (as it's held in the results)
+	 */
+	void add(ArrayList<Integer> testString) {
+		int length = testString.size(), common = 0;
+		if (this.path.length <= length) {
+			this.path = Arrays.copyOf(this.path, Math.max(length + 1, this.path.length << 1));
+		}
+		while (common != Math.min(length, this.pathLength)
+				&& this.readChar[this.path[common + 1]] == testString.get(common)) {
+			++common;
+		}
+		for (int i = common; i != length; ++i) {
+			this.path[i + 1] = this.child(this.path[i], testString.get(i));
+		}
+		this.pathLength = length;
+
+		int node = this.path[length];
+		if (this.multiplicity[node]++ == 0) {
+			this.key[node] = testString;
+			this.accept[node] = this.accepting.test(this.state[node]);
+			this.linkState(node);
+		}
+	}
+
+	/**
+	 * Put the result of the simulated string of the given node into the results if it has changed (or
+	 * if <code>force</code> is true).
+	 *
+	 * @param node
+	 *            the given node of a simulated string
+	 * @param force
+	 *            whether to put the result even if whether it's accepted hasn't changed
+	 *
+	 * @return The change in the number of accepted strings (0 if they aren't counted).
+	 */
+	private int evaluate(int node, boolean force) {
+		boolean accept = this.accepting.test(this.state[node]);
+		if (accept == this.accept[node] && !force) {
+			return 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		ArrayList<Integer> testString = (ArrayList<Integer>) this.key[node];
+		this.results.put(testString, accept + ":" + (this.trivial ? 0 : testString.size()));
+		if (!this.count || accept == this.accept[node]) {
+			this.accept[node] = accept;
+			return 0;
+		}
+		this.accept[node] = accept;
+		return (accept ? this.multiplicity[node] : -this.multiplicity[node]);
+	}
+
+	/**
+	 * Push the given node onto the stack.
+	 *
+	 * @param size
+	 *            the number of nodes on the stack
+	 * @param node
+	 *            the given node
+	 *
+	 * @return The new number of nodes on the stack.
+	 */
+	private int push(int size, int node) {
+		if (size == this.stack.length) {
+			this.stack = Arrays.copyOf(this.stack, size << 1);
+		}
+		this.stack[size] = node;
+		return size + 1;
+	}
+
+	/**
+	 * Re-evaluate the simulated strings whose runs take the transition of the given state on the given
+	 * input character after it has changed. Only the subtrees of the prefixes whose last step is that
+	 * transition are visited and a subtree is cut off as soon as its run is back in the state that it was
+	 * in before.
+	 *
+	 * @param from
+	 *            the given state
+	 * @param readCharIndex
+	 *            the given input character index
+	 *
+	 * @return The change in the number of accepted strings (0 if they aren't counted).
+	 */
+	int updateTransition(int from, int readCharIndex) {
+		int size = 0, delta = 0;
+		for (int node = this.getCellHead(from * this.inputAlphabetSize + readCharIndex); node != RunIndex.NONE;
+				node = this.nextInCell[node]) {
+			size = this.push(size, node);
+		}
+		while (size != 0) {
+			int node = this.stack[--size], oldState = this.state[node];
+			int newState = this.next.applyAsInt(this.state[this.parent[node]], this.readChar[node]);
+			if (newState == oldState) {
+				continue;
+			}
+
+			if (this.multiplicity[node] != 0) {
+				this.unlinkState(node);
+				this.state[node] = newState;
+				this.linkState(node);
+				delta += this.evaluate(node, false);
+			} else {
+				this.state[node] = newState;
+			}
+			// The last step of every child now starts from newState
+			for (int child = this.firstChild[node]; child != RunIndex.NONE; child = this.nextSibling[child]) {
+				this.unlinkCell(child, oldState);
+				this.linkCell(child, newState);
+				size = this.push(size, child);
+			}
+		}
+		return delta;
+	}
+
+	/**
+	 * Re-evaluate the simulated strings whose runs end in the given state after it has become an accept
+	 * or reject state (while the machine stays trivial or non-trivial).
+	 *
+	 * @param state
+	 *            the given state
+	 *
+	 * @return The change in the number of accepted strings (0 if they aren't counted).
+	 */
+	int updateState(int state) {
+		int delta = 0;
+		for (int node = this.stateHead[state]; node != RunIndex.NONE; node = this.nextInState[node]) {
+			delta += this.evaluate(node, false);
+		}
+		return delta;
+	}
+
+	/**
+	 * Re-evaluate every simulated string, e.g. after the machine has become trivial or non-trivial (which
+	 * changes the step count of every result) or after many states have changed at once.
+	 *
+	 * @param trivial
+	 *            whether every state of the machine accepts or none does
+	 *
+	 * @return The change in the number of accepted strings (0 if they aren't counted).
+	 */
+	int relabel(boolean trivial) {
+		boolean force = this.trivial != trivial;
+		this.trivial = trivial;
+		int delta = 0;
+		for (int node = 0; node != this.numNodes; ++node) {
+			if (this.multiplicity[node] != 0) {
+				delta += this.evaluate(node, force);
+			}
+		}
+		return delta;
+	}
+}
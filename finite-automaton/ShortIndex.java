@@ -0,0 +1,143 @@
+import java.util.function.IntPredicate;
+
+/**
+ * A bitmap of whether a deterministic finite automaton accepts each string of length at most
+ * {@link #getMaxLength()}, so that such a string is decided by testing a single bit instead of running
+ * the machine.
+ * <p>
+ * The strings of length L come after the <code>(s^L - 1) / (s - 1)</code> shorter ones (where s is the
+ * input alphabet size) and are ordered by their value as base s numbers, so that the bit of a string is
+ * found from its rank alone. The index is built one length at a time from the vector of the states
+ * reached by all of the strings of the previous length. It's a snapshot of the machine that it was built
+ * from, so the machine drops it on every change to its transitions or accept states.
+ */
+final class ShortIndex {
+	/**
+	 * Copies the transitions of a state of a machine.
+	 */
+	@FunctionalInterface
+	interface Rows {
+		/**
+		 * Copy the state reached from the given state on every input character into the given array.
+		 *
+		 * @param state
+		 *            the given state
+		 * @param row
+		 *            the array that the states are written into
+		 * @param offset
+		 *            the index of <code>row</code> that the state reached on the first input character is
+		 *            written at
+		 */
+		void copyRow(int state, int[] row, int offset);
+	}
+
+	/**
+	 * The number of input characters.
+	 */
+	private final int inputAlphabetSize;
+
+	/**
+	 * The max length of the strings in the index.
+	 */
+	private final int maxLength;
+
+	/**
+	 * The bit of every string of length at most <code>maxLength</code>.
+	 */
+	private final long[] bits;
+
+	/**
+	 * Construct a ShortIndex object.
+	 *
+	 * @param inputAlphabetSize
+	 *            the number of input characters
+	 * @param maxLength
+	 *            the max length of the strings in the index
+	 * @param bits
+	 *            the bit of every string
+	 */
+	private ShortIndex(int inputAlphabetSize, int maxLength, long[] bits) {
+		this.inputAlphabetSize = inputAlphabetSize;
+		this.maxLength = maxLength;
+		this.bits = bits;
+	}
+
+	/**
+	 * @param inputAlphabetSize
+	 *            the number of input characters of the machine
+	 * @param maxLength
+	 *            the given (non-negative) max length of the strings in the index
+	 * @param maxBytes
+	 *            the given (non-negative) max number of bytes that building the index may take
+	 * @param rows
+	 *            the transitions of the machine
+	 * @param accepting
+	 *            whether a state of the machine is an accept state
+	 *
+	 * @return The index of the strings of length at most <code>maxLength</code> of the machine (whose
+	 *         start state is 0), or <code>null</code> if the bitmap and the two largest vectors of states
+	 *         would take more than <code>maxBytes</code>.
+	 */
+	static ShortIndex build(int inputAlphabetSize, int maxLength, long maxBytes, Rows rows, IntPredicate accepting) {
+		int s = inputAlphabetSize;
+		long levelSize = 1, numBits = 1, previousSize = 0;
+		for (int length = 1; length <= maxLength; ++length) {
+			previousSize = levelSize;
+			if ((levelSize *= s) > Integer.MAX_VALUE - 8) {
+				return null;
+			}
+			numBits += levelSize;
+		}
+		long numWords = (numBits + Long.SIZE - 1) / Long.SIZE;
+		if (numWords * Long.BYTES + (levelSize + previousSize) * Integer.BYTES > maxBytes) {
+			return null;
+		}
+
+		long[] bits = new long[(int) numWords];
+		int[] current = { 0 };
+		long start = 0;
+		if (accepting.test(0)) {
+			bits[0] = 1;
+		}
+		for (int length = 1; length <= maxLength; ++length) {
+			start += current.length;
+			int[] next = new int[current.length * s];
+			for (int rank = 0; rank != current.length; ++rank) {
+				rows.copyRow(current[rank], next, rank * s);
+			}
+			for (int rank = 0; rank != next.length; ++rank) {
+				if (accepting.test(next[rank])) {
+					long bit = start + rank;
+					bits[(int) (bit >>> 6)] |= 1L << bit;
+				}
+			}
+			current = next;
+		}
+		return new ShortIndex(s, maxLength, bits);
+	}
+
+	/**
+	 * @return <code>this.maxLength</code>.
+	 */
+	int getMaxLength() {
+		return this.maxLength;
+	}
+
+	/**
+	 * @param testString
+	 *            the given test string (of valid input character indices) whose length is at most
+	 *            <code>maxLength</code>
+	 *
+	 * @return Whether the machine accepts <code>testString</code>.
+	 */
+	boolean accept(int[] testString) {
+		long s = this.inputAlphabetSize, start = 0, levelSize = 1, rank = 0;
+		for (int i = 0; i != testString.length; ++i) {
+			start += levelSize;
+			levelSize *= s;
+			rank = rank * s + testString[i];
+		}
+		long bit = start + rank;
+		return ((this.bits[(int) (bit >>> 6)] >>> bit) & 1) != 0;
+	}
+}
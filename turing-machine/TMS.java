@@ -3,11 +3,14 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Scanner;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
  * One-sided infinite tape Turing Machine compiler/simulator.
@@ -30,6 +33,8 @@ public class TMS {
 	// tape/input Index maps tape/input Characters to indices
 	private HashMap<String, Integer> tapeIndex, inputIndex;
 	private String[] tapeAlphabet, inputAlphabet;
+	// inputTrie splits strings into inputCharacters and tapeTrie finds tape characters by their bytes
+	private AlphabetTrie inputTrie, tapeTrie;
 
 	public static final String WHITESPACE_REGEX = "(\\s)+";
 	private static final Pattern WHITESPACE_PATTERN = Pattern.compile(TMS.WHITESPACE_REGEX);
@@ -39,6 +44,13 @@ public class TMS {
 	private String[][] direction;
 	// Array used to keep track of defined transitions
 	private boolean[][] defined;
+	/*
+	 * transitionHash is the XOR of cellHash over every transition that doesn't have the default values
+	 * and it's updated along with the cell that changes so that getStructuralHash (and hashCode) don't
+	 * have to visit the tables. alphabetHash is the hash code of the tape alphabet.
+	 */
+	private long transitionHash;
+	private int alphabetHash;
 	private int totalNumTransitions, numDefinedTransitions;
 	private int[] stateNumDefined;
 
@@ -49,6 +61,8 @@ public class TMS {
 			MIN_TAPE_ALPHABET_SIZE = TMS.MIN_INPUT_ALPHABET_SIZE + TMS.NUM_SPECIAL_TAPE_CHARS;
 
 	public static final String LEFT = "L", RIGHT = "R", STILL = "S";
+	private static final String[] DIRECTIONS = { TMS.LEFT, TMS.RIGHT, TMS.STILL };
+	private static final int RIGHT_INDEX = 1; // Index of RIGHT in DIRECTIONS
 	private String[] validDirections;
 	public static final boolean DEFAULT_INCLUDE_STILL = true;
 	private boolean includeStill;
@@ -121,6 +135,22 @@ public class TMS {
 	 */
 
 	public static final int LINE_1_NUM_ENTRIES = 3, LINE_3_NUM_ENTRIES = 1, COMMAND_LINE_MAX_NUM_ENTRIES = 8;
+	public static final int TRANSITION_NUM_ENTRIES = 5;
+	// Number of transition lines parsed by each task of TMS(Path, true)
+	public static final int PARSE_CHUNK_SIZE = 1 << 12;
+	/*
+	 * Layout of a binary image (see MachineImage) of a turing machine. The strings are the tape
+	 * alphabet (without the special tape characters) followed by the initial string and the comments.
+	 * The tables are row major over the non-halting states and hold the final states, the indices of
+	 * the characters to write, the indices of the directions in DIRECTIONS and a bitmap of the defined
+	 * cells respectively.
+	 */
+	private static final int IMAGE_NUM_STATES = 0, IMAGE_TAPE_ALPHABET_SIZE = 1, IMAGE_INPUT_ALPHABET_SIZE = 2,
+			IMAGE_INCLUDE_STILL = 3, IMAGE_MAX_STRING_COUNT = 4, IMAGE_MIN_LENGTH = 5, IMAGE_MAX_LENGTH = 6,
+			IMAGE_TRACE = 7, IMAGE_TIME_LIMIT = 8, IMAGE_INCLUDE_COMMENTS = 9, IMAGE_NUM_INTS = 10;
+	private static final int IMAGE_MAX_STEPS = 0, IMAGE_MAX_PROCESS_TIME = 1, IMAGE_NUM_LONGS = 2;
+	private static final int IMAGE_NEXT_STATE = 0, IMAGE_CHAR_TO_WRITE = 1, IMAGE_DIRECTION = 2, IMAGE_DEFINED = 3,
+			IMAGE_NUM_TABLES = 4;
 
 	// Every month is 30.5 days on average
 	public static final int SECONDS_PER_MONTH = 18446400, SECONDS_PER_WEEK = 604800, SECONDS_PER_DAY = 86400,
@@ -400,6 +430,7 @@ public class TMS {
 		for (int i = 0; i != inputAlphabetSize; ++i) {
 			this.inputIndex.put(this.inputAlphabet[i], i);
 		}
+		this.inputTrie = new AlphabetTrie(this.inputAlphabet);
 
 		this.tapeAlphabet = new String[this.tapeAlphabetSize = tapeAlphabetSize];
 		// Copy sorted input alphabet into (sorted) tape alphabet
@@ -419,6 +450,8 @@ public class TMS {
 		for (int i = 0; i != tapeAlphabetSize; ++i) {
 			this.tapeIndex.put(this.tapeAlphabet[i], i);
 		}
+		this.alphabetHash = Arrays.hashCode(this.tapeAlphabet);
+		this.tapeTrie = new AlphabetTrie(this.tapeAlphabet);
 
 		this.totalNumTransitions = this.getAcceptState() * tapeAlphabetSize;
 		this.initializeTransitions();
@@ -951,9 +984,9 @@ public class TMS {
 
 	public String[] setIncludeStill(boolean includeStill) {
 		if (this.includeStill = includeStill) {
-			this.validDirections = (String[]) Arrays.asList(TMS.LEFT, TMS.RIGHT, TMS.STILL).toArray();
+			this.validDirections = new String[] { TMS.LEFT, TMS.RIGHT, TMS.STILL };
 		} else {
-			this.validDirections = (String[]) Arrays.asList(TMS.LEFT, TMS.RIGHT).toArray();
+			this.validDirections = new String[] { TMS.LEFT, TMS.RIGHT };
 		}
 
 		String[] result = null;
@@ -1424,30 +1457,61 @@ public class TMS {
 	}
 
 	public ArrayList<Integer> toArray(String s) {
-		if (s == null) {
-			return null;
+		return s == null ? null : this.inputTrie.tokenize(s);
+	}
+
+	/*
+	 * Split s into input characters in a single pass over a precompiled trie of the input alphabet and
+	 * write their indices into a. Returns the number of input characters or -1 if s isn't defined over
+	 * the input alphabet. a needs at most s.length() entries.
+	 */
+	public int toArray(CharSequence s, int[] a) throws IllegalArgumentException {
+		if (s == null || a == null) {
+			this.cause = "Given string or array is null.";
+			this.illegalArg();
 		}
+		try {
+			return this.inputTrie.tokenize(s, a);
+		} catch (IllegalArgumentException ex) {
+			this.cause = "Given array(of length " + a.length + ") is too small.";
+			this.illegalArg();
+			return -1;
+		}
+	}
 
-		ArrayList<Integer> a = new ArrayList<Integer>(s.length());
-		if (s.isEmpty()) {
-			return a;
+	public int toArray(char[] s, int from, int to, int[] a) throws IllegalArgumentException {
+		if (s == null || a == null) {
+			this.cause = "Given char array or array is null.";
+			this.illegalArg();
+		} else if (from < 0 || to > s.length || from > to) {
+			this.cause = "Given range[" + from + ", " + to + ") of the char array isn't valid.";
+			this.illegalArg();
 		}
+		try {
+			return this.inputTrie.tokenize(s, from, to, a);
+		} catch (IllegalArgumentException ex) {
+			this.cause = "Given array(of length " + a.length + ") is too small.";
+			this.illegalArg();
+			return -1;
+		}
+	}
 
-		String check = s;
-		for (int i = 1, index; i <= check.length(); /* Update inside. */) {
-			if ((index = this.inputCharIndexOf(check.substring(0, i))) == -1) {
-				++i;
-			} else {
-				a.add(index);
-				if (i < check.length()) {
-					check = check.substring(i);
-					i = 1;
-				} else {
-					return a;
-				}
-			}
+	// Same as above but s holds the UTF-8 encoding of the string which is never decoded into chars
+	public int toArray(byte[] s, int from, int to, int[] a) throws IllegalArgumentException {
+		if (s == null || a == null) {
+			this.cause = "Given byte array or array is null.";
+			this.illegalArg();
+		} else if (from < 0 || to > s.length || from > to) {
+			this.cause = "Given range[" + from + ", " + to + ") of the byte array isn't valid.";
+			this.illegalArg();
+		}
+		try {
+			return this.inputTrie.tokenize(s, from, to, a);
+		} catch (IllegalArgumentException ex) {
+			this.cause = "Given array(of length " + a.length + ") is too small.";
+			this.illegalArg();
+			return -1;
 		}
-		return null;
 	}
 
 	public String toString(ArrayList<Integer> testString, boolean format) throws IllegalArgumentException {
@@ -1780,252 +1844,273 @@ public class TMS {
 		return new TMS(this.toString());
 	}
 
-	// Creates a turing machine by reading it (in YUTMFF) from in
-	@SuppressWarnings("null")
-	public TMS(Scanner in) throws IllegalArgumentException {
-		this.isScanning = this.isConstructing = true;
-
-		if (in == null) {
-			TMS.staticCause = "Given scanner is null.";
+	// Processes the first line (in YUTMFF) and returns { tapeAlphabetSize, inputAlphabetSize }
+	private int[] scanFirstLine(String line) throws IllegalArgumentException {
+		++this.lineNumber;
+		String[] s = line.split(TMS.DELIMITER_STRING);
+		if (s.length != TMS.LINE_1_NUM_ENTRIES || TMS.countDelimiters(line) != s.length - 1) {
+			TMS.staticCause = "Given first line(" + line + ") isn't valid.";
 			TMS.illegalArg(TMS.getStaticCause());
 		}
 
+		int numStates = TMS.MIN_NUM_STATES;
 		try {
-			if (!in.hasNextLine()) {
-				TMS.staticCause = "Given machine description didn't have a first line.";
-				TMS.illegalArg(TMS.getStaticCause());
-			}
-			// Process first line
-			String line = in.nextLine();
-			++this.lineNumber;
-			String[] s = line.split(TMS.DELIMITER_STRING);
-			if (s.length != TMS.LINE_1_NUM_ENTRIES || TMS.countDelimiters(line) != s.length - 1) {
-				TMS.staticCause = "Given first line(" + line + ") isn't valid.";
-				TMS.illegalArg(TMS.getStaticCause());
-			}
+			numStates = Integer.parseInt(s[0]);
+		} catch (NumberFormatException ex) {
+			TMS.staticCause = "Given number of states(" + s[0] + ") isn't a valid integer.";
+			TMS.illegalArg(TMS.getStaticCause());
+		}
+		try {
+			this.setNumStates(numStates);
+		} catch (IllegalArgumentException ex) {
+			TMS.staticCause = this.getCause();
+			this.illegalArg();
+		}
 
-			int numStates = TMS.MIN_NUM_STATES;
-			try {
-				numStates = Integer.parseInt(s[0]);
-			} catch (NumberFormatException ex) {
-				TMS.staticCause = "Given number of states(" + s[0] + ") isn't a valid integer.";
-				TMS.illegalArg(TMS.getStaticCause());
-			}
-			try {
-				this.setNumStates(numStates);
-			} catch (IllegalArgumentException ex) {
-				TMS.staticCause = this.getCause();
-				this.illegalArg();
-			}
+		int inputAlphabetSize = TMS.MIN_INPUT_ALPHABET_SIZE;
+		try {
+			inputAlphabetSize = Integer.parseInt(s[2]);
+		} catch (NumberFormatException ex) {
+			TMS.staticCause = "Given input alphabet size(" + s[2] + ") isn't a valid integer.";
+			TMS.illegalArg(TMS.getStaticCause());
+		}
 
-			int inputAlphabetSize = TMS.MIN_INPUT_ALPHABET_SIZE;
-			try {
-				inputAlphabetSize = Integer.parseInt(s[2]);
-			} catch (NumberFormatException ex) {
-				TMS.staticCause = "Given input alphabet size(" + s[2] + ") isn't a valid integer.";
-				TMS.illegalArg(TMS.getStaticCause());
-			}
+		int tapeAlphabetSize = inputAlphabetSize + TMS.NUM_SPECIAL_TAPE_CHARS;
+		try {
+			tapeAlphabetSize = Integer.parseInt(s[1]);
+		} catch (NumberFormatException ex) {
+			TMS.staticCause = "Given tape alphabet size(" + s[1] + ") isn't a valid integer.";
+			TMS.illegalArg(TMS.getStaticCause());
+		}
 
-			int tapeAlphabetSize = inputAlphabetSize + TMS.NUM_SPECIAL_TAPE_CHARS;
-			try {
-				tapeAlphabetSize = Integer.parseInt(s[1]);
-			} catch (NumberFormatException ex) {
-				TMS.staticCause = "Given tape alphabet size(" + s[1] + ") isn't a valid integer.";
-				TMS.illegalArg(TMS.getStaticCause());
-			}
+		int[] result = { tapeAlphabetSize, inputAlphabetSize };
+		return result;
+	}
 
-			if (!in.hasNextLine()) {
-				TMS.staticCause = "Given machine description didn't have a second line.";
-				TMS.illegalArg(TMS.getStaticCause());
-			}
-			// Process second line
-			line = in.nextLine();
-			++this.lineNumber;
-			s = line.split(TMS.DELIMITER_STRING);
-			if (s.length != tapeAlphabetSize - TMS.NUM_SPECIAL_TAPE_CHARS
-					|| TMS.countDelimiters(line) != s.length - 1) {
-				TMS.staticCause = "Given second line(" + line + ") isn't valid.";
-				TMS.illegalArg(TMS.getStaticCause());
-			}
-			try {
-				this.setAlphabet(tapeAlphabetSize, inputAlphabetSize, s);
-			} catch (IllegalArgumentException ex) {
-				TMS.staticCause = this.getCause();
-				this.illegalArg();
-			}
+	// Processes the second line (in YUTMFF)
+	private void scanSecondLine(String line, int tapeAlphabetSize, int inputAlphabetSize)
+			throws IllegalArgumentException {
+		++this.lineNumber;
+		String[] s = line.split(TMS.DELIMITER_STRING);
+		if (s.length != tapeAlphabetSize - TMS.NUM_SPECIAL_TAPE_CHARS
+				|| TMS.countDelimiters(line) != s.length - 1) {
+			TMS.staticCause = "Given second line(" + line + ") isn't valid.";
+			TMS.illegalArg(TMS.getStaticCause());
+		}
+		try {
+			this.setAlphabet(tapeAlphabetSize, inputAlphabetSize, s);
+		} catch (IllegalArgumentException ex) {
+			TMS.staticCause = this.getCause();
+			this.illegalArg();
+		}
+	}
 
-			if (!in.hasNextLine()) {
-				TMS.staticCause = "Given machine description didn't have a third line.";
-				TMS.illegalArg(TMS.getStaticCause());
-			}
-			// Process third line
-			line = in.nextLine();
-			++this.lineNumber;
-			s = line.split(TMS.DELIMITER_STRING);
-			if (s.length != TMS.LINE_3_NUM_ENTRIES || TMS.countDelimiters(line) != s.length - 1) {
-				TMS.staticCause = "Given third line(" + line + ") isn't valid.";
-				TMS.illegalArg(TMS.getStaticCause());
-			}
+	// Processes the third line (in YUTMFF) and returns numTransitions
+	private int scanThirdLine(String line) throws IllegalArgumentException {
+		++this.lineNumber;
+		String[] s = line.split(TMS.DELIMITER_STRING);
+		if (s.length != TMS.LINE_3_NUM_ENTRIES || TMS.countDelimiters(line) != s.length - 1) {
+			TMS.staticCause = "Given third line(" + line + ") isn't valid.";
+			TMS.illegalArg(TMS.getStaticCause());
+		}
 
-			int numTransitions = 0;
-			try {
-				if ((numTransitions = Integer.parseInt(s[0])) < 0) {
-					TMS.staticCause = "Given number of transitions(" + numTransitions + ") is negative.";
-					TMS.illegalArg(TMS.getStaticCause());
-				}
-			} catch (NumberFormatException ex) {
-				TMS.staticCause = "Given number of transitions(" + s[0] + ") isn't a valid integer.";
+		int numTransitions = 0;
+		try {
+			if ((numTransitions = Integer.parseInt(s[0])) < 0) {
+				TMS.staticCause = "Given number of transitions(" + numTransitions + ") is negative.";
 				TMS.illegalArg(TMS.getStaticCause());
 			}
+		} catch (NumberFormatException ex) {
+			TMS.staticCause = "Given number of transitions(" + s[0] + ") isn't a valid integer.";
+			TMS.illegalArg(TMS.getStaticCause());
+		}
+		return numTransitions;
+	}
 
-			// Process transition lines
-			String[] transitions = new String[numTransitions];
-			for (int i = 0; i != numTransitions; ++i) {
-				if (!in.hasNextLine()) {
-					TMS.staticCause = "Given machine description didn't have line " + (i + 4) + ".";
+	// Processes the command line (in YUTMFF) where line is null if there isn't one
+	private void scanCommandLine(String line) throws IllegalArgumentException {
+		int readMaxStringCount = TMS.DEFAULT_MAX_STRING_COUNT, readMinLength = TMS.DEFAULT_MIN_LENGTH,
+				readMaxLength = TMS.DEFAULT_MAX_LENGTH;
+		long readMaxSteps = TMS.DEFAULT_MAX_STEPS, readMaxProcessTime = TMS.DEFAULT_MAX_PROCESS_TIME;
+		String readInitialString = TMS.DEFAULT_INITIAL_STRING;
+		if (line != null) {
+			++this.lineNumber;
+			if (!line.isEmpty()) {
+				String[] s = line.split(TMS.DELIMITER_STRING);
+				if (s.length > TMS.COMMAND_LINE_MAX_NUM_ENTRIES || TMS.countDelimiters(line) != s.length - 1) {
+					TMS.staticCause = "Given command line(" + line + ") isn't valid.";
 					TMS.illegalArg(TMS.getStaticCause());
 				}
-				transitions[i] = in.nextLine();
-			}
-			this.setIncludeStill(TMS.DEFAULT_INCLUDE_STILL);
-			try {
-				this.putTransitions(numTransitions, transitions);
-			} catch (IllegalArgumentException ex) {
-				TMS.staticCause = this.getCause();
-				this.illegalArg();
-			}
 
-			int readMaxStringCount = TMS.DEFAULT_MAX_STRING_COUNT, readMinLength = TMS.DEFAULT_MIN_LENGTH,
-					readMaxLength = TMS.DEFAULT_MAX_LENGTH;
-			long readMaxSteps = TMS.DEFAULT_MAX_STEPS, readMaxProcessTime = TMS.DEFAULT_MAX_PROCESS_TIME;
-			String readInitialString = TMS.DEFAULT_INITIAL_STRING;
-			// Process command line
-			if (in.hasNextLine()) {
-				line = in.nextLine();
-				++this.lineNumber;
-				if (!line.isEmpty()) {
-					s = line.split(TMS.DELIMITER_STRING);
-					if (s.length > TMS.COMMAND_LINE_MAX_NUM_ENTRIES || TMS.countDelimiters(line) != s.length - 1) {
-						TMS.staticCause = "Given command line(" + line + ") isn't valid.";
+				try {
+					readMaxStringCount = Integer.parseInt(s[0]);
+				} catch (NumberFormatException ex) {
+					if (!TMS.isDefault(s[0])) {
+						TMS.staticCause = "Given max string count(" + s[0] + ") isn't a valid integer.";
 						TMS.illegalArg(TMS.getStaticCause());
 					}
+				}
 
-					try {
-						readMaxStringCount = Integer.parseInt(s[0]);
-					} catch (NumberFormatException ex) {
-						if (!TMS.isDefault(s[0])) {
-							TMS.staticCause = "Given max string count(" + s[0] + ") isn't a valid integer.";
-							TMS.illegalArg(TMS.getStaticCause());
+				if (readMaxStringCount != 0) {
+					if (s.length == 2) {
+						try {
+							readMaxLength = Integer.parseInt(s[1]);
+						} catch (NumberFormatException ex) {
+							if (!TMS.isDefault(s[1])) {
+								TMS.staticCause = "Given max length(" + s[1] + ") isn't a valid integer.";
+								TMS.illegalArg(TMS.getStaticCause());
+							}
 						}
 					}
 
-					if (readMaxStringCount != 0) {
-						if (s.length == 2) {
-							try {
-								readMaxLength = Integer.parseInt(s[1]);
-							} catch (NumberFormatException ex) {
-								if (!TMS.isDefault(s[1])) {
-									TMS.staticCause = "Given max length(" + s[1] + ") isn't a valid integer.";
-									TMS.illegalArg(TMS.getStaticCause());
-								}
+					if (s.length >= 3) {
+						int first = TMS.DEFAULT_MIN_LENGTH;
+						int second = TMS.DEFAULT_MAX_LENGTH;
+						try {
+							first = Integer.parseInt(s[1]);
+						} catch (NumberFormatException ex) {
+							if (!TMS.isDefault(s[1])) {
+								TMS.staticCause = "Given first value for the string length bounds(" + s[1]
+										+ ") isn't a valid integer.";
+								TMS.illegalArg(TMS.getStaticCause());
 							}
 						}
-
-						if (s.length >= 3) {
-							int first = TMS.DEFAULT_MIN_LENGTH;
-							int second = TMS.DEFAULT_MAX_LENGTH;
-							try {
-								first = Integer.parseInt(s[1]);
-							} catch (NumberFormatException ex) {
-								if (!TMS.isDefault(s[1])) {
-									TMS.staticCause = "Given first value for the string length bounds(" + s[1]
-											+ ") isn't a valid integer.";
-									TMS.illegalArg(TMS.getStaticCause());
-								}
-							}
-							try {
-								second = Integer.parseInt(s[2]);
-							} catch (NumberFormatException ex) {
-								if (!TMS.isDefault(s[2])) {
-									TMS.staticCause = "Given second value for the string length bounds(" + s[2]
-											+ ") isn't a valid integer.";
-									TMS.illegalArg(TMS.getStaticCause());
-								}
+						try {
+							second = Integer.parseInt(s[2]);
+						} catch (NumberFormatException ex) {
+							if (!TMS.isDefault(s[2])) {
+								TMS.staticCause = "Given second value for the string length bounds(" + s[2]
+										+ ") isn't a valid integer.";
+								TMS.illegalArg(TMS.getStaticCause());
 							}
+						}
 
-							readMinLength = Math.min(first, second);
-							readMaxLength = Math.max(first, second);
-							for (int i = 0; i != readMinLength; ++i) {
-								readInitialString += this.inputAlphabet[0];
-							}
+						readMinLength = Math.min(first, second);
+						readMaxLength = Math.max(first, second);
+						for (int i = 0; i != readMinLength; ++i) {
+							readInitialString += this.inputAlphabet[0];
 						}
+					}
 
-						if (s.length >= 4) {
-							try {
-								readMaxSteps = Long.parseLong(s[3]);
-							} catch (NumberFormatException ex) {
-								if (!TMS.isDefault(s[3])) {
-									TMS.staticCause = "Given max steps(" + s[3] + ") isn't a valid integer.";
-									TMS.illegalArg(TMS.getStaticCause());
-								}
+					if (s.length >= 4) {
+						try {
+							readMaxSteps = Long.parseLong(s[3]);
+						} catch (NumberFormatException ex) {
+							if (!TMS.isDefault(s[3])) {
+								TMS.staticCause = "Given max steps(" + s[3] + ") isn't a valid integer.";
+								TMS.illegalArg(TMS.getStaticCause());
 							}
 						}
+					}
 
-						readInitialString = s.length >= 5 ? s[4] : readInitialString;
+					readInitialString = s.length >= 5 ? s[4] : readInitialString;
 
-						if (s.length >= 6) {
-							if (!TMS.isDefault(s[5])) {
-								this.setTrace(TMS.parseBoolean(s[5], "trace"));
-							}
+					if (s.length >= 6) {
+						if (!TMS.isDefault(s[5])) {
+							this.setTrace(TMS.parseBoolean(s[5], "trace"));
 						}
+					}
 
-						if (s.length >= 7) {
-							if (!TMS.isDefault(s[6])) {
-								try {
-									this.setTimeLimit(TMS.parseBoolean(s[6], "time limit"));
-								} catch (IllegalArgumentException ex) {
-									if (s.length == 7) {
-										try {
-											this.validateMaxProcessTime(readMaxProcessTime = Long.parseLong(s[6]));
-											this.setTimeLimit(true);
-										} catch (NumberFormatException ex1) {
-											TMS.staticCause = "Given max process time(" + s[6]
-													+ ") isn't a valid integer.";
-											TMS.illegalArg(TMS.getStaticCause());
-										} catch (IllegalArgumentException ex1) {
-											TMS.staticCause = this.getCause();
-											this.illegalArg();
-										}
-									} else {
+					if (s.length >= 7) {
+						if (!TMS.isDefault(s[6])) {
+							try {
+								this.setTimeLimit(TMS.parseBoolean(s[6], "time limit"));
+							} catch (IllegalArgumentException ex) {
+								if (s.length == 7) {
+									try {
+										this.validateMaxProcessTime(readMaxProcessTime = Long.parseLong(s[6]));
+										this.setTimeLimit(true);
+									} catch (NumberFormatException ex1) {
+										TMS.staticCause = "Given max process time(" + s[6]
+												+ ") isn't a valid integer.";
 										TMS.illegalArg(TMS.getStaticCause());
+									} catch (IllegalArgumentException ex1) {
+										TMS.staticCause = this.getCause();
+										this.illegalArg();
 									}
+								} else {
+									TMS.illegalArg(TMS.getStaticCause());
 								}
 							}
 						}
+					}
 
-						if (this.getTimeLimit() && s.length == 8) {
-							try {
-								readMaxProcessTime = Long.parseLong(s[7]);
-							} catch (NumberFormatException ex) {
-								if (!TMS.isDefault(s[7])) {
-									TMS.staticCause = "Given max process time(" + s[7] + ") isn't a valid integer.";
-									TMS.illegalArg(TMS.getStaticCause());
-								}
+					if (this.getTimeLimit() && s.length == 8) {
+						try {
+							readMaxProcessTime = Long.parseLong(s[7]);
+						} catch (NumberFormatException ex) {
+							if (!TMS.isDefault(s[7])) {
+								TMS.staticCause = "Given max process time(" + s[7] + ") isn't a valid integer.";
+								TMS.illegalArg(TMS.getStaticCause());
 							}
 						}
 					}
 				}
 			}
+		}
+		try {
+			this.setMaxStringCount(readMaxStringCount);
+			this.setRangeString(readMinLength, readMaxLength, readInitialString);
+			this.setMaxSteps(readMaxSteps);
+			this.setMaxProcessTime(readMaxProcessTime);
+		} catch (IllegalArgumentException ex) {
+			TMS.staticCause = this.getCause();
+			this.illegalArg();
+		}
+	}
+
+	// Creates a turing machine by reading it (in YUTMFF) from in
+	@SuppressWarnings("null")
+	public TMS(Scanner in) throws IllegalArgumentException {
+		this.isScanning = this.isConstructing = true;
+
+		if (in == null) {
+			TMS.staticCause = "Given scanner is null.";
+			TMS.illegalArg(TMS.getStaticCause());
+		}
+
+		try {
+			if (!in.hasNextLine()) {
+				TMS.staticCause = "Given machine description didn't have a first line.";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+			// Process first line
+			int[] sizes = this.scanFirstLine(in.nextLine());
+
+			if (!in.hasNextLine()) {
+				TMS.staticCause = "Given machine description didn't have a second line.";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+			// Process second line
+			this.scanSecondLine(in.nextLine(), sizes[0], sizes[1]);
+
+			if (!in.hasNextLine()) {
+				TMS.staticCause = "Given machine description didn't have a third line.";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+			// Process third line
+			int numTransitions = this.scanThirdLine(in.nextLine());
+
+			// Process transition lines
+			String[] transitions = new String[numTransitions];
+			for (int i = 0; i != numTransitions; ++i) {
+				if (!in.hasNextLine()) {
+					TMS.staticCause = "Given machine description didn't have line " + (i + 4) + ".";
+					TMS.illegalArg(TMS.getStaticCause());
+				}
+				transitions[i] = in.nextLine();
+			}
+			this.setIncludeStill(TMS.DEFAULT_INCLUDE_STILL);
 			try {
-				this.setMaxStringCount(readMaxStringCount);
-				this.setRangeString(readMinLength, readMaxLength, readInitialString);
-				this.setMaxSteps(readMaxSteps);
-				this.setMaxProcessTime(readMaxProcessTime);
+				this.putTransitions(numTransitions, transitions);
 			} catch (IllegalArgumentException ex) {
 				TMS.staticCause = this.getCause();
 				this.illegalArg();
 			}
 
+			// Process command line
+			this.scanCommandLine(in.hasNextLine() ? in.nextLine() : null);
+
 			// Process comments
 			this.setIncludeComments(TMS.DEFAULT_INCLUDE_COMMENTS);
 			StringBuilder comments = new StringBuilder();
@@ -2073,6 +2158,250 @@ public class TMS {
 		this(new Scanner(s));
 	}
 
+	// Parses transition lines [from, to) of in starting at line firstLine into { initialState, initialCharIndex,
+	// finalState, finalCharIndex, directionIndex } tuples of parsed where directionIndex indexes
+	// TMS.DIRECTIONS. Lines which aren't made up of two non-negative integers, two tape characters and a
+	// direction separated by single delimiters are marked with an initial state of -1 so that they are
+	// processed by validateTransition instead to report the exact same error.
+	private static void parseTransitions(LineBuffer in, AlphabetTrie trie, int firstLine, int from, int to,
+			int[] parsed) {
+		byte[] bytes = in.getBytes();
+		int[] field = new int[TMS.TRANSITION_NUM_ENTRIES + 1];
+		for (int i = from; i != to; ++i) {
+			int start = in.getLineStart(firstLine + i), end = in.getLineEnd(firstLine + i);
+			// field[j] is the index after the end of the (j - 1)th field
+			field[0] = start - 1;
+			int numFields = 0;
+			while (numFields != TMS.TRANSITION_NUM_ENTRIES && field[numFields] != end) {
+				field[numFields + 1] = in.indexOf(field[numFields] + 1, end, (byte) TMS.DELIMITER_CHAR);
+				++numFields;
+			}
+
+			int index = TMS.TRANSITION_NUM_ENTRIES * i;
+			parsed[index] = -1;
+			if (numFields == TMS.TRANSITION_NUM_ENTRIES && field[numFields] == end
+					&& field[numFields] - field[numFields - 1] == 2) {
+				int initialState = in.parseDigits(start, field[1]);
+				int initialCharIndex = trie.indexOf(bytes, field[1] + 1, field[2]);
+				int finalState = in.parseDigits(field[2] + 1, field[3]);
+				int finalCharIndex = trie.indexOf(bytes, field[3] + 1, field[4]);
+				int directionIndex = TMS.directionIndexOf(bytes[end - 1]);
+				if (initialCharIndex != -1 && finalState != -1 && finalCharIndex != -1 && directionIndex != -1) {
+					parsed[index] = initialState;
+					parsed[index + 1] = initialCharIndex;
+					parsed[index + 2] = finalState;
+					parsed[index + 3] = finalCharIndex;
+					parsed[index + 4] = directionIndex;
+				}
+			}
+		}
+	}
+
+	// Returns the index of the single byte direction b in TMS.DIRECTIONS (or -1 if there isn't one)
+	private static int directionIndexOf(byte b) {
+		for (int i = 0; i != TMS.DIRECTIONS.length; ++i) {
+			if (TMS.DIRECTIONS[i].charAt(0) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Creates a turing machine by reading it (in YUTMFF) from the file with the given path.
+	// The file is read through a FileChannel and transition lines are parsed straight from its bytes and
+	// written directly into the transition arrays. If parallel is true, then transition lines are parsed
+	// in chunks of TMS.PARSE_CHUNK_SIZE lines in parallel before being put in order.
+	public TMS(Path path, boolean parallel) throws IllegalArgumentException, IOException {
+		this.isScanning = this.isConstructing = true;
+
+		if (path == null) {
+			TMS.staticCause = "Given path is null.";
+			TMS.illegalArg(TMS.getStaticCause());
+		}
+
+		LineBuffer in = new LineBuffer(path);
+		try {
+			if (in.getNumLines() < 1) {
+				TMS.staticCause = "Given machine description didn't have a first line.";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+			// Process first line
+			int[] sizes = this.scanFirstLine(in.getLine(0));
+
+			if (in.getNumLines() < 2) {
+				TMS.staticCause = "Given machine description didn't have a second line.";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+			// Process second line
+			this.scanSecondLine(in.getLine(1), sizes[0], sizes[1]);
+
+			if (in.getNumLines() < 3) {
+				TMS.staticCause = "Given machine description didn't have a third line.";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+			// Process third line
+			int numTransitions = this.scanThirdLine(in.getLine(2));
+
+			// Process transition lines
+			if (in.getNumLines() - 3 < numTransitions) {
+				TMS.staticCause = "Given machine description didn't have line " + (in.getNumLines() + 1) + ".";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+			int[] parsed = new int[TMS.TRANSITION_NUM_ENTRIES * numTransitions];
+			if (parallel && numTransitions > TMS.PARSE_CHUNK_SIZE) {
+				int numChunks = (numTransitions - 1) / TMS.PARSE_CHUNK_SIZE + 1;
+				IntStream.range(0, numChunks).parallel()
+						.forEach(chunk -> TMS.parseTransitions(in, this.tapeTrie, 3, chunk * TMS.PARSE_CHUNK_SIZE,
+								Math.min(numTransitions, (chunk + 1) * TMS.PARSE_CHUNK_SIZE), parsed));
+			} else {
+				TMS.parseTransitions(in, this.tapeTrie, 3, 0, numTransitions, parsed);
+			}
+			this.setIncludeStill(TMS.DEFAULT_INCLUDE_STILL);
+			for (int i = 0, j = 0; i != numTransitions; ++i, j += TMS.TRANSITION_NUM_ENTRIES) {
+				int initialState = parsed[j], initialCharIndex = parsed[j + 1], finalState = parsed[j + 2],
+						finalCharIndex = parsed[j + 3];
+				String direction = initialState != -1 ? TMS.DIRECTIONS[parsed[j + 4]] : null;
+				if (initialState != -1 && initialState < this.getAcceptState() && finalState <= this.getRejectState()
+						&& this.isValidDirection(direction)
+						&& (initialCharIndex != this.getLeftendIndex()
+								|| (direction == TMS.RIGHT && finalCharIndex == this.getLeftendIndex()))
+						&& !this.defined[initialState][initialCharIndex]) {
+					++this.lineNumber;
+					this.putTransition(initialState, initialCharIndex, finalState, finalCharIndex, direction);
+				} else {
+					// Fall back on the general path so that the same error is reported
+					String[] transition = { in.getLine(3 + i) };
+					try {
+						this.putTransitions(1, transition);
+					} catch (IllegalArgumentException ex) {
+						TMS.staticCause = this.getCause();
+						this.illegalArg();
+					}
+				}
+			}
+
+			// Process command line
+			int numLines = 3 + numTransitions;
+			this.scanCommandLine(numLines != in.getNumLines() ? in.getLine(numLines++) : null);
+
+			// Process comments
+			this.setIncludeComments(TMS.DEFAULT_INCLUDE_COMMENTS);
+			StringBuilder comments = new StringBuilder();
+			for (int i = numLines; i != in.getNumLines(); ++i) {
+				comments.append(i != numLines ? "\n" : "").append(in.getLine(i));
+				++this.lineNumber;
+			}
+			this.offerComments(comments);
+
+			this.isScanning = this.isConstructing = false;
+			this.cause = TMS.staticCause = null;
+			++TMS.machineCount;
+		} catch (IllegalArgumentException ex) {
+			ex.printStackTrace();
+			throw new IllegalArgumentException(ex.getMessage());
+		}
+	}
+
+	public TMS(Path path) throws IllegalArgumentException, IOException {
+		this(path, false);
+	}
+
+	// Creates a turing machine from the given binary image (see MachineImage) by copying its tables
+	@SuppressWarnings("null")
+	public TMS(MachineImage image) throws IllegalArgumentException {
+		this.isConstructing = true;
+
+		try {
+			if (image == null) {
+				TMS.staticCause = "Given machine image is null.";
+				TMS.illegalArg(TMS.getStaticCause());
+			} else if (image.getKind() != MachineImage.KIND_TMS || image.getNumInts() != TMS.IMAGE_NUM_INTS
+					|| image.getNumLongs() != TMS.IMAGE_NUM_LONGS || image.getNumTables() != TMS.IMAGE_NUM_TABLES) {
+				TMS.staticCause = "Given machine image doesn't describe a valid machine.";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+
+			this.setNumStates(image.getInt(TMS.IMAGE_NUM_STATES));
+			int tapeAlphabetSize = image.getInt(TMS.IMAGE_TAPE_ALPHABET_SIZE);
+			int inputAlphabetSize = image.getInt(TMS.IMAGE_INPUT_ALPHABET_SIZE);
+			int numChars = tapeAlphabetSize - TMS.NUM_SPECIAL_TAPE_CHARS;
+			if (numChars < 0 || image.getNumStrings() != numChars + 2) {
+				TMS.staticCause = "Given machine image doesn't describe a valid machine.";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+			String[] tapeAlphabet = new String[numChars];
+			for (int i = 0; i != numChars; ++i) {
+				tapeAlphabet[i] = image.getString(i);
+			}
+			// setAlphabet sorts the given array so give it a copy
+			this.setAlphabet(tapeAlphabetSize, inputAlphabetSize, tapeAlphabet.clone());
+			if (!Arrays.equals(this.getTapeAlphabet(true), tapeAlphabet)) {
+				// The table columns are only meaningful in the order of the tape alphabet
+				TMS.staticCause = "Given machine image has a tape alphabet which isn't in order.";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+			this.setIncludeStill(image.getInt(TMS.IMAGE_INCLUDE_STILL) != 0);
+
+			int numRows = this.getAcceptState();
+			long numCells = (long) numRows * tapeAlphabetSize;
+			IntBuffer nextState = image.getTable(TMS.IMAGE_NEXT_STATE),
+					charToWrite = image.getTable(TMS.IMAGE_CHAR_TO_WRITE),
+					direction = image.getTable(TMS.IMAGE_DIRECTION), defined = image.getTable(TMS.IMAGE_DEFINED);
+			if (nextState.remaining() != numCells || charToWrite.remaining() != numCells
+					|| direction.remaining() != numCells
+					|| defined.remaining() != (numCells + Integer.SIZE - 1) / Integer.SIZE) {
+				TMS.staticCause = "Given machine image doesn't describe a valid machine.";
+				TMS.illegalArg(TMS.getStaticCause());
+			}
+			for (int i = 0, cell = 0; i != numRows; ++i) {
+				for (int j = 0; j != tapeAlphabetSize; ++j, ++cell) {
+					int finalState = nextState.get(), finalCharIndex = charToWrite.get();
+					int directionIndex = direction.get();
+					if ((defined.get(cell >>> 5) & (1 << cell)) == 0) {
+						if (finalState != i || finalCharIndex != j || directionIndex != TMS.RIGHT_INDEX) {
+							TMS.staticCause = "Given machine image has an undefined transition from state " + i
+									+ " which doesn't have the default values.";
+							TMS.illegalArg(TMS.getStaticCause());
+						}
+					} else if (!this.isValidFinalState(finalState) || !this.isValidTapeCharIndex(finalCharIndex)
+							|| directionIndex < 0 || directionIndex >= TMS.DIRECTIONS.length
+							|| !this.isValidDirection(TMS.DIRECTIONS[directionIndex])) {
+						TMS.staticCause = "Given machine image has an invalid transition from state " + i + ".";
+						TMS.illegalArg(TMS.getStaticCause());
+					} else if (j == this.getLeftendIndex()
+							&& (directionIndex != TMS.RIGHT_INDEX || finalCharIndex != this.getLeftendIndex())) {
+						TMS.staticCause = "Given machine image has a transition from state " + i
+								+ " which wrongfully handles the leftend.";
+						TMS.illegalArg(TMS.getStaticCause());
+					} else {
+						this.putTransition(i, j, finalState, finalCharIndex, TMS.DIRECTIONS[directionIndex]);
+					}
+				}
+			}
+
+			this.setMaxStringCount(image.getInt(TMS.IMAGE_MAX_STRING_COUNT));
+			this.setRangeString(image.getInt(TMS.IMAGE_MIN_LENGTH), image.getInt(TMS.IMAGE_MAX_LENGTH),
+					image.getString(numChars));
+			this.setMaxSteps(image.getLong(TMS.IMAGE_MAX_STEPS));
+			this.setTrace(image.getInt(TMS.IMAGE_TRACE) != 0);
+			this.setTimeLimit(image.getInt(TMS.IMAGE_TIME_LIMIT) != 0);
+			this.setMaxProcessTime(image.getLong(TMS.IMAGE_MAX_PROCESS_TIME));
+			this.setIncludeComments(image.getInt(TMS.IMAGE_INCLUDE_COMMENTS) != 0);
+			this.offerComments(image.getString(numChars + 1));
+			this.isConstructing = false;
+			this.cause = TMS.staticCause = null;
+			++TMS.machineCount;
+		} catch (IllegalArgumentException ex) {
+			ex.printStackTrace();
+			throw new IllegalArgumentException(ex.getMessage());
+		}
+	}
+
+	// Maps the binary image in the file with the given path and creates a turing machine from it
+	public static TMS loadImage(Path path) throws IllegalArgumentException, IOException {
+		return new TMS(MachineImage.map(path, MachineImage.KIND_TMS));
+	}
+
 	@SuppressWarnings("null")
 	public String[] putTransitions(int numTransitions, String[] transitions, boolean[] replace)
 			throws IllegalArgumentException {
@@ -2142,6 +2471,15 @@ public class TMS {
 			this.illegalArg();
 		}
 
+		this.putTransition(initialState, initialCharIndex, finalState, finalCharIndex, direction);
+		return transition;
+	}
+
+	// Assumes the given transition is valid
+	private void putTransition(int initialState, int initialCharIndex, int finalState, int finalCharIndex,
+			String direction) {
+		this.transitionHash ^= this.cellHash(initialState, initialCharIndex)
+				^ this.cellHash(initialState, initialCharIndex, finalState, finalCharIndex, direction);
 		this.nextState[initialState][initialCharIndex] = finalState;
 		this.charToWriteIndex[initialState][initialCharIndex] = finalCharIndex;
 		if (!this.defined[initialState][initialCharIndex]) {
@@ -2159,7 +2497,6 @@ public class TMS {
 		}
 		this.direction[initialState][initialCharIndex] = direction;
 		this.strChange = true;
-		return transition;
 	}
 
 	public String putTransition(int initialState, String initialChar, int finalState, String finalChar,
@@ -2277,6 +2614,7 @@ public class TMS {
 
 	private String resetTransition(int initialState, int initialCharIndex) {
 		String transition = this.getTransition(initialState, initialCharIndex, false);
+		this.transitionHash ^= this.cellHash(initialState, initialCharIndex);
 		// Set default values
 		this.nextState[initialState][initialCharIndex] = initialState;
 		this.charToWriteIndex[initialState][initialCharIndex] = initialCharIndex;
@@ -2389,6 +2727,7 @@ public class TMS {
 		this.direction = new String[a][t];
 		this.defined = new boolean[a][t];
 		this.numDefinedTransitions = 0;
+		this.transitionHash = 0;
 		for (int i = 0; i != a; ++i) {
 			for (int j = 0; j != t; ++j) {
 				// Set default values
@@ -2400,6 +2739,23 @@ public class TMS {
 		this.strChange = true;
 	}
 
+	// Hash of the given transition (0 if it has the default values)
+	private long cellHash(int initialState, int initialCharIndex, int finalState, int finalCharIndex,
+			String direction) {
+		if (finalState == initialState && finalCharIndex == initialCharIndex && direction.equals(TMS.RIGHT)) {
+			return 0;
+		}
+		long cell = (long) initialState * this.getTapeAlphabetSize() + initialCharIndex;
+		return HashMix.mix(HashMix.mix(HashMix.mix(cell) + finalState) + finalCharIndex) ^ direction.hashCode();
+	}
+
+	// Hash of the current transition of initialState on initialCharIndex
+	private long cellHash(int initialState, int initialCharIndex) {
+		return this.cellHash(initialState, initialCharIndex, this.nextState[initialState][initialCharIndex],
+				this.charToWriteIndex[initialState][initialCharIndex],
+				this.direction[initialState][initialCharIndex]);
+	}
+
 	@SuppressWarnings("null")
 	public static int countDelimiters(String s) throws IllegalArgumentException {
 		if (s == null) {
@@ -2497,29 +2853,7 @@ public class TMS {
 		long beforeTime = System.nanoTime();
 		int count = 0;
 		while (testString.size() <= this.getMaxLength() && ++count <= this.getMaxStringCount()) {
-			int output = this.run(testString, count, print);
-			value = output + ":" + this.getStepCount()
-					+ (this.getTimeLimit() ? ":" + this.getElapsedProcessTime() : "");
-			this.results.put(testString, value);
-
-			if (print && !this.getTrace()) {
-				message = this.toString(testString, true);
-				if (output == 1) {
-					message += " was accepted after " + this.comma() + this.getSteps()
-							+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
-				} else if (output == 0) {
-					message += " was rejected after " + this.comma() + this.getSteps()
-							+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
-				} else if (output == -1) {
-					message += " didn't terminate within " + this.comma() + this.getSteps()
-							+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
-				} else { // output == -2
-					message += " didn't terminate within " + this.comma() + this.getSteps()
-							+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
-				}
-				System.out.println(message + ".");
-			}
-
+			value = this.simulate(testString, count, print);
 			this.incrementTestString(testString);
 		}
 		long elapsedTime = TMS.nano2Milli(System.nanoTime() - beforeTime);
@@ -2544,6 +2878,120 @@ public class TMS {
 		return this.simulate(true);
 	}
 
+	// Test testString as part of a simulation, record its result and return it as output:stepCount[:time]
+	private String simulate(ArrayList<Integer> testString, int count, boolean print) {
+		int output = this.run(testString, count, print);
+		String message, value = output + ":" + this.getStepCount()
+				+ (this.getTimeLimit() ? ":" + this.getElapsedProcessTime() : "");
+		// testString may be changed in place afterwards (e.g. for the next iteration) so results needs its own copy
+		this.results.put(new ArrayList<Integer>(testString), value);
+
+		if (print && !this.getTrace()) {
+			message = this.toString(testString, true);
+			if (output == 1) {
+				message += " was accepted after " + this.comma() + this.getSteps()
+						+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
+			} else if (output == 0) {
+				message += " was rejected after " + this.comma() + this.getSteps()
+						+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
+			} else if (output == -1) {
+				message += " didn't terminate within " + this.comma() + this.getSteps()
+						+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
+			} else { // output == -2
+				message += " didn't terminate within " + this.comma() + this.getSteps()
+						+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
+			}
+			System.out.println(message + ".");
+		}
+		return value;
+	}
+
+	/*
+	 * Simulate the machine on the given test strings instead of the ones in the length range (e.g. the
+	 * strings of a ConformanceSuite). The strings are streamed into the results one at a time and every
+	 * one of them is counted regardless of maxStringCount.
+	 */
+	public String simulate(Iterable<ArrayList<Integer>> testStrings, boolean print) throws IllegalArgumentException {
+		if (testStrings == null) {
+			this.cause = "Given test strings are null.";
+			this.illegalArg();
+		}
+		this.isSimulating = true;
+
+		if (print) {
+			this.printMachine();
+			System.out.println("\nStarting to test the given strings.");
+			if (!this.getTrace()) {
+				System.out.print('\n');
+			}
+		}
+
+		boolean countResults = this.count;
+		this.count = true;
+		this.acceptCount = this.rejectCount = this.infiniteCount = 0;
+		this.results = new HashMap<ArrayList<Integer>, String>(this.getMaxStringCount());
+
+		long beforeTime = System.nanoTime();
+		String value = "";
+		int count = 0;
+		for (ArrayList<Integer> testString : testStrings) {
+			if (!this.isValidTestString(testString)) {
+				this.isSimulating = false;
+				this.count = countResults;
+				this.cause = "Given test string(" + testString + ") isn't defined over the given input alphabet.";
+				this.illegalArg();
+			}
+			value = this.simulate(testString, ++count, print);
+		}
+		long elapsedTime = TMS.nano2Milli(System.nanoTime() - beforeTime);
+		this.time = TMS.formatTime(elapsedTime);
+
+		this.actualStringCount = count;
+
+		if (print) {
+			this.printSimulationInfo();
+		}
+
+		this.count = countResults;
+		this.isSimulating = false;
+		if (this.getActualStringCount() == 0) {
+			return null;
+		} else if (this.getActualStringCount() == 1) {
+			return value;
+		}
+		return (this.getAcceptCount() + ":" + this.getRejectCount() + ":" + this.getInfiniteCount());
+	}
+
+	public String simulate(Iterable<ArrayList<Integer>> testStrings) throws IllegalArgumentException {
+		return this.simulate(testStrings, true);
+	}
+
+	/*
+	 * Returns a short set of test strings which takes every defined transition of the input-scanning part
+	 * of the machine at least once along with a report of the coverage. Starting with the first input
+	 * character, a transition on an input character which moves right to a state that doesn't halt reads
+	 * the next input character just like a DFA would, so these transitions are covered by a transition
+	 * tour from the start state. Any other defined transition on an input character is covered by a string
+	 * which ends right after it and the transition of a state on blank is covered by a string which ends
+	 * in that state. Transitions which are only taken after the machine leaves the input are not covered.
+	 */
+	public TransitionCover getTransitionCover() {
+		int n = this.getNumStates(), s = this.getInputAlphabetSize(), a = this.getAcceptState();
+		int[] next = new int[n * s];
+		boolean[] target = new boolean[n * s], endTarget = new boolean[n];
+		Arrays.fill(next, -1);
+		for (int i = 0; i != a; ++i) {
+			for (int j = 0; j != s; ++j) {
+				target[i * s + j] = this.defined[i][j];
+				if (this.direction[i][j].equals(TMS.RIGHT) && this.nextState[i][j] < a) {
+					next[i * s + j] = this.nextState[i][j];
+				}
+			}
+			endTarget[i] = this.defined[i][this.getBlankIndex()];
+		}
+		return new TransitionCover(this.getInputAlphabet(), n, next, target, endTarget, TMS.BLANK, null);
+	}
+
 	private int run(ArrayList<Integer> testString, int count, boolean print) {
 		if (print && this.getTrace() && count != 1) {
 			System.out.print('\n');
@@ -2716,7 +3164,7 @@ public class TMS {
 		}
 
 		for (int i = 1; i != tape.size(); ++i) {
-			if (!this.isValidTapeCharIndex(i)) {
+			if (!this.isValidTapeCharIndex(tape.get(i))) {
 				this.cause = "Character index " + (i + 1)
 						+ " on the given turing machine tape isn't valid(not in the range of "
 						+ this.getTapeCharIndexRange() + ").";
@@ -2995,24 +3443,19 @@ public class TMS {
 		return true;
 	}
 
+	/*
+	 * Returns a 64 bit hash of the structure that equals compares (the number of states, the alphabets
+	 * and every transition) in constant time
+	 */
+	public long getStructuralHash() {
+		long result = HashMix.mix(((long) this.getNumStates() << 32 | this.getTapeAlphabetSize()) ^ this.alphabetHash);
+		return HashMix.mix(result ^ this.getInputAlphabetSize()) ^ this.transitionHash;
+	}
+
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.deepHashCode(this.charToWriteIndex);
-		result = prime * result + Arrays.deepHashCode(this.defined);
-		result = prime * result + Arrays.hashCode(this.inputAlphabet);
-		result = prime * result + this.getInputAlphabetSize();
-		result = prime * result + this.inputIndex.hashCode();
-		result = prime * result + Arrays.deepHashCode(this.direction);
-		result = prime * result + Arrays.deepHashCode(this.nextState);
-		result = prime * result + this.getNumDefinedTransitions();
-		result = prime * result + this.getNumStates();
-		result = prime * result + Arrays.hashCode(this.tapeAlphabet);
-		result = prime * result + this.getTapeAlphabetSize();
-		result = prime * result + this.tapeIndex.hashCode();
-		result = prime * result + this.getTotalNumTransitions();
-		return result;
+		long hash = this.getStructuralHash();
+		return (int) (hash ^ (hash >>> 32));
 	}
 
 	@Override
@@ -3169,6 +3612,47 @@ public class TMS {
 		return this.saveToFile(TMS.DEFAULT_FILE_NAME, false);
 	}
 
+	// Saves the current machine into a binary image (see MachineImage) which is loaded without parsing
+	public void saveToImage(Path path) throws IOException {
+		int numRows = this.getAcceptState(), tapeAlphabetSize = this.getTapeAlphabetSize();
+		int[] ints = new int[TMS.IMAGE_NUM_INTS];
+		ints[TMS.IMAGE_NUM_STATES] = this.getNumStates();
+		ints[TMS.IMAGE_TAPE_ALPHABET_SIZE] = tapeAlphabetSize;
+		ints[TMS.IMAGE_INPUT_ALPHABET_SIZE] = this.getInputAlphabetSize();
+		ints[TMS.IMAGE_INCLUDE_STILL] = this.getIncludeStill() ? 1 : 0;
+		ints[TMS.IMAGE_MAX_STRING_COUNT] = this.getMaxStringCount();
+		ints[TMS.IMAGE_MIN_LENGTH] = this.getMinLength();
+		ints[TMS.IMAGE_MAX_LENGTH] = this.getMaxLength();
+		ints[TMS.IMAGE_TRACE] = this.getTrace() ? 1 : 0;
+		ints[TMS.IMAGE_TIME_LIMIT] = this.getTimeLimit() ? 1 : 0;
+		ints[TMS.IMAGE_INCLUDE_COMMENTS] = this.getIncludeComments() ? 1 : 0;
+		long[] longs = new long[TMS.IMAGE_NUM_LONGS];
+		longs[TMS.IMAGE_MAX_STEPS] = this.getMaxSteps();
+		longs[TMS.IMAGE_MAX_PROCESS_TIME] = this.getMaxProcessTime();
+
+		String[] tapeAlphabet = this.getTapeAlphabet(true);
+		String[] strings = Arrays.copyOf(tapeAlphabet, tapeAlphabet.length + 2);
+		strings[tapeAlphabet.length] = this.getInitialString();
+		strings[tapeAlphabet.length + 1] = this.getComments();
+
+		int[][] tables = new int[TMS.IMAGE_NUM_TABLES][];
+		int numCells = numRows * tapeAlphabetSize;
+		int[] nextState = tables[TMS.IMAGE_NEXT_STATE] = new int[numCells];
+		int[] charToWrite = tables[TMS.IMAGE_CHAR_TO_WRITE] = new int[numCells];
+		int[] direction = tables[TMS.IMAGE_DIRECTION] = new int[numCells];
+		int[] defined = tables[TMS.IMAGE_DEFINED] = new int[(numCells + Integer.SIZE - 1) / Integer.SIZE];
+		for (int i = 0, cell = 0; i != numRows; ++i) {
+			System.arraycopy(this.nextState[i], 0, nextState, cell, tapeAlphabetSize);
+			System.arraycopy(this.charToWriteIndex[i], 0, charToWrite, cell, tapeAlphabetSize);
+			for (int j = 0; j != tapeAlphabetSize; ++j, ++cell) {
+				direction[cell] = Arrays.asList(TMS.DIRECTIONS).indexOf(this.direction[i][j]);
+				defined[cell >>> 5] |= this.defined[i][j] ? 1 << cell : 0;
+			}
+		}
+
+		MachineImage.write(path, MachineImage.KIND_TMS, ints, longs, strings, tables);
+	}
+
 	@SuppressWarnings("null")
 	public static TMS main(TMS m, String[] args, boolean stdin) throws IllegalArgumentException {
 		TMS machine = m;
@@ -3,11 +3,14 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Scanner;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
  * Two-sided infinite tape Turing Machine compiler/simulator.
@@ -30,6 +33,8 @@ public class TMSS {
 	// tape/input Index maps tape/input Characters to indices
 	private HashMap<String, Integer> tapeIndex, inputIndex;
 	private String[] tapeAlphabet, inputAlphabet;
+	// inputTrie splits strings into inputCharacters and tapeTrie finds tape characters by their bytes
+	private AlphabetTrie inputTrie, tapeTrie;
 
 	public static final String WHITESPACE_REGEX = "(\\s)+";
 	private static final Pattern WHITESPACE_PATTERN = Pattern.compile(TMSS.WHITESPACE_REGEX);
@@ -39,6 +44,13 @@ public class TMSS {
 	private String[][] direction;
 	// Array used to keep track of defined transitions
 	private boolean[][] defined;
+	/*
+	 * transitionHash is the XOR of cellHash over every transition that doesn't have the default values
+	 * and it's updated along with the cell that changes so that getStructuralHash (and hashCode) don't
+	 * have to visit the tables. alphabetHash is the hash code of the tape alphabet.
+	 */
+	private long transitionHash;
+	private int alphabetHash;
 	private int totalNumTransitions, numDefinedTransitions;
 	private int[] stateNumDefined;
 
@@ -49,6 +61,8 @@ public class TMSS {
 			MIN_TAPE_ALPHABET_SIZE = TMSS.MIN_INPUT_ALPHABET_SIZE + TMSS.NUM_SPECIAL_TAPE_CHARS;
 
 	public static final String LEFT = "L", RIGHT = "R", STILL = "S";
+	private static final String[] DIRECTIONS = { TMSS.LEFT, TMSS.RIGHT, TMSS.STILL };
+	private static final int RIGHT_INDEX = 1; // Index of RIGHT in DIRECTIONS
 	private String[] validDirections;
 	public static final boolean DEFAULT_INCLUDE_STILL = true;
 	private boolean includeStill;
@@ -121,6 +135,22 @@ public class TMSS {
 	 */
 
 	public static final int LINE_1_NUM_ENTRIES = 3, LINE_3_NUM_ENTRIES = 1, COMMAND_LINE_MAX_NUM_ENTRIES = 8;
+	public static final int TRANSITION_NUM_ENTRIES = 5;
+	// Number of transition lines parsed by each task of TMSS(Path, true)
+	public static final int PARSE_CHUNK_SIZE = 1 << 12;
+	/*
+	 * Layout of a binary image (see MachineImage) of a turing machine. The strings are the tape
+	 * alphabet (without the special tape characters) followed by the initial string and the comments.
+	 * The tables are row major over the non-halting states and hold the final states, the indices of
+	 * the characters to write, the indices of the directions in DIRECTIONS and a bitmap of the defined
+	 * cells respectively.
+	 */
+	private static final int IMAGE_NUM_STATES = 0, IMAGE_TAPE_ALPHABET_SIZE = 1, IMAGE_INPUT_ALPHABET_SIZE = 2,
+			IMAGE_INCLUDE_STILL = 3, IMAGE_MAX_STRING_COUNT = 4, IMAGE_MIN_LENGTH = 5, IMAGE_MAX_LENGTH = 6,
+			IMAGE_TRACE = 7, IMAGE_TIME_LIMIT = 8, IMAGE_INCLUDE_COMMENTS = 9, IMAGE_NUM_INTS = 10;
+	private static final int IMAGE_MAX_STEPS = 0, IMAGE_MAX_PROCESS_TIME = 1, IMAGE_NUM_LONGS = 2;
+	private static final int IMAGE_NEXT_STATE = 0, IMAGE_CHAR_TO_WRITE = 1, IMAGE_DIRECTION = 2, IMAGE_DEFINED = 3,
+			IMAGE_NUM_TABLES = 4;
 
 	// Every month is 30.5 days on average
 	public static final int SECONDS_PER_MONTH = 18446400, SECONDS_PER_WEEK = 604800, SECONDS_PER_DAY = 86400,
@@ -395,6 +425,7 @@ public class TMSS {
 		for (int i = 0; i != inputAlphabetSize; ++i) {
 			this.inputIndex.put(this.inputAlphabet[i], i);
 		}
+		this.inputTrie = new AlphabetTrie(this.inputAlphabet);
 
 		this.tapeAlphabet = new String[this.tapeAlphabetSize = tapeAlphabetSize];
 		// Copy sorted input alphabet into (sorted) tape alphabet
@@ -414,6 +445,8 @@ public class TMSS {
 		for (int i = 0; i != tapeAlphabetSize; ++i) {
 			this.tapeIndex.put(this.tapeAlphabet[i], i);
 		}
+		this.alphabetHash = Arrays.hashCode(this.tapeAlphabet);
+		this.tapeTrie = new AlphabetTrie(this.tapeAlphabet);
 
 		this.totalNumTransitions = this.getAcceptState() * tapeAlphabetSize;
 		this.initializeTransitions();
@@ -947,9 +980,9 @@ public class TMSS {
 
 	public String[] setIncludeStill(boolean includeStill) {
 		if (this.includeStill = includeStill) {
-			this.validDirections = (String[]) Arrays.asList(TMSS.LEFT, TMSS.RIGHT, TMSS.STILL).toArray();
+			this.validDirections = new String[] { TMSS.LEFT, TMSS.RIGHT, TMSS.STILL };
 		} else {
-			this.validDirections = (String[]) Arrays.asList(TMSS.LEFT, TMSS.RIGHT).toArray();
+			this.validDirections = new String[] { TMSS.LEFT, TMSS.RIGHT };
 		}
 
 		String[] result = null;
@@ -1420,30 +1453,61 @@ public class TMSS {
 	}
 
 	public ArrayList<Integer> toArray(String s) {
-		if (s == null) {
-			return null;
+		return s == null ? null : this.inputTrie.tokenize(s);
+	}
+
+	/*
+	 * Split s into input characters in a single pass over a precompiled trie of the input alphabet and
+	 * write their indices into a. Returns the number of input characters or -1 if s isn't defined over
+	 * the input alphabet. a needs at most s.length() entries.
+	 */
+	public int toArray(CharSequence s, int[] a) throws IllegalArgumentException {
+		if (s == null || a == null) {
+			this.cause = "Given string or array is null.";
+			this.illegalArg();
 		}
+		try {
+			return this.inputTrie.tokenize(s, a);
+		} catch (IllegalArgumentException ex) {
+			this.cause = "Given array(of length " + a.length + ") is too small.";
+			this.illegalArg();
+			return -1;
+		}
+	}
 
-		ArrayList<Integer> a = new ArrayList<Integer>(s.length());
-		if (s.isEmpty()) {
-			return a;
+	public int toArray(char[] s, int from, int to, int[] a) throws IllegalArgumentException {
+		if (s == null || a == null) {
+			this.cause = "Given char array or array is null.";
+			this.illegalArg();
+		} else if (from < 0 || to > s.length || from > to) {
+			this.cause = "Given range[" + from + ", " + to + ") of the char array isn't valid.";
+			this.illegalArg();
 		}
+		try {
+			return this.inputTrie.tokenize(s, from, to, a);
+		} catch (IllegalArgumentException ex) {
+			this.cause = "Given array(of length " + a.length + ") is too small.";
+			this.illegalArg();
+			return -1;
+		}
+	}
 
-		String check = s;
-		for (int i = 1, index; i <= check.length(); /* Update inside. */) {
-			if ((index = this.inputCharIndexOf(check.substring(0, i))) == -1) {
-				++i;
-			} else {
-				a.add(index);
-				if (i < check.length()) {
-					check = check.substring(i);
-					i = 1;
-				} else {
-					return a;
-				}
-			}
+	// Same as above but s holds the UTF-8 encoding of the string which is never decoded into chars
+	public int toArray(byte[] s, int from, int to, int[] a) throws IllegalArgumentException {
+		if (s == null || a == null) {
+			this.cause = "Given byte array or array is null.";
+			this.illegalArg();
+		} else if (from < 0 || to > s.length || from > to) {
+			this.cause = "Given range[" + from + ", " + to + ") of the byte array isn't valid.";
+			this.illegalArg();
+		}
+		try {
+			return this.inputTrie.tokenize(s, from, to, a);
+		} catch (IllegalArgumentException ex) {
+			this.cause = "Given array(of length " + a.length + ") is too small.";
+			this.illegalArg();
+			return -1;
 		}
-		return null;
 	}
 
 	public String toString(ArrayList<Integer> testString, boolean format) throws IllegalArgumentException {
@@ -1776,252 +1840,273 @@ public class TMSS {
 		return new TMSS(this.toString());
 	}
 
-	// Creates a turing machine by reading it (in YUTMFF) from in
-	@SuppressWarnings("null")
-	public TMSS(Scanner in) throws IllegalArgumentException {
-		this.isScanning = this.isConstructing = true;
-
-		if (in == null) {
-			TMSS.staticCause = "Given scanner is null.";
+	// Processes the first line (in YUTMFF) and returns { tapeAlphabetSize, inputAlphabetSize }
+	private int[] scanFirstLine(String line) throws IllegalArgumentException {
+		++this.lineNumber;
+		String[] s = line.split(TMSS.DELIMITER_STRING);
+		if (s.length != TMSS.LINE_1_NUM_ENTRIES || TMSS.countDelimiters(line) != s.length - 1) {
+			TMSS.staticCause = "Given first line(" + line + ") isn't valid.";
 			TMSS.illegalArg(TMSS.getStaticCause());
 		}
 
+		int numStates = TMSS.MIN_NUM_STATES;
 		try {
-			if (!in.hasNextLine()) {
-				TMSS.staticCause = "Given machine description didn't have a first line.";
-				TMSS.illegalArg(TMSS.getStaticCause());
-			}
-			// Process first line
-			String line = in.nextLine();
-			++this.lineNumber;
-			String[] s = line.split(TMSS.DELIMITER_STRING);
-			if (s.length != TMSS.LINE_1_NUM_ENTRIES || TMSS.countDelimiters(line) != s.length - 1) {
-				TMSS.staticCause = "Given first line(" + line + ") isn't valid.";
-				TMSS.illegalArg(TMSS.getStaticCause());
-			}
+			numStates = Integer.parseInt(s[0]);
+		} catch (NumberFormatException ex) {
+			TMSS.staticCause = "Given number of states(" + s[0] + ") isn't a valid integer.";
+			TMSS.illegalArg(TMSS.getStaticCause());
+		}
+		try {
+			this.setNumStates(numStates);
+		} catch (IllegalArgumentException ex) {
+			TMSS.staticCause = this.getCause();
+			this.illegalArg();
+		}
 
-			int numStates = TMSS.MIN_NUM_STATES;
-			try {
-				numStates = Integer.parseInt(s[0]);
-			} catch (NumberFormatException ex) {
-				TMSS.staticCause = "Given number of states(" + s[0] + ") isn't a valid integer.";
-				TMSS.illegalArg(TMSS.getStaticCause());
-			}
-			try {
-				this.setNumStates(numStates);
-			} catch (IllegalArgumentException ex) {
-				TMSS.staticCause = this.getCause();
-				this.illegalArg();
-			}
+		int inputAlphabetSize = TMSS.MIN_INPUT_ALPHABET_SIZE;
+		try {
+			inputAlphabetSize = Integer.parseInt(s[2]);
+		} catch (NumberFormatException ex) {
+			TMSS.staticCause = "Given input alphabet size(" + s[2] + ") isn't a valid integer.";
+			TMSS.illegalArg(TMSS.getStaticCause());
+		}
 
-			int inputAlphabetSize = TMSS.MIN_INPUT_ALPHABET_SIZE;
-			try {
-				inputAlphabetSize = Integer.parseInt(s[2]);
-			} catch (NumberFormatException ex) {
-				TMSS.staticCause = "Given input alphabet size(" + s[2] + ") isn't a valid integer.";
-				TMSS.illegalArg(TMSS.getStaticCause());
-			}
+		int tapeAlphabetSize = inputAlphabetSize + TMSS.NUM_SPECIAL_TAPE_CHARS;
+		try {
+			tapeAlphabetSize = Integer.parseInt(s[1]);
+		} catch (NumberFormatException ex) {
+			TMSS.staticCause = "Given tape alphabet size(" + s[1] + ") isn't a valid integer.";
+			TMSS.illegalArg(TMSS.getStaticCause());
+		}
 
-			int tapeAlphabetSize = inputAlphabetSize + TMSS.NUM_SPECIAL_TAPE_CHARS;
-			try {
-				tapeAlphabetSize = Integer.parseInt(s[1]);
-			} catch (NumberFormatException ex) {
-				TMSS.staticCause = "Given tape alphabet size(" + s[1] + ") isn't a valid integer.";
-				TMSS.illegalArg(TMSS.getStaticCause());
-			}
+		int[] result = { tapeAlphabetSize, inputAlphabetSize };
+		return result;
+	}
 
-			if (!in.hasNextLine()) {
-				TMSS.staticCause = "Given machine description didn't have a second line.";
-				TMSS.illegalArg(TMSS.getStaticCause());
-			}
-			// Process second line
-			line = in.nextLine();
-			++this.lineNumber;
-			s = line.split(TMSS.DELIMITER_STRING);
-			if (s.length != tapeAlphabetSize - TMSS.NUM_SPECIAL_TAPE_CHARS
-					|| TMSS.countDelimiters(line) != s.length - 1) {
-				TMSS.staticCause = "Given second line(" + line + ") isn't valid.";
-				TMSS.illegalArg(TMSS.getStaticCause());
-			}
-			try {
-				this.setAlphabet(tapeAlphabetSize, inputAlphabetSize, s);
-			} catch (IllegalArgumentException ex) {
-				TMSS.staticCause = this.getCause();
-				this.illegalArg();
-			}
+	// Processes the second line (in YUTMFF)
+	private void scanSecondLine(String line, int tapeAlphabetSize, int inputAlphabetSize)
+			throws IllegalArgumentException {
+		++this.lineNumber;
+		String[] s = line.split(TMSS.DELIMITER_STRING);
+		if (s.length != tapeAlphabetSize - TMSS.NUM_SPECIAL_TAPE_CHARS
+				|| TMSS.countDelimiters(line) != s.length - 1) {
+			TMSS.staticCause = "Given second line(" + line + ") isn't valid.";
+			TMSS.illegalArg(TMSS.getStaticCause());
+		}
+		try {
+			this.setAlphabet(tapeAlphabetSize, inputAlphabetSize, s);
+		} catch (IllegalArgumentException ex) {
+			TMSS.staticCause = this.getCause();
+			this.illegalArg();
+		}
+	}
 
-			if (!in.hasNextLine()) {
-				TMSS.staticCause = "Given machine description didn't have a third line.";
-				TMSS.illegalArg(TMSS.getStaticCause());
-			}
-			// Process third line
-			line = in.nextLine();
-			++this.lineNumber;
-			s = line.split(TMSS.DELIMITER_STRING);
-			if (s.length != TMSS.LINE_3_NUM_ENTRIES || TMSS.countDelimiters(line) != s.length - 1) {
-				TMSS.staticCause = "Given third line(" + line + ") isn't valid.";
-				TMSS.illegalArg(TMSS.getStaticCause());
-			}
+	// Processes the third line (in YUTMFF) and returns numTransitions
+	private int scanThirdLine(String line) throws IllegalArgumentException {
+		++this.lineNumber;
+		String[] s = line.split(TMSS.DELIMITER_STRING);
+		if (s.length != TMSS.LINE_3_NUM_ENTRIES || TMSS.countDelimiters(line) != s.length - 1) {
+			TMSS.staticCause = "Given third line(" + line + ") isn't valid.";
+			TMSS.illegalArg(TMSS.getStaticCause());
+		}
 
-			int numTransitions = 0;
-			try {
-				if ((numTransitions = Integer.parseInt(s[0])) < 0) {
-					TMSS.staticCause = "Given number of transitions(" + numTransitions + ") is negative.";
-					TMSS.illegalArg(TMSS.getStaticCause());
-				}
-			} catch (NumberFormatException ex) {
-				TMSS.staticCause = "Given number of transitions(" + s[0] + ") isn't a valid integer.";
+		int numTransitions = 0;
+		try {
+			if ((numTransitions = Integer.parseInt(s[0])) < 0) {
+				TMSS.staticCause = "Given number of transitions(" + numTransitions + ") is negative.";
 				TMSS.illegalArg(TMSS.getStaticCause());
 			}
+		} catch (NumberFormatException ex) {
+			TMSS.staticCause = "Given number of transitions(" + s[0] + ") isn't a valid integer.";
+			TMSS.illegalArg(TMSS.getStaticCause());
+		}
+		return numTransitions;
+	}
 
-			// Process transition lines
-			String[] transitions = new String[numTransitions];
-			for (int i = 0; i != numTransitions; ++i) {
-				if (!in.hasNextLine()) {
-					TMSS.staticCause = "Given machine description didn't have line " + (i + 4) + ".";
+	// Processes the command line (in YUTMFF) where line is null if there isn't one
+	private void scanCommandLine(String line) throws IllegalArgumentException {
+		int readMaxStringCount = TMSS.DEFAULT_MAX_STRING_COUNT, readMinLength = TMSS.DEFAULT_MIN_LENGTH,
+				readMaxLength = TMSS.DEFAULT_MAX_LENGTH;
+		long readMaxSteps = TMSS.DEFAULT_MAX_STEPS, readMaxProcessTime = TMSS.DEFAULT_MAX_PROCESS_TIME;
+		String readInitialString = TMSS.DEFAULT_INITIAL_STRING;
+		if (line != null) {
+			++this.lineNumber;
+			if (!line.isEmpty()) {
+				String[] s = line.split(TMSS.DELIMITER_STRING);
+				if (s.length > TMSS.COMMAND_LINE_MAX_NUM_ENTRIES || TMSS.countDelimiters(line) != s.length - 1) {
+					TMSS.staticCause = "Given command line(" + line + ") isn't valid.";
 					TMSS.illegalArg(TMSS.getStaticCause());
 				}
-				transitions[i] = in.nextLine();
-			}
-			this.setIncludeStill(TMSS.DEFAULT_INCLUDE_STILL);
-			try {
-				this.putTransitions(numTransitions, transitions);
-			} catch (IllegalArgumentException ex) {
-				TMSS.staticCause = this.getCause();
-				this.illegalArg();
-			}
 
-			int readMaxStringCount = TMSS.DEFAULT_MAX_STRING_COUNT, readMinLength = TMSS.DEFAULT_MIN_LENGTH,
-					readMaxLength = TMSS.DEFAULT_MAX_LENGTH;
-			long readMaxSteps = TMSS.DEFAULT_MAX_STEPS, readMaxProcessTime = TMSS.DEFAULT_MAX_PROCESS_TIME;
-			String readInitialString = TMSS.DEFAULT_INITIAL_STRING;
-			// Process command line
-			if (in.hasNextLine()) {
-				line = in.nextLine();
-				++this.lineNumber;
-				if (!line.isEmpty()) {
-					s = line.split(TMSS.DELIMITER_STRING);
-					if (s.length > TMSS.COMMAND_LINE_MAX_NUM_ENTRIES || TMSS.countDelimiters(line) != s.length - 1) {
-						TMSS.staticCause = "Given command line(" + line + ") isn't valid.";
+				try {
+					readMaxStringCount = Integer.parseInt(s[0]);
+				} catch (NumberFormatException ex) {
+					if (!TMSS.isDefault(s[0])) {
+						TMSS.staticCause = "Given max string count(" + s[0] + ") isn't a valid integer.";
 						TMSS.illegalArg(TMSS.getStaticCause());
 					}
+				}
 
-					try {
-						readMaxStringCount = Integer.parseInt(s[0]);
-					} catch (NumberFormatException ex) {
-						if (!TMSS.isDefault(s[0])) {
-							TMSS.staticCause = "Given max string count(" + s[0] + ") isn't a valid integer.";
-							TMSS.illegalArg(TMSS.getStaticCause());
+				if (readMaxStringCount != 0) {
+					if (s.length == 2) {
+						try {
+							readMaxLength = Integer.parseInt(s[1]);
+						} catch (NumberFormatException ex) {
+							if (!TMSS.isDefault(s[1])) {
+								TMSS.staticCause = "Given max length(" + s[1] + ") isn't a valid integer.";
+								TMSS.illegalArg(TMSS.getStaticCause());
+							}
 						}
 					}
 
-					if (readMaxStringCount != 0) {
-						if (s.length == 2) {
-							try {
-								readMaxLength = Integer.parseInt(s[1]);
-							} catch (NumberFormatException ex) {
-								if (!TMSS.isDefault(s[1])) {
-									TMSS.staticCause = "Given max length(" + s[1] + ") isn't a valid integer.";
-									TMSS.illegalArg(TMSS.getStaticCause());
-								}
+					if (s.length >= 3) {
+						int first = TMSS.DEFAULT_MIN_LENGTH;
+						int second = TMSS.DEFAULT_MAX_LENGTH;
+						try {
+							first = Integer.parseInt(s[1]);
+						} catch (NumberFormatException ex) {
+							if (!TMSS.isDefault(s[1])) {
+								TMSS.staticCause = "Given first value for the string length bounds(" + s[1]
+										+ ") isn't a valid integer.";
+								TMSS.illegalArg(TMSS.getStaticCause());
 							}
 						}
-
-						if (s.length >= 3) {
-							int first = TMSS.DEFAULT_MIN_LENGTH;
-							int second = TMSS.DEFAULT_MAX_LENGTH;
-							try {
-								first = Integer.parseInt(s[1]);
-							} catch (NumberFormatException ex) {
-								if (!TMSS.isDefault(s[1])) {
-									TMSS.staticCause = "Given first value for the string length bounds(" + s[1]
-											+ ") isn't a valid integer.";
-									TMSS.illegalArg(TMSS.getStaticCause());
-								}
-							}
-							try {
-								second = Integer.parseInt(s[2]);
-							} catch (NumberFormatException ex) {
-								if (!TMSS.isDefault(s[2])) {
-									TMSS.staticCause = "Given second value for the string length bounds(" + s[2]
-											+ ") isn't a valid integer.";
-									TMSS.illegalArg(TMSS.getStaticCause());
-								}
+						try {
+							second = Integer.parseInt(s[2]);
+						} catch (NumberFormatException ex) {
+							if (!TMSS.isDefault(s[2])) {
+								TMSS.staticCause = "Given second value for the string length bounds(" + s[2]
+										+ ") isn't a valid integer.";
+								TMSS.illegalArg(TMSS.getStaticCause());
 							}
+						}
 
-							readMinLength = Math.min(first, second);
-							readMaxLength = Math.max(first, second);
-							for (int i = 0; i != readMinLength; ++i) {
-								readInitialString += this.inputAlphabet[0];
-							}
+						readMinLength = Math.min(first, second);
+						readMaxLength = Math.max(first, second);
+						for (int i = 0; i != readMinLength; ++i) {
+							readInitialString += this.inputAlphabet[0];
 						}
+					}
 
-						if (s.length >= 4) {
-							try {
-								readMaxSteps = Long.parseLong(s[3]);
-							} catch (NumberFormatException ex) {
-								if (!TMSS.isDefault(s[3])) {
-									TMSS.staticCause = "Given max steps(" + s[3] + ") isn't a valid integer.";
-									TMSS.illegalArg(TMSS.getStaticCause());
-								}
+					if (s.length >= 4) {
+						try {
+							readMaxSteps = Long.parseLong(s[3]);
+						} catch (NumberFormatException ex) {
+							if (!TMSS.isDefault(s[3])) {
+								TMSS.staticCause = "Given max steps(" + s[3] + ") isn't a valid integer.";
+								TMSS.illegalArg(TMSS.getStaticCause());
 							}
 						}
+					}
 
-						readInitialString = s.length >= 5 ? s[4] : readInitialString;
+					readInitialString = s.length >= 5 ? s[4] : readInitialString;
 
-						if (s.length >= 6) {
-							if (!TMSS.isDefault(s[5])) {
-								this.setTrace(TMSS.parseBoolean(s[5], "trace"));
-							}
+					if (s.length >= 6) {
+						if (!TMSS.isDefault(s[5])) {
+							this.setTrace(TMSS.parseBoolean(s[5], "trace"));
 						}
+					}
 
-						if (s.length >= 7) {
-							if (!TMSS.isDefault(s[6])) {
-								try {
-									this.setTimeLimit(TMSS.parseBoolean(s[6], "time limit"));
-								} catch (IllegalArgumentException ex) {
-									if (s.length == 7) {
-										try {
-											this.validateMaxProcessTime(readMaxProcessTime = Long.parseLong(s[6]));
-											this.setTimeLimit(true);
-										} catch (NumberFormatException ex1) {
-											TMSS.staticCause = "Given max process time(" + s[6]
-													+ ") isn't a valid integer.";
-											TMSS.illegalArg(TMSS.getStaticCause());
-										} catch (IllegalArgumentException ex1) {
-											TMSS.staticCause = this.getCause();
-											this.illegalArg();
-										}
-									} else {
+					if (s.length >= 7) {
+						if (!TMSS.isDefault(s[6])) {
+							try {
+								this.setTimeLimit(TMSS.parseBoolean(s[6], "time limit"));
+							} catch (IllegalArgumentException ex) {
+								if (s.length == 7) {
+									try {
+										this.validateMaxProcessTime(readMaxProcessTime = Long.parseLong(s[6]));
+										this.setTimeLimit(true);
+									} catch (NumberFormatException ex1) {
+										TMSS.staticCause = "Given max process time(" + s[6]
+												+ ") isn't a valid integer.";
 										TMSS.illegalArg(TMSS.getStaticCause());
+									} catch (IllegalArgumentException ex1) {
+										TMSS.staticCause = this.getCause();
+										this.illegalArg();
 									}
+								} else {
+									TMSS.illegalArg(TMSS.getStaticCause());
 								}
 							}
 						}
+					}
 
-						if (this.getTimeLimit() && s.length == 8) {
-							try {
-								readMaxProcessTime = Long.parseLong(s[7]);
-							} catch (NumberFormatException ex) {
-								if (!TMSS.isDefault(s[7])) {
-									TMSS.staticCause = "Given max process time(" + s[7] + ") isn't a valid integer.";
-									TMSS.illegalArg(TMSS.getStaticCause());
-								}
+					if (this.getTimeLimit() && s.length == 8) {
+						try {
+							readMaxProcessTime = Long.parseLong(s[7]);
+						} catch (NumberFormatException ex) {
+							if (!TMSS.isDefault(s[7])) {
+								TMSS.staticCause = "Given max process time(" + s[7] + ") isn't a valid integer.";
+								TMSS.illegalArg(TMSS.getStaticCause());
 							}
 						}
 					}
 				}
 			}
+		}
+		try {
+			this.setMaxStringCount(readMaxStringCount);
+			this.setRangeString(readMinLength, readMaxLength, readInitialString);
+			this.setMaxSteps(readMaxSteps);
+			this.setMaxProcessTime(readMaxProcessTime);
+		} catch (IllegalArgumentException ex) {
+			TMSS.staticCause = this.getCause();
+			this.illegalArg();
+		}
+	}
+
+	// Creates a turing machine by reading it (in YUTMFF) from in
+	@SuppressWarnings("null")
+	public TMSS(Scanner in) throws IllegalArgumentException {
+		this.isScanning = this.isConstructing = true;
+
+		if (in == null) {
+			TMSS.staticCause = "Given scanner is null.";
+			TMSS.illegalArg(TMSS.getStaticCause());
+		}
+
+		try {
+			if (!in.hasNextLine()) {
+				TMSS.staticCause = "Given machine description didn't have a first line.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+			// Process first line
+			int[] sizes = this.scanFirstLine(in.nextLine());
+
+			if (!in.hasNextLine()) {
+				TMSS.staticCause = "Given machine description didn't have a second line.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+			// Process second line
+			this.scanSecondLine(in.nextLine(), sizes[0], sizes[1]);
+
+			if (!in.hasNextLine()) {
+				TMSS.staticCause = "Given machine description didn't have a third line.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+			// Process third line
+			int numTransitions = this.scanThirdLine(in.nextLine());
+
+			// Process transition lines
+			String[] transitions = new String[numTransitions];
+			for (int i = 0; i != numTransitions; ++i) {
+				if (!in.hasNextLine()) {
+					TMSS.staticCause = "Given machine description didn't have line " + (i + 4) + ".";
+					TMSS.illegalArg(TMSS.getStaticCause());
+				}
+				transitions[i] = in.nextLine();
+			}
+			this.setIncludeStill(TMSS.DEFAULT_INCLUDE_STILL);
 			try {
-				this.setMaxStringCount(readMaxStringCount);
-				this.setRangeString(readMinLength, readMaxLength, readInitialString);
-				this.setMaxSteps(readMaxSteps);
-				this.setMaxProcessTime(readMaxProcessTime);
+				this.putTransitions(numTransitions, transitions);
 			} catch (IllegalArgumentException ex) {
 				TMSS.staticCause = this.getCause();
 				this.illegalArg();
 			}
 
+			// Process command line
+			this.scanCommandLine(in.hasNextLine() ? in.nextLine() : null);
+
 			// Process comments
 			this.setIncludeComments(TMSS.DEFAULT_INCLUDE_COMMENTS);
 			StringBuilder comments = new StringBuilder();
@@ -2069,6 +2154,243 @@ public class TMSS {
 		this(new Scanner(s));
 	}
 
+	// Parses transition lines [from, to) of in starting at line firstLine into { initialState, initialCharIndex,
+	// finalState, finalCharIndex, directionIndex } tuples of parsed where directionIndex indexes
+	// TMSS.DIRECTIONS. Lines which aren't made up of two non-negative integers, two tape characters and a
+	// direction separated by single delimiters are marked with an initial state of -1 so that they are
+	// processed by validateTransition instead to report the exact same error.
+	private static void parseTransitions(LineBuffer in, AlphabetTrie trie, int firstLine, int from, int to,
+			int[] parsed) {
+		byte[] bytes = in.getBytes();
+		int[] field = new int[TMSS.TRANSITION_NUM_ENTRIES + 1];
+		for (int i = from; i != to; ++i) {
+			int start = in.getLineStart(firstLine + i), end = in.getLineEnd(firstLine + i);
+			// field[j] is the index after the end of the (j - 1)th field
+			field[0] = start - 1;
+			int numFields = 0;
+			while (numFields != TMSS.TRANSITION_NUM_ENTRIES && field[numFields] != end) {
+				field[numFields + 1] = in.indexOf(field[numFields] + 1, end, (byte) TMSS.DELIMITER_CHAR);
+				++numFields;
+			}
+
+			int index = TMSS.TRANSITION_NUM_ENTRIES * i;
+			parsed[index] = -1;
+			if (numFields == TMSS.TRANSITION_NUM_ENTRIES && field[numFields] == end
+					&& field[numFields] - field[numFields - 1] == 2) {
+				int initialState = in.parseDigits(start, field[1]);
+				int initialCharIndex = trie.indexOf(bytes, field[1] + 1, field[2]);
+				int finalState = in.parseDigits(field[2] + 1, field[3]);
+				int finalCharIndex = trie.indexOf(bytes, field[3] + 1, field[4]);
+				int directionIndex = TMSS.directionIndexOf(bytes[end - 1]);
+				if (initialCharIndex != -1 && finalState != -1 && finalCharIndex != -1 && directionIndex != -1) {
+					parsed[index] = initialState;
+					parsed[index + 1] = initialCharIndex;
+					parsed[index + 2] = finalState;
+					parsed[index + 3] = finalCharIndex;
+					parsed[index + 4] = directionIndex;
+				}
+			}
+		}
+	}
+
+	// Returns the index of the single byte direction b in TMSS.DIRECTIONS (or -1 if there isn't one)
+	private static int directionIndexOf(byte b) {
+		for (int i = 0; i != TMSS.DIRECTIONS.length; ++i) {
+			if (TMSS.DIRECTIONS[i].charAt(0) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Creates a turing machine by reading it (in YUTMFF) from the file with the given path.
+	// The file is read through a FileChannel and transition lines are parsed straight from its bytes and
+	// written directly into the transition arrays. If parallel is true, then transition lines are parsed
+	// in chunks of TMSS.PARSE_CHUNK_SIZE lines in parallel before being put in order.
+	public TMSS(Path path, boolean parallel) throws IllegalArgumentException, IOException {
+		this.isScanning = this.isConstructing = true;
+
+		if (path == null) {
+			TMSS.staticCause = "Given path is null.";
+			TMSS.illegalArg(TMSS.getStaticCause());
+		}
+
+		LineBuffer in = new LineBuffer(path);
+		try {
+			if (in.getNumLines() < 1) {
+				TMSS.staticCause = "Given machine description didn't have a first line.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+			// Process first line
+			int[] sizes = this.scanFirstLine(in.getLine(0));
+
+			if (in.getNumLines() < 2) {
+				TMSS.staticCause = "Given machine description didn't have a second line.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+			// Process second line
+			this.scanSecondLine(in.getLine(1), sizes[0], sizes[1]);
+
+			if (in.getNumLines() < 3) {
+				TMSS.staticCause = "Given machine description didn't have a third line.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+			// Process third line
+			int numTransitions = this.scanThirdLine(in.getLine(2));
+
+			// Process transition lines
+			if (in.getNumLines() - 3 < numTransitions) {
+				TMSS.staticCause = "Given machine description didn't have line " + (in.getNumLines() + 1) + ".";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+			int[] parsed = new int[TMSS.TRANSITION_NUM_ENTRIES * numTransitions];
+			if (parallel && numTransitions > TMSS.PARSE_CHUNK_SIZE) {
+				int numChunks = (numTransitions - 1) / TMSS.PARSE_CHUNK_SIZE + 1;
+				IntStream.range(0, numChunks).parallel()
+						.forEach(chunk -> TMSS.parseTransitions(in, this.tapeTrie, 3, chunk * TMSS.PARSE_CHUNK_SIZE,
+								Math.min(numTransitions, (chunk + 1) * TMSS.PARSE_CHUNK_SIZE), parsed));
+			} else {
+				TMSS.parseTransitions(in, this.tapeTrie, 3, 0, numTransitions, parsed);
+			}
+			this.setIncludeStill(TMSS.DEFAULT_INCLUDE_STILL);
+			for (int i = 0, j = 0; i != numTransitions; ++i, j += TMSS.TRANSITION_NUM_ENTRIES) {
+				int initialState = parsed[j], initialCharIndex = parsed[j + 1], finalState = parsed[j + 2],
+						finalCharIndex = parsed[j + 3];
+				String direction = initialState != -1 ? TMSS.DIRECTIONS[parsed[j + 4]] : null;
+				if (initialState != -1 && initialState < this.getAcceptState() && finalState <= this.getRejectState()
+						&& this.isValidDirection(direction)
+						&& !this.defined[initialState][initialCharIndex]) {
+					++this.lineNumber;
+					this.putTransition(initialState, initialCharIndex, finalState, finalCharIndex, direction);
+				} else {
+					// Fall back on the general path so that the same error is reported
+					String[] transition = { in.getLine(3 + i) };
+					try {
+						this.putTransitions(1, transition);
+					} catch (IllegalArgumentException ex) {
+						TMSS.staticCause = this.getCause();
+						this.illegalArg();
+					}
+				}
+			}
+
+			// Process command line
+			int numLines = 3 + numTransitions;
+			this.scanCommandLine(numLines != in.getNumLines() ? in.getLine(numLines++) : null);
+
+			// Process comments
+			this.setIncludeComments(TMSS.DEFAULT_INCLUDE_COMMENTS);
+			StringBuilder comments = new StringBuilder();
+			for (int i = numLines; i != in.getNumLines(); ++i) {
+				comments.append(i != numLines ? "\n" : "").append(in.getLine(i));
+				++this.lineNumber;
+			}
+			this.offerComments(comments);
+
+			this.isScanning = this.isConstructing = false;
+			this.cause = TMSS.staticCause = null;
+			++TMSS.machineCount;
+		} catch (IllegalArgumentException ex) {
+			ex.printStackTrace();
+			throw new IllegalArgumentException(ex.getMessage());
+		}
+	}
+
+	public TMSS(Path path) throws IllegalArgumentException, IOException {
+		this(path, false);
+	}
+
+	// Creates a turing machine from the given binary image (see MachineImage) by copying its tables
+	@SuppressWarnings("null")
+	public TMSS(MachineImage image) throws IllegalArgumentException {
+		this.isConstructing = true;
+
+		try {
+			if (image == null) {
+				TMSS.staticCause = "Given machine image is null.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			} else if (image.getKind() != MachineImage.KIND_TMSS || image.getNumInts() != TMSS.IMAGE_NUM_INTS
+					|| image.getNumLongs() != TMSS.IMAGE_NUM_LONGS || image.getNumTables() != TMSS.IMAGE_NUM_TABLES) {
+				TMSS.staticCause = "Given machine image doesn't describe a valid machine.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+
+			this.setNumStates(image.getInt(TMSS.IMAGE_NUM_STATES));
+			int tapeAlphabetSize = image.getInt(TMSS.IMAGE_TAPE_ALPHABET_SIZE);
+			int inputAlphabetSize = image.getInt(TMSS.IMAGE_INPUT_ALPHABET_SIZE);
+			int numChars = tapeAlphabetSize - TMSS.NUM_SPECIAL_TAPE_CHARS;
+			if (numChars < 0 || image.getNumStrings() != numChars + 2) {
+				TMSS.staticCause = "Given machine image doesn't describe a valid machine.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+			String[] tapeAlphabet = new String[numChars];
+			for (int i = 0; i != numChars; ++i) {
+				tapeAlphabet[i] = image.getString(i);
+			}
+			// setAlphabet sorts the given array so give it a copy
+			this.setAlphabet(tapeAlphabetSize, inputAlphabetSize, tapeAlphabet.clone());
+			if (!Arrays.equals(this.getTapeAlphabet(true), tapeAlphabet)) {
+				// The table columns are only meaningful in the order of the tape alphabet
+				TMSS.staticCause = "Given machine image has a tape alphabet which isn't in order.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+			this.setIncludeStill(image.getInt(TMSS.IMAGE_INCLUDE_STILL) != 0);
+
+			int numRows = this.getAcceptState();
+			long numCells = (long) numRows * tapeAlphabetSize;
+			IntBuffer nextState = image.getTable(TMSS.IMAGE_NEXT_STATE),
+					charToWrite = image.getTable(TMSS.IMAGE_CHAR_TO_WRITE),
+					direction = image.getTable(TMSS.IMAGE_DIRECTION), defined = image.getTable(TMSS.IMAGE_DEFINED);
+			if (nextState.remaining() != numCells || charToWrite.remaining() != numCells
+					|| direction.remaining() != numCells
+					|| defined.remaining() != (numCells + Integer.SIZE - 1) / Integer.SIZE) {
+				TMSS.staticCause = "Given machine image doesn't describe a valid machine.";
+				TMSS.illegalArg(TMSS.getStaticCause());
+			}
+			for (int i = 0, cell = 0; i != numRows; ++i) {
+				for (int j = 0; j != tapeAlphabetSize; ++j, ++cell) {
+					int finalState = nextState.get(), finalCharIndex = charToWrite.get();
+					int directionIndex = direction.get();
+					if ((defined.get(cell >>> 5) & (1 << cell)) == 0) {
+						if (finalState != i || finalCharIndex != j || directionIndex != TMSS.RIGHT_INDEX) {
+							TMSS.staticCause = "Given machine image has an undefined transition from state " + i
+									+ " which doesn't have the default values.";
+							TMSS.illegalArg(TMSS.getStaticCause());
+						}
+					} else if (!this.isValidFinalState(finalState) || !this.isValidTapeCharIndex(finalCharIndex)
+							|| directionIndex < 0 || directionIndex >= TMSS.DIRECTIONS.length
+							|| !this.isValidDirection(TMSS.DIRECTIONS[directionIndex])) {
+						TMSS.staticCause = "Given machine image has an invalid transition from state " + i + ".";
+						TMSS.illegalArg(TMSS.getStaticCause());
+					} else {
+						this.putTransition(i, j, finalState, finalCharIndex, TMSS.DIRECTIONS[directionIndex]);
+					}
+				}
+			}
+
+			this.setMaxStringCount(image.getInt(TMSS.IMAGE_MAX_STRING_COUNT));
+			this.setRangeString(image.getInt(TMSS.IMAGE_MIN_LENGTH), image.getInt(TMSS.IMAGE_MAX_LENGTH),
+					image.getString(numChars));
+			this.setMaxSteps(image.getLong(TMSS.IMAGE_MAX_STEPS));
+			this.setTrace(image.getInt(TMSS.IMAGE_TRACE) != 0);
+			this.setTimeLimit(image.getInt(TMSS.IMAGE_TIME_LIMIT) != 0);
+			this.setMaxProcessTime(image.getLong(TMSS.IMAGE_MAX_PROCESS_TIME));
+			this.setIncludeComments(image.getInt(TMSS.IMAGE_INCLUDE_COMMENTS) != 0);
+			this.offerComments(image.getString(numChars + 1));
+			this.isConstructing = false;
+			this.cause = TMSS.staticCause = null;
+			++TMSS.machineCount;
+		} catch (IllegalArgumentException ex) {
+			ex.printStackTrace();
+			throw new IllegalArgumentException(ex.getMessage());
+		}
+	}
+
+	// Maps the binary image in the file with the given path and creates a turing machine from it
+	public static TMSS loadImage(Path path) throws IllegalArgumentException, IOException {
+		return new TMSS(MachineImage.map(path, MachineImage.KIND_TMSS));
+	}
+
 	@SuppressWarnings("null")
 	public String[] putTransitions(int numTransitions, String[] transitions, boolean[] replace)
 			throws IllegalArgumentException {
@@ -2138,6 +2460,15 @@ public class TMSS {
 			this.illegalArg();
 		}
 
+		this.putTransition(initialState, initialCharIndex, finalState, finalCharIndex, direction);
+		return transition;
+	}
+
+	// Assumes the given transition is valid
+	private void putTransition(int initialState, int initialCharIndex, int finalState, int finalCharIndex,
+			String direction) {
+		this.transitionHash ^= this.cellHash(initialState, initialCharIndex)
+				^ this.cellHash(initialState, initialCharIndex, finalState, finalCharIndex, direction);
 		this.nextState[initialState][initialCharIndex] = finalState;
 		this.charToWriteIndex[initialState][initialCharIndex] = finalCharIndex;
 		if (!this.defined[initialState][initialCharIndex]) {
@@ -2155,7 +2486,6 @@ public class TMSS {
 		}
 		this.direction[initialState][initialCharIndex] = direction;
 		this.strChange = true;
-		return transition;
 	}
 
 	public String putTransition(int initialState, String initialChar, int finalState, String finalChar,
@@ -2256,6 +2586,7 @@ public class TMSS {
 
 	private String resetTransition(int initialState, int initialCharIndex) {
 		String transition = this.getTransition(initialState, initialCharIndex, false);
+		this.transitionHash ^= this.cellHash(initialState, initialCharIndex);
 		// Set default values
 		this.nextState[initialState][initialCharIndex] = initialState;
 		this.charToWriteIndex[initialState][initialCharIndex] = initialCharIndex;
@@ -2368,6 +2699,7 @@ public class TMSS {
 		this.direction = new String[a][t];
 		this.defined = new boolean[a][t];
 		this.numDefinedTransitions = 0;
+		this.transitionHash = 0;
 		for (int i = 0; i != a; ++i) {
 			for (int j = 0; j != t; ++j) {
 				// Set default values
@@ -2379,6 +2711,23 @@ public class TMSS {
 		this.strChange = true;
 	}
 
+	// Hash of the given transition (0 if it has the default values)
+	private long cellHash(int initialState, int initialCharIndex, int finalState, int finalCharIndex,
+			String direction) {
+		if (finalState == initialState && finalCharIndex == initialCharIndex && direction.equals(TMSS.RIGHT)) {
+			return 0;
+		}
+		long cell = (long) initialState * this.getTapeAlphabetSize() + initialCharIndex;
+		return HashMix.mix(HashMix.mix(HashMix.mix(cell) + finalState) + finalCharIndex) ^ direction.hashCode();
+	}
+
+	// Hash of the current transition of initialState on initialCharIndex
+	private long cellHash(int initialState, int initialCharIndex) {
+		return this.cellHash(initialState, initialCharIndex, this.nextState[initialState][initialCharIndex],
+				this.charToWriteIndex[initialState][initialCharIndex],
+				this.direction[initialState][initialCharIndex]);
+	}
+
 	@SuppressWarnings("null")
 	public static int countDelimiters(String s) throws IllegalArgumentException {
 		if (s == null) {
@@ -2476,29 +2825,7 @@ public class TMSS {
 		long beforeTime = System.nanoTime();
 		int count = 0;
 		while (testString.size() <= this.getMaxLength() && ++count <= this.getMaxStringCount()) {
-			int output = this.run(testString, count, print);
-			value = output + ":" + this.getStepCount()
-					+ (this.getTimeLimit() ? ":" + this.getElapsedProcessTime() : "");
-			this.results.put(testString, value);
-
-			if (print && !this.getTrace()) {
-				message = this.toString(testString, true);
-				if (output == 1) {
-					message += " was accepted after " + this.comma() + this.getSteps()
-							+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
-				} else if (output == 0) {
-					message += " was rejected after " + this.comma() + this.getSteps()
-							+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
-				} else if (output == -1) {
-					message += " didn't terminate within " + this.comma() + this.getSteps()
-							+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
-				} else { // output == -2
-					message += " didn't terminate within " + this.comma() + this.getSteps()
-							+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
-				}
-				System.out.println(message + ".");
-			}
-
+			value = this.simulate(testString, count, print);
 			this.incrementTestString(testString);
 		}
 		long elapsedTime = TMSS.nano2Milli(System.nanoTime() - beforeTime);
@@ -2523,6 +2850,117 @@ public class TMSS {
 		return this.simulate(true);
 	}
 
+	// Test testString as part of a simulation, record its result and return it as output:stepCount[:time]
+	private String simulate(ArrayList<Integer> testString, int count, boolean print) {
+		int output = this.run(testString, count, print);
+		String message, value = output + ":" + this.getStepCount()
+				+ (this.getTimeLimit() ? ":" + this.getElapsedProcessTime() : "");
+		// testString may be changed in place afterwards (e.g. for the next iteration) so results needs its own copy
+		this.results.put(new ArrayList<Integer>(testString), value);
+
+		if (print && !this.getTrace()) {
+			message = this.toString(testString, true);
+			if (output == 1) {
+				message += " was accepted after " + this.comma() + this.getSteps()
+						+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
+			} else if (output == 0) {
+				message += " was rejected after " + this.comma() + this.getSteps()
+						+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
+			} else if (output == -1) {
+				message += " didn't terminate within " + this.comma() + this.getSteps()
+						+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
+			} else { // output == -2
+				message += " didn't terminate within " + this.comma() + this.getSteps()
+						+ (this.getTimeLimit() ? " in " + this.formatTime() : "");
+			}
+			System.out.println(message + ".");
+		}
+		return value;
+	}
+
+	/*
+	 * Simulate the machine on the given test strings instead of the ones in the length range (e.g. the
+	 * strings of a ConformanceSuite). The strings are streamed into the results one at a time and every
+	 * one of them is counted regardless of maxStringCount.
+	 */
+	public String simulate(Iterable<ArrayList<Integer>> testStrings, boolean print) throws IllegalArgumentException {
+		if (testStrings == null) {
+			this.cause = "Given test strings are null.";
+			this.illegalArg();
+		}
+		this.isSimulating = true;
+
+		if (print) {
+			this.printMachine();
+			System.out.println("\nStarting to test the given strings.");
+			if (!this.getTrace()) {
+				System.out.print('\n');
+			}
+		}
+
+		boolean countResults = this.count;
+		this.count = true;
+		this.acceptCount = this.rejectCount = this.infiniteCount = 0;
+		this.results = new HashMap<ArrayList<Integer>, String>(this.getMaxStringCount());
+
+		long beforeTime = System.nanoTime();
+		String value = "";
+		int count = 0;
+		for (ArrayList<Integer> testString : testStrings) {
+			if (!this.isValidTestString(testString)) {
+				this.isSimulating = false;
+				this.count = countResults;
+				this.cause = "Given test string(" + testString + ") isn't defined over the given input alphabet.";
+				this.illegalArg();
+			}
+			value = this.simulate(testString, ++count, print);
+		}
+		long elapsedTime = TMSS.nano2Milli(System.nanoTime() - beforeTime);
+		this.time = TMSS.formatTime(elapsedTime);
+
+		this.actualStringCount = count;
+
+		if (print) {
+			this.printSimulationInfo();
+		}
+
+		this.count = countResults;
+		this.isSimulating = false;
+		if (this.getActualStringCount() == 0) {
+			return null;
+		} else if (this.getActualStringCount() == 1) {
+			return value;
+		}
+		return (this.getAcceptCount() + ":" + this.getRejectCount() + ":" + this.getInfiniteCount());
+	}
+
+	public String simulate(Iterable<ArrayList<Integer>> testStrings) throws IllegalArgumentException {
+		return this.simulate(testStrings, true);
+	}
+
+	/*
+	 * Returns a short set of test strings which takes every defined transition of the input-scanning part
+	 * of the machine at least once along with a report of the coverage (see TMS.getTransitionCover). The
+	 * head starts on the second cell as it does in simulate (and in ConformanceSuite.check(TMSS)) so
+	 * every string starts with an input character that isn't read.
+	 */
+	public TransitionCover getTransitionCover() {
+		int n = this.getNumStates(), s = this.getInputAlphabetSize(), a = this.getAcceptState();
+		int[] next = new int[n * s];
+		boolean[] target = new boolean[n * s], endTarget = new boolean[n];
+		Arrays.fill(next, -1);
+		for (int i = 0; i != a; ++i) {
+			for (int j = 0; j != s; ++j) {
+				target[i * s + j] = this.defined[i][j];
+				if (this.direction[i][j].equals(TMSS.RIGHT) && this.nextState[i][j] < a) {
+					next[i * s + j] = this.nextState[i][j];
+				}
+			}
+			endTarget[i] = this.defined[i][this.getBlankIndex()];
+		}
+		return new TransitionCover(this.getInputAlphabet(), n, next, target, endTarget, TMSS.BLANK, new int[] { 0 });
+	}
+
 	private int run(ArrayList<Integer> testString, int count, boolean print) {
 		if (print && this.getTrace() && count != 1) {
 			System.out.print('\n');
@@ -2690,7 +3128,7 @@ public class TMSS {
 		}
 
 		for (int i = 0; i != tape.size(); ++i) {
-			if (!this.isValidTapeCharIndex(i)) {
+			if (!this.isValidTapeCharIndex(tape.get(i))) {
 				this.cause = "Character index " + (i + 1)
 						+ " on the given turing machine tape isn't valid(not in the range of "
 						+ this.getTapeCharIndexRange() + ").";
@@ -2977,24 +3415,19 @@ public class TMSS {
 		return true;
 	}
 
+	/*
+	 * Returns a 64 bit hash of the structure that equals compares (the number of states, the alphabets
+	 * and every transition) in constant time
+	 */
+	public long getStructuralHash() {
+		long result = HashMix.mix(((long) this.getNumStates() << 32 | this.getTapeAlphabetSize()) ^ this.alphabetHash);
+		return HashMix.mix(result ^ this.getInputAlphabetSize()) ^ this.transitionHash;
+	}
+
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.deepHashCode(this.charToWriteIndex);
-		result = prime * result + Arrays.deepHashCode(this.defined);
-		result = prime * result + Arrays.hashCode(this.inputAlphabet);
-		result = prime * result + this.getInputAlphabetSize();
-		result = prime * result + this.inputIndex.hashCode();
-		result = prime * result + Arrays.deepHashCode(this.direction);
-		result = prime * result + Arrays.deepHashCode(this.nextState);
-		result = prime * result + this.getNumDefinedTransitions();
-		result = prime * result + this.getNumStates();
-		result = prime * result + Arrays.hashCode(this.tapeAlphabet);
-		result = prime * result + this.getTapeAlphabetSize();
-		result = prime * result + this.tapeIndex.hashCode();
-		result = prime * result + this.getTotalNumTransitions();
-		return result;
+		long hash = this.getStructuralHash();
+		return (int) (hash ^ (hash >>> 32));
 	}
 
 	@Override
@@ -3150,6 +3583,47 @@ public class TMSS {
 		return this.saveToFile(TMSS.DEFAULT_FILE_NAME, false);
 	}
 
+	// Saves the current machine into a binary image (see MachineImage) which is loaded without parsing
+	public void saveToImage(Path path) throws IOException {
+		int numRows = this.getAcceptState(), tapeAlphabetSize = this.getTapeAlphabetSize();
+		int[] ints = new int[TMSS.IMAGE_NUM_INTS];
+		ints[TMSS.IMAGE_NUM_STATES] = this.getNumStates();
+		ints[TMSS.IMAGE_TAPE_ALPHABET_SIZE] = tapeAlphabetSize;
+		ints[TMSS.IMAGE_INPUT_ALPHABET_SIZE] = this.getInputAlphabetSize();
+		ints[TMSS.IMAGE_INCLUDE_STILL] = this.getIncludeStill() ? 1 : 0;
+		ints[TMSS.IMAGE_MAX_STRING_COUNT] = this.getMaxStringCount();
+		ints[TMSS.IMAGE_MIN_LENGTH] = this.getMinLength();
+		ints[TMSS.IMAGE_MAX_LENGTH] = this.getMaxLength();
+		ints[TMSS.IMAGE_TRACE] = this.getTrace() ? 1 : 0;
+		ints[TMSS.IMAGE_TIME_LIMIT] = this.getTimeLimit() ? 1 : 0;
+		ints[TMSS.IMAGE_INCLUDE_COMMENTS] = this.getIncludeComments() ? 1 : 0;
+		long[] longs = new long[TMSS.IMAGE_NUM_LONGS];
+		longs[TMSS.IMAGE_MAX_STEPS] = this.getMaxSteps();
+		longs[TMSS.IMAGE_MAX_PROCESS_TIME] = this.getMaxProcessTime();
+
+		String[] tapeAlphabet = this.getTapeAlphabet(true);
+		String[] strings = Arrays.copyOf(tapeAlphabet, tapeAlphabet.length + 2);
+		strings[tapeAlphabet.length] = this.getInitialString();
+		strings[tapeAlphabet.length + 1] = this.getComments();
+
+		int[][] tables = new int[TMSS.IMAGE_NUM_TABLES][];
+		int numCells = numRows * tapeAlphabetSize;
+		int[] nextState = tables[TMSS.IMAGE_NEXT_STATE] = new int[numCells];
+		int[] charToWrite = tables[TMSS.IMAGE_CHAR_TO_WRITE] = new int[numCells];
+		int[] direction = tables[TMSS.IMAGE_DIRECTION] = new int[numCells];
+		int[] defined = tables[TMSS.IMAGE_DEFINED] = new int[(numCells + Integer.SIZE - 1) / Integer.SIZE];
+		for (int i = 0, cell = 0; i != numRows; ++i) {
+			System.arraycopy(this.nextState[i], 0, nextState, cell, tapeAlphabetSize);
+			System.arraycopy(this.charToWriteIndex[i], 0, charToWrite, cell, tapeAlphabetSize);
+			for (int j = 0; j != tapeAlphabetSize; ++j, ++cell) {
+				direction[cell] = Arrays.asList(TMSS.DIRECTIONS).indexOf(this.direction[i][j]);
+				defined[cell >>> 5] |= this.defined[i][j] ? 1 << cell : 0;
+			}
+		}
+
+		MachineImage.write(path, MachineImage.KIND_TMSS, ints, longs, strings, tables);
+	}
+
 	@SuppressWarnings("null")
 	public static TMSS main(TMSS m, String[] args, boolean stdin) throws IllegalArgumentException {
 		TMSS machine = m;